@@ -0,0 +1,814 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.contrib.runtime.service.mongo;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.wrml.model.Model;
+import org.wrml.model.Named;
+import org.wrml.model.rest.Document;
+import org.wrml.model.rest.Embedded;
+import org.wrml.model.schema.ValueType;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.DimensionsBuilder;
+import org.wrml.runtime.Keys;
+import org.wrml.runtime.ModelBuilder;
+import org.wrml.runtime.format.ModelReadingException;
+import org.wrml.runtime.format.ModelWritingException;
+import org.wrml.runtime.schema.*;
+import org.wrml.runtime.syntax.SyntaxHandler;
+import org.wrml.runtime.syntax.SyntaxLoader;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Converts models to mongoDB objects (and back) directly, by walking the slots of each model's {@link Prototype};
+ * rather than writing the model as JSON text only to have the mongoDB driver parse it (and vice versa).
+ * </p>
+ * <p>
+ * The mongoDB objects have the same structure as the JSON that the {@link MongoService} used to store, so existing
+ * collections remain readable. Like that JSON, they exclude the models' links, collections, embedded document URIs and
+ * (secondary) document URI keys. Slot values are stored as the JSON format would represent them; e.g. the text of
+ * syntax values (URIs, dates, etc.) and the names of enum constants.
+ * </p>
+ * <p>
+ * Each {@link Prototype}'s slots are compiled once into {@link SlotCodec}s that know how to convert the slot's value in
+ * either direction.
+ * </p>
+ */
+final class MongoModelCodec {
+
+    static final String MONGO_ID_FIELD_NAME = "_id";
+
+    private final Context _Context;
+
+    private final ConcurrentHashMap<Prototype, ModelCodec> _ModelCodecs;
+
+    MongoModelCodec(final Context context) {
+
+        _Context = context;
+        _ModelCodecs = new ConcurrentHashMap<>();
+    }
+
+    public Context getContext() {
+
+        return _Context;
+    }
+
+    /**
+     * Converts the model (graph) to a mongoDB object.
+     */
+    DBObject toMongoObject(final Model model) throws ModelWritingException {
+
+        if (model == null) {
+            throw new ModelWritingException("The model cannot be null.", null, this);
+        }
+
+        try {
+            return writeModel(new HashMap<UUID, BasicDBObject>(), model, false);
+        }
+        catch (final RuntimeException e) {
+            throw new ModelWritingException("Encountered an issue while attempting to convert a model: " + e.getMessage(), e, this);
+        }
+    }
+
+    /**
+     * Converts the mongoDB object to a model with the specified (root model) keys and dimensions.
+     */
+    @SuppressWarnings("unchecked")
+    <M extends Model> M toModel(final DBObject mongoObject, final Keys rootModelKeys, final Dimensions rootModelDimensions)
+            throws ModelReadingException {
+
+        if (rootModelDimensions == null || rootModelDimensions.getSchemaUri() == null) {
+            throw new ModelReadingException("The root model Dimensions (and Schema URI) cannot be null.", null, this);
+        }
+
+        try {
+            return (M) readModel(new Reading(rootModelKeys), mongoObject, rootModelDimensions, true);
+        }
+        catch (final ModelReadingException e) {
+            throw e;
+        }
+        catch (final RuntimeException e) {
+            throw new ModelReadingException("Encountered an issue while attempting to convert a mongoDB object: " + e.getMessage(), e,
+                    this);
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " [Codecs = " + _ModelCodecs.size() + "]";
+    }
+
+    private ModelCodec getModelCodec(final URI schemaUri) {
+
+        if (schemaUri == null) {
+            return null;
+        }
+
+        final Prototype prototype = getContext().getSchemaLoader().getPrototype(schemaUri);
+        if (prototype == null) {
+            return null;
+        }
+
+        ModelCodec modelCodec = _ModelCodecs.get(prototype);
+        if (modelCodec == null) {
+            modelCodec = new ModelCodec(prototype, getContext().getSyntaxLoader());
+            _ModelCodecs.put(prototype, modelCodec);
+        }
+
+        return modelCodec;
+    }
+
+    private BasicDBObject writeModel(final Map<UUID, BasicDBObject> written, final Model model, final boolean isSchemaUriRequired) {
+
+        final UUID heapId = model.getHeapId();
+        final BasicDBObject writtenObject = written.get(heapId);
+        if (writtenObject != null) {
+            // The model contains itself; refer to it by heap id (as the JSON format does).
+            writtenObject.put(Model.SLOT_NAME_HEAP_ID, heapId.toString());
+            return new BasicDBObject(Model.SLOT_NAME_HEAP_ID, heapId.toString());
+        }
+
+        final BasicDBObject mongoObject = new BasicDBObject();
+        written.put(heapId, mongoObject);
+
+        final URI schemaUri = model.getSchemaUri();
+        if (isSchemaUriRequired && schemaUri != null) {
+            mongoObject.put(Model.SLOT_NAME_SCHEMA_URI, schemaUri.toString());
+        }
+
+        final Map<String, Object> slotMap = model.getSlotMap();
+        final Dimensions dimensions = model.getDimensions();
+        final ModelCodec modelCodec = getModelCodec(schemaUri);
+
+        Set<String> writtenSlotNames = Collections.emptySet();
+        if (modelCodec != null) {
+            for (final SlotCodec slotCodec : modelCodec._WriteCodecs) {
+
+                final Object value = slotMap.get(slotCodec._RealSlotName);
+                if (value == null || !isSlotIncluded(dimensions, slotCodec._SlotName)) {
+                    continue;
+                }
+
+                final Object mongoValue = writeValue(written, slotCodec, value);
+                if (mongoValue != null) {
+                    mongoObject.put(slotCodec._SlotName, mongoValue);
+                }
+            }
+
+            writtenSlotNames = modelCodec._RealSlotNames;
+        }
+
+        for (final String slotName : slotMap.keySet()) {
+
+            // Any slots that are unknown to the model's schema are written according to their (runtime) type.
+            if (writtenSlotNames.contains(slotName) || !isSlotIncluded(dimensions, slotName)) {
+                continue;
+            }
+
+            final Object value = slotMap.get(slotName);
+            final Object mongoValue = (value != null) ? writeDynamicValue(written, value) : null;
+            if (mongoValue != null) {
+                mongoObject.put(slotName, mongoValue);
+            }
+        }
+
+        return mongoObject;
+    }
+
+    private Object writeValue(final Map<UUID, BasicDBObject> written, final SlotCodec slotCodec, final Object value) {
+
+        switch (slotCodec._Kind) {
+
+            case BOOLEAN:
+            case DOUBLE:
+            case INTEGER:
+            case LONG:
+            case TEXT: {
+
+                if (slotCodec._ValueClass.isInstance(value)) {
+                    return value;
+                }
+
+                break;
+            }
+            case ENUM: {
+
+                if (value instanceof Enum) {
+                    return ((Enum<?>) value).name();
+                }
+
+                break;
+            }
+            case LIST: {
+
+                if (value instanceof List) {
+                    final BasicDBList mongoList = new BasicDBList();
+                    for (final Object element : (List<?>) value) {
+                        final Object mongoElement = (element != null) ? writeValue(written, slotCodec._ElementCodec, element) : null;
+                        if (mongoElement != null) {
+                            mongoList.add(mongoElement);
+                        }
+                    }
+
+                    return (mongoList.isEmpty()) ? null : mongoList;
+                }
+
+                break;
+            }
+            case MODEL: {
+
+                if (value instanceof Model) {
+                    final Model model = (Model) value;
+                    final URI schemaUri = model.getSchemaUri();
+                    final boolean isSchemaUriRequired = slotCodec._ModelSchemaUri != null && schemaUri != null
+                            && !schemaUri.equals(slotCodec._ModelSchemaUri);
+
+                    final BasicDBObject mongoObject = writeModel(written, model, isSchemaUriRequired);
+                    return (mongoObject.isEmpty()) ? null : mongoObject;
+                }
+
+                break;
+            }
+            case SYNTAX: {
+
+                if (slotCodec._ValueClass.isInstance(value)) {
+                    return formatSyntaxValue(slotCodec._SyntaxHandler, value);
+                }
+
+                break;
+            }
+            default: {
+
+                break;
+            }
+
+        } // End of switch
+
+        return writeDynamicValue(written, value);
+    }
+
+    private Object writeDynamicValue(final Map<UUID, BasicDBObject> written, final Object value) {
+
+        final SchemaLoader schemaLoader = getContext().getSchemaLoader();
+        final ValueType valueType = schemaLoader.getValueType(value.getClass());
+
+        switch (valueType) {
+
+            case Boolean:
+            case Double:
+            case Integer:
+            case Long: {
+
+                return value;
+            }
+            case Link:
+            case Model: {
+
+                final BasicDBObject mongoObject = writeModel(written, (Model) value, true);
+                return (mongoObject.isEmpty()) ? null : mongoObject;
+            }
+            case List: {
+
+                final BasicDBList mongoList = new BasicDBList();
+                for (final Object element : (List<?>) value) {
+                    final Object mongoElement = (element != null) ? writeDynamicValue(written, element) : null;
+                    if (mongoElement != null) {
+                        mongoList.add(mongoElement);
+                    }
+                }
+
+                return (mongoList.isEmpty()) ? null : mongoList;
+            }
+            case SingleSelect: {
+
+                return ((Enum<?>) value).name();
+            }
+            default: {
+
+                if (value instanceof String) {
+                    return value;
+                }
+
+                final SyntaxHandler<?> syntaxHandler = getContext().getSyntaxLoader().getSyntaxHandler(value.getClass());
+                return (syntaxHandler != null) ? formatSyntaxValue(syntaxHandler, value) : null;
+            }
+        }
+    }
+
+    private Model readModel(final Reading reading, final DBObject mongoObject, final Dimensions dimensions, final boolean isRoot)
+            throws ModelReadingException {
+
+        // The in-line schemaUri slot is "dimensional" in nature; it determines the type of the model.
+        Dimensions modelDimensions = dimensions;
+        final Object schemaUriValue = mongoObject.get(Model.SLOT_NAME_SCHEMA_URI);
+        if (schemaUriValue != null) {
+            final URI schemaUri = URI.create(schemaUriValue.toString());
+            if (!schemaUri.equals(dimensions.getSchemaUri())) {
+                modelDimensions = reading.getDimensions(schemaUri, dimensions);
+            }
+        }
+
+        final Object heapIdValue = mongoObject.get(Model.SLOT_NAME_HEAP_ID);
+        final UUID heapId = (heapIdValue != null) ? UUID.fromString(heapIdValue.toString()) : null;
+        if (heapId != null && reading._HeapIdModels.containsKey(heapId)) {
+            // A reference to a model that appears earlier in the graph
+            return reading._HeapIdModels.get(heapId);
+        }
+
+        final ModelBuilder modelBuilder = getContext().getModelBuilder();
+        final ModelCodec modelCodec = getModelCodec(modelDimensions.getSchemaUri());
+
+        // Abstract (or unknown) schemas are read as untyped models.
+        final boolean typed = modelCodec != null && !modelCodec._Abstract;
+        Model model = (typed) ? modelBuilder.newEmptyModel(modelDimensions) : modelBuilder.newModel();
+        if (heapId != null) {
+            reading._HeapIdModels.put(heapId, model);
+        }
+
+        final boolean isDocument = typed && modelCodec._Document;
+        if (isDocument) {
+            reading._Documents.push(model);
+        }
+
+        final Map<String, Object> slotMap = model.getSlotMap();
+        for (final String fieldName : mongoObject.keySet()) {
+
+            if (MONGO_ID_FIELD_NAME.equals(fieldName) || Model.SLOT_NAME_SCHEMA_URI.equals(fieldName)
+                    || Model.SLOT_NAME_HEAP_ID.equals(fieldName)) {
+                continue;
+            }
+
+            final Object mongoValue = mongoObject.get(fieldName);
+            if (mongoValue == null) {
+                continue;
+            }
+
+            final SlotCodec slotCodec = (typed) ? modelCodec._SlotCodecs.get(fieldName) : null;
+
+            final Object slotValue;
+            final String realSlotName;
+            if (slotCodec != null) {
+                slotValue = readValue(reading, slotCodec, mongoValue, modelDimensions);
+                realSlotName = slotCodec._RealSlotName;
+            }
+            else {
+                slotValue = readDynamicValue(reading, mongoValue, modelDimensions);
+                realSlotName = fieldName;
+            }
+
+            if (slotValue != null) {
+                slotMap.put(realSlotName, slotValue);
+            }
+        }
+
+        if (isDocument) {
+            reading._Documents.pop();
+        }
+
+        if (!typed && modelDimensions.getSchemaUri() != null) {
+            // Let the model builder report on the (abstract) schema
+            model = model.newAlternate(modelDimensions);
+        }
+        else if (typed && modelCodec._Embedded) {
+
+            // Embedded models need a pointer to their enclosing Document.
+            final Model document = reading._Documents.peek();
+            if (document == null) {
+                throw new ModelReadingException("Model: " + model + " must be embedded within a Document.", null, this);
+            }
+
+            model.setSlotValue(Embedded.SLOT_NAME_DOCUMENT_URI, document.getSlotMap().get(Document.SLOT_NAME_URI));
+        }
+
+        if (isRoot && reading._RootModelKeys != null) {
+            // This is the root model, include all of its requested key values in the slot map.
+            model.initKeySlots(reading._RootModelKeys);
+        }
+
+        return model;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readValue(final Reading reading, final SlotCodec slotCodec, final Object mongoValue, final Dimensions modelDimensions)
+            throws ModelReadingException {
+
+        switch (slotCodec._Kind) {
+
+            case BOOLEAN: {
+
+                if (mongoValue instanceof Boolean) {
+                    return mongoValue;
+                }
+
+                break;
+            }
+            case DOUBLE: {
+
+                if (mongoValue instanceof Number) {
+                    return ((Number) mongoValue).doubleValue();
+                }
+
+                break;
+            }
+            case ENUM: {
+
+                if (mongoValue instanceof String) {
+                    return Enum.valueOf((Class<Enum>) slotCodec._ValueClass, (String) mongoValue);
+                }
+
+                break;
+            }
+            case INTEGER: {
+
+                if (mongoValue instanceof Number) {
+                    return ((Number) mongoValue).intValue();
+                }
+
+                break;
+            }
+            case LIST: {
+
+                if (mongoValue instanceof List) {
+                    final List<?> mongoList = (List<?>) mongoValue;
+                    final List<Object> list = new ArrayList<>(mongoList.size());
+                    for (final Object mongoElement : mongoList) {
+                        list.add((mongoElement != null) ? readValue(reading, slotCodec._ElementCodec, mongoElement, modelDimensions) : null);
+                    }
+
+                    return list;
+                }
+
+                break;
+            }
+            case LONG: {
+
+                if (mongoValue instanceof Number) {
+                    return ((Number) mongoValue).longValue();
+                }
+
+                break;
+            }
+            case MODEL: {
+
+                if (mongoValue instanceof DBObject && !(mongoValue instanceof List)) {
+                    final Dimensions dimensions = reading.getDimensions(slotCodec._ModelSchemaUri, modelDimensions);
+                    return readModel(reading, (DBObject) mongoValue, dimensions, false);
+                }
+
+                break;
+            }
+            case SYNTAX: {
+
+                if (mongoValue instanceof String) {
+                    return slotCodec._SyntaxHandler.parseSyntacticText((String) mongoValue);
+                }
+                else if (slotCodec._ValueClass.isInstance(mongoValue)) {
+                    // e.g. a Date that was stored natively
+                    return mongoValue;
+                }
+
+                break;
+            }
+            case TEXT: {
+
+                if (mongoValue instanceof String) {
+                    return mongoValue;
+                }
+
+                break;
+            }
+            default: {
+
+                return readDynamicValue(reading, mongoValue, modelDimensions);
+            }
+
+        } // End of switch
+
+        throw new ModelReadingException("Unable to read the mongoDB value " + mongoValue + " as the value of the slot named \""
+                + slotCodec._SlotName + "\" (" + slotCodec._Kind + ").", null, this);
+    }
+
+    private Object readDynamicValue(final Reading reading, final Object mongoValue, final Dimensions modelDimensions)
+            throws ModelReadingException {
+
+        if (mongoValue instanceof List) {
+            final List<?> mongoList = (List<?>) mongoValue;
+            final List<Object> list = new ArrayList<>(mongoList.size());
+            for (final Object mongoElement : mongoList) {
+                list.add((mongoElement != null) ? readDynamicValue(reading, mongoElement, modelDimensions) : null);
+            }
+
+            return list;
+        }
+        else if (mongoValue instanceof DBObject) {
+            return readModel(reading, (DBObject) mongoValue, reading.getDimensions(null, modelDimensions), false);
+        }
+
+        return mongoValue;
+    }
+
+    private static boolean isSlotIncluded(final Dimensions dimensions, final String slotName) {
+
+        final List<String> excludedSlotNames = dimensions.getExcludedSlotNames();
+        if (excludedSlotNames != null && !excludedSlotNames.isEmpty()) {
+            return !excludedSlotNames.contains(slotName);
+        }
+
+        final List<String> includedSlotNames = dimensions.getIncludedSlotNames();
+        return includedSlotNames == null || includedSlotNames.isEmpty() || includedSlotNames.contains(slotName);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static String formatSyntaxValue(final SyntaxHandler syntaxHandler, final Object value) {
+
+        return syntaxHandler.formatSyntaxValue(value);
+    }
+
+    /**
+     * The compiled {@link SlotCodec}s of a {@link Prototype}'s slots.
+     */
+    private static final class ModelCodec {
+
+        private final boolean _Abstract;
+
+        private final boolean _Document;
+
+        private final boolean _Embedded;
+
+        /**
+         * The codecs of the slots that are stored, in the order that they are written; the key slots first, then the
+         * "name" slot and then the remaining slots (including aliases) in alphabetical order.
+         */
+        private final SlotCodec[] _WriteCodecs;
+
+        /**
+         * All of the slots' codecs, keyed by slot name (including aliases).
+         */
+        private final Map<String, SlotCodec> _SlotCodecs;
+
+        private final Set<String> _RealSlotNames;
+
+        ModelCodec(final Prototype prototype, final SyntaxLoader syntaxLoader) {
+
+            _Abstract = prototype.isAbstract();
+
+            final Class<?> schemaInterface = prototype.getSchemaBean().getIntrospectedClass();
+            _Document = Document.class.isAssignableFrom(schemaInterface);
+            _Embedded = Embedded.class.isAssignableFrom(schemaInterface);
+
+            final SortedSet<String> allSlotNames = prototype.getAllSlotNames();
+            final Set<String> allKeySlotNames = prototype.getAllKeySlotNames();
+
+            final Set<String> orderedSlotNames = new LinkedHashSet<>(allSlotNames.size());
+            for (final String keySlotName : allKeySlotNames) {
+                if (allSlotNames.contains(keySlotName)) {
+                    orderedSlotNames.add(keySlotName);
+                }
+            }
+
+            if (allSlotNames.contains(Named.SLOT_NAME_NAME)) {
+                orderedSlotNames.add(Named.SLOT_NAME_NAME);
+            }
+
+            orderedSlotNames.addAll(allSlotNames);
+
+            final SchemaLoader schemaLoader = prototype.getSchemaLoader();
+            final URI linkSchemaUri = schemaLoader.getTypeUri(ValueType.JAVA_TYPE_LINK);
+
+            _SlotCodecs = new HashMap<>(orderedSlotNames.size());
+            _RealSlotNames = new HashSet<>(orderedSlotNames.size());
+            final List<SlotCodec> writeCodecs = new ArrayList<>(orderedSlotNames.size());
+            for (final String slotName : orderedSlotNames) {
+
+                final ProtoSlot protoSlot = prototype.getProtoSlot(slotName);
+                final String realSlotName = protoSlot.getRealName();
+
+                final SlotCodec slotCodec;
+                if (protoSlot instanceof LinkProtoSlot) {
+                    slotCodec = new SlotCodec(slotName, realSlotName, Kind.MODEL, null, null, linkSchemaUri, null);
+                }
+                else if (protoSlot instanceof PropertyProtoSlot) {
+                    slotCodec = newPropertySlotCodec(slotName, realSlotName, (PropertyProtoSlot) protoSlot, syntaxLoader);
+                }
+                else {
+                    slotCodec = new SlotCodec(slotName, realSlotName, Kind.DYNAMIC, null, null, null, null);
+                }
+
+                _SlotCodecs.put(slotName, slotCodec);
+                _RealSlotNames.add(realSlotName);
+
+                // The links, collections, embedded document URIs and (secondary) document URI keys are not stored.
+                if ((Document.SLOT_NAME_URI.equals(realSlotName) && allKeySlotNames.size() > 1) ||
+                        (_Embedded && Embedded.SLOT_NAME_DOCUMENT_URI.equals(realSlotName)) ||
+                        protoSlot instanceof LinkProtoSlot || protoSlot instanceof CollectionPropertyProtoSlot) {
+                    continue;
+                }
+
+                writeCodecs.add(slotCodec);
+            }
+
+            _WriteCodecs = writeCodecs.toArray(new SlotCodec[writeCodecs.size()]);
+        }
+
+        private static SlotCodec newPropertySlotCodec(final String slotName, final String realSlotName,
+                                                      final PropertyProtoSlot propertyProtoSlot, final SyntaxLoader syntaxLoader) {
+
+            final ValueType valueType = propertyProtoSlot.getValueType();
+            if (valueType == ValueType.Model) {
+                return new SlotCodec(slotName, realSlotName, Kind.MODEL, null, null, propertyProtoSlot.getModelSchemaUri(), null);
+            }
+            else if (valueType == ValueType.List) {
+                final Type elementType = propertyProtoSlot.getListElementType();
+                final SlotCodec elementCodec;
+                if (ValueType.isModelType(elementType)) {
+                    elementCodec = new SlotCodec(slotName, realSlotName, Kind.MODEL, null, null, propertyProtoSlot.getListElementSchemaUri(),
+                            null);
+                }
+                else {
+                    elementCodec = newValueSlotCodec(slotName, realSlotName, elementType, syntaxLoader);
+                }
+
+                return new SlotCodec(slotName, realSlotName, Kind.LIST, null, null, null, elementCodec);
+            }
+
+            return newValueSlotCodec(slotName, realSlotName, propertyProtoSlot.getHeapValueType(), syntaxLoader);
+        }
+
+        private static SlotCodec newValueSlotCodec(final String slotName, final String realSlotName, final Type type,
+                                                   final SyntaxLoader syntaxLoader) {
+
+            if (!(type instanceof Class<?>)) {
+                return new SlotCodec(slotName, realSlotName, Kind.DYNAMIC, null, null, null, null);
+            }
+
+            final Class<?> valueClass = (Class<?>) type;
+            final Kind kind;
+            final Class<?> boxedValueClass;
+            if (String.class.equals(valueClass)) {
+                kind = Kind.TEXT;
+                boxedValueClass = String.class;
+            }
+            else if (Integer.class.equals(valueClass) || int.class.equals(valueClass)) {
+                kind = Kind.INTEGER;
+                boxedValueClass = Integer.class;
+            }
+            else if (Long.class.equals(valueClass) || long.class.equals(valueClass)) {
+                kind = Kind.LONG;
+                boxedValueClass = Long.class;
+            }
+            else if (Double.class.equals(valueClass) || double.class.equals(valueClass)) {
+                kind = Kind.DOUBLE;
+                boxedValueClass = Double.class;
+            }
+            else if (Boolean.class.equals(valueClass) || boolean.class.equals(valueClass)) {
+                kind = Kind.BOOLEAN;
+                boxedValueClass = Boolean.class;
+            }
+            else if (valueClass.isEnum()) {
+                kind = Kind.ENUM;
+                boxedValueClass = valueClass;
+            }
+            else {
+                final SyntaxHandler<?> syntaxHandler = syntaxLoader.getSyntaxHandler(valueClass);
+                if (syntaxHandler != null) {
+                    return new SlotCodec(slotName, realSlotName, Kind.SYNTAX, valueClass, syntaxHandler, null, null);
+                }
+
+                return new SlotCodec(slotName, realSlotName, Kind.DYNAMIC, null, null, null, null);
+            }
+
+            return new SlotCodec(slotName, realSlotName, kind, boxedValueClass, null, null, null);
+        }
+    }
+
+    /**
+     * A compiled converter of the value of one slot (or list element).
+     */
+    private static final class SlotCodec {
+
+        private final String _SlotName;
+
+        private final String _RealSlotName;
+
+        private final Kind _Kind;
+
+        private final Class<?> _ValueClass;
+
+        private final SyntaxHandler<?> _SyntaxHandler;
+
+        /**
+         * The declared schema of the nested model (for {@link Kind#MODEL} codecs).
+         */
+        private final URI _ModelSchemaUri;
+
+        private final SlotCodec _ElementCodec;
+
+        SlotCodec(final String slotName, final String realSlotName, final Kind kind, final Class<?> valueClass,
+                  final SyntaxHandler<?> syntaxHandler, final URI modelSchemaUri, final SlotCodec elementCodec) {
+
+            _SlotName = slotName;
+            _RealSlotName = realSlotName;
+            _Kind = kind;
+            _ValueClass = valueClass;
+            _SyntaxHandler = syntaxHandler;
+            _ModelSchemaUri = modelSchemaUri;
+            _ElementCodec = elementCodec;
+        }
+    }
+
+    /**
+     * The ways in which a slot's value may be converted.
+     */
+    private static enum Kind {
+
+        BOOLEAN,
+
+        DOUBLE,
+
+        /**
+         * The value is converted according to its (runtime) type.
+         */
+        DYNAMIC,
+
+        ENUM,
+
+        INTEGER,
+
+        LIST,
+
+        LONG,
+
+        MODEL,
+
+        /**
+         * The value is stored as the text of its {@link SyntaxHandler}.
+         */
+        SYNTAX,
+
+        TEXT
+    }
+
+    /**
+     * The state of a single {@link #toModel(DBObject, Keys, Dimensions)} call.
+     */
+    private static final class Reading {
+
+        private final Keys _RootModelKeys;
+
+        private final Map<URI, Dimensions> _Dimensions;
+
+        private final Deque<Model> _Documents;
+
+        private final Map<UUID, Model> _HeapIdModels;
+
+        Reading(final Keys rootModelKeys) {
+
+            _RootModelKeys = rootModelKeys;
+            _Dimensions = new HashMap<>();
+            _Documents = new ArrayDeque<>();
+            _HeapIdModels = new HashMap<>();
+        }
+
+        Dimensions getDimensions(final URI schemaUri, final Dimensions parentDimensions) {
+
+            Dimensions dimensions = _Dimensions.get(schemaUri);
+            if (dimensions == null) {
+                dimensions = new DimensionsBuilder(parentDimensions).setSchemaUri(schemaUri).toDimensions();
+                _Dimensions.put(schemaUri, dimensions);
+            }
+
+            return dimensions;
+        }
+    }
+}
@@ -25,7 +25,7 @@
 package org.wrml.contrib.runtime.service.mongo;
 
 import com.mongodb.*;
-import com.mongodb.util.JSON;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wrml.model.Model;
@@ -36,25 +36,23 @@ import org.wrml.runtime.Context;
 import org.wrml.runtime.Dimensions;
 import org.wrml.runtime.Keys;
 import org.wrml.runtime.format.ModelReadingException;
-import org.wrml.runtime.format.ModelWriteOptions;
 import org.wrml.runtime.format.ModelWritingException;
-import org.wrml.runtime.format.SystemFormat;
 import org.wrml.runtime.schema.Prototype;
 import org.wrml.runtime.schema.SchemaLoader;
+import org.wrml.runtime.search.IteratorSearchResults;
 import org.wrml.runtime.search.SearchCriteria;
 import org.wrml.runtime.search.SearchCriterion;
+import org.wrml.runtime.search.SearchResults;
 import org.wrml.runtime.service.AbstractService;
 import org.wrml.runtime.service.ServiceConfiguration;
 import org.wrml.runtime.service.ServiceException;
 import org.wrml.runtime.syntax.SyntaxLoader;
 import org.wrml.util.UniqueName;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -78,63 +76,72 @@ public class MongoService extends AbstractService {
 
     public static final String MONGO_COLLECTION_PREFIX_SETTING_NAME = "collectionPrefix";
 
-    private static Logger LOG = LoggerFactory.getLogger(MongoService.class);
+    /**
+     * The name of the (optional) setting that, when <code>true</code>, makes {@link #save(Model)} a single keyed
+     * upsert (update with the upsert flag) instead of a <code>findOne</code> (to recover the existing object's
+     * <code>_id</code>) followed by a full-document <code>save</code>. The default is <code>false</code>.
+     */
+    public static final String MONGO_UPSERT_SETTING_NAME = "upsert";
 
-    private DB _Mongo;
+    /**
+     * The name of the (optional) setting that determines whether the batched writes of {@link #saveAll(Collection)} are
+     * ordered (stopping at the first error) or unordered (continuing past errors, which are reported once the batch is
+     * done). The default is <code>true</code> (ordered).
+     */
+    public static final String MONGO_ORDERED_WRITES_SETTING_NAME = "orderedWrites";
 
-    private String _CollectionPrefix;
+    /**
+     * The name of the (optional) setting that specifies the maximum number of objects per batched insert. The default is
+     * {@link #DEFAULT_BATCH_SIZE}.
+     */
+    public static final String MONGO_BATCH_SIZE_SETTING_NAME = "batchSize";
 
-    @Override
-    public Model save(final Model model) {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
 
-        final URI schemaUri = model.getSchemaUri();
-        final String collectionName = convertToCollectionName(schemaUri);
+    private static Logger LOG = LoggerFactory.getLogger(MongoService.class);
 
-        final Keys keys = model.getKeys();
-        DBObject mongoKeys = createMongoKeys(keys);
+    private DB _Mongo;
 
-        if (!_Mongo.collectionExists(collectionName)) {
-            final DBCollection mongoCollection = _Mongo.getCollection(collectionName);
+    private String _CollectionPrefix;
 
-            final DBObject collectionIndex = new BasicDBObject();
-            final Set<String> indexKeySet = mongoKeys.keySet();
-            for (final String indexKey : indexKeySet) {
-                collectionIndex.put(indexKey, 1);
-            }
+    private MongoModelCodec _ModelCodec;
 
-            final DBObject options = new BasicDBObject();
-            options.put("background", true);
+    private boolean _Upsert;
 
-            mongoCollection.ensureIndex(collectionIndex, options);
-        }
+    private boolean _OrderedWrites = true;
 
-        final DBObject mongoObject;
-        try {
-            mongoObject = convertToMongoObject(model);
-        }
-        catch (ModelWritingException e) {
-            throw new ServiceException("Failed to convert WRML model instance to a mongoDB object.", e, this);
-        }
+    private int _BatchSize = DEFAULT_BATCH_SIZE;
 
-        final DBCollection mongoCollection = _Mongo.getCollection(collectionName);
-        if (mongoCollection == null) {
-            // Should not happen
-            final String logMessage = getConfiguration().getName() + " - Collection should exist. Name:\n" + collectionName;
-
-            LOG.error(logMessage);
-            throw new ServiceException(logMessage, null, this);
-        }
+    /**
+     * The names of the collections that are known to exist (and to be indexed by their models' keys, if this service
+     * created them); so that their existence is only checked once.
+     */
+    private final Set<String> _Collections = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
+    @Override
+    public Model save(final Model model) {
 
-        final DBObject existingMongoObject = mongoCollection.findOne(mongoKeys);
-        if (existingMongoObject != null) {
-            mongoObject.put("_id", existingMongoObject.get("_id"));
-        }
+        final String collectionName = convertToCollectionName(model.getSchemaUri());
+        final DBObject mongoKeys = createMongoKeys(model.getKeys());
+        final DBCollection mongoCollection = getOrCreateCollection(collectionName, mongoKeys);
+        final DBObject mongoObject = toMongoObject(model);
 
         String errorMessage = null;
         Throwable throwable = null;
         try {
-            final WriteResult mongoWriteResult = mongoCollection.save(mongoObject);
+            final WriteResult mongoWriteResult;
+            if (_Upsert) {
+                mongoWriteResult = mongoCollection.update(mongoKeys, mongoObject, true, false);
+            }
+            else {
+                final DBObject existingMongoObject = mongoCollection.findOne(mongoKeys);
+                if (existingMongoObject != null) {
+                    mongoObject.put("_id", existingMongoObject.get("_id"));
+                }
+
+                mongoWriteResult = mongoCollection.save(mongoObject);
+            }
+
             errorMessage = mongoWriteResult.getError();
         }
         catch (Throwable t) {
@@ -154,12 +161,52 @@ public class MongoService extends AbstractService {
 
     }
 
+    /**
+     * Saves the models with batched writes; grouped by collection, one query recovers the <code>_id</code>s of the
+     * models that already exist, the new models are inserted in batches (see {@link #MONGO_BATCH_SIZE_SETTING_NAME}) and
+     * the existing ones are updated. With ordered writes, the pending inserts are flushed before each update, so that the
+     * models are written in order and every model before the first error is saved.
+     */
+    @Override
+    public List<Model> saveAll(final Collection<Model> models) {
+
+        final Map<String, List<Model>> collectionModels = new LinkedHashMap<>();
+        for (final Model model : models) {
+            final String collectionName = convertToCollectionName(model.getSchemaUri());
+            List<Model> modelList = collectionModels.get(collectionName);
+            if (modelList == null) {
+                modelList = new ArrayList<>();
+                collectionModels.put(collectionName, modelList);
+            }
+
+            modelList.add(model);
+        }
+
+        final List<String> errorMessages = new ArrayList<>();
+        for (final String collectionName : collectionModels.keySet()) {
+            saveAll(collectionName, collectionModels.get(collectionName), errorMessages);
+
+            if (_OrderedWrites && !errorMessages.isEmpty()) {
+                break;
+            }
+        }
+
+        if (!errorMessages.isEmpty()) {
+            final String logMessage = getConfiguration().getName() + " - Error saving models (" + errorMessages + ").";
+
+            LOG.error(logMessage);
+            throw new ServiceException(logMessage, null, this);
+        }
+
+        return new ArrayList<>(models);
+    }
+
     @Override
     public Model get(final Keys keys, final Dimensions dimensions) {
 
         final URI schemaUri = dimensions.getSchemaUri();
         final String collectionName = convertToCollectionName(schemaUri);
-        if (!_Mongo.collectionExists(collectionName)) {
+        if (!isCollection(collectionName)) {
             LOG.debug(getConfiguration().getName() + " - Collection does not exist. Name:\n" + collectionName);
             return null;
         }
@@ -190,6 +237,87 @@ public class MongoService extends AbstractService {
         return model;
     }
 
+    /**
+     * Fetches the batch with a single query (an <code>$or</code> of the batch's key objects) rather than one
+     * <code>findOne</code> per model.
+     */
+    @Override
+    public Map<Keys, Model> getAll(final Collection<Keys> multipleKeys, final Dimensions dimensions) {
+
+        if (multipleKeys.size() < 2) {
+            return super.getAll(multipleKeys, dimensions);
+        }
+
+        final URI schemaUri = dimensions.getSchemaUri();
+        final String collectionName = convertToCollectionName(schemaUri);
+        if (!isCollection(collectionName)) {
+            LOG.debug(getConfiguration().getName() + " - Collection does not exist. Name:\n" + collectionName);
+            return Collections.emptyMap();
+        }
+
+        final DBCollection mongoCollection = _Mongo.getCollection(collectionName);
+        if (mongoCollection == null) {
+            // Should not happen
+            LOG.error(getConfiguration().getName() + " - Collection should exist. Name:\n" + collectionName);
+            return Collections.emptyMap();
+        }
+
+        // Map each of the batch's key objects back to its keys; by the (string) values of its key fields.
+        Set<String> keyFieldNames = null;
+        final Map<List<String>, Keys> keysBySignature = new HashMap<>(multipleKeys.size());
+        final DBObject[] mongoKeysArray = new DBObject[multipleKeys.size()];
+        int i = 0;
+        for (final Keys keys : multipleKeys) {
+
+            final DBObject mongoKeys = createMongoKeys(keys);
+            if (keyFieldNames == null) {
+                keyFieldNames = new LinkedHashSet<>(mongoKeys.keySet());
+            }
+            else if (!keyFieldNames.equals(mongoKeys.keySet())) {
+                // The batch's models are not all keyed the same way; fetch them one at a time.
+                return super.getAll(multipleKeys, dimensions);
+            }
+
+            keysBySignature.put(createKeySignature(mongoKeys, keyFieldNames), keys);
+            mongoKeysArray[i++] = mongoKeys;
+        }
+
+        final DBObject mongoQuery = QueryBuilder.start().or(mongoKeysArray).get();
+
+        final Map<Keys, Model> models = new HashMap<>(multipleKeys.size());
+        final DBCursor cursor = mongoCollection.find(mongoQuery);
+        try {
+            while (cursor.hasNext()) {
+                final DBObject mongoObject = cursor.next();
+                final Keys keys = keysBySignature.get(createKeySignature(mongoObject, keyFieldNames));
+                if (keys == null) {
+                    continue;
+                }
+
+                try {
+                    models.put(keys, convertToModel(mongoObject, keys, dimensions));
+                }
+                catch (ModelReadingException e) {
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+        }
+        finally {
+            cursor.close();
+        }
+
+        // Return the models in the batch's order.
+        final Map<Keys, Model> orderedModels = new LinkedHashMap<>(models.size());
+        for (final Keys keys : multipleKeys) {
+            final Model model = models.get(keys);
+            if (model != null) {
+                orderedModels.put(keys, model);
+            }
+        }
+
+        return orderedModels;
+    }
+
     @Override
     public void delete(final Keys keys, final Dimensions dimensions) {
 
@@ -198,7 +326,7 @@ public class MongoService extends AbstractService {
         for (final URI schemaUri : keys.getKeyedSchemaUris()) {
 
             final String collectionName = convertToCollectionName(schemaUri);
-            if (!_Mongo.collectionExists(collectionName)) {
+            if (!isCollection(collectionName)) {
                 continue;
             }
 
@@ -223,78 +351,85 @@ public class MongoService extends AbstractService {
     @Override
     public Set<Model> search(final SearchCriteria searchCriteria) throws UnsupportedOperationException {
 
+        final Set<Model> resultSet = new LinkedHashSet<>();
+        final SearchResults searchResults = openSearch(searchCriteria);
+        try {
+            while (searchResults.hasNext()) {
+                resultSet.add(searchResults.next());
+            }
+        }
+        finally {
+            searchResults.close();
+        }
+
+        return resultSet;
+    }
+
+    /**
+     * Streams the results from a cursor that is sorted by <code>_id</code>. The continuation token is the
+     * <code>_id</code> of the page's last result, so the next page starts with a range query on the <code>_id</code>
+     * index rather than skipping over all of the preceding results.
+     */
+    @Override
+    public SearchResults openSearch(final SearchCriteria searchCriteria) throws UnsupportedOperationException {
+
         // Identify the mongo collection to query.
         final Dimensions resultDimensions = searchCriteria.getResultDimensions();
 
         final URI schemaUri = resultDimensions.getSchemaUri();
         final String collectionName = convertToCollectionName(schemaUri);
-        if (!_Mongo.collectionExists(collectionName)) {
+        if (!isCollection(collectionName)) {
             LOG.debug(getConfiguration().getName() + " - Collection does not exist. Name:\n" + collectionName);
-            return null;
+            return new IteratorSearchResults(Collections.<Model>emptyIterator(), 0, 0);
         }
 
         final DBCollection mongoCollection = _Mongo.getCollection(collectionName);
         if (mongoCollection == null) {
             // Should not happen
             LOG.error(getConfiguration().getName() + " - Collection should exist. Name:\n" + collectionName);
-            return null;
+            return new IteratorSearchResults(Collections.<Model>emptyIterator(), 0, 0);
         }
 
         // Build the mongo query object.
-        final DBObject mongoQuery = createMongoQuery(searchCriteria);
+        DBObject mongoQuery = createMongoQuery(searchCriteria);
         if (mongoQuery == null) {
             LOG.warn(getConfiguration().getName() + " - Query could not be created for: " + searchCriteria);
-            return null;
+            return new IteratorSearchResults(Collections.<Model>emptyIterator(), 0, 0);
+        }
+
+        final String continuationToken = searchCriteria.getContinuationToken();
+        final boolean continuation = continuationToken != null && ObjectId.isValid(continuationToken);
+        if (continuation) {
+            final DBObject continuationQuery = QueryBuilder.start("_id").greaterThan(new ObjectId(continuationToken)).get();
+            mongoQuery = QueryBuilder.start().and(mongoQuery, continuationQuery).get();
         }
 
         // Build the mongo projection (fields to return).
         DBObject mongoKeys = null;
         final Set<String> projectionSlotNames = searchCriteria.getProjectionSlotNames();
         if (projectionSlotNames != null && !projectionSlotNames.isEmpty()) {
+            mongoKeys = new BasicDBObject();
             for (final String projectionSlotName : projectionSlotNames) {
                 mongoKeys.put(projectionSlotName, 1);
             }
         }
 
         // Query mongo
-        final DBCursor cursor = mongoCollection.find(mongoQuery, mongoKeys);
-        final int resultLimit = searchCriteria.getResultLimit();
+        final DBCursor cursor = mongoCollection.find(mongoQuery, mongoKeys).sort(new BasicDBObject("_id", 1));
 
-        if (resultLimit > 0) {
-            cursor.limit(resultLimit);
+        final int resultOffset = IteratorSearchResults.getOffset(searchCriteria);
+        if (!continuation && resultOffset > 0) {
+            cursor.skip(resultOffset);
         }
 
-        // TODO: Support skipping to an offset
-        //cursor.skip(offset);
-
-        // Build model results
-        final Set<Model> resultSet = new LinkedHashSet<>();
-
-        try {
-            while (cursor.hasNext()) {
-                final DBObject mongoObject = cursor.next();
-                final Model model;
-
-                try {
-                    model = convertToModel(mongoObject, null, resultDimensions);
-                    // Note: Context will set URI value in Document models.
-                }
-                catch (ModelReadingException e) {
-                    LOG.error(e.getMessage(), e);
-                    continue;
-                }
-
-                resultSet.add(model);
-            }
-        }
-        finally {
-            cursor.close();
+        final int resultLimit = IteratorSearchResults.getLimit(searchCriteria);
+        if (resultLimit > 0) {
+            cursor.limit(resultLimit);
         }
 
-        return resultSet;
+        return new CursorSearchResults(cursor, resultLimit, resultDimensions);
     }
 
-
     @Override
     protected void initFromConfiguration(final ServiceConfiguration config) {
 
@@ -305,6 +440,8 @@ public class MongoService extends AbstractService {
         }
 
 
+        _ModelCodec = new MongoModelCodec(getContext());
+
         final Map<String, String> settings = config.getSettings();
         String mongoUriString = DEFAULT_URI_STRING;
 
@@ -316,17 +453,24 @@ public class MongoService extends AbstractService {
             if (settings.containsKey(MONGO_COLLECTION_PREFIX_SETTING_NAME)) {
                 _CollectionPrefix = settings.get(MONGO_COLLECTION_PREFIX_SETTING_NAME);
             }
+
+            if (settings.containsKey(MONGO_UPSERT_SETTING_NAME)) {
+                _Upsert = Boolean.parseBoolean(settings.get(MONGO_UPSERT_SETTING_NAME).trim());
+            }
+
+            if (settings.containsKey(MONGO_ORDERED_WRITES_SETTING_NAME)) {
+                _OrderedWrites = Boolean.parseBoolean(settings.get(MONGO_ORDERED_WRITES_SETTING_NAME).trim());
+            }
+
+            if (settings.containsKey(MONGO_BATCH_SIZE_SETTING_NAME)) {
+                _BatchSize = Math.max(1, Integer.parseInt(settings.get(MONGO_BATCH_SIZE_SETTING_NAME).trim()));
+            }
         }
 
         // TODO: Look into MongoClientURI replacement
         final MongoURI mongoUri = new MongoURI(mongoUriString);
         try {
-            _Mongo = mongoUri.connectDB();
-
-            if (!_Mongo.isAuthenticated() && mongoUri.getPassword() != null) {
-                _Mongo.authenticate(mongoUri.getUsername(), mongoUri.getPassword());
-            }
-
+            _Mongo = connect(mongoUri);
         }
         catch (MongoException | UnknownHostException ex) {
             final String logMessage = "Error creating connection to Mongo: " + _Mongo;
@@ -335,6 +479,208 @@ public class MongoService extends AbstractService {
         }
     }
 
+    /**
+     * Connects to (and, if the URI has credentials, authenticates with) the mongoDB database.
+     */
+    protected DB connect(final MongoURI mongoUri) throws UnknownHostException {
+
+        final DB mongo = mongoUri.connectDB();
+
+        if (!mongo.isAuthenticated() && mongoUri.getPassword() != null) {
+            mongo.authenticate(mongoUri.getUsername(), mongoUri.getPassword());
+        }
+
+        return mongo;
+    }
+
+    private void saveAll(final String collectionName, final List<Model> models, final List<String> errorMessages) {
+
+        // Convert the models; the last of any models with the same keys wins.
+        Set<String> keyFieldNames = null;
+        final Map<List<String>, DBObject> mongoKeysBySignature = new LinkedHashMap<>(models.size());
+        final Map<List<String>, DBObject> mongoObjectsBySignature = new LinkedHashMap<>(models.size());
+        for (final Model model : models) {
+
+            final DBObject mongoKeys = createMongoKeys(model.getKeys());
+            if (keyFieldNames == null) {
+                keyFieldNames = new LinkedHashSet<>(mongoKeys.keySet());
+            }
+            else if (!keyFieldNames.equals(mongoKeys.keySet())) {
+                // The models are not all keyed the same way; save them one at a time.
+                for (final Model unbatchedModel : models) {
+                    try {
+                        save(unbatchedModel);
+                    }
+                    catch (final ServiceException e) {
+                        errorMessages.add(e.getMessage());
+                        if (_OrderedWrites) {
+                            return;
+                        }
+                    }
+                }
+
+                return;
+            }
+
+            final List<String> signature = createKeySignature(mongoKeys, keyFieldNames);
+            mongoKeysBySignature.put(signature, mongoKeys);
+            mongoObjectsBySignature.put(signature, toMongoObject(model));
+        }
+
+        final DBCollection mongoCollection = getOrCreateCollection(collectionName, mongoKeysBySignature.values().iterator().next());
+
+        // One query to find out which of the models already exist (and recover their ids).
+        final Map<List<String>, Object> existingIds = new HashMap<>();
+        if (!_Upsert) {
+            final Collection<DBObject> allMongoKeys = mongoKeysBySignature.values();
+            final DBObject mongoQuery = QueryBuilder.start().or(allMongoKeys.toArray(new DBObject[allMongoKeys.size()])).get();
+            final DBObject mongoFields = new BasicDBObject();
+            for (final String keyFieldName : keyFieldNames) {
+                mongoFields.put(keyFieldName, 1);
+            }
+
+            final DBCursor cursor = mongoCollection.find(mongoQuery, mongoFields);
+            try {
+                while (cursor.hasNext()) {
+                    final DBObject existingMongoObject = cursor.next();
+                    existingIds.put(createKeySignature(existingMongoObject, keyFieldNames), existingMongoObject.get("_id"));
+                }
+            }
+            finally {
+                cursor.close();
+            }
+        }
+
+        final WriteConcern insertWriteConcern = mongoCollection.getWriteConcern().continueOnErrorForInsert(!_OrderedWrites);
+        final List<DBObject> inserts = new ArrayList<>(Math.min(_BatchSize, mongoObjectsBySignature.size()));
+        for (final List<String> signature : mongoObjectsBySignature.keySet()) {
+
+            final DBObject mongoObject = mongoObjectsBySignature.get(signature);
+            final Object existingId = existingIds.get(signature);
+
+            if (!_Upsert && existingId == null) {
+                inserts.add(mongoObject);
+                if (inserts.size() >= _BatchSize) {
+                    insertAll(mongoCollection, inserts, insertWriteConcern, errorMessages);
+                }
+            }
+            else {
+                if (_OrderedWrites && !inserts.isEmpty()) {
+                    // Write the models that came before this one first.
+                    insertAll(mongoCollection, inserts, insertWriteConcern, errorMessages);
+                    if (!errorMessages.isEmpty()) {
+                        return;
+                    }
+                }
+
+                try {
+                    if (_Upsert) {
+                        checkWriteResult(mongoCollection.update(mongoKeysBySignature.get(signature), mongoObject, true, false), errorMessages);
+                    }
+                    else {
+                        mongoObject.put("_id", existingId);
+                        checkWriteResult(mongoCollection.save(mongoObject), errorMessages);
+                    }
+                }
+                catch (final MongoException e) {
+                    errorMessages.add(e.getMessage());
+                }
+            }
+
+            if (_OrderedWrites && !errorMessages.isEmpty()) {
+                return;
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            insertAll(mongoCollection, inserts, insertWriteConcern, errorMessages);
+        }
+    }
+
+    /**
+     * Inserts (and then clears) the pending batch of new objects.
+     */
+    private void insertAll(final DBCollection mongoCollection, final List<DBObject> inserts, final WriteConcern insertWriteConcern,
+                           final List<String> errorMessages) {
+
+        try {
+            checkWriteResult(mongoCollection.insert(inserts, insertWriteConcern), errorMessages);
+        }
+        catch (final MongoException e) {
+            errorMessages.add(e.getMessage());
+        }
+        finally {
+            inserts.clear();
+        }
+    }
+
+    private void checkWriteResult(final WriteResult mongoWriteResult, final List<String> errorMessages) {
+
+        final String errorMessage = mongoWriteResult.getError();
+        if (errorMessage != null) {
+            errorMessages.add(errorMessage);
+        }
+    }
+
+    /**
+     * Checks the registry of known collections before asking mongoDB whether the named collection exists.
+     */
+    private boolean isCollection(final String collectionName) {
+
+        if (_Collections.contains(collectionName)) {
+            return true;
+        }
+
+        if (_Mongo.collectionExists(collectionName)) {
+            _Collections.add(collectionName);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the named collection; creating it (with an index of the specified keys' fields) if it does not yet exist.
+     */
+    private DBCollection getOrCreateCollection(final String collectionName, final DBObject mongoKeys) {
+
+        final DBCollection mongoCollection = _Mongo.getCollection(collectionName);
+        if (mongoCollection == null) {
+            // Should not happen
+            final String logMessage = getConfiguration().getName() + " - Collection should exist. Name:\n" + collectionName;
+
+            LOG.error(logMessage);
+            throw new ServiceException(logMessage, null, this);
+        }
+
+        if (!isCollection(collectionName)) {
+
+            final DBObject collectionIndex = new BasicDBObject();
+            final Set<String> indexKeySet = mongoKeys.keySet();
+            for (final String indexKey : indexKeySet) {
+                collectionIndex.put(indexKey, 1);
+            }
+
+            final DBObject options = new BasicDBObject();
+            options.put("background", true);
+
+            mongoCollection.ensureIndex(collectionIndex, options);
+            _Collections.add(collectionName);
+        }
+
+        return mongoCollection;
+    }
+
+    private DBObject toMongoObject(final Model model) {
+
+        try {
+            return convertToMongoObject(model);
+        }
+        catch (ModelWritingException e) {
+            throw new ServiceException("Failed to convert WRML model instance to a mongoDB object.", e, this);
+        }
+    }
+
     private DBObject createMongoKeys(final Keys keys) {
 
         // The mongoDB object that will hold the "serialized" keys structure.
@@ -385,6 +731,16 @@ public class MongoService extends AbstractService {
         return mongoKeys;
     }
 
+    private List<String> createKeySignature(final DBObject mongoObject, final Set<String> keyFieldNames) {
+
+        final List<String> signature = new ArrayList<>(keyFieldNames.size());
+        for (final String keyFieldName : keyFieldNames) {
+            signature.add(String.valueOf(mongoObject.get(keyFieldName)));
+        }
+
+        return signature;
+    }
+
     private DBObject createMongoQuery(final SearchCriteria searchCriteria) {
 
         QueryBuilder queryBuilder = null;
@@ -530,38 +886,14 @@ public class MongoService extends AbstractService {
 
     private Model convertToModel(final DBObject mongoObject, final Keys keys, final Dimensions dimensions) throws ModelReadingException {
 
-        mongoObject.removeField("_id");
-
-        // Is JSON serialization fast enough here?
-        final String jsonStringRepresentation = JSON.serialize(mongoObject);
-        final byte[] jsonStringBytes = jsonStringRepresentation.getBytes();
-        final InputStream inStream = new ByteArrayInputStream(jsonStringBytes);
-
-        final Context context = getContext();
-        final Model model = context.readModel(inStream, keys, dimensions, SystemFormat.json.getFormatUri());
-        return model;
+        return _ModelCodec.toModel(mongoObject, keys, dimensions);
     }
 
     private DBObject convertToMongoObject(final Model model) throws ModelWritingException {
 
-        final ByteArrayOutputStream out = new ByteArrayOutputStream();
-        final Context context = getContext();
-        final ModelWriteOptions modelWriteOptions = new ModelWriteOptions();
-
-        modelWriteOptions.setDocumentKeyExcludedIfSecondary(true);
-        modelWriteOptions.setEmbeddedDocumentUriExcluded(true);
-        modelWriteOptions.setLinksExcluded(true);
-        modelWriteOptions.setCollectionsExcluded(true);
-
-        context.writeModel(out, model, modelWriteOptions, SystemFormat.json.getFormatUri());
-
-        final byte[] jsonStringBytes = out.toByteArray();
-        final String jsonStringRepresentation = new String(jsonStringBytes);
-        DBObject mongoObject = (DBObject) JSON.parse(jsonStringRepresentation);
-        return mongoObject;
+        return _ModelCodec.toMongoObject(model);
     }
 
-
     private Object convertToMongoValue(final Object value) {
 
         final Context context = getContext();
@@ -587,4 +919,98 @@ public class MongoService extends AbstractService {
         return mongoValue;
     }
 
+    /**
+     * The results of {@link #openSearch(SearchCriteria)}, which are read from the cursor (in batches) as they are
+     * iterated.
+     */
+    private final class CursorSearchResults implements SearchResults {
+
+        private final DBCursor _Cursor;
+
+        private final int _Limit;
+
+        private final Dimensions _ResultDimensions;
+
+        private Model _NextModel;
+
+        private Object _LastId;
+
+        private int _Count;
+
+        private boolean _Closed;
+
+        private String _ContinuationToken;
+
+        CursorSearchResults(final DBCursor cursor, final int limit, final Dimensions resultDimensions) {
+
+            _Cursor = cursor;
+            _Limit = limit;
+            _ResultDimensions = resultDimensions;
+        }
+
+        @Override
+        public String getContinuationToken() {
+
+            return _ContinuationToken;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            while (_NextModel == null && !_Closed) {
+
+                if (!_Cursor.hasNext()) {
+                    if (_Limit > 0 && _Count >= _Limit && _LastId != null) {
+                        // A full page; there may be more.
+                        _ContinuationToken = _LastId.toString();
+                    }
+
+                    close();
+                    break;
+                }
+
+                final DBObject mongoObject = _Cursor.next();
+                _Count++;
+                _LastId = mongoObject.get("_id");
+
+                try {
+                    _NextModel = convertToModel(mongoObject, null, _ResultDimensions);
+                    // Note: Context will set URI value in Document models.
+                }
+                catch (ModelReadingException e) {
+                    LOG.error(e.getMessage(), e);
+                }
+            }
+
+            return _NextModel != null;
+        }
+
+        @Override
+        public Model next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Model model = _NextModel;
+            _NextModel = null;
+            return model;
+        }
+
+        @Override
+        public void remove() {
+
+            throw new UnsupportedOperationException("Search results cannot be removed.");
+        }
+
+        @Override
+        public void close() {
+
+            if (!_Closed) {
+                _Closed = true;
+                _Cursor.close();
+            }
+        }
+    }
+
 }
@@ -0,0 +1,170 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.contrib.runtime.service.mongo;
+
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import org.wrml.model.Model;
+import org.wrml.model.rest.Api;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.ContextTest;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.Keys;
+import org.wrml.runtime.format.SystemFormat;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+
+/**
+ * A simple (non-JUnit) micro-benchmark of the {@link MongoModelCodec}, comparing its model to mongoDB object
+ * conversions (in both directions) with the JSON text round trips that it replaced.
+ * <p/>
+ * The mongoDB objects are converted in-process, without a mongoDB server, so that only the conversions are measured.
+ * Run the class's main method from the test classpath; the optional argument is the number of measured iterations.
+ */
+public class MongoModelCodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 2000;
+
+    private static final int DEFAULT_ITERATIONS = 20000;
+
+    public static void main(final String[] args) throws Exception {
+
+        final int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+        final Context context = ContextTest.createTestContext();
+        final Api api = ContextTest.getModelResource(context, URI.create("http://wizard.example.api.wrml.org"),
+                context.getSchemaLoader().getApiDimensions());
+
+        final MongoModelCodec modelCodec = new MongoModelCodec(context);
+
+        for (int round = 0; round < 3; round++) {
+            run("json", new JsonConversion(context), api, WARMUP_ITERATIONS, iterations);
+            run("codec", new CodecConversion(modelCodec), api, WARMUP_ITERATIONS, iterations);
+        }
+    }
+
+    private static void run(final String name, final Conversion conversion, final Model model, final int warmupIterations,
+                            final int iterations) throws Exception {
+
+        measureWrites(conversion, model, warmupIterations);
+        final long writeNanos = measureWrites(conversion, model, iterations);
+
+        final DBObject mongoObject = conversion.toMongoObject(model);
+        measureReads(conversion, mongoObject, model, warmupIterations);
+        final long readNanos = measureReads(conversion, mongoObject, model, iterations);
+
+        System.out.println(String.format("%-6s write %8.1f us/op, read %8.1f us/op", name, writeNanos / 1000.0 / iterations,
+                readNanos / 1000.0 / iterations));
+    }
+
+    private static long measureWrites(final Conversion conversion, final Model model, final int iterations) throws Exception {
+
+        int sink = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += conversion.toMongoObject(model).keySet().size();
+        }
+
+        final long nanos = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+
+        return nanos;
+    }
+
+    private static long measureReads(final Conversion conversion, final DBObject mongoObject, final Model model, final int iterations)
+            throws Exception {
+
+        final Keys keys = model.getKeys();
+        final Dimensions dimensions = model.getDimensions();
+
+        int sink = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += conversion.toModel(mongoObject, keys, dimensions).getSlotMap().size();
+        }
+
+        final long nanos = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+
+        return nanos;
+    }
+
+    private static interface Conversion {
+
+        DBObject toMongoObject(Model model) throws Exception;
+
+        Model toModel(DBObject mongoObject, Keys keys, Dimensions dimensions) throws Exception;
+    }
+
+    private static final class JsonConversion implements Conversion {
+
+        private final Context _Context;
+
+        JsonConversion(final Context context) {
+
+            _Context = context;
+        }
+
+        @Override
+        public DBObject toMongoObject(final Model model) throws Exception {
+
+            return MongoModelCodecTest.toMongoObjectViaJson(model);
+        }
+
+        @Override
+        public Model toModel(final DBObject mongoObject, final Keys keys, final Dimensions dimensions) throws Exception {
+
+            final byte[] jsonStringBytes = JSON.serialize(mongoObject).getBytes();
+            return _Context.readModel(new ByteArrayInputStream(jsonStringBytes), keys, dimensions, SystemFormat.json.getFormatUri());
+        }
+    }
+
+    private static final class CodecConversion implements Conversion {
+
+        private final MongoModelCodec _ModelCodec;
+
+        CodecConversion(final MongoModelCodec modelCodec) {
+
+            _ModelCodec = modelCodec;
+        }
+
+        @Override
+        public DBObject toMongoObject(final Model model) throws Exception {
+
+            return _ModelCodec.toMongoObject(model);
+        }
+
+        @Override
+        public Model toModel(final DBObject mongoObject, final Keys keys, final Dimensions dimensions) throws Exception {
+
+            return _ModelCodec.toModel(mongoObject, keys, dimensions);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.contrib.runtime.service.mongo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.model.Model;
+import org.wrml.model.rest.Api;
+import org.wrml.model.rest.LinkRelation;
+import org.wrml.model.rest.Method;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.ContextTest;
+import org.wrml.runtime.format.ModelWriteOptions;
+import org.wrml.runtime.format.SystemFormat;
+import org.wrml.runtime.rest.SystemApi;
+import org.wrml.util.UniqueName;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+
+import static org.junit.Assert.*;
+
+public class MongoModelCodecTest {
+
+    private static final URI WRML_API_WIZARD_EXAMPLE_URI = URI.create("http://wizard.example.api.wrml.org");
+
+    private Context _Context;
+
+    private MongoModelCodec _ModelCodec;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _Context = ContextTest.createTestContext();
+        _ModelCodec = new MongoModelCodec(_Context);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+
+        final LinkRelation relation = newLinkRelation();
+
+        final DBObject mongoObject = _ModelCodec.toMongoObject(relation);
+        assertEquals("Codec", mongoObject.get("title"));
+        assertEquals(Method.Save.name(), mongoObject.get("method"));
+        assertEquals(60L, mongoObject.get("secondsToLive"));
+
+        final LinkRelation copy = _ModelCodec.toModel(mongoObject, relation.getKeys(), relation.getDimensions());
+        assertEquals(relation.getUri(), copy.getUri());
+        assertEquals(relation.getUniqueName(), copy.getUniqueName());
+        assertEquals("Codec", copy.getTitle());
+        assertEquals(Method.Save, copy.getMethod());
+        assertEquals(Long.valueOf(60L), copy.getSecondsToLive());
+    }
+
+    @Test
+    public void readsNumbersAsTheSlotsType() throws Exception {
+
+        final LinkRelation relation = newLinkRelation();
+        final DBObject mongoObject = _ModelCodec.toMongoObject(relation);
+
+        // mongoDB (and its JSON parser) may return an Integer for a small Long
+        mongoObject.put("secondsToLive", 60);
+
+        final LinkRelation copy = _ModelCodec.toModel(mongoObject, relation.getKeys(), relation.getDimensions());
+        assertEquals(Long.valueOf(60L), copy.getSecondsToLive());
+    }
+
+    @Test
+    public void matchesJsonRepresentation() throws Exception {
+
+        final Api api = ContextTest.getModelResource(_Context, WRML_API_WIZARD_EXAMPLE_URI, _Context.getSchemaLoader().getApiDimensions());
+
+        assertSameStructure(toMongoObjectViaJson(api), _ModelCodec.toMongoObject(api));
+
+        final Model copy = _ModelCodec.toModel(_ModelCodec.toMongoObject(api), api.getKeys(), api.getDimensions());
+        assertSameStructure(_ModelCodec.toMongoObject(api), _ModelCodec.toMongoObject(copy));
+    }
+
+    /**
+     * The JSON text round trip that the codec replaces.
+     */
+    static DBObject toMongoObjectViaJson(final Model model) throws Exception {
+
+        final ModelWriteOptions modelWriteOptions = new ModelWriteOptions();
+        modelWriteOptions.setDocumentKeyExcludedIfSecondary(true);
+        modelWriteOptions.setEmbeddedDocumentUriExcluded(true);
+        modelWriteOptions.setLinksExcluded(true);
+        modelWriteOptions.setCollectionsExcluded(true);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        model.getContext().writeModel(out, model, modelWriteOptions, SystemFormat.json.getFormatUri());
+        return (DBObject) JSON.parse(new String(out.toByteArray()));
+    }
+
+    private static void assertSameStructure(final DBObject expected, final DBObject actual) throws Exception {
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals(objectMapper.readTree(JSON.serialize(expected)), objectMapper.readTree(JSON.serialize(actual)));
+    }
+
+    private LinkRelation newLinkRelation() {
+
+        final LinkRelation relation = _Context.newModel(LinkRelation.class);
+        relation.setUri(SystemApi.LinkRelation.getUri().resolve(ContextTest.TEST_RESOURCE_PATH + "codec"));
+        relation.setUniqueName(new UniqueName("org/wrml/test/codec"));
+        relation.setTitle("Codec");
+        relation.setMethod(Method.Save);
+        relation.setSecondsToLive(60L);
+        return relation;
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.contrib.runtime.service.mongo;
+
+import com.mongodb.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wrml.model.Model;
+import org.wrml.model.rest.LinkRelation;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.ContextTest;
+import org.wrml.runtime.rest.SystemApi;
+import org.wrml.runtime.service.DefaultServiceConfiguration;
+import org.wrml.runtime.service.ServiceException;
+import org.wrml.util.UniqueName;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class MongoServiceTest {
+
+    private static final String UNIQUE_NAME_FIELD = "uniqueName";
+
+    private Context _Context;
+
+    private DB _Mongo;
+
+    private DBCollection _MongoCollection;
+
+    private DBCursor _Cursor;
+
+    private WriteResult _Success;
+
+    private WriteResult _Failure;
+
+    /**
+     * The batches of objects that were inserted; copied as they were at the time of each insert.
+     */
+    private List<List<String>> _InsertedBatches;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _Context = ContextTest.createTestContext();
+
+        _Mongo = mock(DB.class);
+        _MongoCollection = mock(DBCollection.class);
+        _Cursor = mock(DBCursor.class);
+        _Success = mock(WriteResult.class);
+        _Failure = mock(WriteResult.class);
+        when(_Failure.getError()).thenReturn("Failed");
+
+        when(_Mongo.getCollection(anyString())).thenReturn(_MongoCollection);
+        when(_Mongo.collectionExists(anyString())).thenReturn(true);
+        when(_MongoCollection.getWriteConcern()).thenReturn(WriteConcern.ACKNOWLEDGED);
+        when(_MongoCollection.find(any(DBObject.class), any(DBObject.class))).thenReturn(_Cursor);
+        when(_MongoCollection.save(any(DBObject.class))).thenReturn(_Success);
+        when(_MongoCollection.update(any(DBObject.class), any(DBObject.class), anyBoolean(), anyBoolean())).thenReturn(_Success);
+
+        _InsertedBatches = new ArrayList<>();
+        when(_MongoCollection.insert(anyListOf(DBObject.class), any(WriteConcern.class))).thenAnswer(new Answer<WriteResult>() {
+
+            @Override
+            public WriteResult answer(final InvocationOnMock invocation) throws Throwable {
+
+                final List<String> batch = new ArrayList<>();
+                for (final Object mongoObject : (List<?>) invocation.getArguments()[0]) {
+                    batch.add((String) ((DBObject) mongoObject).get(UNIQUE_NAME_FIELD));
+                }
+
+                _InsertedBatches.add(batch);
+                return _Success;
+            }
+        });
+    }
+
+    @Test
+    public void newModelsAreInsertedInBatches() {
+
+        final MongoService service = createService(Collections.singletonMap(MongoService.MONGO_BATCH_SIZE_SETTING_NAME, "2"));
+        service.saveAll(Arrays.<Model>asList(newLinkRelation("a"), newLinkRelation("b"), newLinkRelation("c")));
+
+        // One query for the existing ids, then two batches.
+        verify(_MongoCollection, times(1)).find(any(DBObject.class), any(DBObject.class));
+        assertEquals(Arrays.asList(Arrays.asList(uniqueName("a"), uniqueName("b")), Arrays.asList(uniqueName("c"))), _InsertedBatches);
+        verify(_MongoCollection, never()).save(any(DBObject.class));
+    }
+
+    @Test
+    public void existingModelsAreUpdatedWithTheirIds() {
+
+        setExisting("b", "existingId");
+
+        final MongoService service = createService(Collections.<String, String>emptyMap());
+        service.saveAll(Arrays.<Model>asList(newLinkRelation("a"), newLinkRelation("b")));
+
+        final DBObject savedObject = captureSaved();
+        assertEquals(uniqueName("b"), savedObject.get(UNIQUE_NAME_FIELD));
+        assertEquals("existingId", savedObject.get("_id"));
+        assertEquals(Arrays.asList(Arrays.asList(uniqueName("a"))), _InsertedBatches);
+    }
+
+    @Test
+    public void orderedWritesSaveTheModelsBeforeTheFirstError() {
+
+        setExisting("b", "existingId");
+        when(_MongoCollection.save(any(DBObject.class))).thenReturn(_Failure);
+
+        final MongoService service = createService(Collections.<String, String>emptyMap());
+        try {
+            service.saveAll(Arrays.<Model>asList(newLinkRelation("a"), newLinkRelation("b"), newLinkRelation("c")));
+            fail("The failed save should have been reported.");
+        }
+        catch (final ServiceException e) {
+            assertTrue(e.getMessage().contains("Failed"));
+        }
+
+        // The new model before the failure is written first and the one after it is not written at all.
+        final InOrder inOrder = inOrder(_MongoCollection);
+        inOrder.verify(_MongoCollection).insert(anyListOf(DBObject.class), any(WriteConcern.class));
+        inOrder.verify(_MongoCollection).save(any(DBObject.class));
+        assertEquals(Arrays.asList(Arrays.asList(uniqueName("a"))), _InsertedBatches);
+    }
+
+    @Test
+    public void unorderedWritesContinuePastErrors() {
+
+        setExisting("b", "existingId");
+        when(_MongoCollection.save(any(DBObject.class))).thenReturn(_Failure);
+
+        final MongoService service = createService(Collections.singletonMap(MongoService.MONGO_ORDERED_WRITES_SETTING_NAME, "false"));
+        try {
+            service.saveAll(Arrays.<Model>asList(newLinkRelation("a"), newLinkRelation("b"), newLinkRelation("c")));
+            fail("The failed save should have been reported.");
+        }
+        catch (final ServiceException e) {
+            assertTrue(e.getMessage().contains("Failed"));
+        }
+
+        assertEquals(Arrays.asList(Arrays.asList(uniqueName("a"), uniqueName("c"))), _InsertedBatches);
+    }
+
+    @Test
+    public void upsertsAreKeyedUpdates() {
+
+        final MongoService service = createService(Collections.singletonMap(MongoService.MONGO_UPSERT_SETTING_NAME, "true"));
+        service.saveAll(Arrays.<Model>asList(newLinkRelation("a"), newLinkRelation("b")));
+
+        verify(_MongoCollection, never()).find(any(DBObject.class), any(DBObject.class));
+        verify(_MongoCollection, times(2)).update(any(DBObject.class), any(DBObject.class), eq(true), eq(false));
+        assertTrue(_InsertedBatches.isEmpty());
+    }
+
+    @Test
+    public void differentlyKeyedModelsAreSavedOneAtATime() {
+
+        final LinkRelation unnamed = _Context.newModel(LinkRelation.class);
+        unnamed.setUri(SystemApi.LinkRelation.getUri().resolve(ContextTest.TEST_RESOURCE_PATH + "unnamed"));
+
+        final MongoService service = createService(Collections.<String, String>emptyMap());
+        service.saveAll(Arrays.<Model>asList(newLinkRelation("a"), unnamed));
+
+        verify(_MongoCollection, never()).find(any(DBObject.class), any(DBObject.class));
+        verify(_MongoCollection, times(2)).findOne(any(DBObject.class));
+        verify(_MongoCollection, times(2)).save(any(DBObject.class));
+        assertTrue(_InsertedBatches.isEmpty());
+    }
+
+    private MongoService createService(final Map<String, String> settings) {
+
+        final DefaultServiceConfiguration config = new DefaultServiceConfiguration();
+        config.setName("Mongo");
+        config.setImplementation(MongoService.class.getName());
+        config.setSettings(settings);
+
+        final MongoService service = new MongoService() {
+
+            @Override
+            protected DB connect(final MongoURI mongoUri) {
+
+                return _Mongo;
+            }
+        };
+
+        service.init(_Context, config);
+        return service;
+    }
+
+    private void setExisting(final String name, final Object id) {
+
+        final DBObject existingMongoObject = new BasicDBObject(UNIQUE_NAME_FIELD, uniqueName(name));
+        existingMongoObject.put("_id", id);
+        when(_Cursor.hasNext()).thenReturn(true, false);
+        when(_Cursor.next()).thenReturn(existingMongoObject);
+    }
+
+    private DBObject captureSaved() {
+
+        final ArgumentCaptor<DBObject> captor = ArgumentCaptor.forClass(DBObject.class);
+        verify(_MongoCollection).save(captor.capture());
+        return captor.getValue();
+    }
+
+    private LinkRelation newLinkRelation(final String name) {
+
+        final LinkRelation relation = _Context.newModel(LinkRelation.class);
+        relation.setUri(SystemApi.LinkRelation.getUri().resolve(ContextTest.TEST_RESOURCE_PATH + name));
+        relation.setUniqueName(new UniqueName(uniqueName(name)));
+        return relation;
+    }
+
+    private static String uniqueName(final String name) {
+
+        return "org/wrml/test/" + name;
+    }
+}
@@ -35,6 +35,7 @@ import org.wrml.runtime.format.ModelWriteOptions;
 import org.wrml.runtime.format.ModelWritingException;
 import org.wrml.runtime.rest.ApiLoader;
 import org.wrml.runtime.schema.SchemaLoader;
+import org.wrml.runtime.service.ModelVersion;
 import org.wrml.runtime.service.ServiceLoader;
 import org.wrml.runtime.service.cache.ModelCache;
 import org.wrml.runtime.syntax.SyntaxLoader;
@@ -49,6 +50,13 @@ import java.util.List;
  */
 public interface Context {
 
+    /**
+     * Adds a listener that will be notified after each model is saved or deleted (through this {@link Context}).
+     *
+     * @param listener the listener to add.
+     */
+    void addModelChangeListener(final ModelChangeListener listener);
+
     /**
      * Delete the {@link Model} identified by the {@link Keys}.
      *
@@ -103,6 +111,16 @@ public interface Context {
      */
     <M extends Model> M getModel(final Keys keys, final Dimensions dimensions) throws ContextException;
 
+    /**
+     * Get the version of the stored {@link Model} with the specified {@link Keys}, without loading the model.
+     *
+     * @param keys       the Keys that identify the stored Model.
+     * @param dimensions the Dimensions of the Model that would be retrieved.
+     * @return the stored Model's version (or null if the model's service does not report versions).
+     * @see org.wrml.runtime.service.Service#getVersion(Keys, Dimensions)
+     */
+    ModelVersion getModelVersion(final Keys keys, final Dimensions dimensions) throws ContextException;
+
     /**
      * The optional {@link ModelCache} component owned by this {@link Context}.
      */
@@ -195,6 +213,13 @@ public interface Context {
      */
     <M extends Model> M readModel(final InputStream in, final URI uri, final URI schemaUri, final URI formatUri) throws ModelReadingException;
 
+    /**
+     * Removes a listener that was added with {@link #addModelChangeListener(ModelChangeListener)}.
+     *
+     * @param listener the listener to remove.
+     */
+    void removeModelChangeListener(final ModelChangeListener listener);
+
     /**
      * Requests a Model, conforming to the specified Dimensions, associated with the specified {@link Keys} using the specified request {@link Method} (which may optionally accept
      * a parameter).
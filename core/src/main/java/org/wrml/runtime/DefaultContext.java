@@ -38,7 +38,10 @@ import org.wrml.runtime.rest.DefaultApiLoaderFactory;
 import org.wrml.runtime.rest.Resource;
 import org.wrml.runtime.schema.*;
 import org.wrml.runtime.search.SearchCriteria;
+import org.wrml.runtime.search.SearchResultList;
+import org.wrml.runtime.search.SearchResults;
 import org.wrml.runtime.service.DefaultServiceLoaderFactory;
+import org.wrml.runtime.service.ModelVersion;
 import org.wrml.runtime.service.Service;
 import org.wrml.runtime.service.ServiceLoader;
 import org.wrml.runtime.service.cache.ModelCache;
@@ -50,11 +53,52 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DefaultContext implements Context {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultContext.class);
 
+    /**
+     * The name of the (optional) context setting that specifies the number of threads used to aggregate the embedded
+     * link documents and collection elements of a model (see {@link #initManagedSlots(Model)}) in parallel. The default
+     * is <code>0</code>, which aggregates them one after another on the requesting thread.
+     */
+    public static final String AGGREGATION_THREADS_SETTING_NAME = "aggregationThreads";
+
+    /**
+     * The name of the (optional) context setting that specifies the maximum number of aggregation tasks that may be
+     * queued for the aggregation threads; beyond which the requesting thread performs the task itself. The default is
+     * <code>1024</code>.
+     */
+    public static final String AGGREGATION_QUEUE_SIZE_SETTING_NAME = "aggregationQueueSize";
+
+    /**
+     * The name of the (optional) context setting that specifies the number of milliseconds that a request may spend
+     * aggregating its model's embedded link documents and collection elements. The aggregations that miss the deadline
+     * are abandoned and their slots are left as they are. The default is <code>0</code> (no deadline).
+     */
+    public static final String AGGREGATION_TIMEOUT_SETTING_NAME = "aggregationTimeout";
+
+    /**
+     * The name of the (optional) context setting that specifies how deeply the aggregation may recurse; i.e. embedded
+     * documents (or collection elements) that themselves embed documents. The default is <code>16</code>.
+     */
+    public static final String AGGREGATION_DEPTH_SETTING_NAME = "aggregationDepth";
+
+    /**
+     * The name of the (optional) context setting that, when <code>true</code>, fills a model's collection slots with
+     * {@link SearchResultList}s; which read (and manage) their elements from the {@link Service}'s open search as they are
+     * requested, e.g. while the model is being written. The search stays open until the collection has been read. The
+     * default is <code>false</code>, which reads all of the elements before the model is returned.
+     */
+    public static final String STREAMING_COLLECTIONS_SETTING_NAME = "streamingCollections";
+
+    public static final int DEFAULT_AGGREGATION_QUEUE_SIZE = 1024;
+
+    public static final int DEFAULT_AGGREGATION_DEPTH = 16;
+
     private ContextConfiguration _Config;
 
     ApiLoader _ApiLoader;
@@ -97,9 +141,36 @@ public class DefaultContext implements Context {
 
     private Prototype _VirtualPrototype;
 
+    /**
+     * The service loads that are currently in progress, which concurrent requests for the same model wait on rather
+     * than each calling the service.
+     */
+    private final ConcurrentHashMap<ModelLoadKey, ModelLoad> _ModelLoads;
+
+    /**
+     * The current thread's part in a (possibly multi-threaded) aggregation of models.
+     */
+    private final ThreadLocal<Aggregation> _Aggregations;
+
+    /**
+     * The listeners that are notified of saved and deleted models.
+     */
+    private final CopyOnWriteArrayList<ModelChangeListener> _ModelChangeListeners;
+
+    private ExecutorService _AggregationExecutor;
+
+    private long _AggregationTimeout;
+
+    private int _AggregationDepth;
+
+    private boolean _StreamingCollections;
+
     public DefaultContext() {
 
         LOGGER.info("Creating new instance of: " + getClass().getCanonicalName());
+        _ModelLoads = new ConcurrentHashMap<>();
+        _Aggregations = new ThreadLocal<>();
+        _ModelChangeListeners = new CopyOnWriteArrayList<>();
     }
 
     @Override
@@ -111,6 +182,13 @@ public class DefaultContext implements Context {
 
         _Config = config;
 
+        final Map<String, String> settings = config.getSettings();
+        _AggregationTimeout = parseLongSetting(settings, AGGREGATION_TIMEOUT_SETTING_NAME, 0);
+        _AggregationDepth = (int) parseLongSetting(settings, AGGREGATION_DEPTH_SETTING_NAME, DEFAULT_AGGREGATION_DEPTH);
+        _StreamingCollections = settings != null && Boolean.parseBoolean(settings.get(STREAMING_COLLECTIONS_SETTING_NAME));
+        _AggregationExecutor = createAggregationExecutor((int) parseLongSetting(settings, AGGREGATION_THREADS_SETTING_NAME, 0),
+                (int) parseLongSetting(settings, AGGREGATION_QUEUE_SIZE_SETTING_NAME, DEFAULT_AGGREGATION_QUEUE_SIZE));
+
         _SchemaLoaderFactory = createSchemaLoaderFactory();
         _SchemaLoader = _SchemaLoaderFactory.create();
         _SchemaLoader.init(this);
@@ -154,6 +232,16 @@ public class DefaultContext implements Context {
         _ModelCache = createModelCache();
     }
 
+    @Override
+    public void addModelChangeListener(final ModelChangeListener listener) {
+
+        if (listener == null) {
+            throw new IllegalArgumentException("The listener cannot be null.");
+        }
+
+        _ModelChangeListeners.add(listener);
+    }
+
     @Override
     public final void deleteModel(final Keys keys, final Dimensions dimensions) {
 
@@ -180,6 +268,10 @@ public class DefaultContext implements Context {
                 }
             }
         }
+
+        for (final ModelChangeListener listener : _ModelChangeListeners) {
+            listener.modelDeleted(keys, dimensions);
+        }
     }
 
     @Override
@@ -262,14 +354,18 @@ public class DefaultContext implements Context {
         else if (schemaLoader.isSystemSchema(schemaUri)) {
             model = getSystemModel(keys, dimensions);
         }
-        else if (cache != null && cache.contains(keys, dimensions)) {
-            model = (M) cache.get(keys, dimensions);
-            model.initKeySlots(keys);
-            model = (M) cache.save(model);
+        else if (cache != null) {
+            // A single lookup; the model may be evicted at any time so there is no separate "contains" check.
+            final Model cachedModel = cache.get(keys, dimensions);
+            if (cachedModel != null) {
+                // The cached model is shared by all readers and must never be modified; hand out a copy-on-write snapshot.
+                model = getModelBuilder().snapshotModel(cachedModel);
+                model.initKeySlots(keys);
+            }
         }
 
         if (null == model) {
-            model = getModelFromService(keys, dimensions);
+            model = loadModelFromService(keys, dimensions);
         }
 
         if (null == model) {
@@ -281,6 +377,31 @@ public class DefaultContext implements Context {
         return model;
     }
 
+    @Override
+    public ModelVersion getModelVersion(final Keys keys, final Dimensions dimensions) throws ContextException {
+
+        if (keys == null) {
+            throw new IllegalArgumentException("The keys cannot be null.");
+        }
+
+        if (dimensions == null) {
+            throw new IllegalArgumentException("The dimensions cannot be null.");
+        }
+
+        final URI schemaUri = dimensions.getSchemaUri();
+        if (schemaUri == null) {
+            throw new IllegalArgumentException("The schema URI cannot be null.");
+        }
+
+        if (_VirtualPrototype.isAssignableFrom(schemaUri) || getSchemaLoader().isSystemSchema(schemaUri)) {
+            // Not stored by a service
+            return null;
+        }
+
+        final Service service = getServiceLoader().getServiceForSchema(schemaUri);
+        return (service != null) ? service.getVersion(keys, dimensions) : null;
+    }
+
     @Override
     public ModelCache getModelCache() {
 
@@ -294,6 +415,7 @@ public class DefaultContext implements Context {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public final <M extends Model> List<M> getMultipleModels(final List<Keys> multipleKeys, final Dimensions sameDimensions) {
 
         if (multipleKeys == null) {
@@ -304,14 +426,74 @@ public class DefaultContext implements Context {
             throw new ContextException("The dimensions cannot be null", null, this);
         }
 
+        final URI schemaUri = sameDimensions.getSchemaUri();
+        final Service service = (schemaUri != null) ? getServiceLoader().getServiceForSchema(schemaUri) : null;
+
         final List<M> models = new ArrayList<>(multipleKeys.size());
+        if (service == null || multipleKeys.size() < 2 || _VirtualPrototype.isAssignableFrom(schemaUri)
+                || getSchemaLoader().isSystemSchema(schemaUri)) {
+
+            for (final Keys keys : multipleKeys) {
+                final M model = getModel(keys, sameDimensions);
+                if (model != null) {
+                    models.add(model);
+                }
+            }
+
+            return models;
+        }
+
+        // Serve what we can from the cache and then get all of the misses from the service in a single (batch) call.
+        final ModelCache cache = getModelCache();
+        final Map<Keys, Model> foundModels = new HashMap<>(multipleKeys.size());
+        final Set<Keys> missingKeys = new LinkedHashSet<>(multipleKeys.size());
         for (final Keys keys : multipleKeys) {
-            final M model = getModel(keys, sameDimensions);
-            if (model != null) {
-                models.add(model);
+
+            if (keys == null || keys.getCount() == 0) {
+                throw new ContextException("The keys cannot be null or empty", null, this);
+            }
+
+            final Model cachedModel = (cache != null) ? cache.get(keys, sameDimensions) : null;
+            if (cachedModel != null) {
+                final Model model = getModelBuilder().snapshotModel(cachedModel);
+                model.initKeySlots(keys);
+                foundModels.put(keys, model);
+            }
+            else {
+                missingKeys.add(keys);
             }
         }
 
+        if (!missingKeys.isEmpty()) {
+            LOGGER.debug("Getting {} models from service {}", missingKeys.size(), service);
+
+            final Map<Keys, Model> serviceModels = service.getAll(missingKeys, sameDimensions);
+            for (final Keys keys : missingKeys) {
+                Model model = (serviceModels != null) ? serviceModels.get(keys) : null;
+                if (model == null) {
+                    continue;
+                }
+
+                model = initServiceModel(service, keys, schemaUri, model);
+                if (cache != null) {
+                    model = getModelBuilder().snapshotModel(model);
+                }
+
+                foundModels.put(keys, model);
+            }
+        }
+
+        for (final Keys keys : multipleKeys) {
+            final M model = (M) foundModels.get(keys);
+            if (model == null) {
+                LOGGER.debug("Model *NOT FOUND*\n - Keys:\n{}\n - Dimensions:\n{}", keys, sameDimensions);
+                continue;
+            }
+
+            initManagedSlots(model);
+            models.add(model);
+        }
+
         return models;
     }
 
@@ -382,6 +564,12 @@ public class DefaultContext implements Context {
         return readModel(in, keys, dimensions, formatUri);
     }
 
+    @Override
+    public void removeModelChangeListener(final ModelChangeListener listener) {
+
+        _ModelChangeListeners.remove(listener);
+    }
+
     @Override
     public final <M extends Model> M request(final Method requestMethod, final Keys keys, final Dimensions dimensions, final Model parameter) {
 
@@ -458,14 +646,21 @@ public class DefaultContext implements Context {
             throw new ContextException("Error saving model; no service return a saved model successfully.", this);
         }
 
+        savedModel.setOriginServiceName(originServiceName);
+
+        initManagedSlots(savedModel);
+
         final ModelCache cache = getModelCache();
         if (cache != null) {
-            savedModel = (M) cache.save(savedModel);
+            // The service may hand back the caller's own model (which the caller may go on to change), so cache a copy of
+            // it and give the caller a snapshot of the cached copy.
+            final ModelBuilder modelBuilder = getModelBuilder();
+            savedModel = modelBuilder.snapshotModel(cache.save(modelBuilder.copyModel(savedModel)));
         }
 
-        savedModel.setOriginServiceName(originServiceName);
-
-        initManagedSlots(savedModel);
+        for (final ModelChangeListener listener : _ModelChangeListeners) {
+            listener.modelSaved(savedModel);
+        }
 
         return savedModel;
     }
@@ -581,6 +776,38 @@ public class DefaultContext implements Context {
         return DefaultFactoryConfiguration.createFactory(getConfig().getSyntaxLoader(), DefaultSyntaxLoaderFactory.class);
     }
 
+    /**
+     * Creates the executor used to aggregate models' embedded link documents and collection elements in parallel.
+     *
+     * @param threads   the number of aggregation threads
+     * @param queueSize the maximum number of queued aggregation tasks
+     * @return the executor or <code>null</code> to aggregate on the requesting thread
+     */
+    protected ExecutorService createAggregationExecutor(final int threads, final int queueSize) {
+
+        if (threads <= 0) {
+            return null;
+        }
+
+        final ThreadFactory threadFactory = new ThreadFactory() {
+
+            private final AtomicInteger _ThreadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+
+                final Thread thread = new Thread(runnable, "wrml-aggregation-" + _ThreadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(Math.max(queueSize, 1)), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     protected ModelCache createModelCache() {
 
         final ContextConfiguration config = getConfig();
@@ -653,10 +880,63 @@ public class DefaultContext implements Context {
         return null;
     }
 
+    /**
+     * Gets the model from its service, coalescing concurrent requests for equal keys and dimensions into a single call
+     * to the service. The thread that starts the load performs it and any others block until it completes, at which
+     * point they all share its outcome (model, <code>null</code>, or exception).
+     */
+    @SuppressWarnings("unchecked")
+    private <M extends Model> M loadModelFromService(final Keys keys, final Dimensions dimensions) {
+
+        final ModelLoadKey loadKey = new ModelLoadKey(keys, dimensions);
+        final ModelLoad newLoad = new ModelLoad(keys, dimensions);
+        final ModelLoad load = _ModelLoads.putIfAbsent(loadKey, newLoad);
+        final Aggregation aggregation = openAggregation();
+
+        try {
+            if (load == null) {
+                aggregation.getModelLoads().add(newLoad);
+                try {
+                    newLoad.run();
+                }
+                finally {
+                    aggregation.getModelLoads().remove(newLoad);
+                    _ModelLoads.remove(loadKey, newLoad);
+                }
+
+                final Model model = newLoad.getModel();
+                if (model == null || getModelCache() == null) {
+                    return (M) model;
+                }
+
+                // The loaded model is now cached; like a cache hit, the caller gets a snapshot of it.
+                return getModelBuilder().snapshotModel(model);
+            }
+
+            if (aggregation.getModelLoads().contains(load)) {
+                // Reentrant request (e.g. a model that links to itself), possibly from an aggregation thread working on
+                // behalf of the loading thread; waiting on our own load would deadlock.
+                final Model model = getModelFromService(keys, dimensions);
+                if (model == null || getModelCache() == null) {
+                    return (M) model;
+                }
+
+                return getModelBuilder().snapshotModel(model);
+            }
+        }
+        finally {
+            closeAggregation(aggregation);
+        }
+
+        LOGGER.debug("Waiting on in-flight load\n - Keys:\n{}\n - Dimensions:\n{}", keys, dimensions);
+        final Model model = load.getModel();
+
+        // Each waiter gets its own snapshot of the shared result.
+        return (model != null) ? getModelBuilder().<M>snapshotModel(model) : null;
+    }
+
     private <M extends Model> M getModelFromService(final Keys keys, final Dimensions dimensions) {
 
-        final ModelCache cache = getModelCache();
-        final SchemaLoader schemaLoader = getSchemaLoader();
         final ServiceLoader serviceLoader = getServiceLoader();
 
         final URI schemaUri = dimensions.getSchemaUri();
@@ -667,34 +947,47 @@ public class DefaultContext implements Context {
 
         LOGGER.debug("Service for schemaUri {} is {}", new Object[]{schemaUri, service});
 
-        M model = (M) service.get(keys, dimensions);
+        final M model = (M) service.get(keys, dimensions);
+        if (model == null) {
+            return null;
+        }
 
-        if (model != null) {
-            model.initKeySlots(keys);
+        return initServiceModel(service, keys, schemaUri, model);
+    }
 
-            final String originServiceName = service.getConfiguration().getName();
-            model.setOriginServiceName(originServiceName);
+    /**
+     * Initializes a model that was just retrieved from a service; returning the model to hand out (the cached one, if the
+     * model was cached).
+     */
+    @SuppressWarnings("unchecked")
+    private <M extends Model> M initServiceModel(final Service service, final Keys keys, final URI schemaUri, M model) {
 
-            // TODO: Make this "auto-loading" of these system types configurable?
-            if (schemaLoader.isSystemSchema(schemaUri)) {
-                if (model instanceof Schema) {
-                    schemaLoader.load((Schema) model);
-                }
-                else if (model instanceof LinkRelation) {
-                    _ApiLoader.loadLinkRelation((LinkRelation) model);
-                }
-                else if (model instanceof Choices) {
-                    schemaLoader.loadChoices((Choices) model);
-                }
-            }
-            else if (cache != null) {
-                model = (M) cache.save(model);
-            }
+        final ModelCache cache = getModelCache();
+        final SchemaLoader schemaLoader = getSchemaLoader();
+
+        model.initKeySlots(keys);
 
-            LOGGER.debug("Got Model:\n{}", model);
+        final String originServiceName = service.getConfiguration().getName();
+        model.setOriginServiceName(originServiceName);
 
+        // TODO: Make this "auto-loading" of these system types configurable?
+        if (schemaLoader.isSystemSchema(schemaUri)) {
+            if (model instanceof Schema) {
+                schemaLoader.load((Schema) model);
+            }
+            else if (model instanceof LinkRelation) {
+                _ApiLoader.loadLinkRelation((LinkRelation) model);
+            }
+            else if (model instanceof Choices) {
+                schemaLoader.loadChoices((Choices) model);
+            }
+        }
+        else if (cache != null) {
+            model = (M) cache.save(model);
         }
 
+        LOGGER.debug("Got Model:\n{}", model);
+
         return model;
     }
 
@@ -741,27 +1034,55 @@ public class DefaultContext implements Context {
 
     /**
      * Manage the model's link and collection slots.
+     * <p>
+     * The embedded link documents and collection elements are fetched by {@link AggregationTask}s, which run in parallel
+     * on the aggregation executor (if one is configured, see {@link #AGGREGATION_THREADS_SETTING_NAME}). The results are
+     * joined, and applied to the model, on the requesting thread before this method returns. An aggregation that fails
+     * or misses the request's deadline is logged and its slot is left as it was (partial failure).
+     * </p>
      *
      * @param model The model to manage.
      * @see <a href="http://en.wikipedia.org/wiki/HATEOAS">Wikipedia on HATEOAS</a>
      */
     private void initManagedSlots(final Model model) {
 
-        if (model instanceof Document) {
-            final Document document = (Document) model;
+        final Aggregation aggregation = openAggregation();
+        try {
+            if (aggregation.getDepth() >= _AggregationDepth) {
+                LOGGER.debug("Aggregation depth limit ({}) reached, not managing the slots of model:\n{}", _AggregationDepth, model);
+                return;
+            }
 
-            // Fetch and aggregate any link-embedded documents
-            embedLinkedDocuments(document);
-        }
+            final List<AggregationTask> tasks = new ArrayList<>();
 
-        // If the model has one ore more lists of links then they need to fill it with Link models
-        searchForCollectionElements(model);
+            if (model instanceof Document) {
+                final Document document = (Document) model;
+
+                // Fetch and aggregate any link-embedded documents
+                addEmbeddedLinkTasks(document, tasks);
+            }
+
+            // If the model has one ore more lists of links then they need to fill it with Link models
+            addCollectionTasks(model, tasks);
+
+            aggregation.enter();
+            try {
+                runAggregationTasks(aggregation, tasks);
+            }
+            finally {
+                aggregation.exit();
+            }
+        }
+        finally {
+            closeAggregation(aggregation);
+        }
     }
 
     /**
-     * Part of the HATEOAS automation. For Documents that have a one or more embedded Link slots, this method embeds each of the referenced Documents within the Links.
+     * Part of the HATEOAS automation. For Documents that have a one or more embedded Link slots, this method adds a task
+     * to embed each of the referenced Documents within the Links.
      */
-    private void embedLinkedDocuments(final Document document) {
+    private void addEmbeddedLinkTasks(final Document document, final List<AggregationTask> tasks) {
 
         final Prototype prototype = document.getPrototype();
         final Set<String> embeddedLinkSlotNameSet = new LinkedHashSet<>(document.getDimensions().getEmbeddedLinkSlotNames());
@@ -772,8 +1093,6 @@ public class DefaultContext implements Context {
 
         final Collection<LinkProtoSlot> linkProtoSlots = prototype.getLinkProtoSlots().values();
 
-        // TODO: Asynchronous Document aggregation
-        // https://wrmlorg.jira.com/browse/WRML-289
         for (final LinkProtoSlot linkProtoSlot : linkProtoSlots) {
             final String linkSlotName = linkProtoSlot.getName();
 
@@ -792,14 +1111,7 @@ public class DefaultContext implements Context {
                 }
 
                 if (link.getDoc() == null) {
-                    final Model embedded = document.reference(linkSlotName);
-                    link.setDoc(embedded);
-                    URI href = link.getHref();
-                    if (embedded instanceof Document) {
-                        href = ((Document) embedded).getUri();
-                    }
-
-                    link.setHref(href);
+                    tasks.add(new EmbeddedLinkTask(document, linkSlotName, link));
                 }
             }
 
@@ -807,9 +1119,10 @@ public class DefaultContext implements Context {
     }
 
     /**
-     * For Models that have a one or more collection slots, this method performs a search for the elements.
+     * For Models that have a one or more collection slots, this method adds a task to search for each collection's
+     * elements.
      */
-    protected final void searchForCollectionElements(final Model referrer) {
+    private void addCollectionTasks(final Model referrer, final List<AggregationTask> tasks) {
 
         final Prototype prototype = referrer.getPrototype();
 
@@ -830,8 +1143,6 @@ public class DefaultContext implements Context {
 
         final Set<String> collectionSlotNames = collectionPropertyProtoSlots.keySet();
 
-        // TODO: Asynchronous
-        // https://wrmlorg.jira.com/browse/WRML-289
         for (final String collectionSlotName : collectionSlotNames) {
 
             final CollectionPropertyProtoSlot collectionPropertyProtoSlot = collectionPropertyProtoSlots.get(collectionSlotName);
@@ -845,42 +1156,129 @@ public class DefaultContext implements Context {
             }
 
             final SearchCriteria searchCriteria = protoSearchCriteria.buildSearchCriteria(referrer);
+            tasks.add(new CollectionTask(referrer, referrerUri, collectionPropertyProtoSlot, service, searchCriteria, apiNavigator));
+        }
+    }
 
-            Set<Model> resultSet = null;
+    /**
+     * Runs the aggregation tasks and applies their results. The tasks run in parallel if there is an aggregation
+     * executor and the current thread is not itself an aggregation thread (which aggregates its nested models one after
+     * another, so that the bounded executor's threads never block waiting on each other).
+     */
+    private void runAggregationTasks(final Aggregation aggregation, final List<AggregationTask> tasks) {
+
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        final ExecutorService executor = _AggregationExecutor;
+        if (executor == null || aggregation.isForked() || tasks.size() == 1) {
+            for (final AggregationTask task : tasks) {
+                if (aggregation.isPastDeadline()) {
+                    LOGGER.warn("Aggregation deadline passed, skipping: {}", task);
+                    continue;
+                }
+
+                try {
+                    task.apply(task.call());
+                }
+                catch (final Exception e) {
+                    LOGGER.warn("Aggregation failed: " + task, e);
+                }
+            }
+
+            return;
+        }
 
+        final List<Future<Object>> futures = new ArrayList<>(tasks.size());
+        for (final AggregationTask task : tasks) {
+            final FutureTask<Object> future = new FutureTask<>(new ForkedAggregationTask(aggregation.fork(), task));
             try {
-                resultSet = service.search(searchCriteria);
+                executor.execute(future);
             }
-            catch (UnsupportedOperationException uoe) {
-                // Swallow this.
+            catch (final RejectedExecutionException e) {
+                // Back-pressure; the requesting thread does the work itself.
+                future.run();
             }
 
-            if (resultSet != null && resultSet.size() > 0) {
+            futures.add(future);
+        }
+
+        for (int i = 0; i < tasks.size(); i++) {
+            final AggregationTask task = tasks.get(i);
+            final Future<Object> future = futures.get(i);
+            try {
+                final Object result;
+                if (aggregation.getDeadline() > 0) {
+                    result = future.get(Math.max(aggregation.getDeadline() - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                }
+                else {
+                    result = future.get();
+                }
+
+                task.apply(result);
+            }
+            catch (final TimeoutException e) {
+                // The task is abandoned, not interrupted; an interrupt would close any file channel that the service is
+                // reading (for every reader) and fail any model loads that other requests have coalesced onto.
+                future.cancel(false);
+                LOGGER.warn("Aggregation deadline passed, abandoning: {}", task);
+            }
+            catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (final Future<Object> pendingFuture : futures) {
+                    pendingFuture.cancel(false);
+                }
 
-                final URI linkRelationUri = collectionPropertyProtoSlot.getLinkRelationUri();
-                final Resource endpointResource = apiNavigator.getEndpointResource(linkRelationUri, referrerUri);
+                throw new ContextException("Interrupted while aggregating models.", e, this);
+            }
+            catch (final ExecutionException e) {
+                LOGGER.warn("Aggregation failed: " + task, e.getCause());
+            }
+            catch (final RuntimeException e) {
+                LOGGER.warn("Aggregation failed: " + task, e);
+            }
+        }
+    }
 
-                for (final Model model : resultSet) {
-                    final String originServiceName = service.getConfiguration().getName();
-                    model.setOriginServiceName(originServiceName);
+    /**
+     * Gets the current thread's aggregation, starting a new one (with a new deadline) if there is none. Each call must be
+     * paired with a call to {@link #closeAggregation(Aggregation)}.
+     */
+    private Aggregation openAggregation() {
 
-                    if (model instanceof Document) {
-                        final Document document = (Document) model;
-                        final URI uri = endpointResource.getDocumentUri(document);
-                        document.setUri(uri);
-                    }
+        Aggregation aggregation = _Aggregations.get();
+        if (aggregation == null) {
+            final long deadline = (_AggregationTimeout > 0) ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(_AggregationTimeout) : 0;
+            aggregation = new Aggregation(deadline, 0, new HashSet<ModelLoad>(), false);
+            _Aggregations.set(aggregation);
+        }
 
-                    initManagedSlots(model);
-                }
+        aggregation.open();
+        return aggregation;
+    }
 
-                final List<Model> collection = (List<Model>) referrer.getSlotValue(collectionSlotName);
-                collection.clear();
-                collection.addAll(resultSet);
+    private void closeAggregation(final Aggregation aggregation) {
 
-            }
+        if (aggregation.close() && _Aggregations.get() == aggregation) {
+            _Aggregations.remove();
         }
     }
 
+    private static long parseLongSetting(final Map<String, String> settings, final String settingName, final long defaultValue) {
+
+        if (settings == null || !settings.containsKey(settingName)) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(settings.get(settingName).trim());
+        }
+        catch (final NumberFormatException e) {
+            LOGGER.warn("Invalid {} setting value: {}", settingName, settings.get(settingName));
+            return defaultValue;
+        }
+    }
 
     @Override
     public final <M extends Model> M optionsModel(final Model model) {
@@ -907,4 +1305,439 @@ public class DefaultContext implements Context {
         return result;
     }
 
+    /**
+     * Identifies an in-flight model load by the model's keys and the dimensions that shape the loaded model: its schema,
+     * referrer, locale, projection (embedded, included and excluded slots) and query parameters. The metadata (request
+     * headers) is left out, so requests that differ only in their headers share the load; just as they share the cached
+     * model that the load produces.
+     */
+    private static final class ModelLoadKey {
+
+        private final Keys _Keys;
+
+        private final List<Object> _LoadDimensions;
+
+        private final int _HashCode;
+
+        ModelLoadKey(final Keys keys, final Dimensions dimensions) {
+
+            _Keys = keys;
+            _LoadDimensions = Arrays.<Object>asList(dimensions.getSchemaUri(), dimensions.getReferrerUri(), dimensions.getLocale(),
+                    copyOf(dimensions.getEmbeddedLinkSlotNames()), copyOf(dimensions.getIncludedSlotNames()),
+                    copyOf(dimensions.getExcludedSlotNames()), copyOf(dimensions.getQueryParameters()));
+            _HashCode = 31 * keys.hashCode() + _LoadDimensions.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof ModelLoadKey)) {
+                return false;
+            }
+
+            final ModelLoadKey that = (ModelLoadKey) o;
+            return _HashCode == that._HashCode && _Keys.equals(that._Keys) && _LoadDimensions.equals(that._LoadDimensions);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return _HashCode;
+        }
+
+        /**
+         * Copies a (mutable) dimension, treating <code>null</code> as empty.
+         */
+        private static List<String> copyOf(final List<String> list) {
+
+            return (list != null) ? new ArrayList<>(list) : Collections.<String>emptyList();
+        }
+
+        private static Map<String, String> copyOf(final Map<String, String> map) {
+
+            return (map != null) ? new TreeMap<>(map) : Collections.<String, String>emptyMap();
+        }
+    }
+
+    /**
+     * A model load that is run by the first requesting thread and waited on by the rest.
+     */
+    private final class ModelLoad extends FutureTask<Model> {
+
+        ModelLoad(final Keys keys, final Dimensions dimensions) {
+
+            super(new Callable<Model>() {
+
+                @Override
+                public Model call() throws Exception {
+
+                    return getModelFromService(keys, dimensions);
+                }
+            });
+        }
+
+        Model getModel() {
+
+            try {
+                return get();
+            }
+            catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ContextException("Interrupted while waiting for the model to load.", e, DefaultContext.this);
+            }
+            catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+
+                throw new ContextException("Failed to load the model.", cause, DefaultContext.this);
+            }
+        }
+    }
+
+    /**
+     * A (possibly multi-threaded) aggregation of models' embedded link documents and collection elements, on behalf of a
+     * single request. Each participating thread has its own instance; the requesting thread's, and the
+     * {@link #fork() forked} copies that it hands to the aggregation threads.
+     */
+    private static final class Aggregation {
+
+        private final long _Deadline;
+
+        private final Set<ModelLoad> _ModelLoads;
+
+        private final boolean _Forked;
+
+        private int _Depth;
+
+        private int _OpenCount;
+
+        Aggregation(final long deadline, final int depth, final Set<ModelLoad> modelLoads, final boolean forked) {
+
+            _Deadline = deadline;
+            _Depth = depth;
+            _ModelLoads = modelLoads;
+            _Forked = forked;
+        }
+
+        /**
+         * A copy for an aggregation thread, which shares the deadline, depth and (in progress) model loads.
+         */
+        Aggregation fork() {
+
+            return new Aggregation(_Deadline, _Depth, new HashSet<>(_ModelLoads), true);
+        }
+
+        /**
+         * The deadline, in {@link System#nanoTime()} terms, or <code>0</code> if there is none.
+         */
+        long getDeadline() {
+
+            return _Deadline;
+        }
+
+        int getDepth() {
+
+            return _Depth;
+        }
+
+        /**
+         * The model loads that are in progress on behalf of this aggregation's request, which must not be waited on.
+         */
+        Set<ModelLoad> getModelLoads() {
+
+            return _ModelLoads;
+        }
+
+        boolean isForked() {
+
+            return _Forked;
+        }
+
+        boolean isPastDeadline() {
+
+            return _Deadline > 0 && System.nanoTime() - _Deadline >= 0;
+        }
+
+        void enter() {
+
+            _Depth++;
+        }
+
+        void exit() {
+
+            _Depth--;
+        }
+
+        void open() {
+
+            _OpenCount++;
+        }
+
+        /**
+         * @return <code>true</code> if this was the last open use of the aggregation.
+         */
+        boolean close() {
+
+            return --_OpenCount == 0;
+        }
+    }
+
+    /**
+     * Fetches (on any thread) the models that will fill a slot and then applies them (on the requesting thread).
+     */
+    private abstract static class AggregationTask implements Callable<Object> {
+
+        abstract void apply(final Object result);
+    }
+
+    private static final class EmbeddedLinkTask extends AggregationTask {
+
+        private final Document _Document;
+
+        private final String _LinkSlotName;
+
+        private final Link _Link;
+
+        EmbeddedLinkTask(final Document document, final String linkSlotName, final Link link) {
+
+            _Document = document;
+            _LinkSlotName = linkSlotName;
+            _Link = link;
+        }
+
+        @Override
+        public Object call() throws Exception {
+
+            return _Document.reference(_LinkSlotName);
+        }
+
+        @Override
+        void apply(final Object result) {
+
+            final Model embedded = (Model) result;
+            _Link.setDoc(embedded);
+            URI href = _Link.getHref();
+            if (embedded instanceof Document) {
+                href = ((Document) embedded).getUri();
+            }
+
+            _Link.setHref(href);
+        }
+
+        @Override
+        public String toString() {
+
+            return getClass().getSimpleName() + " [Document = " + _Document.getUri() + ", Link = " + _LinkSlotName + "]";
+        }
+    }
+
+    private final class CollectionTask extends AggregationTask {
+
+        private final Model _Referrer;
+
+        private final URI _ReferrerUri;
+
+        private final CollectionPropertyProtoSlot _CollectionPropertyProtoSlot;
+
+        private final Service _Service;
+
+        private final SearchCriteria _SearchCriteria;
+
+        private final ApiNavigator _ApiNavigator;
+
+        CollectionTask(final Model referrer, final URI referrerUri, final CollectionPropertyProtoSlot collectionPropertyProtoSlot,
+                       final Service service, final SearchCriteria searchCriteria, final ApiNavigator apiNavigator) {
+
+            _Referrer = referrer;
+            _ReferrerUri = referrerUri;
+            _CollectionPropertyProtoSlot = collectionPropertyProtoSlot;
+            _Service = service;
+            _SearchCriteria = searchCriteria;
+            _ApiNavigator = apiNavigator;
+        }
+
+        @Override
+        public Object call() throws Exception {
+
+            SearchResults searchResults = null;
+
+            try {
+                searchResults = _Service.openSearch(_SearchCriteria);
+            }
+            catch (UnsupportedOperationException uoe) {
+                // Swallow this.
+            }
+
+            if (searchResults == null) {
+                return null;
+            }
+
+            final URI linkRelationUri = _CollectionPropertyProtoSlot.getLinkRelationUri();
+            final Resource endpointResource = _ApiNavigator.getEndpointResource(linkRelationUri, _ReferrerUri);
+
+            final Aggregation aggregation = _Aggregations.get();
+            final ManagedSearchResults managedSearchResults = new ManagedSearchResults(searchResults, _Service.getConfiguration().getName(),
+                    endpointResource, (aggregation != null) ? aggregation.getDepth() : 0);
+
+            if (_StreamingCollections) {
+                return new SearchResultList(managedSearchResults);
+            }
+
+            final List<Model> results = new ArrayList<>();
+            try {
+                while (managedSearchResults.hasNext()) {
+                    results.add(managedSearchResults.next());
+                }
+            }
+            finally {
+                managedSearchResults.close();
+            }
+
+            return (results.isEmpty()) ? null : results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void apply(final Object result) {
+
+            if (result == null) {
+                return;
+            }
+
+            if (result instanceof SearchResultList) {
+                // The streaming list replaces, rather than fills, the slot's list.
+                _Referrer.setSlotValue(_CollectionPropertyProtoSlot.getName(), result);
+                return;
+            }
+
+            final List<Model> collection = (List<Model>) _Referrer.getSlotValue(_CollectionPropertyProtoSlot.getName());
+            collection.clear();
+            collection.addAll((List<Model>) result);
+        }
+
+        @Override
+        public String toString() {
+
+            return getClass().getSimpleName() + " [Referrer = " + _ReferrerUri + ", Collection = " + _CollectionPropertyProtoSlot.getName() + "]";
+        }
+    }
+
+    /**
+     * A collection's search results, which are prepared (origin, URI and managed slots) as they are read.
+     */
+    private final class ManagedSearchResults implements SearchResults {
+
+        private final SearchResults _SearchResults;
+
+        private final String _OriginServiceName;
+
+        private final Resource _EndpointResource;
+
+        private final int _Depth;
+
+        ManagedSearchResults(final SearchResults searchResults, final String originServiceName, final Resource endpointResource, final int depth) {
+
+            _SearchResults = searchResults;
+            _OriginServiceName = originServiceName;
+            _EndpointResource = endpointResource;
+            _Depth = depth;
+        }
+
+        @Override
+        public String getContinuationToken() {
+
+            return _SearchResults.getContinuationToken();
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return _SearchResults.hasNext();
+        }
+
+        @Override
+        public Model next() {
+
+            final Model model = _SearchResults.next();
+            model.setOriginServiceName(_OriginServiceName);
+
+            if (model instanceof Document && _EndpointResource != null) {
+                final Document document = (Document) model;
+                final URI uri = _EndpointResource.getDocumentUri(document);
+                document.setUri(uri);
+            }
+
+            if (_Aggregations.get() == null) {
+                // A streamed element is read after the aggregation that searched for it has closed, so it resumes at its depth.
+                _Aggregations.set(new Aggregation(0, _Depth, new HashSet<ModelLoad>(), false));
+            }
+
+            initManagedSlots(model);
+            return model;
+        }
+
+        @Override
+        public void remove() {
+
+            throw new UnsupportedOperationException("Search results cannot be removed.");
+        }
+
+        @Override
+        public void close() {
+
+            _SearchResults.close();
+        }
+    }
+
+    /**
+     * Runs an {@link AggregationTask}'s fetch as part of a forked {@link Aggregation}.
+     */
+    private final class ForkedAggregationTask implements Callable<Object> {
+
+        private final Aggregation _Aggregation;
+
+        private final AggregationTask _Task;
+
+        ForkedAggregationTask(final Aggregation aggregation, final AggregationTask task) {
+
+            _Aggregation = aggregation;
+            _Task = task;
+        }
+
+        @Override
+        public Object call() throws Exception {
+
+            if (_Aggregation.isPastDeadline()) {
+                throw new ContextException("The aggregation deadline has passed.", null, DefaultContext.this);
+            }
+
+            // The requesting thread runs the task itself if the executor rejects it
+            final Aggregation previousAggregation = _Aggregations.get();
+            _Aggregations.set(_Aggregation);
+            _Aggregation.open();
+            try {
+                return _Task.call();
+            }
+            finally {
+                _Aggregation.close();
+                if (previousAggregation != null) {
+                    _Aggregations.set(previousAggregation);
+                }
+                else {
+                    _Aggregations.remove();
+                }
+            }
+        }
+    }
+
 }
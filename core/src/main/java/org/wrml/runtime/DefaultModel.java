@@ -37,13 +37,13 @@ import org.wrml.model.schema.ValueType;
 import org.wrml.runtime.rest.ApiLoader;
 import org.wrml.runtime.rest.ApiNavigator;
 import org.wrml.runtime.rest.Resource;
+import org.wrml.runtime.rest.Route;
 import org.wrml.runtime.schema.LinkProtoSlot;
+import org.wrml.runtime.schema.ProtoMethod;
 import org.wrml.runtime.schema.ProtoSlot;
 import org.wrml.runtime.schema.Prototype;
 import org.wrml.runtime.schema.SchemaLoader;
 import org.wrml.util.AsciiArt;
-import org.wrml.util.JavaBean;
-import org.wrml.util.JavaMethod;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
@@ -94,6 +94,12 @@ final class DefaultModel implements Model, InvocationHandler {
      */
     private Dimensions _Dimensions;
 
+    /**
+     * The schema interface, URI and {@link Prototype} of the proxy handled by {@link #invoke(Object, Method, Object[])};
+     * resolved upon first invocation.
+     */
+    private transient volatile ProxySchema _ProxySchema;
+
     /**
      * Only the WRML runtime can create {@link DefaultModel}s directly.
      *
@@ -194,19 +200,52 @@ final class DefaultModel implements Model, InvocationHandler {
     @Override
     public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
 
-        final Context context = getContext();
-        final SchemaLoader schemaLoader = context.getSchemaLoader();
-
         final Model model = (Model) proxy;
         final String methodName = method.getName();
 
-        final Class<?> modelClass = model.getClass();
-        final Class<?>[] modelClassInterfaces = modelClass.getInterfaces();
+        final ProxySchema proxySchema = getProxySchema(model);
+        final Class<?> modelSchemaInterface = proxySchema._SchemaInterface;
+        final URI modelSchemaUri = proxySchema._SchemaUri;
+        final Prototype prototype = proxySchema._Prototype;
+
+        //
+        // Look up the invoked method in the prototype's "dispatch table", which has pre-resolved the handling of each of
+        // the schema interface's methods.
+        //
+
+        final ProtoMethod protoMethod = prototype.getProtoMethod(method);
+        if (protoMethod != null) {
+
+            switch (protoMethod.getKind()) {
+
+                case GET_SLOT: {
+
+                    return getSlotValue(model, protoMethod.getSlotName(), protoMethod.getDeclaringSchemaUri());
+                }
+
+                case SET_SLOT: {
+
+                    return setSlotValue(model, protoMethod.getSlotName(), args[0], protoMethod.getDeclaringSchemaUri());
+                }
+
+                case LINK: {
+
+                    LinkProtoSlot linkProtoSlot = protoMethod.getLinkProtoSlot();
+                    if (linkProtoSlot == null) {
+                        // Let the prototype report the (missing or mistyped) link slot
+                        linkProtoSlot = prototype.getProtoSlot(protoMethod.getSlotName());
+                    }
+
+                    // The java method's invocation is interpreted as a link reference (i.e. "click").
+                    return invokeReference(model, linkProtoSlot, args);
+                }
+
+                default: {
 
-        // Get the model class's first implemented interface; it's schema interface
-        final Class<?> modelSchemaInterface = modelClassInterfaces[0];
-        final URI modelSchemaUri = schemaLoader.getTypeUri(modelSchemaInterface);
-        final Prototype prototype = schemaLoader.getPrototype(modelSchemaUri);
+                    throw new ModelException("Model method invocation was not handled for method: " + method, null, model);
+                }
+            }
+        }
 
         // Get the class that defined the invoked method
         final Class<?> declaringClass = method.getDeclaringClass();
@@ -258,11 +297,8 @@ final class DefaultModel implements Model, InvocationHandler {
                     case equals: {
 
                         if (argCount == 1) {
-                            final Object other = firstArg;
-                            if (other instanceof Proxy) {
-                                return equals(Proxy.getInvocationHandler(other));
-                            }
-                            return false;
+                            final DefaultModel other = toDefaultModel(firstArg);
+                            return other != null && equals(other);
                         }
 
                         break;
@@ -364,62 +400,6 @@ final class DefaultModel implements Model, InvocationHandler {
             return method.invoke(this, args);
         }
 
-        final JavaBean schemaBean = prototype.getSchemaBean();
-        final SortedMap<String, SortedSet<JavaMethod>> linkMethods = schemaBean.getOtherMethods();
-
-        if (linkMethods.containsKey(methodName)) {
-            String linkSlotName = methodName;
-
-            if (linkSlotName.startsWith(JavaBean.GET)) {
-                linkSlotName = methodName.substring(3);
-                linkSlotName = Character.toLowerCase(linkSlotName.charAt(0)) + linkSlotName.substring(1);
-            }
-
-            final LinkProtoSlot linkProtoSlot = prototype.getProtoSlot(linkSlotName);
-
-            DefaultModel.LOG.debug("Model method: " + method + " is considered a link/reference assicuated with slot: "
-                    + linkProtoSlot);
-
-            // The java method's invocation is interpreted as a link reference (i.e. "click").
-            return invokeReference(model, linkProtoSlot, args);
-        }
-
-        //
-        // Determine if the method name looks like a slot accessor (setter/getter) meaning that it starts with "get",
-        // "set", or "is".
-        //
-
-        boolean isWrite = false;
-        String slotName = null;
-
-        if (methodName.startsWith(JavaBean.GET)) {
-            slotName = methodName.substring(3);
-        }
-        else if (methodName.startsWith(JavaBean.IS)) {
-            slotName = methodName.substring(2);
-        }
-        else if (methodName.startsWith(JavaBean.SET)) {
-            slotName = methodName.substring(3);
-            isWrite = true;
-        }
-
-        if (slotName != null) {
-            slotName = Character.toLowerCase(slotName.charAt(0)) + slotName.substring(1);
-
-            final URI declaringSchemaUri = schemaLoader.getTypeUri(declaringClass);
-
-            if (isWrite) {
-                final Object newSlotValue = args[0];
-                final Object oldSlotValue = setSlotValue(model, slotName, newSlotValue, declaringSchemaUri);
-                return oldSlotValue;
-            }
-            else {
-                final Object slotValue = getSlotValue(model, slotName, declaringSchemaUri);
-
-                return slotValue;
-            }
-        }
-
         throw new ModelException("Model method invocation was not handled for method: " + method, null, model);
     }
 
@@ -475,12 +455,51 @@ final class DefaultModel implements Model, InvocationHandler {
         return setSlotValue(slotName, newValue, null);
     }
 
+    private ProxySchema getProxySchema(final Model model) {
+
+        final Class<?> modelClass = model.getClass();
+
+        ProxySchema proxySchema = _ProxySchema;
+        if (proxySchema == null || proxySchema._ModelClass != modelClass) {
+
+            // Get the model class's first implemented interface; it's schema interface
+            final Class<?> modelSchemaInterface = modelClass.getInterfaces()[0];
+            final SchemaLoader schemaLoader = getContext().getSchemaLoader();
+            final URI modelSchemaUri = schemaLoader.getTypeUri(modelSchemaInterface);
+            final Prototype prototype = schemaLoader.getPrototype(modelSchemaUri);
+
+            proxySchema = new ProxySchema(modelClass, modelSchemaInterface, modelSchemaUri, prototype);
+            _ProxySchema = proxySchema;
+        }
+
+        return proxySchema;
+    }
+
     ModelState getModelState() {
 
         return _ModelState;
     }
 
-    private final Keys buildKeys(final Model model) {
+    /**
+     * Gets the {@link DefaultModel} behind the specified (proxy or generated) model instance.
+     *
+     * @return the {@link DefaultModel} or <code>null</code> if the object is not a runtime model.
+     */
+    static DefaultModel toDefaultModel(final Object model) {
+
+        if (model instanceof GeneratedModel) {
+            return ((GeneratedModel) model).getDefaultModel();
+        }
+
+        if (model instanceof Proxy) {
+            final InvocationHandler handler = Proxy.getInvocationHandler(model);
+            return (handler instanceof DefaultModel) ? (DefaultModel) handler : null;
+        }
+
+        return null;
+    }
+
+    final Keys buildKeys(final Model model) {
 
         return buildKeys(model.getSchemaUri(), model.getSlotMap(), new KeysBuilder());
     }
@@ -530,19 +549,19 @@ final class DefaultModel implements Model, InvocationHandler {
         return keysBuilder.toKeys();
     }
 
-    private Object clearSlotValue(final Model model, final String slotName, final URI schemaUri) {
+    Object clearSlotValue(final Model model, final String slotName, final URI schemaUri) {
 
         final ModelState state = getModelState();
         return state.clearSlotValue(model, slotName, schemaUri);
     }
 
-    private boolean containsSlotValue(final Model model, final String slotName, final URI schemaUri) {
+    boolean containsSlotValue(final Model model, final String slotName, final URI schemaUri) {
 
         final ModelState state = getModelState();
         return state.containsSlotValue(model, slotName, schemaUri);
     }
 
-    private Object getSlotValue(final Model model, final String slotName, final URI schemaUri) {
+    Object getSlotValue(final Model model, final String slotName, final URI schemaUri) {
 
         return getSlotValue(model, slotName, schemaUri, true);
     }
@@ -563,7 +582,7 @@ final class DefaultModel implements Model, InvocationHandler {
         return getSlotValue(this, slotName, schemaUri, strict);
     }
 
-    private void initKeySlots(final Model model, final Keys keys) {
+    void initKeySlots(final Model model, final Keys keys) {
 
         final SchemaLoader schemaLoader = model.getContext().getSchemaLoader();
         final URI documentSchemaUri = schemaLoader.getDocumentSchemaUri();
@@ -605,7 +624,7 @@ final class DefaultModel implements Model, InvocationHandler {
 
     }
 
-    private Object invokeReference(final Model model, final LinkProtoSlot linkProtoSlot, final Object[] args) {
+    Object invokeReference(final Model model, final LinkProtoSlot linkProtoSlot, final Object[] args) {
 
 
         final int argCount = (args != null) ? args.length : 0;
@@ -636,7 +655,17 @@ final class DefaultModel implements Model, InvocationHandler {
 
     }
 
-    private Object setSlotValue(final Model model, final String slotName, final Object newValue, final URI schemaUri) {
+    Object getSlotValue(final Model model, final ProtoSlot protoSlot, final int slotIndex) {
+
+        return getModelState().getSlotValue(model, protoSlot, slotIndex);
+    }
+
+    Object setSlotValue(final Model model, final ProtoSlot protoSlot, final int slotIndex, final Object newValue) {
+
+        return getModelState().setSlotValue(model, protoSlot, slotIndex, newValue);
+    }
+
+    Object setSlotValue(final Model model, final String slotName, final Object newValue, final URI schemaUri) {
 
         return setSlotValue(model, slotName, newValue, schemaUri, true);
     }
@@ -681,13 +710,14 @@ final class DefaultModel implements Model, InvocationHandler {
         final Context context = document.getContext();
         final SchemaLoader schemaLoader = context.getSchemaLoader();
         final ApiLoader apiLoader = context.getApiLoader();
-        final ApiNavigator apiNavigator = apiLoader.getParentApiNavigator(uri);
+        final Route route = apiLoader.getRoute(uri);
 
-        if (apiNavigator == null) {
+        if (route == null) {
             return;
         }
 
-        final Resource resource = apiNavigator.getResource(uri);
+        final ApiNavigator apiNavigator = route.getApiNavigator();
+        final Resource resource = route.getResource();
         final Map<URI, LinkTemplate> linkTemplates = resource.getLinkTemplates();
         if (linkTemplates == null || linkTemplates.isEmpty()) {
             return;
@@ -752,6 +782,28 @@ final class DefaultModel implements Model, InvocationHandler {
         return AsciiArt.express(this);
     }
 
+    /**
+     * The schema related facts about a model proxy's class, which are needed by each invocation.
+     */
+    private static final class ProxySchema {
+
+        private final Class<?> _ModelClass;
+
+        private final Class<?> _SchemaInterface;
+
+        private final URI _SchemaUri;
+
+        private final Prototype _Prototype;
+
+        ProxySchema(final Class<?> modelClass, final Class<?> schemaInterface, final URI schemaUri, final Prototype prototype) {
+
+            _ModelClass = modelClass;
+            _SchemaInterface = schemaInterface;
+            _SchemaUri = schemaUri;
+            _Prototype = prototype;
+        }
+    }
+
     /**
      * The names of model methods that need to be considered as special cases within invoke.
      */
@@ -811,6 +863,12 @@ final class DefaultModel implements Model, InvocationHandler {
 
         Object getSlotValue(final Model model, final String slotName, final URI schemaUri, final boolean strict);
 
+        /**
+         * Gets the value of a slot that has already been resolved to its (real) {@link ProtoSlot} and slot index (see
+         * {@link Prototype#getSlotIndex(String)}), which spares the name based lookups.
+         */
+        Object getSlotValue(final Model model, final ProtoSlot protoSlot, final int slotIndex);
+
         Map<String, Object> getValuedSlots(final Model model);
 
         String setOriginServiceName(final Model model, final String originServiceName);
@@ -818,5 +876,12 @@ final class DefaultModel implements Model, InvocationHandler {
         Object setSlotValue(final Model model, final String slotName, final Object newValue, final URI schemaUri,
                             final boolean strict);
 
+        /**
+         * Sets the value of a slot that has already been resolved to its (real) {@link ProtoSlot} and slot index.
+         *
+         * @see #getSlotValue(Model, ProtoSlot, int)
+         */
+        Object setSlotValue(final Model model, final ProtoSlot protoSlot, final int slotIndex, final Object newValue);
+
     }
 }
@@ -25,6 +25,8 @@
 package org.wrml.runtime;
 
 import com.rits.cloning.Cloner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wrml.model.Model;
 import org.wrml.model.schema.ValueType;
 import org.wrml.runtime.DefaultModel.ModelState;
@@ -32,18 +34,84 @@ import org.wrml.runtime.schema.PropertyProtoSlot;
 import org.wrml.runtime.schema.ProtoSlot;
 import org.wrml.runtime.schema.Prototype;
 import org.wrml.runtime.schema.SchemaLoader;
+import org.wrml.runtime.search.SearchResultList;
 
 import java.lang.reflect.Proxy;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class DefaultModelBuilder implements ModelBuilder {
 
+    /**
+     * The name of the (optional) model builder setting that selects how models are implemented; either
+     * {@link #PROXY_MODEL_IMPLEMENTATION} (the default) or {@link #GENERATED_MODEL_IMPLEMENTATION}.
+     */
+    public static final String MODEL_IMPLEMENTATION_SETTING_NAME = "modelImplementation";
+
+    /**
+     * Models are {@link Proxy} instances that dispatch every method through {@link DefaultModel#invoke}.
+     */
+    public static final String PROXY_MODEL_IMPLEMENTATION = "proxy";
+
+    /**
+     * Models are instances of classes generated (per schema) by the
+     * {@link org.wrml.runtime.schema.generator.SchemaGenerator}, with direct slot accessors.
+     */
+    public static final String GENERATED_MODEL_IMPLEMENTATION = "generated";
+
+    /**
+     * The name of the (optional) model builder setting that selects how new models store their slot values; either
+     * {@link #MAP_MODEL_STATE} (the default) or {@link #INDEXED_MODEL_STATE}.
+     */
+    public static final String MODEL_STATE_SETTING_NAME = "modelState";
+
+    /**
+     * Slot values are stored in a (per model) hash map, keyed by slot name.
+     */
+    public static final String MAP_MODEL_STATE = "map";
+
+    /**
+     * Slot values are stored in a (per model) array, indexed by the {@link Prototype}'s slot indexes. See
+     * {@link IndexedModelState}.
+     */
+    public static final String INDEXED_MODEL_STATE = "indexed";
+
+    /**
+     * The name of the (optional) model builder setting that, when <code>true</code>, causes indexed model states to
+     * store the values of Integer, Long, Double and Boolean slots unboxed. The default is <code>false</code>.
+     */
+    public static final String PRIMITIVE_SLOTS_SETTING_NAME = "primitiveSlots";
+
+    /**
+     * The {@link IndexedModelState}'s marker for a slot whose value is stored in its primitive array.
+     */
+    private static final Object PRIMITIVE_VALUE = new Object();
+
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultModelBuilder.class);
+
     private static final Cloner CLONER = new Cloner();
 
     private Context _Context;
 
+    private boolean _GeneratedModels;
+
+    private boolean _IndexedModelStates;
+
+    private boolean _PrimitiveSlots;
+
+    /**
+     * The slot layouts of the indexed model states, keyed by schema URI.
+     */
+    private final ConcurrentHashMap<URI, SlotLayout> _SlotLayouts = new ConcurrentHashMap<>();
+
+    /**
+     * The schemas whose implementation classes could not be generated; these fall back to proxy models.
+     */
+    private final Set<URI> _UngeneratableSchemaUris = Collections.newSetFromMap(new ConcurrentHashMap<URI, Boolean>());
+
     public DefaultModelBuilder() {
 
     }
@@ -51,9 +119,62 @@ public class DefaultModelBuilder implements ModelBuilder {
     @Override
     public <M extends Model> M copyModel(final Model model) {
 
-        final DefaultModel defaultModel = (DefaultModel) model;
-        final Model clone = new DefaultModel(model.getContext(), defaultModel.getModelState().clone());
-        return clone.newAlternate(model.getDimensions());
+        return copyModel(model, new IdentityHashMap<Object, Object>());
+    }
+
+    /**
+     * Deep copies the model; nested models, lists and other mutable slot values are copied too so that the copy shares
+     * nothing (that can change) with the original. The copies map makes a model that is reachable more than once (or
+     * refers back to itself) get copied only once.
+     */
+    @SuppressWarnings("unchecked")
+    private <M extends Model> M copyModel(final Model model, final IdentityHashMap<Object, Object> copies) {
+
+        final Object existingCopy = copies.get(model);
+        if (existingCopy != null) {
+            return (M) existingCopy;
+        }
+
+        final ModelState modelState = getModelState(model);
+        final ConcurrentHashMap<String, Object> slots = new ConcurrentHashMap<>();
+        final DefaultModelState copyState = new DefaultModelState(UUID.randomUUID(), slots);
+        copyState.setOriginServiceName(null, modelState.getOriginServiceName(model));
+
+        final M copy = newModel(model.getDimensions(), copyState);
+        copies.put(model, copy);
+
+        for (final Map.Entry<String, Object> slot : new LinkedHashMap<>(modelState.getValuedSlots(model)).entrySet()) {
+            final Object value = slot.getValue();
+            if (value != null) {
+                slots.put(slot.getKey(), copySlotValue(value, copies));
+            }
+        }
+
+        return copy;
+    }
+
+    private Object copySlotValue(final Object value, final IdentityHashMap<Object, Object> copies) {
+
+        if (value instanceof String || value instanceof URI || value instanceof Number || value instanceof Boolean
+                || value instanceof Enum || value instanceof Character || value instanceof UUID) {
+            return value;
+        }
+
+        if (value instanceof Model) {
+            return copyModel((Model) value, copies);
+        }
+
+        if (value instanceof Collection) {
+            final List<Object> listCopy = new LinkedList<>();
+            for (final Object element : (Collection<?>) value) {
+                listCopy.add((element != null) ? copySlotValue(element, copies) : null);
+            }
+
+            return listCopy;
+        }
+
+        // Dates and any other (native) values
+        return CLONER.deepClone(value);
     }
 
     @Override
@@ -66,6 +187,48 @@ public class DefaultModelBuilder implements ModelBuilder {
     public void init(final Context context) {
 
         _Context = context;
+
+        final ContextConfiguration contextConfig = context.getConfig();
+        final ModelBuilderConfiguration config = (contextConfig != null) ? contextConfig.getModelBuilder() : null;
+        final Map<String, String> settings = (config != null) ? config.getSettings() : null;
+
+        String modelImplementation = PROXY_MODEL_IMPLEMENTATION;
+        if (settings != null && settings.containsKey(MODEL_IMPLEMENTATION_SETTING_NAME)) {
+            modelImplementation = settings.get(MODEL_IMPLEMENTATION_SETTING_NAME).trim();
+        }
+
+        if (GENERATED_MODEL_IMPLEMENTATION.equalsIgnoreCase(modelImplementation)) {
+            _GeneratedModels = true;
+        }
+        else if (!PROXY_MODEL_IMPLEMENTATION.equalsIgnoreCase(modelImplementation)) {
+            throw new ModelBuilderException("Unknown " + MODEL_IMPLEMENTATION_SETTING_NAME + " setting value: " + modelImplementation, null, this);
+        }
+
+        String modelState = MAP_MODEL_STATE;
+        if (settings != null && settings.containsKey(MODEL_STATE_SETTING_NAME)) {
+            modelState = settings.get(MODEL_STATE_SETTING_NAME).trim();
+        }
+
+        if (INDEXED_MODEL_STATE.equalsIgnoreCase(modelState)) {
+            _IndexedModelStates = true;
+        }
+        else if (!MAP_MODEL_STATE.equalsIgnoreCase(modelState)) {
+            throw new ModelBuilderException("Unknown " + MODEL_STATE_SETTING_NAME + " setting value: " + modelState, null, this);
+        }
+
+        if (settings != null && settings.containsKey(PRIMITIVE_SLOTS_SETTING_NAME)) {
+            _PrimitiveSlots = Boolean.parseBoolean(settings.get(PRIMITIVE_SLOTS_SETTING_NAME).trim());
+        }
+    }
+
+    public boolean isGeneratedModels() {
+
+        return _GeneratedModels;
+    }
+
+    public boolean isIndexedModelStates() {
+
+        return _IndexedModelStates;
     }
 
     @Override
@@ -99,6 +262,17 @@ public class DefaultModelBuilder implements ModelBuilder {
         return newModel(newDimensions(schemaInterface));
     }
 
+    @Override
+    public <M extends Model> M newEmptyModel(final Dimensions dimensions) throws ModelBuilderException {
+
+        if (dimensions == null) {
+            throw new ModelBuilderException("The dimensions cannot be null.", null, this);
+        }
+
+        final Prototype prototype = getSchemaLoader().getPrototype(dimensions.getSchemaUri());
+        return newModel(dimensions, newModelState(prototype));
+    }
+
     @Override
     public final <M extends Model> M newModel(final Dimensions dimensions) throws ModelBuilderException {
 
@@ -124,6 +298,20 @@ public class DefaultModelBuilder implements ModelBuilder {
         return newModel(newDimensions(schemaUri));
     }
 
+    @Override
+    public <M extends Model> M snapshotModel(final Model model) throws ModelBuilderException {
+
+        if (model == null) {
+            throw new ModelBuilderException("The model cannot be null.", null, this);
+        }
+
+        final ModelState modelState = getModelState(model);
+        final SnapshotModelState snapshotState = new SnapshotModelState(UUID.randomUUID(), modelState.getValuedSlots(model),
+                modelState.getOriginServiceName(model));
+
+        return newModel(model.getDimensions(), snapshotState);
+    }
+
     protected final <M extends Model> M newModel(final Dimensions dimensions, final ModelState existingState)
             throws ModelBuilderException {
 
@@ -144,7 +332,7 @@ public class DefaultModelBuilder implements ModelBuilder {
             setDefaults = false;
         }
         else {
-            modelState = new DefaultModelState(UUID.randomUUID());
+            modelState = newModelState(prototype);
             setDefaults = true;
 
         }
@@ -187,10 +375,18 @@ public class DefaultModelBuilder implements ModelBuilder {
 
         model.setDimensions(dimensions);
 
-        // Defer to Java's cool Proxy class to work its magic.
-        // This alternate instance implements the Java interface(s) associated with the Dimension-specified WRML schema.
-        @SuppressWarnings("unchecked")
-        final M typedModel = (M) Proxy.newProxyInstance((ClassLoader) schemaLoader, schemaInterfaceArray, model);
+        M typedModel = null;
+        if (_GeneratedModels && schemaInterface != null && !ValueType.JAVA_TYPE_MODEL.equals(schemaInterface)) {
+            typedModel = newGeneratedModel(schemaUri, prototype, model);
+        }
+
+        if (typedModel == null) {
+            // Defer to Java's cool Proxy class to work its magic.
+            // This alternate instance implements the Java interface(s) associated with the Dimension-specified WRML schema.
+            @SuppressWarnings("unchecked")
+            final M proxyModel = (M) Proxy.newProxyInstance((ClassLoader) schemaLoader, schemaInterfaceArray, model);
+            typedModel = proxyModel;
+        }
 
         // Formally initialize the typed model by running the slot values through the constraints.
         final Map<String, Object> slotMap = typedModel.getSlotMap();
@@ -207,6 +403,44 @@ public class DefaultModelBuilder implements ModelBuilder {
 
     }
 
+    /**
+     * Creates an instance of the schema's generated implementation class, or returns <code>null</code> if the class
+     * cannot be generated (in which case the caller should fall back to a proxy model).
+     */
+    @SuppressWarnings("unchecked")
+    private <M extends Model> M newGeneratedModel(final URI schemaUri, final Prototype prototype, final DefaultModel model) {
+
+        if (_UngeneratableSchemaUris.contains(schemaUri)) {
+            return null;
+        }
+
+        final GeneratedModel generatedModel;
+        try {
+            final Class<?> schemaImplementation = getSchemaLoader().getSchemaImplementation(schemaUri);
+            generatedModel = (GeneratedModel) schemaImplementation.newInstance();
+        }
+        catch (final ClassNotFoundException | InstantiationException | IllegalAccessException | RuntimeException | LinkageError e) {
+            LOG.warn("Unable to generate a model implementation class for " + schemaUri + "; falling back to a proxy model.", e);
+            _UngeneratableSchemaUris.add(schemaUri);
+            return null;
+        }
+
+        generatedModel.init(model, prototype, schemaUri);
+        return (M) generatedModel;
+    }
+
+    /**
+     * Creates the (empty) slot storage for a new model of the specified prototype.
+     */
+    protected ModelState newModelState(final Prototype prototype) {
+
+        if (_IndexedModelStates && prototype != null) {
+            return new IndexedModelState(UUID.randomUUID(), prototype, _PrimitiveSlots);
+        }
+
+        return new DefaultModelState(UUID.randomUUID());
+    }
+
     protected void setDefaultValues(final Model model, final Prototype prototype) {
 
         final SortedSet<String> slotNames = prototype.getAllSlotNames();
@@ -222,11 +456,37 @@ public class DefaultModelBuilder implements ModelBuilder {
         }
     }
 
+    private ModelState getModelState(final Model model) {
+
+        if (model instanceof DefaultModel) {
+            return ((DefaultModel) model).getModelState();
+        }
+
+        final DefaultModel defaultModel = DefaultModel.toDefaultModel(model);
+        if (defaultModel != null) {
+            return defaultModel.getModelState();
+        }
+
+        throw new ModelBuilderException("The model was not built by this model builder: " + model.getClass(), null, this);
+    }
+
     private SchemaLoader getSchemaLoader() {
 
         return getContext().getSchemaLoader();
     }
 
+    private SlotLayout getSlotLayout(final Prototype prototype) {
+
+        final URI schemaUri = prototype.getSchemaUri();
+        SlotLayout slotLayout = _SlotLayouts.get(schemaUri);
+        if (slotLayout == null || slotLayout._Prototype != prototype) {
+            slotLayout = new SlotLayout(prototype);
+            _SlotLayouts.put(schemaUri, slotLayout);
+        }
+
+        return slotLayout;
+    }
+
     protected class DefaultModelState implements ModelState {
 
         private final UUID _HeapId;
@@ -273,8 +533,9 @@ public class DefaultModelBuilder implements ModelBuilder {
                 }
             }
 
-            if (_Slots.containsKey(realSlotName)) {
-                final Object oldValue = _Slots.remove(realSlotName);
+            if (hasSlot(realSlotName)) {
+                final Object oldValue = readSlot(realSlotName);
+                writeSlot(realSlotName, null);
                 return oldValue;
 
             }
@@ -302,7 +563,7 @@ public class DefaultModelBuilder implements ModelBuilder {
                 }
             }
 
-            return _Slots.containsKey(realSlotName);
+            return hasSlot(realSlotName);
         }
 
         @Override
@@ -356,8 +617,8 @@ public class DefaultModelBuilder implements ModelBuilder {
                 }
             }
 
-            if (_Slots.containsKey(realSlotName)) {
-                return _Slots.get(realSlotName);
+            if (hasSlot(realSlotName)) {
+                return readSlot(realSlotName);
             }
 
             if (schemaUri == null) {
@@ -373,6 +634,110 @@ public class DefaultModelBuilder implements ModelBuilder {
                 return null;
             }
 
+            return getUnsetSlotValue(realSlotName, protoSlot);
+        }
+
+        @Override
+        public Object getSlotValue(final Model model, final ProtoSlot protoSlot, final int slotIndex) {
+
+            // Slots are never stored with a null value, so null means unset.
+            final Object value = readSlot(protoSlot, slotIndex);
+            if (value != null) {
+                return value;
+            }
+
+            return getUnsetSlotValue(protoSlot.getRealName(), protoSlot);
+        }
+
+        @Override
+        public Map<String, Object> getValuedSlots(final Model model) {
+
+            return _Slots;
+        }
+
+        @Override
+        public int hashCode() {
+
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((_HeapId == null) ? 0 : _HeapId.hashCode());
+            return result;
+        }
+
+        @Override
+        public String setOriginServiceName(final Model model, final String originServiceName) {
+
+            final String oldOriginServiceName = _OriginServiceName;
+            _OriginServiceName = originServiceName;
+            return oldOriginServiceName;
+        }
+
+        @Override
+        public Object setSlotValue(final Model model, final String slotName, final Object newValue, final URI schemaUri, final boolean strict) {
+
+            if (schemaUri == null) {
+                writeSlot(slotName, newValue);
+                return null;
+            }
+
+            Prototype prototype = model.getPrototype();
+            if (prototype == null) {
+                prototype = getSchemaLoader().getPrototype(schemaUri);
+            }
+
+            final ProtoSlot protoSlot = prototype.getProtoSlot(slotName, strict);
+            if (protoSlot == null) {
+                return null;
+            }
+
+            return setSlotValue(model, protoSlot, prototype.getSlotIndex(slotName), newValue);
+        }
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        @Override
+        public Object setSlotValue(final Model model, final ProtoSlot protoSlot, final int slotIndex, final Object newValue) {
+
+            Object oldValue = peekSlot(protoSlot, slotIndex);
+
+            if (protoSlot instanceof PropertyProtoSlot) {
+
+                final PropertyProtoSlot propertyProtoSlot = (PropertyProtoSlot) protoSlot;
+
+                if (oldValue == null) {
+                    oldValue = propertyProtoSlot.getDefaultValue();
+                }
+
+                propertyProtoSlot.validateNewValue(model, newValue);
+
+                // A (streaming) search result list replaces the slot's list, rather than being read into it.
+                if (protoSlot.getValueType() == ValueType.List && newValue instanceof Collection && !(newValue instanceof SearchResultList)) {
+                    final List list = (List) getSlotValue(model, protoSlot, slotIndex);
+                    if (list != newValue) {
+                        list.clear();
+                        list.addAll((Collection) newValue);
+                        return list;
+                    }
+
+                    return newValue;
+                }
+            }
+
+            writeSlot(protoSlot, slotIndex, newValue);
+            return oldValue;
+        }
+
+        @Override
+        public String toString() {
+
+            return getClass().getSimpleName() + " { heapId : " + _HeapId + ", slots : " + getValuedSlots(null) + ", origin : " + _OriginServiceName + "}";
+        }
+
+        /**
+         * Gets the value of an unset slot; the empty list (which is stored, lazily) of a List slot or the default value
+         * of a property slot.
+         */
+        protected Object getUnsetSlotValue(final String realSlotName, final ProtoSlot protoSlot) {
+
             /*
             if (protoSlot instanceof LinkProtoSlot)
             {
@@ -387,7 +752,7 @@ public class DefaultModelBuilder implements ModelBuilder {
                 // Lazily create the List slot value when requested
 
                 final List<?> emptyList = new LinkedList<>();
-                _Slots.put(realSlotName, emptyList);
+                writeSlot(realSlotName, emptyList);
                 return emptyList;
             }
             else if (protoSlot instanceof PropertyProtoSlot) {
@@ -399,95 +764,621 @@ public class DefaultModelBuilder implements ModelBuilder {
             return null;
         }
 
+        protected boolean hasSlot(final String realSlotName) {
+
+            return _Slots.containsKey(realSlotName);
+        }
+
+        /**
+         * Gets the slot's value without the intention of modifying it.
+         */
+        protected Object peekSlot(final String realSlotName) {
+
+            return readSlot(realSlotName);
+        }
+
+        protected Object readSlot(final String realSlotName) {
+
+            return _Slots.get(realSlotName);
+        }
+
+        /**
+         * Gets the value of the slot, which has been resolved to its {@link ProtoSlot} and slot index, without the
+         * intention of modifying it.
+         */
+        protected Object peekSlot(final ProtoSlot protoSlot, final int slotIndex) {
+
+            return peekSlot(protoSlot.getRealName());
+        }
+
+        /**
+         * Reads the value of the slot, which has been resolved to its {@link ProtoSlot} and slot index; by name, unless
+         * the state is indexed.
+         */
+        protected Object readSlot(final ProtoSlot protoSlot, final int slotIndex) {
+
+            return readSlot(protoSlot.getRealName());
+        }
+
+        /**
+         * Stores (or, if the value is <code>null</code>, removes) the slot's value.
+         */
+        protected void writeSlot(final String realSlotName, final Object value) {
+
+            if (value == null) {
+                _Slots.remove(realSlotName);
+            }
+            else {
+                _Slots.put(realSlotName, value);
+            }
+        }
+
+        /**
+         * Stores (or removes) the value of the slot, which has been resolved to its {@link ProtoSlot} and slot index.
+         */
+        protected void writeSlot(final ProtoSlot protoSlot, final int slotIndex, final Object value) {
+
+            writeSlot(protoSlot.getRealName(), value);
+        }
+
+    }
+
+    /**
+     * <p>
+     * A copy-on-write {@link ModelState} that shares (and never modifies) the slot map of another model.
+     * </p>
+     * <p>
+     * Reads are served directly from the shared slots until the snapshot is written to, at which point only the written
+     * slot is copied into the snapshot's private overlay. Nested models and lists are mutable, so they are copied into the
+     * overlay (as snapshots and list copies respectively) the first time they are read. Writing a slot's current value
+     * back to it does not copy anything.
+     * </p>
+     * <p>
+     * This allows many readers to be handed their own (mutable) view of one cached model without locking or cloning it.
+     * </p>
+     */
+    protected class SnapshotModelState extends DefaultModelState {
+
+        private final Map<String, Object> _SharedSlots;
+
+        private final ConcurrentHashMap<String, Object> _Overlay;
+
+        private final Set<String> _ClearedSlotNames;
+
+        protected SnapshotModelState(final UUID heapId, final Map<String, Object> sharedSlots, final String originServiceName) {
+
+            super(heapId, new ConcurrentHashMap<String, Object>(0));
+
+            _SharedSlots = sharedSlots;
+            _Overlay = new ConcurrentHashMap<>();
+            _ClearedSlotNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            setOriginServiceName(null, originServiceName);
+        }
+
+        @Override
+        public SnapshotModelState clone() {
+
+            return new SnapshotModelState(UUID.randomUUID(), new ConcurrentHashMap<>(getValuedSlots(null)), getOriginServiceName(null));
+        }
+
         @Override
         public Map<String, Object> getValuedSlots(final Model model) {
 
-            return _Slots;
+            if (_Overlay.isEmpty() && _ClearedSlotNames.isEmpty()) {
+                return Collections.unmodifiableMap(_SharedSlots);
+            }
+
+            final Map<String, Object> valuedSlots = new LinkedHashMap<>(_SharedSlots);
+            valuedSlots.keySet().removeAll(_ClearedSlotNames);
+            valuedSlots.putAll(_Overlay);
+            return Collections.unmodifiableMap(valuedSlots);
+        }
+
+        /**
+         * @return <code>true</code> if this snapshot has diverged from the model that it was taken of.
+         */
+        public boolean isForked() {
+
+            return !_Overlay.isEmpty() || !_ClearedSlotNames.isEmpty();
         }
 
         @Override
-        public int hashCode() {
+        protected boolean hasSlot(final String realSlotName) {
 
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + ((_HeapId == null) ? 0 : _HeapId.hashCode());
-            return result;
+            if (_Overlay.containsKey(realSlotName)) {
+                return true;
+            }
+
+            return !_ClearedSlotNames.contains(realSlotName) && _SharedSlots.containsKey(realSlotName);
         }
 
         @Override
-        public String setOriginServiceName(final Model model, final String originServiceName) {
+        protected Object peekSlot(final String realSlotName) {
 
-            final String oldOriginServiceName = _OriginServiceName;
-            _OriginServiceName = originServiceName;
-            return oldOriginServiceName;
+            if (_Overlay.containsKey(realSlotName) || _ClearedSlotNames.contains(realSlotName)) {
+                return _Overlay.get(realSlotName);
+            }
+
+            return _SharedSlots.get(realSlotName);
         }
 
-        @SuppressWarnings({"rawtypes", "unchecked"})
         @Override
-        public Object setSlotValue(final Model model, final String slotName, final Object newValue, final URI schemaUri, final boolean strict) {
+        protected Object readSlot(final String realSlotName) {
 
-            String realSlotName = slotName;
-            Object oldValue = null;
-            Prototype prototype = model.getPrototype();
-            ProtoSlot protoSlot = null;
+            final Object overlayValue = _Overlay.get(realSlotName);
+            if (overlayValue != null || _ClearedSlotNames.contains(realSlotName)) {
+                return overlayValue;
+            }
 
-            if (schemaUri != null) {
+            final Object sharedValue = _SharedSlots.get(realSlotName);
+            if (sharedValue instanceof Model || sharedValue instanceof List) {
+                // The caller may modify the value in place, so give this snapshot its own copy.
+                final Object privateValue = privatize(sharedValue);
+                final Object existingValue = _Overlay.putIfAbsent(realSlotName, privateValue);
+                return (existingValue != null) ? existingValue : privateValue;
+            }
 
-                final SchemaLoader schemaLoader = getSchemaLoader();
-                if (prototype == null) {
-                    prototype = schemaLoader.getPrototype(schemaUri);
+            return sharedValue;
+        }
+
+        @Override
+        protected void writeSlot(final String realSlotName, final Object value) {
+
+            if (value == null) {
+                _Overlay.remove(realSlotName);
+                if (_SharedSlots.containsKey(realSlotName)) {
+                    _ClearedSlotNames.add(realSlotName);
                 }
 
-                protoSlot = prototype.getProtoSlot(slotName, strict);
-                if (protoSlot == null) {
-                    return null;
+                return;
+            }
+
+            if (!_Overlay.containsKey(realSlotName) && !_ClearedSlotNames.contains(realSlotName)) {
+                final Object sharedValue = _SharedSlots.get(realSlotName);
+                if (value == sharedValue || (isImmutableValue(value) && value.equals(sharedValue))) {
+                    // Idempotent write; nothing to fork.
+                    return;
+                }
+            }
+
+            _Overlay.put(realSlotName, value);
+            _ClearedSlotNames.remove(realSlotName);
+        }
+
+        private boolean isImmutableValue(final Object value) {
+
+            return value instanceof String || value instanceof URI || value instanceof Number || value instanceof Boolean
+                    || value instanceof Enum || value instanceof Character;
+        }
+
+        private Object privatize(final Object sharedValue) {
+
+            if (sharedValue instanceof Model) {
+                return snapshotModel((Model) sharedValue);
+            }
+
+            final List<?> sharedList = (List<?>) sharedValue;
+            final List<Object> privateList = new LinkedList<>();
+            for (final Object element : sharedList) {
+                privateList.add((element instanceof Model) ? snapshotModel((Model) element) : element);
+            }
+
+            return privateList;
+        }
+
+    }
+
+    /**
+     * <p>
+     * A {@link ModelState} that stores slot values in an array, indexed by the slot indexes of the model's
+     * {@link Prototype} (see {@link Prototype#getSlotIndex(String)}), rather than in a hash map keyed by slot name. This
+     * avoids the per model (and per slot) overhead of a {@link ConcurrentHashMap}, which matters when many models (e.g.
+     * cached documents) are held in the heap.
+     * </p>
+     * <p>
+     * Optionally, the values of Integer, Long, Double and Boolean slots are stored unboxed in a second (primitive) array.
+     * Slots that are unknown to the prototype, such as those of an alternate model with a different schema, are stored in
+     * an overflow map. The {@link #getValuedSlots(Model)} map is a (modifiable) view of the arrays.
+     * </p>
+     * <p>
+     * Like the map based state, the state may be read and written by many threads at once (e.g. when a cached model is
+     * being snapshot and aggregated); the arrays are atomic and the view's iterators are weakly consistent, in the manner
+     * of a {@link ConcurrentHashMap}'s.
+     * </p>
+     *
+     * @see #MODEL_STATE_SETTING_NAME
+     */
+    protected class IndexedModelState extends DefaultModelState {
+
+        private final SlotLayout _SlotLayout;
+
+        private final AtomicReferenceArray<Object> _Values;
+
+        private final AtomicLongArray _PrimitiveValues;
+
+        private volatile ConcurrentHashMap<String, Object> _OverflowSlots;
+
+        protected IndexedModelState(final UUID heapId, final Prototype prototype, final boolean primitiveSlots) {
+
+            this(heapId, getSlotLayout(prototype), primitiveSlots);
+        }
+
+        private IndexedModelState(final UUID heapId, final SlotLayout slotLayout, final boolean primitiveSlots) {
+
+            super(heapId, null);
+
+            _SlotLayout = slotLayout;
+            _Values = new AtomicReferenceArray<>(slotLayout._SlotNames.length);
+            _PrimitiveValues = (primitiveSlots && slotLayout._PrimitiveSlotCount > 0) ? new AtomicLongArray(slotLayout._PrimitiveSlotCount) : null;
+        }
+
+        @Override
+        public IndexedModelState clone() {
+
+            final IndexedModelState clone = new IndexedModelState(UUID.randomUUID(), _SlotLayout, _PrimitiveValues != null);
+            if (_PrimitiveValues != null) {
+                for (int i = 0; i < _PrimitiveValues.length(); i++) {
+                    clone._PrimitiveValues.set(i, _PrimitiveValues.get(i));
+                }
+            }
+
+            for (int i = 0; i < _Values.length(); i++) {
+                clone._Values.set(i, _Values.get(i));
+            }
+
+            if (_OverflowSlots != null) {
+                clone._OverflowSlots = new ConcurrentHashMap<>(_OverflowSlots);
+            }
+
+            clone.setOriginServiceName(null, getOriginServiceName(null));
+            return clone;
+        }
+
+        @Override
+        public Map<String, Object> getValuedSlots(final Model model) {
+
+            return new SlotMapView();
+        }
+
+        @Override
+        protected boolean hasSlot(final String realSlotName) {
+
+            final int slotIndex = _SlotLayout._Prototype.getSlotIndex(realSlotName);
+            if (slotIndex >= 0) {
+                return _Values.get(slotIndex) != null;
+            }
+
+            final Map<String, Object> overflowSlots = _OverflowSlots;
+            return overflowSlots != null && overflowSlots.containsKey(realSlotName);
+        }
+
+        @Override
+        protected Object readSlot(final String realSlotName) {
+
+            final int slotIndex = _SlotLayout._Prototype.getSlotIndex(realSlotName);
+            if (slotIndex >= 0) {
+                return readSlot(slotIndex);
+            }
+
+            final Map<String, Object> overflowSlots = _OverflowSlots;
+            return (overflowSlots != null) ? overflowSlots.get(realSlotName) : null;
+        }
+
+        @Override
+        protected void writeSlot(final String realSlotName, final Object value) {
+
+            final int slotIndex = _SlotLayout._Prototype.getSlotIndex(realSlotName);
+            if (slotIndex >= 0) {
+                writeSlot(slotIndex, value);
+            }
+            else if (value != null) {
+                getOverflowSlots().put(realSlotName, value);
+            }
+            else if (_OverflowSlots != null) {
+                _OverflowSlots.remove(realSlotName);
+            }
+        }
+
+        @Override
+        protected Object peekSlot(final ProtoSlot protoSlot, final int slotIndex) {
+
+            return readSlot(protoSlot, slotIndex);
+        }
+
+        @Override
+        protected Object readSlot(final ProtoSlot protoSlot, final int slotIndex) {
+
+            // The index is only meaningful within the prototype that this state is laid out for (an alternate model's
+            // slots are resolved within its own prototype).
+            if (slotIndex >= 0 && protoSlot.getPrototype() == _SlotLayout._Prototype) {
+                return readSlot(slotIndex);
+            }
+
+            return readSlot(protoSlot.getRealName());
+        }
+
+        @Override
+        protected void writeSlot(final ProtoSlot protoSlot, final int slotIndex, final Object value) {
+
+            if (slotIndex >= 0 && protoSlot.getPrototype() == _SlotLayout._Prototype) {
+                writeSlot(slotIndex, value);
+            }
+            else {
+                writeSlot(protoSlot.getRealName(), value);
+            }
+        }
+
+        private ConcurrentHashMap<String, Object> getOverflowSlots() {
+
+            if (_OverflowSlots == null) {
+                synchronized (this) {
+                    if (_OverflowSlots == null) {
+                        _OverflowSlots = new ConcurrentHashMap<>();
+                    }
                 }
+            }
+
+            return _OverflowSlots;
+        }
+
+        private Object readSlot(final int slotIndex) {
 
-                realSlotName = protoSlot.getRealName();
-                oldValue = _Slots.get(realSlotName);
+            final Object value = _Values.get(slotIndex);
+            if (value != PRIMITIVE_VALUE) {
+                return value;
+            }
+
+            final long bits = _PrimitiveValues.get(_SlotLayout._PrimitiveSlotIndexes[slotIndex]);
+            switch (_SlotLayout._ValueTypes[slotIndex]) {
+                case Boolean:
+                    return bits != 0L;
+                case Double:
+                    return Double.longBitsToDouble(bits);
+                case Integer:
+                    return (int) bits;
+                default:
+                    return bits;
+            }
+        }
 
-                final PropertyProtoSlot propertyProtoSlot = (protoSlot instanceof PropertyProtoSlot) ? (PropertyProtoSlot) protoSlot
-                        : null;
+        private void writeSlot(final int slotIndex, final Object value) {
 
-                if (propertyProtoSlot != null) {
+            if (value == null || _PrimitiveValues == null) {
+                _Values.set(slotIndex, value);
+                return;
+            }
+
+            final int primitiveSlotIndex = _SlotLayout._PrimitiveSlotIndexes[slotIndex];
+            if (primitiveSlotIndex < 0) {
+                _Values.set(slotIndex, value);
+                return;
+            }
 
-                    if (oldValue == null) {
-                        oldValue = propertyProtoSlot.getDefaultValue();
+            // The bits are written before the marker, so that a reader that sees the marker also sees the (new) bits.
+            final ValueType valueType = _SlotLayout._ValueTypes[slotIndex];
+            if (valueType == ValueType.Boolean && value instanceof Boolean) {
+                _PrimitiveValues.set(primitiveSlotIndex, ((Boolean) value) ? 1L : 0L);
+            }
+            else if (valueType == ValueType.Double && value instanceof Double) {
+                _PrimitiveValues.set(primitiveSlotIndex, Double.doubleToRawLongBits((Double) value));
+            }
+            else if (valueType == ValueType.Integer && value instanceof Integer) {
+                _PrimitiveValues.set(primitiveSlotIndex, (Integer) value);
+            }
+            else if (valueType == ValueType.Long && value instanceof Long) {
+                _PrimitiveValues.set(primitiveSlotIndex, (Long) value);
+            }
+            else {
+                // Not the slot's natural (boxed) type, keep it as is
+                _Values.set(slotIndex, value);
+                return;
+            }
+
+            _Values.set(slotIndex, PRIMITIVE_VALUE);
+        }
+
+        /**
+         * The slot map view of the state's arrays (and overflow map).
+         */
+        private final class SlotMapView extends AbstractMap<String, Object> {
+
+            @Override
+            public boolean containsKey(final Object key) {
+
+                return (key instanceof String) && hasSlot((String) key);
+            }
+
+            @Override
+            public Set<Entry<String, Object>> entrySet() {
+
+                return new AbstractSet<Entry<String, Object>>() {
+
+                    @Override
+                    public Iterator<Entry<String, Object>> iterator() {
+
+                        return new SlotIterator();
                     }
 
-                    propertyProtoSlot.validateNewValue(model, newValue);
+                    @Override
+                    public int size() {
 
-                    if (protoSlot.getValueType() == ValueType.List && newValue instanceof Collection) {
-                        final List list = (List) getSlotValue(model, realSlotName, schemaUri, strict);
-                        if (list != newValue) {
-                            list.clear();
-                            list.addAll((Collection) newValue);
-                            return list;
+                        int size = 0;
+                        for (int i = 0; i < _Values.length(); i++) {
+                            if (_Values.get(i) != null) {
+                                size++;
+                            }
                         }
 
-                        return newValue;
+                        final Map<String, Object> overflowSlots = _OverflowSlots;
+                        return (overflowSlots != null) ? size + overflowSlots.size() : size;
                     }
+                };
+            }
+
+            @Override
+            public Object get(final Object key) {
+
+                return (key instanceof String) ? readSlot((String) key) : null;
+            }
+
+            @Override
+            public Object put(final String key, final Object value) {
+
+                final Object oldValue = readSlot(key);
+                writeSlot(key, value);
+                return oldValue;
+            }
+
+            @Override
+            public Object remove(final Object key) {
+
+                if (!(key instanceof String)) {
+                    return null;
                 }
+
+                final Object oldValue = readSlot((String) key);
+                writeSlot((String) key, null);
+                return oldValue;
             }
+        }
 
+        /**
+         * Iterates the valued slots; first those in the array (in slot index order), then any overflow slots. Each entry
+         * is read ahead of its {@link #next()}, so a slot that is cleared concurrently may still be returned (with its
+         * last value), but the iterator never fails.
+         */
+        private final class SlotIterator implements Iterator<Map.Entry<String, Object>> {
 
-            if (newValue == null) {
-                _Slots.remove(realSlotName);
+            private final Iterator<Map.Entry<String, Object>> _OverflowIterator;
+
+            private int _NextSlotIndex;
+
+            private Map.Entry<String, Object> _NextEntry;
+
+            private String _LastSlotName;
+
+            SlotIterator() {
+
+                final Map<String, Object> overflowSlots = _OverflowSlots;
+                _OverflowIterator = (overflowSlots != null) ? overflowSlots.entrySet().iterator() : null;
+                _NextEntry = readNextEntry();
             }
-            else {
-                _Slots.put(realSlotName, newValue);
+
+            @Override
+            public boolean hasNext() {
+
+                return _NextEntry != null;
             }
 
-            return oldValue;
+            @Override
+            public Map.Entry<String, Object> next() {
+
+                if (_NextEntry == null) {
+                    throw new NoSuchElementException();
+                }
+
+                final Map.Entry<String, Object> entry = _NextEntry;
+                _LastSlotName = entry.getKey();
+                _NextEntry = readNextEntry();
+                return entry;
+            }
+
+            @Override
+            public void remove() {
+
+                if (_LastSlotName == null) {
+                    throw new IllegalStateException();
+                }
+
+                writeSlot(_LastSlotName, null);
+                _LastSlotName = null;
+            }
+
+            private Map.Entry<String, Object> readNextEntry() {
+
+                while (_NextSlotIndex < _Values.length()) {
+                    final int slotIndex = _NextSlotIndex++;
+                    final Object value = readSlot(slotIndex);
+                    if (value != null) {
+                        return new SlotEntry(_SlotLayout._SlotNames[slotIndex], value);
+                    }
+                }
+
+                if (_OverflowIterator != null && _OverflowIterator.hasNext()) {
+                    final Map.Entry<String, Object> overflowEntry = _OverflowIterator.next();
+                    return new SlotEntry(overflowEntry.getKey(), overflowEntry.getValue());
+                }
+
+                return null;
+            }
         }
 
-        @Override
-        public String toString() {
+        /**
+         * A slot map entry that writes through to the state.
+         */
+        private final class SlotEntry extends AbstractMap.SimpleEntry<String, Object> {
+
+            private static final long serialVersionUID = 1L;
+
+            SlotEntry(final String slotName, final Object value) {
+
+                super(slotName, value);
+            }
 
-            return getClass().getSimpleName() + " { heapId : " + _HeapId + ", slots : " + _Slots + ", origin : " + _OriginServiceName + "}";
+            @Override
+            public Object setValue(final Object value) {
+
+                writeSlot(getKey(), value);
+                return super.setValue(value);
+            }
         }
 
+    }
+
+    /**
+     * The (per prototype) arrangement of the {@link IndexedModelState}'s arrays.
+     */
+    private static final class SlotLayout {
+
+        private final Prototype _Prototype;
+
+        private final String[] _SlotNames;
 
+        private final ValueType[] _ValueTypes;
+
+        /**
+         * The index of each slot's value within the primitive array; or <code>-1</code> if the slot is not primitive.
+         */
+        private final int[] _PrimitiveSlotIndexes;
+
+        private final int _PrimitiveSlotCount;
+
+        SlotLayout(final Prototype prototype) {
+
+            _Prototype = prototype;
+
+            final List<String> slotNames = prototype.getIndexedSlotNames();
+            _SlotNames = slotNames.toArray(new String[slotNames.size()]);
+            _ValueTypes = new ValueType[_SlotNames.length];
+            _PrimitiveSlotIndexes = new int[_SlotNames.length];
+
+            int primitiveSlotCount = 0;
+            for (int i = 0; i < _SlotNames.length; i++) {
+                final ProtoSlot protoSlot = prototype.getProtoSlot(_SlotNames[i]);
+                final ValueType valueType = (protoSlot != null) ? protoSlot.getValueType() : null;
+                _ValueTypes[i] = valueType;
+
+                if (valueType == ValueType.Boolean || valueType == ValueType.Double || valueType == ValueType.Integer
+                        || valueType == ValueType.Long) {
+                    _PrimitiveSlotIndexes[i] = primitiveSlotCount++;
+                }
+                else {
+                    _PrimitiveSlotIndexes[i] = -1;
+                }
+            }
+
+            _PrimitiveSlotCount = primitiveSlotCount;
+        }
     }
 
 }
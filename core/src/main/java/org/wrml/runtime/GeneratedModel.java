@@ -0,0 +1,263 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime;
+
+import org.wrml.model.Model;
+import org.wrml.runtime.schema.LinkProtoSlot;
+import org.wrml.runtime.schema.ProtoSlot;
+import org.wrml.runtime.schema.Prototype;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * <p>
+ * The base class of the model implementation classes that the {@link org.wrml.runtime.schema.generator.SchemaGenerator}
+ * generates for each schema interface, as an alternative to {@link java.lang.reflect.Proxy}-based models.
+ * </p>
+ * <p>
+ * A generated subclass implements each of its schema interface's slot accessors with a direct call to
+ * {@link #getSlot(int)} or {@link #setSlot(int, Object)}, passing the slot's index within the {@link Prototype} as a
+ * constant. This bypasses the reflective method dispatch (and the slot name lookups) performed by
+ * {@link DefaultModel#invoke(Object, java.lang.reflect.Method, Object[])}. The {@link Model} methods are implemented
+ * here, with the same semantics as the {@link DefaultModel}'s special methods, and the slot storage remains the
+ * {@link DefaultModel}'s {@link DefaultModel.ModelState}; so generated and proxy models may be used interchangeably.
+ * </p>
+ *
+ * @see DefaultModelBuilder#MODEL_IMPLEMENTATION_SETTING_NAME
+ */
+public abstract class GeneratedModel implements Model {
+
+    private DefaultModel _DefaultModel;
+
+    private Prototype _Prototype;
+
+    private URI _SchemaUri;
+
+    protected GeneratedModel() {
+
+    }
+
+    @Override
+    public final Object clearSlotValue(final String slotName) {
+
+        return _DefaultModel.clearSlotValue(this, slotName, _SchemaUri);
+    }
+
+    @Override
+    public final boolean containsSlotValue(final String slotName) {
+
+        return _DefaultModel.containsSlotValue(this, slotName, _SchemaUri);
+    }
+
+    @Override
+    public final Context getContext() {
+
+        return _DefaultModel.getContext();
+    }
+
+    @Override
+    public final Dimensions getDimensions() {
+
+        return _DefaultModel.getDimensions();
+    }
+
+    @Override
+    public final UUID getHeapId() {
+
+        return _DefaultModel.getHeapId();
+    }
+
+    @Override
+    public final Keys getKeys() {
+
+        return _DefaultModel.buildKeys(this);
+    }
+
+    @Override
+    public final String getOriginServiceName() {
+
+        return _DefaultModel.getOriginServiceName();
+    }
+
+    @Override
+    public final Prototype getPrototype() {
+
+        return _Prototype;
+    }
+
+    @Override
+    public final URI getSchemaUri() {
+
+        return _SchemaUri;
+    }
+
+    @Override
+    public final Map<String, Object> getSlotMap() {
+
+        return _DefaultModel.getSlotMap();
+    }
+
+    @Override
+    public final Object getSlotValue(final String slotName) {
+
+        final ProtoSlot protoSlot = _Prototype.getProtoSlot(slotName);
+        return _DefaultModel.getSlotValue(this, slotName, protoSlot.getDeclaringSchemaUri());
+    }
+
+    @Override
+    public final void initKeySlots(final Keys keys) {
+
+        _DefaultModel.initKeySlots(this, keys);
+    }
+
+    @Override
+    public final <M extends Model> M newAlternate(final Dimensions dimensions) throws ModelException {
+
+        return _DefaultModel.newAlternate(dimensions);
+    }
+
+    @Override
+    public final <M extends Model> M newCopy() throws ModelException {
+
+        return _DefaultModel.newCopy();
+    }
+
+    @Override
+    public final <E extends Model> E reference(final String linkSlotName) throws ModelException {
+
+        return invokeLink(linkSlotName, null);
+    }
+
+    @Override
+    public final <E extends Model> E reference(final String linkSlotName, final DimensionsBuilder dimensionsBuilder) throws ModelException {
+
+        return invokeLink(linkSlotName, new Object[]{dimensionsBuilder});
+    }
+
+    @Override
+    public final <E extends Model> E reference(final String linkSlotName, final DimensionsBuilder dimensionsBuilder, final Model parameter)
+            throws ModelException {
+
+        return invokeLink(linkSlotName, new Object[]{dimensionsBuilder, parameter});
+    }
+
+    @Override
+    public final String setOriginServiceName(final String originServiceName) {
+
+        return _DefaultModel.setOriginServiceName(originServiceName);
+    }
+
+    @Override
+    public final Object setSlotValue(final String slotName, final Object newValue) throws ModelException {
+
+        final ProtoSlot protoSlot = _Prototype.getProtoSlot(slotName);
+        return _DefaultModel.setSlotValue(this, slotName, newValue, protoSlot.getDeclaringSchemaUri());
+    }
+
+    @Override
+    public final boolean equals(final Object obj) {
+
+        final DefaultModel other = DefaultModel.toDefaultModel(obj);
+        return other != null && _DefaultModel.equals(other);
+    }
+
+    @Override
+    public final int hashCode() {
+
+        return _DefaultModel.hashCode();
+    }
+
+    @Override
+    public final String toString() {
+
+        return _DefaultModel.toString();
+    }
+
+    /**
+     * Called by generated slot getters, with the slot's index (see {@link Prototype#getSlotIndex(String)}), which was
+     * resolved when the class was generated.
+     */
+    protected final Object getSlot(final int slotIndex) {
+
+        return _DefaultModel.getSlotValue(this, _Prototype.getIndexedProtoSlot(slotIndex), slotIndex);
+    }
+
+    /**
+     * Called by generated slot setters, with the slot's index.
+     */
+    protected final Object setSlot(final int slotIndex, final Object newValue) {
+
+        return _DefaultModel.setSlotValue(this, _Prototype.getIndexedProtoSlot(slotIndex), slotIndex, newValue);
+    }
+
+    /**
+     * Called by generated slot getters of slots that the prototype has not indexed.
+     */
+    protected final Object getSlot(final String slotName, final URI declaringSchemaUri) {
+
+        return _DefaultModel.getSlotValue(this, slotName, declaringSchemaUri);
+    }
+
+    /**
+     * Called by generated slot setters of slots that the prototype has not indexed.
+     */
+    protected final Object setSlot(final String slotName, final Object newValue, final URI declaringSchemaUri) {
+
+        return _DefaultModel.setSlotValue(this, slotName, newValue, declaringSchemaUri);
+    }
+
+    /**
+     * Called by generated link methods.
+     */
+    @SuppressWarnings("unchecked")
+    protected final <E> E invokeLink(final String linkSlotName, final Object[] args) {
+
+        final LinkProtoSlot linkProtoSlot = _Prototype.getProtoSlot(linkSlotName);
+        return (E) _DefaultModel.invokeReference(this, linkProtoSlot, args);
+    }
+
+    /**
+     * Called by generated methods that are neither slot accessors nor link methods.
+     */
+    protected final ModelException unhandledMethod(final String methodName) {
+
+        return new ModelException("Model method invocation was not handled for method: " + methodName, null, this);
+    }
+
+    DefaultModel getDefaultModel() {
+
+        return _DefaultModel;
+    }
+
+    void init(final DefaultModel defaultModel, final Prototype prototype, final URI schemaUri) {
+
+        _DefaultModel = defaultModel;
+        _Prototype = prototype;
+        _SchemaUri = schemaUri;
+    }
+
+}
@@ -42,6 +42,12 @@ public interface ModelBuilder extends ContextSensitive {
 
     <M extends Model> M newModel(final Class<?> schemaInterface) throws ModelBuilderException;
 
+    /**
+     * Creates a new model without any slot values (not even its prototype's default values). This is intended for
+     * readers that fill in the model's slots, via {@link Model#getSlotMap()}, from an already valid representation.
+     */
+    <M extends Model> M newEmptyModel(final Dimensions dimensions) throws ModelBuilderException;
+
     <M extends Model> M newModel(final Dimensions dimensions) throws ModelBuilderException;
 
     <M extends Model> M newModel(final Dimensions dimensions, final ConcurrentHashMap<String, Object> slots)
@@ -50,4 +56,11 @@ public interface ModelBuilder extends ContextSensitive {
     <M extends Model> M newModel(final String schemaInterfaceName) throws ModelBuilderException;
 
     <M extends Model> M newModel(final URI schemaUri) throws ModelBuilderException;
+
+    /**
+     * Creates a cheap, copy-on-write snapshot of the specified model. The snapshot shares the model's slot storage
+     * until it is modified, so the original model must not be modified while snapshots of it are in use (as is the
+     * case for the models held in a {@link org.wrml.runtime.service.cache.ModelCache}).
+     */
+    <M extends Model> M snapshotModel(final Model model) throws ModelBuilderException;
 }
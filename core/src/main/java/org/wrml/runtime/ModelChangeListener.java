@@ -0,0 +1,55 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime;
+
+import org.wrml.model.Model;
+
+/**
+ * A listener that the {@link Context} notifies after it saves or deletes a {@link Model}; so that derived state, such
+ * as a cache of serialized models, can be kept consistent with the stored models.
+ * <p/>
+ * The listener is called on the thread that saved or deleted the model and so it should return quickly. Changes made
+ * directly to a service's backing store (i.e. not through the context) are not reported.
+ *
+ * @see Context#addModelChangeListener(ModelChangeListener)
+ */
+public interface ModelChangeListener {
+
+    /**
+     * Called after the model was saved.
+     *
+     * @param savedModel The saved model (as returned by {@link Context#saveModel(Model)}).
+     */
+    void modelSaved(final Model savedModel);
+
+    /**
+     * Called after the model identified by the keys was deleted.
+     *
+     * @param keys       The keys of the deleted model.
+     * @param dimensions The dimensions of the delete request.
+     */
+    void modelDeleted(final Keys keys, final Dimensions dimensions);
+
+}
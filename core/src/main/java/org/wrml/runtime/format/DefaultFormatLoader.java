@@ -29,10 +29,12 @@ import org.wrml.runtime.Context;
 import org.wrml.runtime.DefaultConfiguration;
 import org.wrml.runtime.Dimensions;
 import org.wrml.runtime.Keys;
+import org.wrml.runtime.format.application.json.JsonFormatter;
 import org.wrml.runtime.format.application.json.JsonModelParserFactory;
 import org.wrml.runtime.format.application.json.JsonModelPrinterFactory;
 import org.wrml.runtime.format.application.schema.json.JsonSchemaFormatter;
 import org.wrml.runtime.format.application.vnd.wrml.ascii.api.ApiAsciiFormatter;
+import org.wrml.runtime.format.application.vnd.wrml.binary.BinaryFormatter;
 import org.wrml.runtime.format.application.vnd.wrml.complete.api.CompleteApiFormatter;
 import org.wrml.runtime.format.application.vnd.wrml.complete.schema.CompleteSchemaFormatter;
 import org.wrml.runtime.format.application.vnd.wrml.swagger.api.SwaggerApiFormatter;
@@ -282,7 +284,7 @@ public class DefaultFormatLoader implements FormatLoader {
             case json: {
                 settings.put(PluggableFormatter.PARSER_FACTORY_SETTING_NAME, JsonModelParserFactory.class.getName());
                 settings.put(PluggableFormatter.PRINTER_FACTORY_SETTING_NAME, JsonModelPrinterFactory.class.getName());
-                formatter = new PluggableFormatter();
+                formatter = new JsonFormatter();
                 break;
             }
             case xml: {
@@ -321,6 +323,10 @@ public class DefaultFormatLoader implements FormatLoader {
                 formatter = new WrmldocDataFormatter();
                 break;
             }
+            case vnd_wrml_binary: {
+                formatter = new BinaryFormatter();
+                break;
+            }
             default: {
                 formatter = null;
                 break;
@@ -88,7 +88,13 @@ public enum SystemFormat {
     "The WRML System Format representing the \"application/vnd.wrml.wrmldoc\" media type.",
             URI.create("http://www.w3.org/xml"),
             URI.create("http://www.ietf.org/rfc/rfc3023.txt"),
-            "json");
+            "json"),
+
+    vnd_wrml_binary(new UniqueName("application/vnd.wrml.binary"),
+            "The WRML System Format representing the \"application/vnd.wrml.binary\" media type.",
+            URI.create("http://wrml.org"),
+            URI.create(""),
+            "wrmlb");
 
     private final URI _FormatUri;
 
@@ -0,0 +1,116 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.json;
+
+import org.wrml.model.Model;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.Keys;
+import org.wrml.runtime.format.FormatterConfiguration;
+import org.wrml.runtime.format.ModelReadingException;
+import org.wrml.runtime.format.ModelWriteOptions;
+import org.wrml.runtime.format.ModelWritingException;
+import org.wrml.runtime.format.PluggableFormatter;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * The <code>application/json</code> {@link org.wrml.runtime.format.Formatter}, which reads models with the (streaming)
+ * {@link JsonModelReader} and writes them with the (precompiled) {@link JsonModelWriter}. A model graph that refers to
+ * the same model more than once is written with the {@link PluggableFormatter}'s {@link JsonModelPrinterFactory}
+ * configured model writer, which writes such references as <code>heapId</code>s.
+ */
+public class JsonFormatter extends PluggableFormatter {
+
+    /**
+     * The name of the (optional) setting that, when <code>false</code>, reads models with the pluggable (token by token)
+     * model reader instead of the {@link JsonModelReader}. The default is <code>true</code>.
+     */
+    public static final String STREAMING_READER_SETTING_NAME = "streamingReader";
+
+    /**
+     * The name of the (optional) setting that, when <code>false</code>, writes models with the pluggable (model graph
+     * printing) model writer instead of the {@link JsonModelWriter}. The default is <code>true</code>.
+     */
+    public static final String STREAMING_WRITER_SETTING_NAME = "streamingWriter";
+
+    private JsonModelReader _JsonModelReader;
+
+    private JsonModelWriter _JsonModelWriter;
+
+    public JsonFormatter() {
+
+    }
+
+    public JsonModelReader getJsonModelReader() {
+
+        return _JsonModelReader;
+    }
+
+    public JsonModelWriter getJsonModelWriter() {
+
+        return _JsonModelWriter;
+    }
+
+    @Override
+    public <M extends Model> M readModel(final InputStream in, final Keys rootModelKeys, final Dimensions rootModelDimensions)
+            throws ModelReadingException {
+
+        if (_JsonModelReader == null) {
+            return super.readModel(in, rootModelKeys, rootModelDimensions);
+        }
+
+        return _JsonModelReader.readModel(in, rootModelKeys, rootModelDimensions);
+    }
+
+    @Override
+    public void writeModel(final OutputStream out, final Model model, final ModelWriteOptions writeOptions) throws ModelWritingException {
+
+        if (_JsonModelWriter == null || model == null || !_JsonModelWriter.isModelGraphTree(model)) {
+            super.writeModel(out, model, writeOptions);
+            return;
+        }
+
+        _JsonModelWriter.writeModel(out, model, writeOptions);
+    }
+
+    @Override
+    protected void initFromConfiguration(final FormatterConfiguration config) {
+
+        super.initFromConfiguration(config);
+
+        final Map<String, String> settings = config.getSettings();
+        final String streamingReader = settings.get(STREAMING_READER_SETTING_NAME);
+        if (streamingReader == null || Boolean.parseBoolean(streamingReader.trim())) {
+            _JsonModelReader = new JsonModelReader(getContext());
+        }
+
+        final String streamingWriter = settings.get(STREAMING_WRITER_SETTING_NAME);
+        if (streamingWriter == null || Boolean.parseBoolean(streamingWriter.trim())) {
+            _JsonModelWriter = new JsonModelWriter(getContext());
+        }
+    }
+}
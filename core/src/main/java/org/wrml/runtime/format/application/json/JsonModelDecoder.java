@@ -0,0 +1,178 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.json;
+
+import org.wrml.model.rest.Document;
+import org.wrml.model.rest.Embedded;
+import org.wrml.model.schema.ValueType;
+import org.wrml.runtime.schema.PropertyProtoSlot;
+import org.wrml.runtime.schema.ProtoSlot;
+import org.wrml.runtime.schema.Prototype;
+import org.wrml.runtime.schema.SchemaLoader;
+import org.wrml.runtime.syntax.SyntaxHandler;
+import org.wrml.runtime.syntax.SyntaxLoader;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The precompiled {@link JsonSlotDecoder}s of a {@link Prototype}'s slots, keyed by slot name (including aliases), along
+ * with the other schema facts that the {@link JsonModelReader} needs to read one of the prototype's models.
+ */
+final class JsonModelDecoder {
+
+    private final Prototype _Prototype;
+
+    private final Map<String, JsonSlotDecoder> _SlotDecoders;
+
+    private final boolean _Abstract;
+
+    private final boolean _Document;
+
+    private final boolean _Embedded;
+
+    JsonModelDecoder(final Prototype prototype, final SyntaxLoader syntaxLoader) {
+
+        _Prototype = prototype;
+        _Abstract = prototype.isAbstract();
+
+        final Class<?> schemaInterface = prototype.getSchemaBean().getIntrospectedClass();
+        _Document = Document.class.isAssignableFrom(schemaInterface);
+        _Embedded = Embedded.class.isAssignableFrom(schemaInterface);
+
+        final SchemaLoader schemaLoader = prototype.getSchemaLoader();
+        final URI linkSchemaUri = schemaLoader.getTypeUri(ValueType.JAVA_TYPE_LINK);
+
+        _SlotDecoders = new HashMap<>();
+        for (final String slotName : prototype.getAllSlotNames()) {
+
+            final ProtoSlot protoSlot = prototype.getProtoSlot(slotName);
+            final String realSlotName = protoSlot.getRealName();
+
+            final JsonSlotDecoder slotDecoder;
+            if (prototype.getLinkRelationUri(slotName) != null) {
+                slotDecoder = JsonSlotDecoder.newModelDecoder(realSlotName, linkSchemaUri);
+            }
+            else if (protoSlot instanceof PropertyProtoSlot) {
+                final PropertyProtoSlot propertyProtoSlot = (PropertyProtoSlot) protoSlot;
+                final ValueType valueType = protoSlot.getValueType();
+
+                if (valueType == ValueType.Model) {
+                    slotDecoder = JsonSlotDecoder.newModelDecoder(realSlotName, propertyProtoSlot.getModelSchemaUri());
+                }
+                else if (valueType == ValueType.List) {
+                    final Type elementType = propertyProtoSlot.getListElementType();
+                    final JsonSlotDecoder elementDecoder;
+                    if (ValueType.isModelType(elementType)) {
+                        elementDecoder = JsonSlotDecoder.newModelDecoder(realSlotName, propertyProtoSlot.getListElementSchemaUri());
+                    }
+                    else {
+                        elementDecoder = newValueDecoder(realSlotName, elementType, syntaxLoader);
+                    }
+
+                    slotDecoder = JsonSlotDecoder.newListDecoder(realSlotName, elementDecoder);
+                }
+                else {
+                    slotDecoder = newValueDecoder(realSlotName, protoSlot.getHeapValueType(), syntaxLoader);
+                }
+            }
+            else {
+                slotDecoder = JsonSlotDecoder.newRawDecoder(realSlotName);
+            }
+
+            _SlotDecoders.put(slotName, slotDecoder);
+        }
+    }
+
+    Prototype getPrototype() {
+
+        return _Prototype;
+    }
+
+    /**
+     * @return the named slot's decoder or <code>null</code> if the slot is not known to the prototype.
+     */
+    JsonSlotDecoder getSlotDecoder(final String slotName) {
+
+        return _SlotDecoders.get(slotName);
+    }
+
+    URI getSchemaUri() {
+
+        return _Prototype.getSchemaUri();
+    }
+
+    boolean isAbstract() {
+
+        return _Abstract;
+    }
+
+    boolean isDocument() {
+
+        return _Document;
+    }
+
+    boolean isEmbedded() {
+
+        return _Embedded;
+    }
+
+    private static JsonSlotDecoder newValueDecoder(final String slotName, final Type type, final SyntaxLoader syntaxLoader) {
+
+        if (!(type instanceof Class<?>)) {
+            return JsonSlotDecoder.newRawDecoder(slotName);
+        }
+
+        final Class<?> valueClass = (Class<?>) type;
+        if (String.class.equals(valueClass)) {
+            return JsonSlotDecoder.newValueDecoder(slotName, JsonSlotDecoder.Kind.TEXT, valueClass);
+        }
+        else if (Integer.class.equals(valueClass) || int.class.equals(valueClass)) {
+            return JsonSlotDecoder.newValueDecoder(slotName, JsonSlotDecoder.Kind.INTEGER, valueClass);
+        }
+        else if (Long.class.equals(valueClass) || long.class.equals(valueClass)) {
+            return JsonSlotDecoder.newValueDecoder(slotName, JsonSlotDecoder.Kind.LONG, valueClass);
+        }
+        else if (Double.class.equals(valueClass) || double.class.equals(valueClass)) {
+            return JsonSlotDecoder.newValueDecoder(slotName, JsonSlotDecoder.Kind.DOUBLE, valueClass);
+        }
+        else if (Boolean.class.equals(valueClass) || boolean.class.equals(valueClass)) {
+            return JsonSlotDecoder.newValueDecoder(slotName, JsonSlotDecoder.Kind.BOOLEAN, valueClass);
+        }
+        else if (valueClass.isEnum()) {
+            return JsonSlotDecoder.newValueDecoder(slotName, JsonSlotDecoder.Kind.ENUM, valueClass);
+        }
+
+        final SyntaxHandler<?> syntaxHandler = syntaxLoader.getSyntaxHandler(valueClass);
+        if (syntaxHandler != null) {
+            return JsonSlotDecoder.newSyntaxDecoder(slotName, valueClass, syntaxHandler);
+        }
+
+        return JsonSlotDecoder.newRawDecoder(slotName);
+    }
+
+}
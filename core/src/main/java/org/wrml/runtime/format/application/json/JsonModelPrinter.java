@@ -46,15 +46,20 @@ public class JsonModelPrinter implements ModelPrinter {
         _WriteOptions = writeOptions;
 
         if (_WriteOptions.isPrettyPrint()) {
-            final DefaultPrettyPrinter prettyPrinter = new DefaultPrettyPrinter();
-            prettyPrinter.indentObjectsWith(new DefaultPrettyPrinter.Lf2SpacesIndenter());
-            prettyPrinter.indentArraysWith(new DefaultPrettyPrinter.Lf2SpacesIndenter());
-            _JsonGenerator.setPrettyPrinter(prettyPrinter);
+            setPrettyPrinter(_JsonGenerator);
 
             // _JsonGenerator.useDefaultPrettyPrinter();
         }
     }
 
+    static void setPrettyPrinter(final JsonGenerator jsonGenerator) {
+
+        final DefaultPrettyPrinter prettyPrinter = new DefaultPrettyPrinter();
+        prettyPrinter.indentObjectsWith(new DefaultPrettyPrinter.Lf2SpacesIndenter());
+        prettyPrinter.indentArraysWith(new DefaultPrettyPrinter.Lf2SpacesIndenter());
+        jsonGenerator.setPrettyPrinter(prettyPrinter);
+    }
+
     @Override
     public void close() throws IOException, ModelPrinterException {
 
@@ -0,0 +1,494 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wrml.model.Model;
+import org.wrml.model.rest.Document;
+import org.wrml.model.rest.Embedded;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.DimensionsBuilder;
+import org.wrml.runtime.Keys;
+import org.wrml.runtime.ModelBuilder;
+import org.wrml.runtime.format.ModelReadingException;
+import org.wrml.runtime.schema.Prototype;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Reads JSON models in a single pass over the {@link JsonParser}'s tokens, as an alternative to the format-independent
+ * {@link org.wrml.runtime.format.ParserModelGraph}.
+ * </p>
+ * <p>
+ * Each model's slots are decoded by the precompiled {@link JsonSlotDecoder}s of its {@link Prototype} (see
+ * {@link JsonModelDecoder}), which read each JSON value directly as the slot's type (e.g. a <code>long</code> for a Long
+ * slot) and store it in the model's slot map. Since the values are decoded by type and the representation is presumed
+ * to be valid, they are not run back through the model's slot validation.
+ * </p>
+ * <p>
+ * The reader honors the same "on the wire" conventions as the {@link org.wrml.runtime.format.ParserModelGraph}; the
+ * in-line <code>schemaUri</code> slot, <code>heapId</code> model references, {@link Embedded} document URIs and the
+ * root model's {@link Keys}.
+ * </p>
+ *
+ * @see JsonFormatter
+ */
+public class JsonModelReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JsonModelReader.class);
+
+    private final Context _Context;
+
+    private final JsonFactory _JsonFactory;
+
+    private final ConcurrentHashMap<Prototype, JsonModelDecoder> _ModelDecoders;
+
+    public JsonModelReader(final Context context) {
+
+        _Context = context;
+        _JsonFactory = new JsonFactory();
+        _ModelDecoders = new ConcurrentHashMap<>();
+    }
+
+    public Context getContext() {
+
+        return _Context;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <M extends Model> M readModel(final InputStream in, final Keys rootModelKeys, final Dimensions rootModelDimensions)
+            throws ModelReadingException {
+
+        if (rootModelDimensions == null) {
+            throw new ModelReadingException("The root model Dimensions cannot be null.", null, this);
+        }
+
+        if (rootModelDimensions.getSchemaUri() == null) {
+            throw new ModelReadingException("The root model Schema URI cannot be null.", null, this);
+        }
+
+        LOG.debug("Reading a model with dimensions:\n{}", rootModelDimensions);
+
+        try {
+            final JsonParser parser = _JsonFactory.createParser(in);
+            final JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+
+            if (token != JsonToken.START_OBJECT) {
+                throw new ModelReadingException("The JSON must be model (object) rooted, not: " + token, null, this);
+            }
+
+            final Reading reading = new Reading(parser, rootModelKeys);
+            return (M) readModel(reading, rootModelDimensions, true);
+        }
+        catch (final ModelReadingException e) {
+            throw e;
+        }
+        catch (final IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ModelReadingException("Encountered an I/O related problem while attempting to read a model: " + e.getMessage(), e,
+                    this);
+        }
+        catch (final RuntimeException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ModelReadingException("Encountered an issue while attempting to read a model: " + e.getMessage(), e, this);
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " [Decoders = " + _ModelDecoders.size() + "]";
+    }
+
+    JsonModelDecoder getModelDecoder(final URI schemaUri) {
+
+        if (schemaUri == null) {
+            return null;
+        }
+
+        final Prototype prototype = getContext().getSchemaLoader().getPrototype(schemaUri);
+        if (prototype == null) {
+            return null;
+        }
+
+        JsonModelDecoder modelDecoder = _ModelDecoders.get(prototype);
+        if (modelDecoder == null) {
+            modelDecoder = new JsonModelDecoder(prototype, getContext().getSyntaxLoader());
+            _ModelDecoders.put(prototype, modelDecoder);
+        }
+
+        return modelDecoder;
+    }
+
+    /**
+     * Reads the model (object) whose START_OBJECT token is the parser's current token.
+     */
+    private Model readModel(final Reading reading, final Dimensions dimensions, final boolean isRoot) throws IOException {
+
+        final JsonParser parser = reading._Parser;
+        final ModelBuilder modelBuilder = getContext().getModelBuilder();
+
+        Dimensions modelDimensions = dimensions;
+        JsonModelDecoder modelDecoder = getModelDecoder(dimensions.getSchemaUri());
+
+        // Abstract (or unknown) schemas are read as untyped models; hopefully typed by an in-line schemaUri slot.
+        boolean typed = modelDecoder != null && !modelDecoder.isAbstract();
+        Model model = (typed) ? modelBuilder.newEmptyModel(modelDimensions) : modelBuilder.newModel();
+        Map<String, Object> slotMap = model.getSlotMap();
+
+        boolean isDocument = modelDecoder != null && modelDecoder.isDocument();
+        if (isDocument) {
+            reading._Documents.push(model);
+        }
+
+        UUID heapId = null;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+
+            final String slotName = parser.getCurrentName();
+            token = parser.nextToken();
+
+            if (Model.SLOT_NAME_SCHEMA_URI.equals(slotName)) {
+
+                // The in-line schemaUri slot is "dimensional" in nature; it determines the type of the model.
+                final URI schemaUri = (token == JsonToken.VALUE_NULL) ? null : URI.create(parser.getText());
+                if (schemaUri == null || schemaUri.equals(modelDimensions.getSchemaUri())) {
+                    continue;
+                }
+
+                modelDimensions = new DimensionsBuilder(modelDimensions).setSchemaUri(schemaUri).toDimensions();
+                modelDecoder = getModelDecoder(schemaUri);
+
+                if (modelDecoder != null && !modelDecoder.isAbstract()) {
+                    model = model.newAlternate(modelDimensions);
+                    slotMap = model.getSlotMap();
+                    typed = true;
+
+                    if (heapId != null) {
+                        reading._HeapIdModels.put(heapId, model);
+                    }
+                }
+
+                if (isDocument) {
+                    reading._Documents.pop();
+                }
+
+                isDocument = modelDecoder != null && modelDecoder.isDocument();
+                if (isDocument) {
+                    reading._Documents.push(model);
+                }
+
+                continue;
+            }
+
+            if (Model.SLOT_NAME_HEAP_ID.equals(slotName)) {
+
+                if (token == JsonToken.VALUE_STRING) {
+                    heapId = UUID.fromString(parser.getText());
+                    final Model referencedModel = reading._HeapIdModels.get(heapId);
+                    if (referencedModel != null) {
+                        // A reference to a model that appears earlier in the graph
+                        model = referencedModel;
+                        slotMap = model.getSlotMap();
+                        typed = true;
+                    }
+                    else {
+                        reading._HeapIdModels.put(heapId, model);
+                    }
+                }
+
+                continue;
+            }
+
+            final JsonSlotDecoder slotDecoder = (modelDecoder != null) ? modelDecoder.getSlotDecoder(slotName) : null;
+
+            final Object slotValue;
+            final String realSlotName;
+            if (slotDecoder != null) {
+                slotValue = readValue(reading, slotDecoder, modelDimensions);
+                realSlotName = slotDecoder.getSlotName();
+            }
+            else {
+                slotValue = readRawValue(reading, modelDimensions);
+                realSlotName = slotName;
+            }
+
+            if (slotValue != null) {
+                slotMap.put(realSlotName, slotValue);
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT) {
+            throw new ModelReadingException("Expected the end of a model (object), not: " + token, null, this);
+        }
+
+        if (isDocument) {
+            reading._Documents.pop();
+        }
+
+        if (!typed && modelDimensions.getSchemaUri() != null) {
+            // Let the model builder report on the (abstract) schema
+            model = model.newAlternate(modelDimensions);
+            typed = true;
+        }
+
+        if (typed && modelDecoder != null && modelDecoder.isEmbedded()) {
+
+            // Embedded models need a pointer to their enclosing Document.
+            final Model document = reading._Documents.peek();
+            if (document == null) {
+                throw new ModelReadingException("Model: " + model + " must be embedded within a Document.", null, this);
+            }
+
+            final URI uri = (URI) document.getSlotMap().get(Document.SLOT_NAME_URI);
+            model.setSlotValue(Embedded.SLOT_NAME_DOCUMENT_URI, uri);
+        }
+
+        if (isRoot && typed && reading._RootModelKeys != null) {
+            // This is the root model, include all of its requested key values in the slot map.
+            model.initKeySlots(reading._RootModelKeys);
+        }
+
+        return model;
+    }
+
+    /**
+     * Reads the JSON value (which starts with the parser's current token) using the specified decoder.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readValue(final Reading reading, final JsonSlotDecoder slotDecoder, final Dimensions modelDimensions)
+            throws IOException {
+
+        final JsonParser parser = reading._Parser;
+        final JsonToken token = parser.getCurrentToken();
+
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        switch (slotDecoder.getKind()) {
+
+            case BOOLEAN: {
+
+                if (token == JsonToken.VALUE_TRUE) {
+                    return Boolean.TRUE;
+                }
+                else if (token == JsonToken.VALUE_FALSE) {
+                    return Boolean.FALSE;
+                }
+
+                break;
+            }
+            case DOUBLE: {
+
+                if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+                    return parser.getDoubleValue();
+                }
+
+                break;
+            }
+            case ENUM: {
+
+                if (token == JsonToken.VALUE_STRING) {
+                    return Enum.valueOf((Class<Enum>) slotDecoder.getValueClass(), parser.getText());
+                }
+
+                break;
+            }
+            case INTEGER: {
+
+                if (token == JsonToken.VALUE_NUMBER_INT) {
+                    return parser.getIntValue();
+                }
+
+                break;
+            }
+            case LIST: {
+
+                if (token == JsonToken.START_ARRAY) {
+                    final JsonSlotDecoder elementDecoder = slotDecoder.getElementDecoder();
+                    final List<Object> list = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        list.add(readValue(reading, elementDecoder, modelDimensions));
+                    }
+
+                    return list;
+                }
+
+                break;
+            }
+            case LONG: {
+
+                if (token == JsonToken.VALUE_NUMBER_INT) {
+                    return parser.getLongValue();
+                }
+
+                break;
+            }
+            case MODEL: {
+
+                if (token == JsonToken.START_OBJECT) {
+                    return readModel(reading, reading.getDimensions(slotDecoder.getModelSchemaUri(), modelDimensions), false);
+                }
+
+                break;
+            }
+            case SYNTAX: {
+
+                if (token == JsonToken.VALUE_STRING) {
+                    return slotDecoder.getSyntaxHandler().parseSyntacticText(parser.getText());
+                }
+
+                break;
+            }
+            case TEXT: {
+
+                if (token == JsonToken.VALUE_STRING) {
+                    return parser.getText();
+                }
+
+                break;
+            }
+            default: {
+
+                return readRawValue(reading, modelDimensions);
+            }
+
+        } // End of switch
+
+        throw new ModelReadingException("Unable to read the JSON " + token + " as the value of the slot named \"" + slotDecoder.getSlotName()
+                + "\" (" + slotDecoder.getKind() + ").", null, this);
+    }
+
+    /**
+     * Reads the JSON value (which starts with the parser's current token) without regard to any schema.
+     */
+    private Object readRawValue(final Reading reading, final Dimensions modelDimensions) throws IOException {
+
+        final JsonParser parser = reading._Parser;
+        final JsonToken token = parser.getCurrentToken();
+
+        switch (token) {
+
+            case START_OBJECT: {
+
+                return readModel(reading, reading.getDimensions(null, modelDimensions), false);
+            }
+            case START_ARRAY: {
+
+                final List<Object> list = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(readRawValue(reading, modelDimensions));
+                }
+
+                return list;
+            }
+            case VALUE_STRING: {
+
+                return parser.getText();
+            }
+            case VALUE_NUMBER_INT: {
+
+                return parser.getNumberValue();
+            }
+            case VALUE_NUMBER_FLOAT: {
+
+                return parser.getDoubleValue();
+            }
+            case VALUE_TRUE: {
+
+                return Boolean.TRUE;
+            }
+            case VALUE_FALSE: {
+
+                return Boolean.FALSE;
+            }
+            case VALUE_NULL: {
+
+                return null;
+            }
+            default: {
+
+                throw new ModelReadingException("Unexpected JSON token: " + token, null, this);
+            }
+        }
+    }
+
+    /**
+     * The state of a single {@link #readModel(InputStream, Keys, Dimensions)} call.
+     */
+    private static final class Reading {
+
+        private final JsonParser _Parser;
+
+        private final Keys _RootModelKeys;
+
+        /**
+         * The (nested) models' dimensions, which only differ from the root's by schema, keyed by schema URI.
+         */
+        private final Map<URI, Dimensions> _Dimensions;
+
+        /**
+         * The enclosing Documents of the models being read.
+         */
+        private final Deque<Model> _Documents;
+
+        private final Map<UUID, Model> _HeapIdModels;
+
+        Reading(final JsonParser parser, final Keys rootModelKeys) {
+
+            _Parser = parser;
+            _RootModelKeys = rootModelKeys;
+            _Dimensions = new HashMap<>();
+            _Documents = new ArrayDeque<>();
+            _HeapIdModels = new HashMap<>();
+        }
+
+        Dimensions getDimensions(final URI schemaUri, final Dimensions parentDimensions) {
+
+            Dimensions dimensions = _Dimensions.get(schemaUri);
+            if (dimensions == null) {
+                dimensions = new DimensionsBuilder(parentDimensions).setSchemaUri(schemaUri).toDimensions();
+                _Dimensions.put(schemaUri, dimensions);
+            }
+
+            return dimensions;
+        }
+    }
+}
@@ -0,0 +1,616 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wrml.model.Model;
+import org.wrml.model.schema.ValueType;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.format.ModelWriteOptions;
+import org.wrml.runtime.format.ModelWritingException;
+import org.wrml.runtime.schema.Prototype;
+import org.wrml.runtime.schema.SchemaLoader;
+import org.wrml.runtime.search.SearchResultList;
+import org.wrml.runtime.syntax.SyntaxHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Writes JSON models directly to the {@link JsonGenerator}, as an alternative to the format-independent
+ * {@link org.wrml.runtime.format.PrinterModelGraph}, which first builds a printable copy of the entire model graph.
+ * </p>
+ * <p>
+ * Each model's slots are written by the precompiled {@link JsonSlotEncoder}s of a {@link JsonWritePlan}, which is
+ * compiled once per {@link Prototype} and {@link ModelWriteOptions} combination. The plan has already applied the write
+ * options' slot exclusions and resolved each slot's value type, so writing a model is a single pass over its slot values.
+ * </p>
+ * <p>
+ * The writer honors the same "on the wire" conventions as the {@link org.wrml.runtime.format.PrinterModelGraph}; the
+ * in-line <code>schemaUri</code> of subschema-typed models, the {@link Dimensions}' included/excluded slot names and the
+ * omission of empty nested models and lists. It does not write <code>heapId</code> model references, so a model graph
+ * that reaches the same model more than once (see {@link #isModelGraphTree(Model)}) must be written by the
+ * {@link org.wrml.runtime.format.PrinterModelGraph} instead.
+ * </p>
+ *
+ * @see JsonFormatter
+ */
+public class JsonModelWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JsonModelWriter.class);
+
+    private static final JsonSlotEncoder DYNAMIC_ENCODER = JsonSlotEncoder.newDynamicEncoder(null, null);
+
+    private final Context _Context;
+
+    private final JsonFactory _JsonFactory;
+
+    private final ConcurrentHashMap<JsonWritePlan.Key, JsonWritePlan> _WritePlans;
+
+    private ModelWriteOptions _DefaultWriteOptions;
+
+    public JsonModelWriter(final Context context) {
+
+        _Context = context;
+        _JsonFactory = new JsonFactory();
+        _WritePlans = new ConcurrentHashMap<>();
+    }
+
+    public Context getContext() {
+
+        return _Context;
+    }
+
+    public ModelWriteOptions getDefaultWriteOptions() {
+
+        if (_DefaultWriteOptions == null) {
+            _DefaultWriteOptions = new ModelWriteOptions();
+
+            // Match the (pretty printing) default of the PrinterModelGraph-based model writer.
+            _DefaultWriteOptions.setPrettyPrint(true);
+        }
+
+        return _DefaultWriteOptions;
+    }
+
+    /**
+     * Determines whether or not the specified model's graph is a tree; meaning that no model (heap id) is reachable from
+     * the root more than once. Only a tree may be written by this writer, since it does not write <code>heapId</code>
+     * model references.
+     */
+    public boolean isModelGraphTree(final Model model) {
+
+        return collectHeapIds(model, new HashSet<UUID>());
+    }
+
+    public void writeModel(final OutputStream out, final Model model, ModelWriteOptions writeOptions) throws ModelWritingException {
+
+        if (out == null) {
+            throw new ModelWritingException("The output stream cannot be null.", null, this);
+        }
+
+        if (model == null) {
+            throw new ModelWritingException("The model cannot be null.", null, this);
+        }
+
+        if (writeOptions == null) {
+            writeOptions = getDefaultWriteOptions();
+        }
+
+        final Set<URI> excludedSchemaUris = writeOptions.getExcludedSchemaUris();
+        if (excludedSchemaUris != null && excludedSchemaUris.contains(model.getSchemaUri())) {
+            throw new ModelWritingException("The root model's schema is excluded from the graph.", null, this);
+        }
+
+        try {
+            final JsonGenerator generator = _JsonFactory.createGenerator(out);
+            if (writeOptions.isPrettyPrint()) {
+                JsonModelPrinter.setPrettyPrinter(generator);
+            }
+
+            final Writing writing = new Writing(generator, writeOptions);
+            writeModel(writing, model, false);
+            generator.close();
+        }
+        catch (final ModelWritingException e) {
+            throw e;
+        }
+        catch (final IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ModelWritingException("Encountered an I/O related problem while attempting to write a model.", e, this);
+        }
+        catch (final RuntimeException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ModelWritingException("Encountered an issue while attempting to write a model.", e, this);
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " [Plans = " + _WritePlans.size() + "]";
+    }
+
+    private JsonWritePlan getWritePlan(final Writing writing, final Prototype prototype) {
+
+        final Map<Prototype, JsonWritePlan> writePlans = writing.getWritePlans();
+        JsonWritePlan writePlan = writePlans.get(prototype);
+        if (writePlan == null) {
+            writePlan = getWritePlan(prototype, writing.getWriteOptions());
+            writePlans.put(prototype, writePlan);
+        }
+
+        return writePlan;
+    }
+
+    JsonWritePlan getWritePlan(final Prototype prototype, final ModelWriteOptions writeOptions) {
+
+        final JsonWritePlan.Key key = new JsonWritePlan.Key(prototype, writeOptions);
+        JsonWritePlan writePlan = _WritePlans.get(key);
+        if (writePlan == null) {
+            writePlan = new JsonWritePlan(key, _Context.getSyntaxLoader());
+            final JsonWritePlan existingWritePlan = _WritePlans.putIfAbsent(key, writePlan);
+            if (existingWritePlan != null) {
+                writePlan = existingWritePlan;
+            }
+        }
+
+        return writePlan;
+    }
+
+    private void writeModel(final Writing writing, final Model model, final boolean schemaUriRequired) throws IOException {
+
+        final JsonGenerator generator = writing.getGenerator();
+        generator.writeStartObject();
+
+        if (schemaUriRequired) {
+            generator.writeFieldName(Model.SLOT_NAME_SCHEMA_URI);
+            generator.writeString(_Context.getSyntaxLoader().formatSyntaxValue(model.getSchemaUri()));
+        }
+
+        final Map<String, Object> slotMap = model.getSlotMap();
+        final Dimensions dimensions = model.getDimensions();
+        final List<String> excludedSlotNames = getExcludedSlotNames(dimensions);
+        final List<String> includedSlotNames = (excludedSlotNames == null) ? getIncludedSlotNames(dimensions) : null;
+
+        final Prototype prototype = model.getPrototype();
+        if (prototype == null) {
+            // An untyped model's slots are all written by their runtime types.
+            for (final String slotName : new TreeSet<>(slotMap.keySet())) {
+                if (isSlotIncluded(slotName, excludedSlotNames, includedSlotNames)) {
+                    writeSlot(writing, JsonSlotEncoder.newDynamicEncoder(slotName, slotName), slotMap.get(slotName), slotMap);
+                }
+            }
+        }
+        else {
+            final JsonWritePlan writePlan = getWritePlan(writing, prototype);
+            for (final JsonSlotEncoder slotEncoder : writePlan.getSlotEncoders()) {
+                if (isSlotIncluded(slotEncoder.getRealSlotName(), excludedSlotNames, includedSlotNames)) {
+                    writeSlot(writing, slotEncoder, slotMap.get(slotEncoder.getRealSlotName()), slotMap);
+                }
+            }
+        }
+
+        generator.writeEndObject();
+    }
+
+    private void writeSlot(final Writing writing, final JsonSlotEncoder slotEncoder, final Object value, final Map<String, Object> slotMap)
+            throws IOException {
+
+        final JsonGenerator generator = writing.getGenerator();
+
+        if (value == null) {
+            if (slotMap.containsKey(slotEncoder.getRealSlotName())) {
+                generator.writeFieldName(slotEncoder.getSerializedSlotName());
+                generator.writeNull();
+            }
+
+            return;
+        }
+
+        if (value instanceof Model && (slotEncoder.getKind() == JsonSlotEncoder.Kind.MODEL || slotEncoder.getKind() == JsonSlotEncoder.Kind.DYNAMIC)) {
+
+            final Model model = (Model) value;
+            final boolean schemaUriRequired = isSchemaUriRequired(slotEncoder, model.getSchemaUri());
+
+            // An empty nested model is omitted
+            if (!schemaUriRequired && !containsIncludedSlot(writing, model)) {
+                return;
+            }
+
+            generator.writeFieldName(slotEncoder.getSerializedSlotName());
+            writeModel(writing, model, schemaUriRequired);
+            return;
+        }
+
+        if (value instanceof List && (slotEncoder.getKind() == JsonSlotEncoder.Kind.LIST || slotEncoder.getKind() == JsonSlotEncoder.Kind.DYNAMIC)) {
+
+            final List<?> list = (List<?>) value;
+
+            // An empty list is omitted
+            if (!containsElement(list)) {
+                return;
+            }
+
+            generator.writeFieldName(slotEncoder.getSerializedSlotName());
+            final JsonSlotEncoder elementEncoder = (slotEncoder.getKind() == JsonSlotEncoder.Kind.LIST) ? slotEncoder.getElementEncoder()
+                    : DYNAMIC_ENCODER;
+            writeList(writing, elementEncoder, list);
+            return;
+        }
+
+        generator.writeFieldName(slotEncoder.getSerializedSlotName());
+        writeValue(writing, slotEncoder, value);
+    }
+
+    private void writeList(final Writing writing, final JsonSlotEncoder elementEncoder, final List<?> list) throws IOException {
+
+        // As with the PrinterModelGraph, the elements' schema URI is written if they are all of the same schema, which is a
+        // subschema of the list's declared element type.
+        // A search result list that is still being read is written as its elements arrive, so each element's schema URI is
+        // decided on its own.
+        final boolean streaming = isStreaming(list);
+        boolean elementSchemaUriRequired = false;
+        if (elementEncoder.getDeclaredModelType() != null && !streaming) {
+            final URI monomorphicSchemaUri = getMonomorphicSchemaUri(list);
+            elementSchemaUriRequired = monomorphicSchemaUri != null && isSchemaUriRequired(elementEncoder, monomorphicSchemaUri);
+        }
+
+        final JsonGenerator generator = writing.getGenerator();
+        generator.writeStartArray();
+
+        for (final Object element : list) {
+
+            if (element == null) {
+                continue;
+            }
+
+            if (element instanceof Model) {
+                final Model model = (Model) element;
+                if (streaming && elementEncoder.getDeclaredModelType() != null) {
+                    elementSchemaUriRequired = isSchemaUriRequired(elementEncoder, model.getSchemaUri());
+                }
+
+                writeModel(writing, model, elementSchemaUriRequired);
+            }
+            else if (element instanceof List) {
+                writeList(writing, DYNAMIC_ENCODER, (List<?>) element);
+            }
+            else {
+                writeValue(writing, elementEncoder, element);
+            }
+        }
+
+        generator.writeEndArray();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void writeValue(final Writing writing, final JsonSlotEncoder encoder, final Object value) throws IOException {
+
+        final JsonGenerator generator = writing.getGenerator();
+        final JsonSlotEncoder.Kind kind = encoder.isEncodable(value) ? encoder.getKind() : JsonSlotEncoder.Kind.DYNAMIC;
+
+        switch (kind) {
+
+            case BOOLEAN: {
+                generator.writeBoolean((Boolean) value);
+                break;
+            }
+            case DOUBLE: {
+                generator.writeNumber((Double) value);
+                break;
+            }
+            case ENUM: {
+                generator.writeString(((Enum<?>) value).name());
+                break;
+            }
+            case INTEGER: {
+                generator.writeNumber((Integer) value);
+                break;
+            }
+            case LONG: {
+                generator.writeNumber((Long) value);
+                break;
+            }
+            case SYNTAX: {
+                final SyntaxHandler syntaxHandler = encoder.getSyntaxHandler();
+                generator.writeString(syntaxHandler.formatSyntaxValue(value));
+                break;
+            }
+            case TEXT: {
+                generator.writeString((String) value);
+                break;
+            }
+            default: {
+                writeDynamicValue(writing, value);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Writes the value according to its runtime (heap) type, in the same manner as the
+     * {@link org.wrml.runtime.format.PrinterModelGraph}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void writeDynamicValue(final Writing writing, final Object value) throws IOException {
+
+        final JsonGenerator generator = writing.getGenerator();
+        final Class<?> heapValueType = value.getClass();
+        final ValueType valueType = _Context.getSchemaLoader().getValueType(heapValueType);
+
+        switch (valueType) {
+
+            case Boolean: {
+                generator.writeBoolean((Boolean) value);
+                break;
+            }
+            case Date: {
+                generator.writeString(_Context.getSyntaxLoader().getSyntaxHandler(Date.class).formatSyntaxValue((Date) value));
+                break;
+            }
+            case Double: {
+                generator.writeNumber(((Number) value).doubleValue());
+                break;
+            }
+            case Integer: {
+                generator.writeNumber(((Number) value).intValue());
+                break;
+            }
+            case Link:
+            case Model: {
+                writeModel(writing, (Model) value, false);
+                break;
+            }
+            case List: {
+                writeList(writing, DYNAMIC_ENCODER, (List<?>) value);
+                break;
+            }
+            case Long: {
+                generator.writeNumber(((Number) value).longValue());
+                break;
+            }
+            case SingleSelect: {
+                generator.writeString(((Enum<?>) value).name());
+                break;
+            }
+            case Text: {
+                if (value instanceof String) {
+                    generator.writeString((String) value);
+                }
+                else {
+                    final SyntaxHandler syntaxHandler = _Context.getSyntaxLoader().getSyntaxHandler(heapValueType);
+                    if (syntaxHandler != null) {
+                        generator.writeString(syntaxHandler.formatSyntaxValue(value));
+                    }
+                    else {
+                        generator.writeNull();
+                    }
+                }
+
+                break;
+            }
+            default: {
+                generator.writeNull();
+                break;
+            }
+        }
+    }
+
+    private boolean isSchemaUriRequired(final JsonSlotEncoder encoder, final URI actualSchemaUri) throws ModelWritingException {
+
+        final ConcurrentHashMap<URI, Boolean> subschemaUris = encoder.getSubschemaUris();
+        if (subschemaUris == null || actualSchemaUri == null) {
+            return false;
+        }
+
+        Boolean isSubschema = subschemaUris.get(actualSchemaUri);
+        if (isSubschema == null) {
+            final SchemaLoader schemaLoader = _Context.getSchemaLoader();
+            final Class<?> actualSchemaInterface;
+            try {
+                actualSchemaInterface = schemaLoader.getSchemaInterface(actualSchemaUri);
+            }
+            catch (final ClassNotFoundException e) {
+                throw new ModelWritingException(e.getMessage(), e, this);
+            }
+
+            isSubschema = schemaLoader.isSubschema(encoder.getDeclaredModelType(), actualSchemaInterface);
+            subschemaUris.put(actualSchemaUri, isSubschema);
+        }
+
+        return isSubschema;
+    }
+
+    private boolean containsIncludedSlot(final Writing writing, final Model model) {
+
+        final Map<String, Object> slotMap = model.getSlotMap();
+        if (slotMap.isEmpty()) {
+            return false;
+        }
+
+        final Dimensions dimensions = model.getDimensions();
+        final List<String> excludedSlotNames = getExcludedSlotNames(dimensions);
+        final List<String> includedSlotNames = (excludedSlotNames == null) ? getIncludedSlotNames(dimensions) : null;
+
+        final Prototype prototype = model.getPrototype();
+        if (prototype == null) {
+            for (final String slotName : slotMap.keySet()) {
+                if (isSlotIncluded(slotName, excludedSlotNames, includedSlotNames)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        final JsonWritePlan writePlan = getWritePlan(writing, prototype);
+        for (final JsonSlotEncoder slotEncoder : writePlan.getSlotEncoders()) {
+            final String realSlotName = slotEncoder.getRealSlotName();
+            if (slotMap.containsKey(realSlotName) && isSlotIncluded(realSlotName, excludedSlotNames, includedSlotNames)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean collectHeapIds(final Object value, final Set<UUID> heapIds) {
+
+        if (value instanceof Model) {
+            final Model model = (Model) value;
+            if (!heapIds.add(model.getHeapId())) {
+                return false;
+            }
+
+            for (final Object slotValue : model.getSlotMap().values()) {
+                if (!collectHeapIds(slotValue, heapIds)) {
+                    return false;
+                }
+            }
+        }
+        else if (value instanceof List) {
+            if (isStreaming((List<?>) value)) {
+                // The (yet to be read) search results are newly read models, which the rest of the graph cannot reach.
+                return true;
+            }
+
+            for (final Object element : (List<?>) value) {
+                if (!collectHeapIds(element, heapIds)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean containsElement(final List<?> list) {
+
+        for (final Object element : list) {
+            if (element != null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static List<String> getExcludedSlotNames(final Dimensions dimensions) {
+
+        final List<String> excludedSlotNames = dimensions.getExcludedSlotNames();
+        return (excludedSlotNames != null && !excludedSlotNames.isEmpty()) ? excludedSlotNames : null;
+    }
+
+    private static List<String> getIncludedSlotNames(final Dimensions dimensions) {
+
+        final List<String> includedSlotNames = dimensions.getIncludedSlotNames();
+        return (includedSlotNames != null && !includedSlotNames.isEmpty()) ? includedSlotNames : null;
+    }
+
+    private static URI getMonomorphicSchemaUri(final List<?> list) {
+
+        URI monomorphicSchemaUri = null;
+        for (final Object element : list) {
+
+            if (element == null) {
+                continue;
+            }
+
+            if (!(element instanceof Model)) {
+                return null;
+            }
+
+            final URI schemaUri = ((Model) element).getSchemaUri();
+            if (monomorphicSchemaUri == null) {
+                monomorphicSchemaUri = schemaUri;
+            }
+            else if (!monomorphicSchemaUri.equals(schemaUri)) {
+                return null;
+            }
+        }
+
+        return monomorphicSchemaUri;
+    }
+
+    private static boolean isStreaming(final List<?> list) {
+
+        return list instanceof SearchResultList && !((SearchResultList) list).isLoaded();
+    }
+
+    private static boolean isSlotIncluded(final String realSlotName, final List<String> excludedSlotNames, final List<String> includedSlotNames) {
+
+        if (excludedSlotNames != null) {
+            return !excludedSlotNames.contains(realSlotName);
+        }
+
+        return includedSlotNames == null || includedSlotNames.contains(realSlotName);
+    }
+
+    /**
+     * The state of a single {@link #writeModel(OutputStream, Model, ModelWriteOptions)} call.
+     */
+    private static final class Writing {
+
+        private final JsonGenerator _Generator;
+
+        private final ModelWriteOptions _WriteOptions;
+
+        /**
+         * The plans used by this write, to avoid a (write options snapshotting) plan cache key per model.
+         */
+        private final Map<Prototype, JsonWritePlan> _WritePlans;
+
+        Writing(final JsonGenerator generator, final ModelWriteOptions writeOptions) {
+
+            _Generator = generator;
+            _WriteOptions = writeOptions;
+            _WritePlans = new IdentityHashMap<>();
+        }
+
+        JsonGenerator getGenerator() {
+
+            return _Generator;
+        }
+
+        ModelWriteOptions getWriteOptions() {
+
+            return _WriteOptions;
+        }
+
+        Map<Prototype, JsonWritePlan> getWritePlans() {
+
+            return _WritePlans;
+        }
+    }
+}
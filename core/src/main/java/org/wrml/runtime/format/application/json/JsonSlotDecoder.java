@@ -0,0 +1,163 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.json;
+
+import org.wrml.runtime.syntax.SyntaxHandler;
+
+import java.net.URI;
+
+/**
+ * A precompiled decoder for the JSON value of one slot (or list element) of a {@link JsonModelDecoder}'s prototype.
+ *
+ * @see JsonModelReader
+ */
+final class JsonSlotDecoder {
+
+    private final String _SlotName;
+
+    private final Kind _Kind;
+
+    private final Class<?> _ValueClass;
+
+    private final SyntaxHandler<?> _SyntaxHandler;
+
+    private final URI _ModelSchemaUri;
+
+    private final JsonSlotDecoder _ElementDecoder;
+
+    private JsonSlotDecoder(final String slotName, final Kind kind, final Class<?> valueClass, final SyntaxHandler<?> syntaxHandler,
+                            final URI modelSchemaUri, final JsonSlotDecoder elementDecoder) {
+
+        _SlotName = slotName;
+        _Kind = kind;
+        _ValueClass = valueClass;
+        _SyntaxHandler = syntaxHandler;
+        _ModelSchemaUri = modelSchemaUri;
+        _ElementDecoder = elementDecoder;
+    }
+
+    static JsonSlotDecoder newListDecoder(final String slotName, final JsonSlotDecoder elementDecoder) {
+
+        return new JsonSlotDecoder(slotName, Kind.LIST, null, null, null, elementDecoder);
+    }
+
+    static JsonSlotDecoder newModelDecoder(final String slotName, final URI modelSchemaUri) {
+
+        return new JsonSlotDecoder(slotName, Kind.MODEL, null, null, modelSchemaUri, null);
+    }
+
+    static JsonSlotDecoder newRawDecoder(final String slotName) {
+
+        return new JsonSlotDecoder(slotName, Kind.RAW, null, null, null, null);
+    }
+
+    static JsonSlotDecoder newSyntaxDecoder(final String slotName, final Class<?> valueClass, final SyntaxHandler<?> syntaxHandler) {
+
+        return new JsonSlotDecoder(slotName, Kind.SYNTAX, valueClass, syntaxHandler, null, null);
+    }
+
+    static JsonSlotDecoder newValueDecoder(final String slotName, final Kind kind, final Class<?> valueClass) {
+
+        return new JsonSlotDecoder(slotName, kind, valueClass, null, null, null);
+    }
+
+    /**
+     * The decoder of the list's elements (for {@link Kind#LIST} decoders).
+     */
+    JsonSlotDecoder getElementDecoder() {
+
+        return _ElementDecoder;
+    }
+
+    Kind getKind() {
+
+        return _Kind;
+    }
+
+    /**
+     * The schema URI of the nested model (for {@link Kind#MODEL} decoders).
+     */
+    URI getModelSchemaUri() {
+
+        return _ModelSchemaUri;
+    }
+
+    /**
+     * The name of the slot; the real name in the case of an alias slot.
+     */
+    String getSlotName() {
+
+        return _SlotName;
+    }
+
+    SyntaxHandler<?> getSyntaxHandler() {
+
+        return _SyntaxHandler;
+    }
+
+    Class<?> getValueClass() {
+
+        return _ValueClass;
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " { slotName : " + _SlotName + ", kind : " + _Kind + ", valueClass : " + _ValueClass
+                + ", modelSchemaUri : " + _ModelSchemaUri + "}";
+    }
+
+    /**
+     * The ways in which a slot's JSON value may be decoded.
+     */
+    static enum Kind {
+
+        BOOLEAN,
+
+        DOUBLE,
+
+        ENUM,
+
+        INTEGER,
+
+        LIST,
+
+        LONG,
+
+        MODEL,
+
+        /**
+         * The JSON value is decoded as is (i.e. to a String, Number, Boolean, List or untyped Model).
+         */
+        RAW,
+
+        /**
+         * The JSON string value is parsed by a {@link SyntaxHandler}.
+         */
+        SYNTAX,
+
+        TEXT
+    }
+}
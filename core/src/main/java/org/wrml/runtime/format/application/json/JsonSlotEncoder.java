@@ -0,0 +1,207 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.json;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.wrml.model.Model;
+import org.wrml.runtime.syntax.SyntaxHandler;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A precompiled encoder of one slot's (or list element's) value, as JSON, for a {@link JsonWritePlan}.
+ *
+ * @see JsonModelWriter
+ */
+final class JsonSlotEncoder {
+
+    private final String _SlotName;
+
+    private final SerializableString _SerializedSlotName;
+
+    private final String _RealSlotName;
+
+    private final Kind _Kind;
+
+    private final Class<?> _ValueClass;
+
+    private final SyntaxHandler<?> _SyntaxHandler;
+
+    private final Type _DeclaredModelType;
+
+    private final JsonSlotEncoder _ElementEncoder;
+
+    private final ConcurrentHashMap<URI, Boolean> _SubschemaUris;
+
+    private JsonSlotEncoder(final String slotName, final String realSlotName, final Kind kind, final Class<?> valueClass,
+                            final SyntaxHandler<?> syntaxHandler, final Type declaredModelType, final JsonSlotEncoder elementEncoder) {
+
+        _SlotName = slotName;
+        _SerializedSlotName = (slotName != null) ? new SerializedString(slotName) : null;
+        _RealSlotName = realSlotName;
+        _Kind = kind;
+        _ValueClass = valueClass;
+        _SyntaxHandler = syntaxHandler;
+        _DeclaredModelType = declaredModelType;
+        _ElementEncoder = elementEncoder;
+        _SubschemaUris = (declaredModelType != null) ? new ConcurrentHashMap<URI, Boolean>() : null;
+    }
+
+    static JsonSlotEncoder newDynamicEncoder(final String slotName, final String realSlotName) {
+
+        return new JsonSlotEncoder(slotName, realSlotName, Kind.DYNAMIC, null, null, null, null);
+    }
+
+    static JsonSlotEncoder newListEncoder(final String slotName, final String realSlotName, final JsonSlotEncoder elementEncoder) {
+
+        return new JsonSlotEncoder(slotName, realSlotName, Kind.LIST, List.class, null, null, elementEncoder);
+    }
+
+    static JsonSlotEncoder newModelEncoder(final String slotName, final String realSlotName, final Type declaredModelType) {
+
+        return new JsonSlotEncoder(slotName, realSlotName, Kind.MODEL, Model.class, null, declaredModelType, null);
+    }
+
+    static JsonSlotEncoder newSyntaxEncoder(final String slotName, final String realSlotName, final Class<?> valueClass,
+                                            final SyntaxHandler<?> syntaxHandler) {
+
+        return new JsonSlotEncoder(slotName, realSlotName, Kind.SYNTAX, valueClass, syntaxHandler, null, null);
+    }
+
+    static JsonSlotEncoder newValueEncoder(final String slotName, final String realSlotName, final Kind kind, final Class<?> valueClass) {
+
+        return new JsonSlotEncoder(slotName, realSlotName, kind, valueClass, null, null, null);
+    }
+
+    /**
+     * The model type declared by the slot (or list element), used to decide whether a nested model's (subschema) URI
+     * must be written in-line; <code>null</code> if the nested model's schema URI is never written.
+     */
+    Type getDeclaredModelType() {
+
+        return _DeclaredModelType;
+    }
+
+    /**
+     * The encoder of the list's elements (for {@link Kind#LIST} encoders).
+     */
+    JsonSlotEncoder getElementEncoder() {
+
+        return _ElementEncoder;
+    }
+
+    Kind getKind() {
+
+        return _Kind;
+    }
+
+    /**
+     * The name of the slot that holds the value; differs from the {@link #getSlotName() slot name} for an alias slot.
+     */
+    String getRealSlotName() {
+
+        return _RealSlotName;
+    }
+
+    /**
+     * The slot name, as it is written (an alias slot is written with its own name and its real slot's value).
+     */
+    String getSlotName() {
+
+        return _SlotName;
+    }
+
+    SerializableString getSerializedSlotName() {
+
+        return _SerializedSlotName;
+    }
+
+    /**
+     * The cached results of the schema loader's subschema test of the {@link #getDeclaredModelType() declared model
+     * type} with a nested model's actual schema; keyed by the actual schema URI.
+     */
+    ConcurrentHashMap<URI, Boolean> getSubschemaUris() {
+
+        return _SubschemaUris;
+    }
+
+    SyntaxHandler<?> getSyntaxHandler() {
+
+        return _SyntaxHandler;
+    }
+
+    /**
+     * @return <code>true</code> if the value is of the type that this encoder was compiled for, otherwise the value must
+     * be written dynamically (by its runtime type).
+     */
+    boolean isEncodable(final Object value) {
+
+        return _ValueClass == null || _ValueClass.isInstance(value);
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " { slotName : " + _SlotName + ", realSlotName : " + _RealSlotName + ", kind : " + _Kind
+                + ", valueClass : " + _ValueClass + ", declaredModelType : " + _DeclaredModelType + "}";
+    }
+
+    /**
+     * The ways in which a slot's value may be written as JSON.
+     */
+    static enum Kind {
+
+        BOOLEAN,
+
+        DOUBLE,
+
+        /**
+         * The value is written by its runtime type, in the same manner as the
+         * {@link org.wrml.runtime.format.PrinterModelGraph}.
+         */
+        DYNAMIC,
+
+        ENUM,
+
+        INTEGER,
+
+        LIST,
+
+        LONG,
+
+        MODEL,
+
+        /**
+         * The value is formatted as a JSON string by a {@link SyntaxHandler}.
+         */
+        SYNTAX,
+
+        TEXT
+    }
+}
@@ -0,0 +1,297 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.json;
+
+import org.wrml.model.Named;
+import org.wrml.model.rest.Document;
+import org.wrml.model.rest.Embedded;
+import org.wrml.model.schema.ValueType;
+import org.wrml.runtime.format.ModelWriteOptions;
+import org.wrml.runtime.schema.CollectionPropertyProtoSlot;
+import org.wrml.runtime.schema.LinkProtoSlot;
+import org.wrml.runtime.schema.PropertyProtoSlot;
+import org.wrml.runtime.schema.ProtoSlot;
+import org.wrml.runtime.schema.Prototype;
+import org.wrml.runtime.syntax.SyntaxHandler;
+import org.wrml.runtime.syntax.SyntaxLoader;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.*;
+
+/**
+ * <p>
+ * The precompiled {@link JsonSlotEncoder}s of a {@link Prototype}'s slots, for a particular combination of
+ * {@link ModelWriteOptions} (see {@link Key}).
+ * </p>
+ * <p>
+ * The plan's encoders are in the order that the slots are written; the key slots first, then the "name" slot and then
+ * the remaining slots (including aliases) in alphabetical order. The slots that the write options exclude (by
+ * declaring schema, or as links, collections, etc.) are excluded from the plan itself, so they cost nothing per write.
+ * </p>
+ *
+ * @see JsonModelWriter
+ */
+final class JsonWritePlan {
+
+    private final Prototype _Prototype;
+
+    private final JsonSlotEncoder[] _SlotEncoders;
+
+    JsonWritePlan(final Key key, final SyntaxLoader syntaxLoader) {
+
+        final Prototype prototype = key.getPrototype();
+        _Prototype = prototype;
+
+        final Class<?> schemaInterface = prototype.getSchemaBean().getIntrospectedClass();
+        final boolean isEmbedded = Embedded.class.isAssignableFrom(schemaInterface);
+
+        final SortedSet<String> allSlotNames = prototype.getAllSlotNames();
+        final Set<String> allKeySlotNames = prototype.getAllKeySlotNames();
+
+        final Set<String> orderedSlotNames = new LinkedHashSet<>(allSlotNames.size());
+        for (final String keySlotName : allKeySlotNames) {
+            if (allSlotNames.contains(keySlotName)) {
+                orderedSlotNames.add(keySlotName);
+            }
+        }
+
+        if (allSlotNames.contains(Named.SLOT_NAME_NAME)) {
+            orderedSlotNames.add(Named.SLOT_NAME_NAME);
+        }
+
+        orderedSlotNames.addAll(allSlotNames);
+
+        final Set<URI> excludedSchemaUris = key.getExcludedSchemaUris();
+        final List<JsonSlotEncoder> slotEncoders = new ArrayList<>(orderedSlotNames.size());
+        for (final String slotName : orderedSlotNames) {
+
+            final ProtoSlot protoSlot = prototype.getProtoSlot(slotName);
+            final String realSlotName = protoSlot.getRealName();
+
+            if (excludedSchemaUris.contains(protoSlot.getDeclaringSchemaUri()) ||
+                    (key.isDocumentKeyExcludedIfSecondary() && Document.SLOT_NAME_URI.equals(realSlotName) && allKeySlotNames.size() > 1) ||
+                    (key.isEmbeddedDocumentUriExcluded() && Embedded.SLOT_NAME_DOCUMENT_URI.equals(realSlotName)) ||
+                    (key.isLinksExcluded() && protoSlot instanceof LinkProtoSlot) ||
+                    (key.isCollectionsExcluded() && protoSlot instanceof CollectionPropertyProtoSlot) ||
+                    (isEmbedded && Embedded.SLOT_NAME_DOCUMENT_URI.equals(realSlotName))) {
+                continue;
+            }
+
+            slotEncoders.add(newSlotEncoder(slotName, realSlotName, protoSlot, syntaxLoader));
+        }
+
+        _SlotEncoders = slotEncoders.toArray(new JsonSlotEncoder[slotEncoders.size()]);
+    }
+
+    Prototype getPrototype() {
+
+        return _Prototype;
+    }
+
+    /**
+     * The plan's slot encoders, in the order that the slots are written.
+     */
+    JsonSlotEncoder[] getSlotEncoders() {
+
+        return _SlotEncoders;
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " { prototype : " + _Prototype.getSchemaUri() + ", slotEncoders : "
+                + Arrays.toString(_SlotEncoders) + "}";
+    }
+
+    private static JsonSlotEncoder newSlotEncoder(final String slotName, final String realSlotName, final ProtoSlot protoSlot,
+                                                  final SyntaxLoader syntaxLoader) {
+
+        if (protoSlot instanceof LinkProtoSlot) {
+            // A link's schema URI is never written
+            return JsonSlotEncoder.newModelEncoder(slotName, realSlotName, null);
+        }
+
+        if (!(protoSlot instanceof PropertyProtoSlot)) {
+            return JsonSlotEncoder.newDynamicEncoder(slotName, realSlotName);
+        }
+
+        final PropertyProtoSlot propertyProtoSlot = (PropertyProtoSlot) protoSlot;
+        final ValueType valueType = protoSlot.getValueType();
+
+        if (valueType == ValueType.Model) {
+            return JsonSlotEncoder.newModelEncoder(slotName, realSlotName, protoSlot.getHeapValueType());
+        }
+        else if (valueType == ValueType.List) {
+            final Type elementType = propertyProtoSlot.getListElementType();
+            final JsonSlotEncoder elementEncoder;
+            if (ValueType.isModelType(elementType)) {
+                elementEncoder = JsonSlotEncoder.newModelEncoder(null, null, elementType);
+            }
+            else {
+                elementEncoder = newValueEncoder(null, null, elementType, syntaxLoader);
+            }
+
+            return JsonSlotEncoder.newListEncoder(slotName, realSlotName, elementEncoder);
+        }
+
+        return newValueEncoder(slotName, realSlotName, protoSlot.getHeapValueType(), syntaxLoader);
+    }
+
+    private static JsonSlotEncoder newValueEncoder(final String slotName, final String realSlotName, final Type type,
+                                                   final SyntaxLoader syntaxLoader) {
+
+        if (!(type instanceof Class<?>)) {
+            return JsonSlotEncoder.newDynamicEncoder(slotName, realSlotName);
+        }
+
+        final Class<?> valueClass = (Class<?>) type;
+        if (String.class.equals(valueClass)) {
+            return JsonSlotEncoder.newValueEncoder(slotName, realSlotName, JsonSlotEncoder.Kind.TEXT, String.class);
+        }
+        else if (Integer.class.equals(valueClass) || int.class.equals(valueClass)) {
+            return JsonSlotEncoder.newValueEncoder(slotName, realSlotName, JsonSlotEncoder.Kind.INTEGER, Integer.class);
+        }
+        else if (Long.class.equals(valueClass) || long.class.equals(valueClass)) {
+            return JsonSlotEncoder.newValueEncoder(slotName, realSlotName, JsonSlotEncoder.Kind.LONG, Long.class);
+        }
+        else if (Double.class.equals(valueClass) || double.class.equals(valueClass)) {
+            return JsonSlotEncoder.newValueEncoder(slotName, realSlotName, JsonSlotEncoder.Kind.DOUBLE, Double.class);
+        }
+        else if (Boolean.class.equals(valueClass) || boolean.class.equals(valueClass)) {
+            return JsonSlotEncoder.newValueEncoder(slotName, realSlotName, JsonSlotEncoder.Kind.BOOLEAN, Boolean.class);
+        }
+        else if (valueClass.isEnum()) {
+            return JsonSlotEncoder.newValueEncoder(slotName, realSlotName, JsonSlotEncoder.Kind.ENUM, valueClass);
+        }
+
+        final SyntaxHandler<?> syntaxHandler = syntaxLoader.getSyntaxHandler(valueClass);
+        if (syntaxHandler != null) {
+            return JsonSlotEncoder.newSyntaxEncoder(slotName, realSlotName, valueClass, syntaxHandler);
+        }
+
+        return JsonSlotEncoder.newDynamicEncoder(slotName, realSlotName);
+    }
+
+    /**
+     * The cache key of a {@link JsonWritePlan}; the {@link Prototype} (by identity) and a snapshot of the
+     * {@link ModelWriteOptions} that determine which slots are written. Pretty printing does not affect the plan.
+     */
+    static final class Key {
+
+        private final Prototype _Prototype;
+
+        private final Set<URI> _ExcludedSchemaUris;
+
+        private final boolean _DocumentKeyExcludedIfSecondary;
+
+        private final boolean _EmbeddedDocumentUriExcluded;
+
+        private final boolean _LinksExcluded;
+
+        private final boolean _CollectionsExcluded;
+
+        private final int _HashCode;
+
+        Key(final Prototype prototype, final ModelWriteOptions writeOptions) {
+
+            _Prototype = prototype;
+
+            final Set<URI> excludedSchemaUris = writeOptions.getExcludedSchemaUris();
+            if (excludedSchemaUris == null || excludedSchemaUris.isEmpty()) {
+                _ExcludedSchemaUris = Collections.emptySet();
+            }
+            else {
+                _ExcludedSchemaUris = Collections.unmodifiableSet(new HashSet<>(excludedSchemaUris));
+            }
+
+            _DocumentKeyExcludedIfSecondary = writeOptions.isDocumentKeyExcludedIfSecondary();
+            _EmbeddedDocumentUriExcluded = writeOptions.isEmbeddedDocumentUriExcluded();
+            _LinksExcluded = writeOptions.isLinksExcluded();
+            _CollectionsExcluded = writeOptions.isCollectionsExcluded();
+
+            int hashCode = System.identityHashCode(prototype);
+            hashCode = 31 * hashCode + _ExcludedSchemaUris.hashCode();
+            hashCode = 31 * hashCode + (_DocumentKeyExcludedIfSecondary ? 1 : 0);
+            hashCode = 31 * hashCode + (_EmbeddedDocumentUriExcluded ? 1 : 0);
+            hashCode = 31 * hashCode + (_LinksExcluded ? 1 : 0);
+            hashCode = 31 * hashCode + (_CollectionsExcluded ? 1 : 0);
+            _HashCode = hashCode;
+        }
+
+        Set<URI> getExcludedSchemaUris() {
+
+            return _ExcludedSchemaUris;
+        }
+
+        Prototype getPrototype() {
+
+            return _Prototype;
+        }
+
+        boolean isCollectionsExcluded() {
+
+            return _CollectionsExcluded;
+        }
+
+        boolean isDocumentKeyExcludedIfSecondary() {
+
+            return _DocumentKeyExcludedIfSecondary;
+        }
+
+        boolean isEmbeddedDocumentUriExcluded() {
+
+            return _EmbeddedDocumentUriExcluded;
+        }
+
+        boolean isLinksExcluded() {
+
+            return _LinksExcluded;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) obj;
+            return _Prototype == other._Prototype && _DocumentKeyExcludedIfSecondary == other._DocumentKeyExcludedIfSecondary
+                    && _EmbeddedDocumentUriExcluded == other._EmbeddedDocumentUriExcluded && _LinksExcluded == other._LinksExcluded
+                    && _CollectionsExcluded == other._CollectionsExcluded && _ExcludedSchemaUris.equals(other._ExcludedSchemaUris);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return _HashCode;
+        }
+    }
+}
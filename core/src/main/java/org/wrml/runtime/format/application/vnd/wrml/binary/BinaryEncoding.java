@@ -0,0 +1,194 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.vnd.wrml.binary;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * <p>
+ * The constants and primitive (varint) codings of the <code>application/vnd.wrml.binary</code> format.
+ * </p>
+ * <p>
+ * A model representation starts with the {@link #MAGIC} bytes and the {@link #VERSION}, followed by the root model. A
+ * model is a schema reference (see {@link #SCHEMA_UNTYPED}, {@link #SCHEMA_DEFINITION} and {@link #SCHEMA_ROOT}), followed by its slots and
+ * then {@link #SLOT_END}. A slot is tagged by its name; the first time as a {@link #SLOT_NAME_LITERAL} and then by its
+ * index in the dictionary (plus {@link #SLOT_NAME_INDEX_OFFSET}), and its value starts with one of the
+ * <code>VALUE_</code> type tags. Integers are written as (zigzag) varints and strings are written to (and referenced
+ * from) a dictionary that is kept per schema, for the length of the representation.
+ * </p>
+ * <p>
+ * Since the slots are tagged by name, rather than by their position in the schema, a representation can be read after
+ * its schema's slots have changed (as a JSON representation can).
+ * </p>
+ *
+ * @see BinaryModelWriter
+ * @see BinaryModelReader
+ */
+final class BinaryEncoding {
+
+    static final int[] MAGIC = {'W', 'B'};
+
+    static final int VERSION = 2;
+
+    static final int SCHEMA_UNTYPED = 0;
+
+    /**
+     * The schema reference of a schema's first model; followed by the schema URI (coded as a {@link #VALUE_URI} in the
+     * untyped models' dictionary). The later models of the same schema refer to it by its index plus {@link #SCHEMA_INDEX_OFFSET}.
+     */
+    static final int SCHEMA_DEFINITION = 1;
+
+    /**
+     * The schema reference of the root model, whose schema is implied by the root dimensions that it is read with (as
+     * with the JSON format, which does not write the root model's schema URI).
+     */
+    static final int SCHEMA_ROOT = 2;
+
+    static final int SCHEMA_INDEX_OFFSET = 3;
+
+    static final int SLOT_END = 0;
+
+    /**
+     * The tag of a slot whose name is not (yet) in the dictionary; followed by the slot name's UTF-8 byte count and
+     * bytes. The slot names in the dictionary are referenced by their index plus {@link #SLOT_NAME_INDEX_OFFSET}.
+     */
+    static final int SLOT_NAME_LITERAL = 1;
+
+    static final int SLOT_NAME_INDEX_OFFSET = 2;
+
+    /**
+     * A string that is not in the dictionary; followed by its UTF-8 byte count and bytes. The strings in the dictionary
+     * are referenced by their index plus {@link #STRING_INDEX_OFFSET}.
+     */
+    static final int STRING_LITERAL = 0;
+
+    static final int STRING_INDEX_OFFSET = 1;
+
+    /**
+     * Longer strings are not added to the dictionary, since they are unlikely to be repeated.
+     */
+    static final int MAXIMUM_DICTIONARY_STRING_LENGTH = 256;
+
+    static final int VALUE_FALSE = 1;
+
+    static final int VALUE_TRUE = 2;
+
+    static final int VALUE_INTEGER = 3;
+
+    static final int VALUE_LONG = 4;
+
+    static final int VALUE_DOUBLE = 5;
+
+    static final int VALUE_TEXT = 6;
+
+    /**
+     * An enum constant of the slot's declared enum class; followed by the constant's name.
+     */
+    static final int VALUE_ENUM = 7;
+
+    /**
+     * A value of the slot's declared syntax class; followed by its syntactic text, as formatted by the class's
+     * {@link org.wrml.runtime.syntax.SyntaxHandler}.
+     */
+    static final int VALUE_SYNTAX = 8;
+
+    static final int VALUE_DATE = 9;
+
+    /**
+     * Followed by the URI's prefix, up to and including its last slash, and the rest of the URI; so that the URIs of the
+     * same "directory" share their prefix's dictionary entry.
+     */
+    static final int VALUE_URI = 10;
+
+    static final int VALUE_MODEL = 11;
+
+    /**
+     * Followed by the element count and the elements.
+     */
+    static final int VALUE_LIST = 12;
+
+    /**
+     * An enum constant of a class other than the slot's declared class; followed by the enum's class name and the
+     * constant's name.
+     */
+    static final int VALUE_TYPED_ENUM = 13;
+
+    /**
+     * A syntax value of a class other than the slot's declared class; followed by the value's class name and its
+     * syntactic text.
+     */
+    static final int VALUE_TYPED_SYNTAX = 14;
+
+    private BinaryEncoding() {
+
+    }
+
+    static long readVarint(final DataInput in) throws IOException {
+
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed varint.");
+    }
+
+    static int readUnsignedInt(final DataInput in) throws IOException {
+
+        final long value = readVarint(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("The varint " + value + " is out of range.");
+        }
+
+        return (int) value;
+    }
+
+    static long readZigzagVarint(final DataInput in) throws IOException {
+
+        final long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarint(final DataOutput out, long value) throws IOException {
+
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+
+    static void writeZigzagVarint(final DataOutput out, final long value) throws IOException {
+
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+}
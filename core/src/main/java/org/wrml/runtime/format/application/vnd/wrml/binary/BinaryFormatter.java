@@ -0,0 +1,84 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.vnd.wrml.binary;
+
+import org.wrml.model.Model;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.Keys;
+import org.wrml.runtime.format.AbstractFormatter;
+import org.wrml.runtime.format.FormatterConfiguration;
+import org.wrml.runtime.format.ModelReadingException;
+import org.wrml.runtime.format.ModelWriteOptions;
+import org.wrml.runtime.format.ModelWritingException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The <code>application/vnd.wrml.binary</code> {@link org.wrml.runtime.format.Formatter}; a compact binary encoding of
+ * models, with varint integers and per-schema string dictionaries (which also hold the slot names that tag the slots; see
+ * {@link BinaryEncoding}). It is meant for storing models, e.g. as the
+ * {@link org.wrml.runtime.service.file.FileSystemService}'s file format, rather than for presenting them.
+ */
+public class BinaryFormatter extends AbstractFormatter {
+
+    private BinaryModelReader _BinaryModelReader;
+
+    private BinaryModelWriter _BinaryModelWriter;
+
+    public BinaryFormatter() {
+
+    }
+
+    public BinaryModelReader getBinaryModelReader() {
+
+        return _BinaryModelReader;
+    }
+
+    public BinaryModelWriter getBinaryModelWriter() {
+
+        return _BinaryModelWriter;
+    }
+
+    @Override
+    public <M extends Model> M readModel(final InputStream in, final Keys rootModelKeys, final Dimensions rootModelDimensions)
+            throws ModelReadingException {
+
+        return _BinaryModelReader.readModel(in, rootModelKeys, rootModelDimensions);
+    }
+
+    @Override
+    public void writeModel(final OutputStream out, final Model model, final ModelWriteOptions writeOptions) throws ModelWritingException {
+
+        _BinaryModelWriter.writeModel(out, model, writeOptions);
+    }
+
+    @Override
+    protected void initFromConfiguration(final FormatterConfiguration config) {
+
+        _BinaryModelReader = new BinaryModelReader(getContext());
+        _BinaryModelWriter = new BinaryModelWriter(getContext());
+    }
+}
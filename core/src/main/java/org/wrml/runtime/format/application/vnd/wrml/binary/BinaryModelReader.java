@@ -0,0 +1,412 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.vnd.wrml.binary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wrml.model.Model;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.DimensionsBuilder;
+import org.wrml.runtime.Keys;
+import org.wrml.runtime.ModelBuilder;
+import org.wrml.runtime.format.ModelReadingException;
+import org.wrml.runtime.schema.Prototype;
+import org.wrml.runtime.syntax.SyntaxHandler;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Reads models in the compact <code>application/vnd.wrml.binary</code> format (see {@link BinaryEncoding}), as written
+ * by the {@link BinaryModelWriter}.
+ * </p>
+ * <p>
+ * The slots are tagged by name, and their values are read as the types that they were written with, so (as with the JSON
+ * format's streaming reader) they are not run back through the model's slot validation. A slot that the schema no
+ * longer declares is kept in the model's slot map (as the JSON format's is), with its enum and syntax values read as
+ * text.
+ * </p>
+ *
+ * @see BinaryFormatter
+ */
+public class BinaryModelReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryModelReader.class);
+
+    private final Context _Context;
+
+    private final ConcurrentHashMap<Prototype, BinarySchema> _Schemas;
+
+    public BinaryModelReader(final Context context) {
+
+        _Context = context;
+        _Schemas = new ConcurrentHashMap<>();
+    }
+
+    public Context getContext() {
+
+        return _Context;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <M extends Model> M readModel(final InputStream in, final Keys rootModelKeys, final Dimensions rootModelDimensions)
+            throws ModelReadingException {
+
+        if (rootModelDimensions == null) {
+            throw new ModelReadingException("The root model Dimensions cannot be null.", null, this);
+        }
+
+        if (rootModelDimensions.getSchemaUri() == null) {
+            throw new ModelReadingException("The root model Schema URI cannot be null.", null, this);
+        }
+
+        LOG.debug("Reading a model with dimensions:\n{}", rootModelDimensions);
+
+        try {
+            final DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in));
+            final int first = dataIn.read();
+            if (first < 0) {
+                return null;
+            }
+
+            if (first != BinaryEncoding.MAGIC[0] || dataIn.readUnsignedByte() != BinaryEncoding.MAGIC[1]) {
+                throw new ModelReadingException("The input is not in the binary model format.", null, this);
+            }
+
+            final int version = dataIn.readUnsignedByte();
+            if (version != BinaryEncoding.VERSION) {
+                throw new ModelReadingException("Unsupported binary model format version: " + version, null, this);
+            }
+
+            final Reading reading = new Reading(dataIn, rootModelKeys);
+            return (M) readModel(reading, rootModelDimensions, true);
+        }
+        catch (final ModelReadingException e) {
+            throw e;
+        }
+        catch (final EOFException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ModelReadingException("Encountered the unexpected end of a binary model.", e, this);
+        }
+        catch (final IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ModelReadingException("Encountered an I/O related problem while attempting to read a model: " + e.getMessage(), e,
+                    this);
+        }
+        catch (final RuntimeException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ModelReadingException("Encountered an issue while attempting to read a model: " + e.getMessage(), e, this);
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " [Schemas = " + _Schemas.size() + "]";
+    }
+
+    BinarySchema getBinarySchema(final URI schemaUri) {
+
+        final Prototype prototype = _Context.getSchemaLoader().getPrototype(schemaUri);
+        BinarySchema binarySchema = _Schemas.get(prototype);
+        if (binarySchema == null) {
+            binarySchema = new BinarySchema(prototype);
+            final BinarySchema existingBinarySchema = _Schemas.putIfAbsent(prototype, binarySchema);
+            if (existingBinarySchema != null) {
+                binarySchema = existingBinarySchema;
+            }
+        }
+
+        return binarySchema;
+    }
+
+    private Model readModel(final Reading reading, final Dimensions dimensions, final boolean isRoot) throws IOException {
+
+        final DataInputStream in = reading._In;
+
+        // The model's schema reference
+        final int schemaReference = BinaryEncoding.readUnsignedInt(in);
+        final URI schemaUri;
+        final BinarySchema binarySchema;
+        if (schemaReference == BinaryEncoding.SCHEMA_UNTYPED) {
+            schemaUri = null;
+            binarySchema = null;
+        }
+        else if (schemaReference == BinaryEncoding.SCHEMA_DEFINITION || (schemaReference == BinaryEncoding.SCHEMA_ROOT && isRoot)) {
+            schemaUri = (schemaReference == BinaryEncoding.SCHEMA_ROOT) ? dimensions.getSchemaUri() : readUri(in, reading.getDictionary(null));
+            binarySchema = getBinarySchema(schemaUri);
+            reading._Schemas.add(binarySchema);
+        }
+        else {
+            final int schemaIndex = schemaReference - BinaryEncoding.SCHEMA_INDEX_OFFSET;
+            if (schemaIndex < 0 || schemaIndex >= reading._Schemas.size()) {
+                throw new ModelReadingException("Undefined schema reference: " + schemaReference, null, this);
+            }
+
+            binarySchema = reading._Schemas.get(schemaIndex);
+            schemaUri = binarySchema.getPrototype().getSchemaUri();
+        }
+
+        Dimensions modelDimensions = dimensions;
+        if (schemaUri != null && !schemaUri.equals(dimensions.getSchemaUri())) {
+            modelDimensions = (isRoot) ? new DimensionsBuilder(dimensions).setSchemaUri(schemaUri).toDimensions()
+                    : reading.getDimensions(schemaUri, dimensions);
+        }
+        else if (schemaUri == null && !isRoot) {
+            modelDimensions = reading.getDimensions(null, dimensions);
+        }
+
+        final ModelBuilder modelBuilder = _Context.getModelBuilder();
+        final boolean typed = binarySchema != null && !binarySchema.isAbstract();
+        Model model = (typed) ? modelBuilder.newEmptyModel(modelDimensions) : modelBuilder.newModel();
+        final Map<String, Object> slotMap = model.getSlotMap();
+        final List<String> dictionary = reading.getDictionary(schemaUri);
+
+        int slotTag;
+        while ((slotTag = BinaryEncoding.readUnsignedInt(in)) != BinaryEncoding.SLOT_END) {
+
+            final String slotName = readSlotName(in, dictionary, slotTag);
+            final int ordinal = (binarySchema != null) ? binarySchema.getSlotOrdinal(slotName) : -1;
+            final Class<?> valueClass = (ordinal >= 0) ? binarySchema.getValueClass(ordinal) : null;
+
+            final Object slotValue = readValue(reading, dictionary, valueClass, modelDimensions);
+            if (slotValue != null) {
+                slotMap.put(slotName, slotValue);
+            }
+        }
+
+        if (!typed && modelDimensions.getSchemaUri() != null) {
+            // Let the model builder report on the (abstract) schema
+            model = model.newAlternate(modelDimensions);
+        }
+
+        if (isRoot && reading._RootModelKeys != null && model.getPrototype() != null) {
+            // This is the root model, include all of its requested key values in the slot map.
+            model.initKeySlots(reading._RootModelKeys);
+        }
+
+        return model;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readValue(final Reading reading, final List<String> dictionary, final Class<?> valueClass,
+                             final Dimensions modelDimensions) throws IOException {
+
+        final DataInputStream in = reading._In;
+        final int valueTag = in.readUnsignedByte();
+
+        switch (valueTag) {
+
+            case BinaryEncoding.VALUE_FALSE: {
+                return Boolean.FALSE;
+            }
+            case BinaryEncoding.VALUE_TRUE: {
+                return Boolean.TRUE;
+            }
+            case BinaryEncoding.VALUE_INTEGER: {
+                return (int) BinaryEncoding.readZigzagVarint(in);
+            }
+            case BinaryEncoding.VALUE_LONG: {
+                return BinaryEncoding.readZigzagVarint(in);
+            }
+            case BinaryEncoding.VALUE_DOUBLE: {
+                return in.readDouble();
+            }
+            case BinaryEncoding.VALUE_TEXT: {
+                return readString(in, dictionary);
+            }
+            case BinaryEncoding.VALUE_URI: {
+                return readUri(in, dictionary);
+            }
+            case BinaryEncoding.VALUE_DATE: {
+                return new Date(BinaryEncoding.readZigzagVarint(in));
+            }
+            case BinaryEncoding.VALUE_ENUM:
+            case BinaryEncoding.VALUE_TYPED_ENUM: {
+                final Class<?> enumClass = (valueTag == BinaryEncoding.VALUE_ENUM) ? valueClass : loadValueClass(readString(in, dictionary), valueClass);
+                final String name = readString(in, dictionary);
+                return (enumClass != null && enumClass.isEnum()) ? Enum.valueOf((Class<Enum>) enumClass, name) : name;
+            }
+            case BinaryEncoding.VALUE_SYNTAX:
+            case BinaryEncoding.VALUE_TYPED_SYNTAX: {
+                final Class<?> syntaxClass = (valueTag == BinaryEncoding.VALUE_SYNTAX) ? valueClass : loadValueClass(readString(in, dictionary),
+                        valueClass);
+                final String text = readString(in, dictionary);
+                final SyntaxHandler<?> syntaxHandler = (syntaxClass != null) ? _Context.getSyntaxLoader().getSyntaxHandler(syntaxClass) : null;
+                return (syntaxHandler != null) ? syntaxHandler.parseSyntacticText(text) : text;
+            }
+            case BinaryEncoding.VALUE_MODEL: {
+                return readModel(reading, modelDimensions, false);
+            }
+            case BinaryEncoding.VALUE_LIST: {
+                final int size = BinaryEncoding.readUnsignedInt(in);
+                final List<Object> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(reading, dictionary, valueClass, modelDimensions));
+                }
+
+                return list;
+            }
+            default: {
+                throw new ModelReadingException("Unknown binary value type: " + valueTag, null, this);
+            }
+        }
+    }
+
+    /**
+     * Resolves the written class name of an enum or syntax value, preferring the slot's declared value class.
+     */
+    private Class<?> loadValueClass(final String className, final Class<?> declaredValueClass) {
+
+        if (declaredValueClass != null && declaredValueClass.getName().equals(className)) {
+            return declaredValueClass;
+        }
+
+        try {
+            return Class.forName(className, true, getClass().getClassLoader());
+        }
+        catch (final ClassNotFoundException e) {
+            LOG.warn("Unable to load the value class: " + className + " - reading the value as text.", e);
+            return null;
+        }
+    }
+
+    private String readString(final DataInputStream in, final List<String> dictionary) throws IOException {
+
+        final int reference = BinaryEncoding.readUnsignedInt(in);
+        if (reference != BinaryEncoding.STRING_LITERAL) {
+            final int index = reference - BinaryEncoding.STRING_INDEX_OFFSET;
+            if (index >= dictionary.size()) {
+                throw new ModelReadingException("Undefined string reference: " + reference, null, this);
+            }
+
+            return dictionary.get(index);
+        }
+
+        final String value = readLiteral(in);
+        if (value.length() <= BinaryEncoding.MAXIMUM_DICTIONARY_STRING_LENGTH) {
+            dictionary.add(value);
+        }
+
+        return value;
+    }
+
+    private String readSlotName(final DataInputStream in, final List<String> dictionary, final int slotTag) throws IOException {
+
+        if (slotTag != BinaryEncoding.SLOT_NAME_LITERAL) {
+            final int index = slotTag - BinaryEncoding.SLOT_NAME_INDEX_OFFSET;
+            if (index >= dictionary.size()) {
+                throw new ModelReadingException("Undefined slot name reference: " + slotTag, null, this);
+            }
+
+            return dictionary.get(index);
+        }
+
+        final String slotName = readLiteral(in);
+        if (slotName.length() <= BinaryEncoding.MAXIMUM_DICTIONARY_STRING_LENGTH) {
+            dictionary.add(slotName);
+        }
+
+        return slotName;
+    }
+
+    private URI readUri(final DataInputStream in, final List<String> dictionary) throws IOException {
+
+        final String prefix = readString(in, dictionary);
+        return URI.create(prefix + readString(in, dictionary));
+    }
+
+    private static String readLiteral(final DataInputStream in) throws IOException {
+
+        final byte[] bytes = new byte[BinaryEncoding.readUnsignedInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The state of a single {@link #readModel(InputStream, Keys, Dimensions)} call.
+     */
+    private static final class Reading {
+
+        private final DataInputStream _In;
+
+        private final Keys _RootModelKeys;
+
+        /**
+         * The schemas defined so far, in the order of their definition.
+         */
+        private final List<BinarySchema> _Schemas;
+
+        /**
+         * The string dictionaries, keyed by schema URI (<code>null</code> for untyped models).
+         */
+        private final Map<URI, List<String>> _Dictionaries;
+
+        /**
+         * The (nested) models' dimensions, which only differ from the root's by schema, keyed by schema URI.
+         */
+        private final Map<URI, Dimensions> _Dimensions;
+
+        Reading(final DataInputStream in, final Keys rootModelKeys) {
+
+            _In = in;
+            _RootModelKeys = rootModelKeys;
+            _Schemas = new ArrayList<>();
+            _Dictionaries = new HashMap<>();
+            _Dimensions = new HashMap<>();
+        }
+
+        List<String> getDictionary(final URI schemaUri) {
+
+            List<String> dictionary = _Dictionaries.get(schemaUri);
+            if (dictionary == null) {
+                dictionary = new ArrayList<>();
+                _Dictionaries.put(schemaUri, dictionary);
+            }
+
+            return dictionary;
+        }
+
+        Dimensions getDimensions(final URI schemaUri, final Dimensions parentDimensions) {
+
+            Dimensions dimensions = _Dimensions.get(schemaUri);
+            if (dimensions == null) {
+                dimensions = new DimensionsBuilder(parentDimensions).setSchemaUri(schemaUri).toDimensions();
+                _Dimensions.put(schemaUri, dimensions);
+            }
+
+            return dimensions;
+        }
+    }
+}
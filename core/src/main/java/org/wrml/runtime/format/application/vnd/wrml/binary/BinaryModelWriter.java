@@ -0,0 +1,413 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.vnd.wrml.binary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wrml.model.Model;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.format.ModelWriteOptions;
+import org.wrml.runtime.format.ModelWritingException;
+import org.wrml.runtime.schema.Prototype;
+import org.wrml.runtime.syntax.SyntaxHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Writes models in the compact <code>application/vnd.wrml.binary</code> format (see {@link BinaryEncoding}).
+ * </p>
+ * <p>
+ * Unlike the JSON format, the binary format is meant to store models rather than to present them, so the model's slots
+ * are written as they are; empty nested models and lists are kept and the values are tagged with their runtime
+ * types, so that they are read back as the same types. The {@link ModelWriteOptions}' slot exclusions and the
+ * {@link Dimensions}' included/excluded slot names are honored. A model graph is written as a tree; a model that is
+ * referenced more than once is written each time, and a cycle is rejected.
+ * </p>
+ *
+ * @see BinaryFormatter
+ */
+public class BinaryModelWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryModelWriter.class);
+
+    private final Context _Context;
+
+    private final ConcurrentHashMap<Prototype, BinarySchema> _Schemas;
+
+    public BinaryModelWriter(final Context context) {
+
+        _Context = context;
+        _Schemas = new ConcurrentHashMap<>();
+    }
+
+    public Context getContext() {
+
+        return _Context;
+    }
+
+    public void writeModel(final OutputStream out, final Model model, ModelWriteOptions writeOptions) throws ModelWritingException {
+
+        if (out == null) {
+            throw new ModelWritingException("The output stream cannot be null.", null, this);
+        }
+
+        if (model == null) {
+            throw new ModelWritingException("The model cannot be null.", null, this);
+        }
+
+        if (writeOptions == null) {
+            writeOptions = new ModelWriteOptions();
+        }
+
+        final Set<URI> excludedSchemaUris = writeOptions.getExcludedSchemaUris();
+        if (excludedSchemaUris != null && excludedSchemaUris.contains(model.getSchemaUri())) {
+            throw new ModelWritingException("The root model's schema is excluded from the graph.", null, this);
+        }
+
+        try {
+            final DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+            for (final int b : BinaryEncoding.MAGIC) {
+                dataOut.writeByte(b);
+            }
+
+            dataOut.writeByte(BinaryEncoding.VERSION);
+
+            final Writing writing = new Writing(dataOut, writeOptions);
+            writeModel(writing, model, true);
+            dataOut.flush();
+        }
+        catch (final ModelWritingException e) {
+            throw e;
+        }
+        catch (final IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ModelWritingException("Encountered an I/O related problem while attempting to write a model.", e, this);
+        }
+        catch (final RuntimeException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ModelWritingException("Encountered an issue while attempting to write a model.", e, this);
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " [Schemas = " + _Schemas.size() + "]";
+    }
+
+    BinarySchema getBinarySchema(final Prototype prototype) {
+
+        BinarySchema binarySchema = _Schemas.get(prototype);
+        if (binarySchema == null) {
+            binarySchema = new BinarySchema(prototype);
+            final BinarySchema existingBinarySchema = _Schemas.putIfAbsent(prototype, binarySchema);
+            if (existingBinarySchema != null) {
+                binarySchema = existingBinarySchema;
+            }
+        }
+
+        return binarySchema;
+    }
+
+    private void writeModel(final Writing writing, final Model model, final boolean isRoot) throws IOException {
+
+        final UUID heapId = model.getHeapId();
+        if (!writing._Ancestors.add(heapId)) {
+            throw new ModelWritingException("The model graph contains a cycle through model: " + heapId, null, this);
+        }
+
+        final DataOutputStream out = writing._Out;
+        final Prototype prototype = model.getPrototype();
+        final URI schemaUri = (prototype != null) ? model.getSchemaUri() : null;
+
+        // The model's schema reference
+        if (schemaUri == null) {
+            BinaryEncoding.writeVarint(out, BinaryEncoding.SCHEMA_UNTYPED);
+        }
+        else {
+            final Integer schemaIndex = writing._SchemaIndexes.get(schemaUri);
+            if (schemaIndex != null) {
+                BinaryEncoding.writeVarint(out, schemaIndex + BinaryEncoding.SCHEMA_INDEX_OFFSET);
+            }
+            else {
+                writing._SchemaIndexes.put(schemaUri, writing._SchemaIndexes.size());
+                if (isRoot) {
+                    BinaryEncoding.writeVarint(out, BinaryEncoding.SCHEMA_ROOT);
+                }
+                else {
+                    BinaryEncoding.writeVarint(out, BinaryEncoding.SCHEMA_DEFINITION);
+                    writeUri(out, writing.getDictionary(null), schemaUri);
+                }
+            }
+        }
+
+        final Map<String, Integer> dictionary = writing.getDictionary(schemaUri);
+        final Map<String, Object> slotMap = model.getSlotMap();
+        final Dimensions dimensions = model.getDimensions();
+        final List<String> excludedSlotNames = (dimensions != null) ? getNonEmpty(dimensions.getExcludedSlotNames()) : null;
+        final List<String> includedSlotNames = (excludedSlotNames == null && dimensions != null) ? getNonEmpty(dimensions.getIncludedSlotNames())
+                : null;
+
+        final BinarySchema binarySchema = (prototype != null) ? getBinarySchema(prototype) : null;
+        if (binarySchema != null) {
+            final ModelWriteOptions writeOptions = writing._WriteOptions;
+            final Set<URI> excludedSchemaUris = writeOptions.getExcludedSchemaUris();
+
+            final int slotCount = binarySchema.getSlotCount();
+            for (int ordinal = 0; ordinal < slotCount; ordinal++) {
+
+                final String slotName = binarySchema.getSlotName(ordinal);
+                final Object value = slotMap.get(slotName);
+                if (value == null || binarySchema.isExcluded(ordinal, writeOptions, excludedSchemaUris)
+                        || !isSlotIncluded(slotName, excludedSlotNames, includedSlotNames)) {
+                    continue;
+                }
+
+                writeSlotName(out, dictionary, slotName);
+                writeValue(writing, dictionary, value, binarySchema.getValueClass(ordinal));
+            }
+        }
+
+        // The slots that the schema does not declare are written by name.
+        for (final String slotName : new TreeSet<>(slotMap.keySet())) {
+
+            if (binarySchema != null && binarySchema.getSlotOrdinal(slotName) >= 0) {
+                continue;
+            }
+
+            final Object value = slotMap.get(slotName);
+            if (value == null || !isSlotIncluded(slotName, excludedSlotNames, includedSlotNames)) {
+                continue;
+            }
+
+            writeSlotName(out, dictionary, slotName);
+            writeValue(writing, dictionary, value, null);
+        }
+
+        BinaryEncoding.writeVarint(out, BinaryEncoding.SLOT_END);
+        writing._Ancestors.remove(heapId);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    /**
+     * Writes the value according to its runtime type; the declared value class (or <code>null</code>) of the slot (or
+     * list element) is only used to omit the class names of enum and syntax values.
+     */
+    private void writeValue(final Writing writing, final Map<String, Integer> dictionary, final Object value, final Class<?> valueClass)
+            throws IOException {
+
+        final DataOutputStream out = writing._Out;
+
+        if (value instanceof String) {
+            out.writeByte(BinaryEncoding.VALUE_TEXT);
+            writeString(out, dictionary, (String) value);
+        }
+        else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(BinaryEncoding.VALUE_INTEGER);
+            BinaryEncoding.writeZigzagVarint(out, ((Number) value).intValue());
+        }
+        else if (value instanceof Long) {
+            out.writeByte(BinaryEncoding.VALUE_LONG);
+            BinaryEncoding.writeZigzagVarint(out, (Long) value);
+        }
+        else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(BinaryEncoding.VALUE_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        }
+        else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? BinaryEncoding.VALUE_TRUE : BinaryEncoding.VALUE_FALSE);
+        }
+        else if (value instanceof Model) {
+            out.writeByte(BinaryEncoding.VALUE_MODEL);
+            writeModel(writing, (Model) value, false);
+        }
+        else if (value instanceof List) {
+            final List<Object> elements = new ArrayList<>();
+            for (final Object element : (List<?>) value) {
+                if (element != null) {
+                    elements.add(element);
+                }
+            }
+
+            out.writeByte(BinaryEncoding.VALUE_LIST);
+            BinaryEncoding.writeVarint(out, elements.size());
+            for (final Object element : elements) {
+                writeValue(writing, dictionary, element, valueClass);
+            }
+        }
+        else if (value instanceof URI) {
+            out.writeByte(BinaryEncoding.VALUE_URI);
+            writeUri(out, dictionary, (URI) value);
+        }
+        else if (value instanceof Date) {
+            out.writeByte(BinaryEncoding.VALUE_DATE);
+            BinaryEncoding.writeZigzagVarint(out, ((Date) value).getTime());
+        }
+        else if (value instanceof Enum) {
+            final Class<?> enumClass = ((Enum<?>) value).getDeclaringClass();
+            if (enumClass.equals(valueClass)) {
+                out.writeByte(BinaryEncoding.VALUE_ENUM);
+            }
+            else {
+                out.writeByte(BinaryEncoding.VALUE_TYPED_ENUM);
+                writeString(out, dictionary, enumClass.getName());
+            }
+
+            writeString(out, dictionary, ((Enum<?>) value).name());
+        }
+        else {
+            final SyntaxHandler syntaxHandler = _Context.getSyntaxLoader().getSyntaxHandler(value.getClass());
+            if (syntaxHandler == null) {
+                throw new ModelWritingException("Unable to write a value of type: " + value.getClass().getName(), null, this);
+            }
+
+            if (value.getClass().equals(valueClass)) {
+                out.writeByte(BinaryEncoding.VALUE_SYNTAX);
+            }
+            else {
+                out.writeByte(BinaryEncoding.VALUE_TYPED_SYNTAX);
+                writeString(out, dictionary, value.getClass().getName());
+            }
+
+            writeString(out, dictionary, syntaxHandler.formatSyntaxValue(value));
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final Map<String, Integer> dictionary, final String value) throws IOException {
+
+        final Integer index = dictionary.get(value);
+        if (index != null) {
+            BinaryEncoding.writeVarint(out, index + BinaryEncoding.STRING_INDEX_OFFSET);
+            return;
+        }
+
+        BinaryEncoding.writeVarint(out, BinaryEncoding.STRING_LITERAL);
+        writeLiteral(out, value);
+
+        if (value.length() <= BinaryEncoding.MAXIMUM_DICTIONARY_STRING_LENGTH) {
+            dictionary.put(value, dictionary.size());
+        }
+    }
+
+    /**
+     * Writes the slot's tag; its name, which (like a string value) is added to the dictionary the first time.
+     */
+    private static void writeSlotName(final DataOutputStream out, final Map<String, Integer> dictionary, final String slotName)
+            throws IOException {
+
+        final Integer index = dictionary.get(slotName);
+        if (index != null) {
+            BinaryEncoding.writeVarint(out, index + BinaryEncoding.SLOT_NAME_INDEX_OFFSET);
+            return;
+        }
+
+        BinaryEncoding.writeVarint(out, BinaryEncoding.SLOT_NAME_LITERAL);
+        writeLiteral(out, slotName);
+
+        if (slotName.length() <= BinaryEncoding.MAXIMUM_DICTIONARY_STRING_LENGTH) {
+            dictionary.put(slotName, dictionary.size());
+        }
+    }
+
+    private static void writeUri(final DataOutputStream out, final Map<String, Integer> dictionary, final URI uri) throws IOException {
+
+        final String uriString = uri.toString();
+        final int prefixLength = uriString.lastIndexOf('/') + 1;
+        writeString(out, dictionary, uriString.substring(0, prefixLength));
+        writeString(out, dictionary, uriString.substring(prefixLength));
+    }
+
+    private static void writeLiteral(final DataOutputStream out, final String value) throws IOException {
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        BinaryEncoding.writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static List<String> getNonEmpty(final List<String> slotNames) {
+
+        return (slotNames != null && !slotNames.isEmpty()) ? slotNames : null;
+    }
+
+    private static boolean isSlotIncluded(final String slotName, final List<String> excludedSlotNames, final List<String> includedSlotNames) {
+
+        if (excludedSlotNames != null) {
+            return !excludedSlotNames.contains(slotName);
+        }
+
+        return includedSlotNames == null || includedSlotNames.contains(slotName);
+    }
+
+    /**
+     * The state of a single {@link #writeModel(OutputStream, Model, ModelWriteOptions)} call.
+     */
+    private static final class Writing {
+
+        private final DataOutputStream _Out;
+
+        private final ModelWriteOptions _WriteOptions;
+
+        private final Map<URI, Integer> _SchemaIndexes;
+
+        /**
+         * The string dictionaries, keyed by schema URI (<code>null</code> for untyped models).
+         */
+        private final Map<URI, Map<String, Integer>> _Dictionaries;
+
+        /**
+         * The heap ids of the models that are being written; the path from the root model.
+         */
+        private final Set<UUID> _Ancestors;
+
+        Writing(final DataOutputStream out, final ModelWriteOptions writeOptions) {
+
+            _Out = out;
+            _WriteOptions = writeOptions;
+            _SchemaIndexes = new HashMap<>();
+            _Dictionaries = new HashMap<>();
+            _Ancestors = new HashSet<>();
+        }
+
+        Map<String, Integer> getDictionary(final URI schemaUri) {
+
+            Map<String, Integer> dictionary = _Dictionaries.get(schemaUri);
+            if (dictionary == null) {
+                dictionary = new HashMap<>();
+                _Dictionaries.put(schemaUri, dictionary);
+            }
+
+            return dictionary;
+        }
+    }
+}
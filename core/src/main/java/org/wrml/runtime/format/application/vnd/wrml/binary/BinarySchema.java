@@ -0,0 +1,161 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.vnd.wrml.binary;
+
+import org.wrml.model.rest.Document;
+import org.wrml.model.rest.Embedded;
+import org.wrml.model.schema.ValueType;
+import org.wrml.runtime.format.ModelWriteOptions;
+import org.wrml.runtime.schema.CollectionPropertyProtoSlot;
+import org.wrml.runtime.schema.LinkProtoSlot;
+import org.wrml.runtime.schema.PropertyProtoSlot;
+import org.wrml.runtime.schema.ProtoSlot;
+import org.wrml.runtime.schema.Prototype;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.*;
+
+/**
+ * The slot table of a {@link Prototype}; the (non-alias) slot names in alphabetical order, which is the order that the
+ * slots are written in, along with what the binary format needs to know about each of them.
+ */
+final class BinarySchema {
+
+    private final Prototype _Prototype;
+
+    private final String[] _SlotNames;
+
+    private final Map<String, Integer> _SlotOrdinals;
+
+    private final URI[] _DeclaringSchemaUris;
+
+    /**
+     * The declared classes of the slots' values (or list elements), used to read enum and syntax values.
+     */
+    private final Class<?>[] _ValueClasses;
+
+    private final boolean[] _Links;
+
+    private final boolean[] _Collections;
+
+    private final boolean _DocumentKeySecondary;
+
+    private final boolean _Abstract;
+
+    BinarySchema(final Prototype prototype) {
+
+        _Prototype = prototype;
+        _Abstract = prototype.isAbstract();
+
+        final List<String> slotNames = new ArrayList<>();
+        for (final String slotName : prototype.getAllSlotNames()) {
+            if (slotName.equals(prototype.getProtoSlot(slotName).getRealName())) {
+                slotNames.add(slotName);
+            }
+        }
+
+        final int slotCount = slotNames.size();
+        _SlotNames = slotNames.toArray(new String[slotCount]);
+        _SlotOrdinals = new HashMap<>(slotCount * 2);
+        _DeclaringSchemaUris = new URI[slotCount];
+        _ValueClasses = new Class<?>[slotCount];
+        _Links = new boolean[slotCount];
+        _Collections = new boolean[slotCount];
+
+        for (int i = 0; i < slotCount; i++) {
+
+            final String slotName = _SlotNames[i];
+            final ProtoSlot protoSlot = prototype.getProtoSlot(slotName);
+
+            _SlotOrdinals.put(slotName, i);
+            _DeclaringSchemaUris[i] = protoSlot.getDeclaringSchemaUri();
+            _Links[i] = protoSlot instanceof LinkProtoSlot;
+            _Collections[i] = protoSlot instanceof CollectionPropertyProtoSlot;
+
+            if (protoSlot instanceof PropertyProtoSlot) {
+                final Type valueType = (protoSlot.getValueType() == ValueType.List) ? ((PropertyProtoSlot) protoSlot).getListElementType()
+                        : protoSlot.getHeapValueType();
+                _ValueClasses[i] = (valueType instanceof Class<?>) ? (Class<?>) valueType : null;
+            }
+        }
+
+        _DocumentKeySecondary = prototype.getAllKeySlotNames().size() > 1;
+    }
+
+    Prototype getPrototype() {
+
+        return _Prototype;
+    }
+
+    int getSlotCount() {
+
+        return _SlotNames.length;
+    }
+
+    String getSlotName(final int ordinal) {
+
+        return _SlotNames[ordinal];
+    }
+
+    /**
+     * @return the slot's ordinal, or <code>-1</code> if the slot is not one of the schema's (non-alias) slots.
+     */
+    int getSlotOrdinal(final String slotName) {
+
+        final Integer ordinal = _SlotOrdinals.get(slotName);
+        return (ordinal != null) ? ordinal : -1;
+    }
+
+    Class<?> getValueClass(final int ordinal) {
+
+        return _ValueClasses[ordinal];
+    }
+
+    boolean isAbstract() {
+
+        return _Abstract;
+    }
+
+    /**
+     * Determines whether or not the write options exclude the slot, in the same manner as the JSON format's write plans.
+     */
+    boolean isExcluded(final int ordinal, final ModelWriteOptions writeOptions, final Set<URI> excludedSchemaUris) {
+
+        final String slotName = _SlotNames[ordinal];
+        return (excludedSchemaUris != null && excludedSchemaUris.contains(_DeclaringSchemaUris[ordinal])) ||
+                (writeOptions.isDocumentKeyExcludedIfSecondary() && _DocumentKeySecondary && Document.SLOT_NAME_URI.equals(slotName)) ||
+                (writeOptions.isEmbeddedDocumentUriExcluded() && Embedded.SLOT_NAME_DOCUMENT_URI.equals(slotName)) ||
+                (writeOptions.isLinksExcluded() && _Links[ordinal]) ||
+                (writeOptions.isCollectionsExcluded() && _Collections[ordinal]);
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " { schemaUri : " + _Prototype.getSchemaUri() + ", slotNames : " + Arrays.toString(_SlotNames)
+                + "}";
+    }
+}
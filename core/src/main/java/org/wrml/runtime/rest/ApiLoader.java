@@ -116,6 +116,13 @@ public interface ApiLoader extends Loader {
      */
     ApiNavigator getParentApiNavigator(final URI uri) throws ApiLoaderException;
 
+    /**
+     * Returns the {@link Route} of the specified resource identifier; its parent {@link ApiNavigator}, its matching
+     * {@link Resource} and the values of that {@link Resource}'s URI template parameters. Returns <code>null</code> if
+     * the identifier is not parented by a loaded {@link Api}.
+     */
+    Route getRoute(final URI uri) throws ApiLoaderException;
+
     /**
      * Returns the set of {@link Resource}s that represent the specified {@link Schema} {@link URI}.
      */
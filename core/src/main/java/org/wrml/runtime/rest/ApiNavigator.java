@@ -24,7 +24,6 @@
  */
 package org.wrml.runtime.rest;
 
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wrml.model.Model;
@@ -82,7 +81,7 @@ public class ApiNavigator {
 
     private final Resource _Docroot;
 
-    private final SortedSet<ResourceMatchResult> _DocrootResults;
+    private volatile RoutingAutomaton _RoutingAutomaton;
 
     private Dimensions _ApiDimensions;
 
@@ -123,11 +122,11 @@ public class ApiNavigator {
         _LinkRelationDimensions = _DefaultLinkRelationDimensions;
 
         _Docroot = new Resource(this, _Api.getDocroot(), null);
-        _DocrootResults = new TreeSet<>();
-        _DocrootResults.add(new ResourceMatchResult(_Docroot, 10000));
 
         addResource(_Docroot);
 
+        _RoutingAutomaton = RoutingAutomaton.compile(_Docroot);
+
     }
 
     public static final boolean isApiNavigable(final Api api) {
@@ -145,8 +144,24 @@ public class ApiNavigator {
 
     public Resource addResource(final UUID parentResourceTemplateId, final ResourceTemplate childResourceTemplate) {
 
-        final Resource child = new Resource(this, childResourceTemplate, getResource(parentResourceTemplateId));
+        final Resource parent = getResource(parentResourceTemplateId);
+        final Resource child = new Resource(this, childResourceTemplate, parent);
+        if (parent != null) {
+            parent.addSubresource(child);
+        }
+
         addResource(child);
+        _RoutingAutomaton = RoutingAutomaton.compile(_Docroot);
+
+        // Cached routes may have matched their resource against the old automaton.
+        final ApiLoader apiLoader = getApi().getContext().getApiLoader();
+        if (apiLoader instanceof DefaultApiLoader) {
+            final RouteCache routeCache = ((DefaultApiLoader) apiLoader).getRouteCache();
+            if (routeCache != null) {
+                routeCache.invalidate();
+            }
+        }
+
         return child;
     }
 
@@ -324,8 +339,8 @@ public class ApiNavigator {
 
     public Resource getResource(final URI uri) {
 
-        final UUID resourceTemplateId = getResourceTemplateId(uri);
-        return getResource(resourceTemplateId);
+        final String requestUriString = getRequestUriString(uri);
+        return _RoutingAutomaton.match(requestUriString, getApiUri().toString().length());
     }
 
     /**
@@ -355,23 +370,20 @@ public class ApiNavigator {
 
     public UUID getResourceTemplateId(final URI uri) {
 
-        final SortedSet<ResourceMatchResult> results = match(uri);
-
-        if (results == null || results.isEmpty()) {
-            return null;
-        }
-
-        final ResourceMatchResult result = results.first();
-        final Resource resource = result.getResource();
-        return resource.getResourceTemplateId();
+        final Resource resource = getResource(uri);
+        return (resource != null) ? resource.getResourceTemplateId() : null;
     }
 
     public SortedSet<Parameter> getSurrogateKeyComponents(final URI uri, final Prototype prototype) {
 
-        final SortedSet<ResourceMatchResult> results = match(uri);
+        final String requestUriString = getRequestUriString(uri);
+        final URI apiUri = getApiUri();
+
+        // The matching resources, highest score first.
+        final SortedMap<Integer, Resource> results = new TreeMap<>(Collections.<Integer>reverseOrder());
+        _RoutingAutomaton.rank(requestUriString, apiUri.toString().length(), results);
 
-        if (results == null || results.isEmpty()) {
-            final URI apiUri = getApiUri();
+        if (results.isEmpty()) {
             ApiNavigator.LOG.error("2 This ApiNavigator has charted \"{}\", which is not a match for the specified URI: {}", new Object[]{apiUri, uri});
             throw new ApiNavigatorException("This ApiNavigator has charted \"" + apiUri + "\", which is not a match for the specified URI: " + uri + ".", null, this,
                     Status.NOT_FOUND);
@@ -379,9 +391,8 @@ public class ApiNavigator {
 
         SortedSet<Parameter> surrogateKeyComponents = null;
 
-        for (final ResourceMatchResult result : results) {
+        for (final Resource resource : results.values()) {
 
-            final Resource resource = result.getResource();
             surrogateKeyComponents = resource.getSurrogateKeyComponents(uri, prototype);
 
             if (surrogateKeyComponents != null && !surrogateKeyComponents.isEmpty()) {
@@ -624,13 +635,15 @@ public class ApiNavigator {
     }
 
     /**
-     * Determine which resource(s) match the requested resource id.
+     * Validate that the specified URI is managed by this {@link ApiNavigator}, returning its string form, which the
+     * {@link RoutingAutomaton} matches (beginning just past the API's URI) to determine which resource(s) match the
+     * requested resource id.
      * <p/>
      * Note: This needs to be as fast as possible because it is used during client request handling.
      */
-    private SortedSet<ResourceMatchResult> match(final URI uri) {
+    private String getRequestUriString(final URI uri) {
 
-        ApiNavigator.LOG.debug("Attempting match on URI {}", new Object[]{uri});
+        ApiNavigator.LOG.debug("Attempting match on URI {}", uri);
 
         if (uri == null) {
             ApiNavigator.LOG.error("3 This ApiNavigator cannot locate a resource with a *null* identifier.");
@@ -649,182 +662,6 @@ public class ApiNavigator {
                     Status.NOT_FOUND);
         }
 
-        final String path = requestUriString.substring(apiUriString.length());
-
-        final SortedSet<ResourceMatchResult> results = matchPath(path);
-
-        if (results == null || results.isEmpty() || results.size() == 1) {
-            return results;
-        }
-
-        int resultsTiedForFirst = 0;
-        final int highestScore = results.first().getScore();
-        for (final ResourceMatchResult result : results) {
-            final int score = result.getScore();
-            if (score == highestScore) {
-                resultsTiedForFirst++;
-            }
-            else {
-                break;
-            }
-        }
-
-        // TODO there's no differentiation here; either a lot of logic missing, or a lot of unnecessary logic
-        if (resultsTiedForFirst == 1) {
-            return results;
-        }
-
-        return results;
-    }
-
-    private SortedSet<ResourceMatchResult> matchPath(String path) {
-
-        // TODO Is this needed? The path should be sanitized before getting this far....
-        path = StringUtils.trim(path);
-        if (path.length() == 0 || ApiNavigator.DOCROOT_PATH.equals(path)) {
-            return _DocrootResults;
-        }
-
-        final SortedSet<ResourceMatchResult> results = new TreeSet<ResourceMatchResult>();
-        final String[] pathSegments = StringUtils.split(path, ApiNavigator.PATH_SEPARATOR_CHAR);
-        // TODO Refactor out of C-style method calling? Why not return results? MSM: Current approach uses recursion;
-        // but still could return results. Note that all of this is private implementation detail.
-        matchPathSegment(_Docroot, pathSegments, 0, 0, results);
-
-        ApiNavigator.LOG.debug("The path \"{}\" matches *{}* results.", path, results.size());
-        return results;
-    }
-
-    private void matchPathSegment(final Resource resource, final String[] pathSegments, final int segmentIndex, int score, final SortedSet<ResourceMatchResult> results) {
-
-        if (resource == null) {
-            // No resource branch to investigate.
-            return;
-        }
-
-        final int segmentCount = pathSegments.length;
-
-        if (segmentIndex >= segmentCount) {
-            // No segments left to match.
-            return;
-        }
-
-        final Map<String, Resource> literalPathSubresources = resource.getLiteralPathSubresources();
-        final Map<String, Resource> variablePathSubresources = resource.getVariablePathSubresources();
-
-        if (literalPathSubresources == null && variablePathSubresources == null) {
-            // Still have segments to go, but there is nothing to match them
-            // against.
-            return;
-        }
-
-        final String segment = pathSegments[segmentIndex];
-        final int nextSegmentIndex = segmentIndex + 1;
-        final boolean isLastSegment = nextSegmentIndex == segmentCount;
-
-        score += nextSegmentIndex;
-
-        if (literalPathSubresources != null && literalPathSubresources.containsKey(segment)) {
-
-            final Resource literalPathSubresource = literalPathSubresources.get(segment);
-
-            if (isLastSegment) {
-
-                // The last segment is significant because it means we can add a
-                // matching result with a bonus score and then return the result
-                // set without any further recursion.
-
-                // TODO this should only be added if there's a link template here, else improper match.
-                // e.g. /capricas matching on /capricas/{capricaNumber} with score 11 when there's
-                // /{key} that matches with link with score 7, giving wrong order in results
-
-                final Map<URI, LinkTemplate> linkTemplates = literalPathSubresource.getLinkTemplates();
-                if (!linkTemplates.isEmpty()) {
-                    final ResourceMatchResult result = new ResourceMatchResult(literalPathSubresource, score + 10);
-                    results.add(result);
-                }
-            }
-            else {
-                // There are more paths following ours.
-                matchPathSegment(literalPathSubresource, pathSegments, nextSegmentIndex, score + 10, results);
-            }
-        }
-
-        if (variablePathSubresources != null) {
-
-            for (final String variablePathSegment : variablePathSubresources.keySet()) {
-                final Resource variablePathSubresource = variablePathSubresources.get(variablePathSegment);
-
-                int bonus = 0;
-                if (isLastSegment) {
-                    if (variablePathSubresource.getLiteralPathSubresources() == null && variablePathSubresource.getVariablePathSubresources() == null) {
-                        bonus += 1;
-                    }
-                }
-
-                // TODO verify this behavior
-                if (!variablePathSubresource.getLinkTemplates().isEmpty()) {
-                    final ResourceMatchResult result = new ResourceMatchResult(variablePathSubresource, score + 5 + bonus);
-                    results.add(result);
-                }
-
-                if (!isLastSegment) {
-                    matchPathSegment(variablePathSubresource, pathSegments, nextSegmentIndex, score + 5, results);
-                }
-            }
-        }
-
-    }
-
-
-    private static class ResourceMatchResult implements Comparable<ResourceMatchResult> {
-
-        /**
-         * When used on sets of results, the highest scoring results will sort as first. Note that the higher scores are *always* greater positive numbers.
-         */
-        public static Comparator<ResourceMatchResult> HIGHEST_SCORE_FIRST = new Comparator<ResourceMatchResult>() {
-
-            @Override
-            public int compare(final ResourceMatchResult result1, final ResourceMatchResult result2) {
-
-                if (result1 == result2) {
-                    return 0;
-                }
-                return Integer.signum(result2.getScore() - result1.getScore());
-            }
-        };
-
-        private final Resource _Resource;
-
-        private final int _Score;
-
-        ResourceMatchResult(final Resource resource, final int score) {
-
-            _Resource = resource;
-            _Score = score;
-
-        }
-
-        @Override
-        public final int compareTo(final ResourceMatchResult other) {
-
-            return ResourceMatchResult.HIGHEST_SCORE_FIRST.compare(this, other);
-        }
-
-        public Resource getResource() {
-
-            return _Resource;
-        }
-
-        public int getScore() {
-
-            return _Score;
-        }
-
-        @Override
-        public String toString() {
-
-            return "Resource: " + _Resource.toString() + "\nScore: " + _Score;
-        }
+        return requestUriString;
     }
 }
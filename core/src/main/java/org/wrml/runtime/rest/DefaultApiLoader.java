@@ -46,6 +46,13 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultApiLoader implements ApiLoader {
 
+    /**
+     * The maximum number of request URI {@link Route}s to cache; <code>0</code> disables the {@link RouteCache}.
+     */
+    public static final String ROUTE_CACHE_SIZE_SETTING_NAME = "routeCacheSize";
+
+    public static final int DEFAULT_ROUTE_CACHE_SIZE = 1024;
+
     private static final String SYSTEM_API_DOCROOT_FULL_PATH = "/";
 
     private static final String SYSTEM_API_PRIMARY_ENDPOINT_FULL_PATH = SYSTEM_API_DOCROOT_FULL_PATH + "{uniqueName}";
@@ -61,6 +68,8 @@ public class DefaultApiLoader implements ApiLoader {
 
     private final ConcurrentHashMap<URI, LinkRelation> _LinkRelations;
 
+    private RouteCache _RouteCache;
+
     public DefaultApiLoader() {
 
         _Apis = new ConcurrentHashMap<>();
@@ -85,13 +94,13 @@ public class DefaultApiLoader implements ApiLoader {
         final Context context = getContext();
         final SchemaLoader schemaLoader = context.getSchemaLoader();
 
-        ApiNavigator apiNavigator = null;
+        Route route = null;
         if (!schemaLoader.getApiSchemaUri().equals(schemaUri)) {
-            apiNavigator = getParentApiNavigator(uri);
+            route = getRoute(uri);
         }
 
-        if (apiNavigator != null) {
-            final Resource resource = apiNavigator.getResource(uri);
+        if (route != null) {
+            final Resource resource = route.getResource();
             // Is the method allowed?
             final Set<URI> schemaUris = resource.getResponseSchemaUris(method);
 
@@ -267,8 +276,44 @@ public class DefaultApiLoader implements ApiLoader {
             throw new NullPointerException("The uri is null; cannot locate the parent REST API.");
         }
 
-        final String apiNavigatorPath = uri.toString();
-        return _ApiNavigatorTrie.getPathValue(apiNavigatorPath);
+        final Route route = getRoute(uri);
+        return (route != null) ? route.getApiNavigator() : null;
+    }
+
+    /**
+     * Returns the {@link RouteCache}, or <code>null</code> if route caching is disabled.
+     */
+    public RouteCache getRouteCache() {
+
+        return _RouteCache;
+    }
+
+    @Override
+    public Route getRoute(final URI uri) {
+
+        // NOTE: This method needs to be as speedy as possible as it is called with every request as part of the "routing" process
+
+        if (uri == null) {
+            throw new NullPointerException("The uri is null; cannot locate the parent REST API.");
+        }
+
+        final String uriString = uri.toString();
+        final RouteCache routeCache = _RouteCache;
+        if (routeCache == null) {
+            final ApiNavigator apiNavigator = _ApiNavigatorTrie.getPathValue(uriString);
+            return (apiNavigator != null) ? new Route(uri, apiNavigator) : null;
+        }
+
+        Route route = routeCache.get(uriString);
+        if (route == null) {
+            // The generation must be read before the lookup so that a concurrent loadApi invalidates the result.
+            final long generation = routeCache.getGeneration();
+            route = new Route(uri, _ApiNavigatorTrie.getPathValue(uriString));
+            routeCache.put(uriString, route, generation);
+        }
+
+        // Unparented URIs are cached too, as routes without an ApiNavigator.
+        return (route.getApiNavigator() != null) ? route : null;
     }
 
     @Override
@@ -302,6 +347,21 @@ public class DefaultApiLoader implements ApiLoader {
 
         _Context = context;
 
+        final ApiLoaderConfiguration config = getConfig();
+        final Map<String, String> settings = (config != null) ? config.getSettings() : null;
+        int routeCacheSize = DEFAULT_ROUTE_CACHE_SIZE;
+        if (settings != null && settings.containsKey(ROUTE_CACHE_SIZE_SETTING_NAME)) {
+            final String settingValue = settings.get(ROUTE_CACHE_SIZE_SETTING_NAME);
+            try {
+                routeCacheSize = Integer.parseInt(settingValue.trim());
+            }
+            catch (final NumberFormatException e) {
+                throw new ApiLoaderException("The \"" + ROUTE_CACHE_SIZE_SETTING_NAME + "\" setting must be a whole number, not: " + settingValue, e, this);
+            }
+        }
+
+        _RouteCache = (routeCacheSize > 0) ? new RouteCache(routeCacheSize) : null;
+
         loadSystemLinkRelations();
         loadSystemApis();
     }
@@ -328,6 +388,11 @@ public class DefaultApiLoader implements ApiLoader {
         _ApiNavigatorTrie.setPathValue(apiNavigatorPath, apiNavigator);
         _Apis.put(apiUri, api);
 
+        // Any cached route may now belong to the new (or reloaded) API.
+        if (_RouteCache != null) {
+            _RouteCache.invalidate();
+        }
+
         return apiNavigator;
     }
 
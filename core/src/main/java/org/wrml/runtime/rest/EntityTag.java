@@ -0,0 +1,366 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.rest;
+
+import org.wrml.model.Model;
+import org.wrml.runtime.service.ModelVersion;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * An HTTP entity tag (<code>ETag</code>); a validator that identifies one representation of a {@link Model}.
+ * </p>
+ * <p>
+ * The tags created by this class are <i>strong</i>; they are a hash of either the model's slot state or the
+ * {@link ModelVersion} reported by its service, combined with a description of the representation (e.g. its content
+ * type), so that each representation of the same model state has its own tag.
+ * </p>
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc7232#section-2.3">RFC 7232, Section 2.3</a>
+ */
+public final class EntityTag {
+
+    /**
+     * The <code>If-None-Match</code> value that matches any current representation.
+     */
+    public static final String ANY = "*";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private static final String DIGEST_ALGORITHM = "MD5";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final String _OpaqueTag;
+
+    private final boolean _Weak;
+
+    public EntityTag(final String opaqueTag, final boolean weak) {
+
+        if (opaqueTag == null) {
+            throw new IllegalArgumentException("The opaque tag cannot be null.");
+        }
+
+        if (opaqueTag.indexOf('"') >= 0) {
+            throw new IllegalArgumentException("The opaque tag cannot contain a double quote: " + opaqueTag);
+        }
+
+        _OpaqueTag = opaqueTag;
+        _Weak = weak;
+    }
+
+    /**
+     * Creates a strong entity tag from a hash of the model's slot state (including that of its embedded models).
+     *
+     * @param model          The model to tag.
+     * @param representation The description of the model's representation (e.g. its content type).
+     * @return The model representation's entity tag.
+     */
+    public static EntityTag fromModel(final Model model, final String representation) {
+
+        final MessageDigest digest = newDigest();
+        update(digest, representation);
+        updateValue(digest, model, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+        return new EntityTag(toHex(digest.digest()), false);
+    }
+
+    /**
+     * Creates a strong entity tag from the model's version; which is available without loading the model.
+     *
+     * @param version        The stored model's version.
+     * @param representation The description of the model's representation (e.g. its content type).
+     * @return The model representation's entity tag.
+     */
+    public static EntityTag fromVersion(final ModelVersion version, final String representation) {
+
+        final MessageDigest digest = newDigest();
+        update(digest, representation);
+        update(digest, version.getTag());
+        return new EntityTag(toHex(digest.digest()), false);
+    }
+
+    /**
+     * Parses an entity tag header value (e.g. an <code>ETag</code>).
+     *
+     * @param value The header value.
+     * @return The entity tag or <code>null</code> if the value is not a (quoted) entity tag.
+     */
+    public static EntityTag parse(final String value) {
+
+        final List<EntityTag> entityTags = parseList(value);
+        return (entityTags.size() == 1) ? entityTags.get(0) : null;
+    }
+
+    /**
+     * Parses a comma separated list of entity tags (e.g. an <code>If-None-Match</code> header value); malformed list
+     * elements are skipped.
+     *
+     * @param value The header value.
+     * @return The entity tags, in order.
+     */
+    public static List<EntityTag> parseList(final String value) {
+
+        final List<EntityTag> entityTags = new ArrayList<>();
+        if (value == null) {
+            return entityTags;
+        }
+
+        final int length = value.length();
+        int i = 0;
+        while (i < length) {
+            final char c = value.charAt(i);
+            if (c == ' ' || c == '\t' || c == ',') {
+                i++;
+                continue;
+            }
+
+            final boolean weak = value.startsWith(WEAK_PREFIX, i);
+            final int openQuote = weak ? i + WEAK_PREFIX.length() : i;
+            final int closeQuote = (openQuote < length && value.charAt(openQuote) == '"') ? value.indexOf('"', openQuote + 1) : -1;
+            if (closeQuote < 0) {
+                // Malformed; skip to the next element.
+                final int comma = value.indexOf(',', i);
+                i = (comma < 0) ? length : comma + 1;
+                continue;
+            }
+
+            entityTags.add(new EntityTag(value.substring(openQuote + 1, closeQuote), weak));
+            i = closeQuote + 1;
+        }
+
+        return entityTags;
+    }
+
+    public String getOpaqueTag() {
+
+        return _OpaqueTag;
+    }
+
+    public boolean isWeak() {
+
+        return _Weak;
+    }
+
+    /**
+     * Derives the entity tag of this representation's encoded (e.g. gzip compressed) form; which is a different
+     * representation and so needs its own (strong) tag.
+     *
+     * @param contentCoding The name of the content coding (e.g. "gzip").
+     * @return The encoded representation's entity tag.
+     */
+    public EntityTag withContentCoding(final String contentCoding) {
+
+        return new EntityTag(_OpaqueTag + "-" + contentCoding, _Weak);
+    }
+
+    /**
+     * Determines whether this entity tag is matched by an <code>If-None-Match</code> header value, using the weak
+     * comparison function (as required for <code>If-None-Match</code>).
+     *
+     * @param ifNoneMatch The <code>If-None-Match</code> header value.
+     * @return <code>true</code> if the header value is "*" or lists an entity tag with this tag's opaque tag.
+     */
+    public boolean isMatchedBy(final String ifNoneMatch) {
+
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        if (ifNoneMatch.trim().equals(ANY)) {
+            return true;
+        }
+
+        for (final EntityTag entityTag : parseList(ifNoneMatch)) {
+            if (_OpaqueTag.equals(entityTag._OpaqueTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof EntityTag)) {
+            return false;
+        }
+
+        final EntityTag other = (EntityTag) obj;
+        return _Weak == other._Weak && _OpaqueTag.equals(other._OpaqueTag);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return 31 * _OpaqueTag.hashCode() + (_Weak ? 1 : 0);
+    }
+
+    /**
+     * The entity tag's header value form; the quoted opaque tag, with the "W/" prefix if it is weak.
+     */
+    @Override
+    public String toString() {
+
+        return (_Weak ? WEAK_PREFIX : "") + '"' + _OpaqueTag + '"';
+    }
+
+    private static MessageDigest newDigest() {
+
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        }
+        catch (final NoSuchAlgorithmException e) {
+            // Every Java platform is required to support MD5.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Feeds the value to the digest in a canonical form; models and maps by their sorted slots (or keys), lists in
+     * order and other collections without regard to their (iteration) order.
+     */
+    private static void updateValue(final MessageDigest digest, final Object value, final Set<Object> path) {
+
+        if (value == null) {
+            digest.update((byte) 'N');
+        }
+        else if (value instanceof Model || value instanceof Map || value instanceof Collection) {
+            if (!path.add(value)) {
+                // A cycle; the value's state is already being fed to the digest.
+                digest.update((byte) 'C');
+                return;
+            }
+
+            if (value instanceof Model) {
+                final Model model = (Model) value;
+                digest.update((byte) 'M');
+                final URI schemaUri = model.getSchemaUri();
+                update(digest, (schemaUri != null) ? schemaUri.toString() : null);
+                updateEntries(digest, model.getSlotMap(), path);
+            }
+            else if (value instanceof Map) {
+                digest.update((byte) 'D');
+                updateEntries(digest, (Map<?, ?>) value, path);
+            }
+            else if (value instanceof List) {
+                digest.update((byte) 'L');
+                final List<?> list = (List<?>) value;
+                updateLength(digest, list.size());
+                for (final Object element : list) {
+                    updateValue(digest, element, path);
+                }
+            }
+            else {
+                // Hash each element on its own and then feed the sorted element hashes.
+                digest.update((byte) 'S');
+                final Collection<?> collection = (Collection<?>) value;
+                final List<String> elementHashes = new ArrayList<>(collection.size());
+                for (final Object element : collection) {
+                    final MessageDigest elementDigest = newDigest();
+                    updateValue(elementDigest, element, path);
+                    elementHashes.add(toHex(elementDigest.digest()));
+                }
+
+                Collections.sort(elementHashes);
+                updateLength(digest, elementHashes.size());
+                for (final String elementHash : elementHashes) {
+                    update(digest, elementHash);
+                }
+            }
+
+            path.remove(value);
+        }
+        else {
+            // The type distinguishes values with the same text (e.g. 1 and "1").
+            digest.update((byte) 'V');
+            update(digest, value.getClass().getName());
+            update(digest, value.toString());
+        }
+    }
+
+    private static void updateEntries(final MessageDigest digest, final Map<?, ?> map, final Set<Object> path) {
+
+        final Map<String, Object> sortedMap = new TreeMap<>();
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            sortedMap.put(String.valueOf(entry.getKey()), entry.getValue());
+        }
+
+        updateLength(digest, sortedMap.size());
+        for (final Map.Entry<String, Object> entry : sortedMap.entrySet()) {
+            update(digest, entry.getKey());
+            updateValue(digest, entry.getValue(), path);
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String text) {
+
+        if (text == null) {
+            updateLength(digest, -1);
+            return;
+        }
+
+        final byte[] bytes = text.getBytes(UTF_8);
+        updateLength(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void updateLength(final MessageDigest digest, final int length) {
+
+        digest.update((byte) (length >>> 24));
+        digest.update((byte) (length >>> 16));
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+    }
+
+    private static String toHex(final byte[] bytes) {
+
+        final char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+
+        return new String(hex);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.rest;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.SortedSet;
+
+/**
+ * The resolved "route" of a request URI; the {@link ApiNavigator} of the {@link org.wrml.model.rest.Api} that parents
+ * it, the {@link Resource} that it matches and the values of the {@link Resource}'s URI template parameters.
+ * <p/>
+ * Routes are cached by the {@link DefaultApiLoader} (see {@link RouteCache}), so the {@link Resource} and parameters are
+ * each resolved once, on first use, and then shared.
+ *
+ * @see ApiLoader#getRoute(URI)
+ */
+public final class Route {
+
+    private final URI _Uri;
+
+    private final ApiNavigator _ApiNavigator;
+
+    private volatile boolean _ResourceMatched;
+
+    private Resource _Resource;
+
+    private volatile SortedSet<Parameter> _Parameters;
+
+    Route(final URI uri, final ApiNavigator apiNavigator) {
+
+        _Uri = uri;
+        _ApiNavigator = apiNavigator;
+    }
+
+    public ApiNavigator getApiNavigator() {
+
+        return _ApiNavigator;
+    }
+
+    /**
+     * The values of the {@link Resource}'s URI template parameters, parsed from the URI; or <code>null</code> if there is
+     * no matching {@link Resource}. The returned set is shared and must not be modified.
+     */
+    public SortedSet<Parameter> getParameters() {
+
+        SortedSet<Parameter> parameters = _Parameters;
+        if (parameters == null) {
+            final Resource resource = getResource();
+            if (resource == null) {
+                return null;
+            }
+
+            final SortedSet<Parameter> parsedParameters = resource.getUriTemplate().getParameters(_Uri);
+            if (parsedParameters == null) {
+                return null;
+            }
+
+            parameters = Collections.unmodifiableSortedSet(parsedParameters);
+            _Parameters = parameters;
+        }
+
+        return parameters;
+    }
+
+    /**
+     * The {@link Resource} that the URI matches (see {@link ApiNavigator#getResource(URI)}), or <code>null</code> if
+     * there is no match.
+     */
+    public Resource getResource() {
+
+        if (!_ResourceMatched) {
+            _Resource = _ApiNavigator.getResource(_Uri);
+            _ResourceMatched = true;
+        }
+
+        return _Resource;
+    }
+
+    public URI getUri() {
+
+        return _Uri;
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " { uri : " + _Uri + ", apiUri : " + ((_ApiNavigator != null) ? _ApiNavigator.getApiUri() : null) + "}";
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.rest;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * A bounded, concurrent cache of {@link Route}s, keyed by request URI string, that holds the least recently used
+ * routes up to a maximum size.
+ * </p>
+ * <p>
+ * Reads are lock-free; the recency order is updated on a best-effort basis (a contended read skips it rather than
+ * waiting on the lock). The cache is invalidated as a whole whenever an {@link org.wrml.model.rest.Api} is (re)loaded.
+ * Each invalidation starts a new generation and a {@link Route} that was resolved during an earlier generation is not
+ * cached, so a concurrent {@link ApiLoader#loadApi(org.wrml.model.rest.Api)} can not leave a stale {@link Route}
+ * behind.
+ * </p>
+ *
+ * @see DefaultApiLoader#ROUTE_CACHE_SIZE_SETTING_NAME
+ */
+public final class RouteCache {
+
+    private final int _MaximumSize;
+
+    private final ConcurrentHashMap<String, Route> _Routes;
+
+    /**
+     * Guards the recency order and the generation.
+     */
+    private final ReentrantLock _PolicyLock;
+
+    private final LinkedHashMap<String, Route> _RecencyOrder;
+
+    private final AtomicLong _Generation;
+
+    private final AtomicLong _HitCount;
+
+    private final AtomicLong _MissCount;
+
+    private final AtomicLong _EvictionCount;
+
+    private final AtomicLong _InvalidationCount;
+
+    public RouteCache(final int maximumSize) {
+
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size must be positive, not: " + maximumSize);
+        }
+
+        _MaximumSize = maximumSize;
+        _Routes = new ConcurrentHashMap<>();
+        _PolicyLock = new ReentrantLock();
+        _RecencyOrder = new LinkedHashMap<>(16, 0.75f, true);
+        _Generation = new AtomicLong();
+        _HitCount = new AtomicLong();
+        _MissCount = new AtomicLong();
+        _EvictionCount = new AtomicLong();
+        _InvalidationCount = new AtomicLong();
+    }
+
+    /**
+     * Returns the cached {@link Route} for the URI string, or <code>null</code> (a miss).
+     */
+    public Route get(final String uriString) {
+
+        final Route route = _Routes.get(uriString);
+        if (route == null) {
+            _MissCount.incrementAndGet();
+            return null;
+        }
+
+        _HitCount.incrementAndGet();
+
+        if (_PolicyLock.tryLock()) {
+            try {
+                // Touch to move it to the most recently used end.
+                _RecencyOrder.get(uriString);
+            }
+            finally {
+                _PolicyLock.unlock();
+            }
+        }
+
+        return route;
+    }
+
+    /**
+     * The current generation, which a caller must read <em>before</em> resolving a {@link Route} to
+     * {@link #put(String, Route, long)}.
+     */
+    public long getGeneration() {
+
+        return _Generation.get();
+    }
+
+    /**
+     * Caches the {@link Route} that was resolved during the specified generation; unless the cache has since been
+     * invalidated. The least recently used {@link Route}s are evicted to make room.
+     */
+    public void put(final String uriString, final Route route, final long generation) {
+
+        _PolicyLock.lock();
+        try {
+            if (generation != _Generation.get()) {
+                return;
+            }
+
+            _Routes.put(uriString, route);
+            _RecencyOrder.put(uriString, route);
+
+            final Iterator<String> eldest = _RecencyOrder.keySet().iterator();
+            while (_RecencyOrder.size() > _MaximumSize) {
+                final String evictedUriString = eldest.next();
+                eldest.remove();
+                _Routes.remove(evictedUriString);
+                _EvictionCount.incrementAndGet();
+            }
+        }
+        finally {
+            _PolicyLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every cached {@link Route} and starts a new generation.
+     */
+    public void invalidate() {
+
+        _PolicyLock.lock();
+        try {
+            _Generation.incrementAndGet();
+            _Routes.clear();
+            _RecencyOrder.clear();
+            _InvalidationCount.incrementAndGet();
+        }
+        finally {
+            _PolicyLock.unlock();
+        }
+    }
+
+    /**
+     * The number of routes that have been evicted to keep the cache within its maximum size.
+     */
+    public long getEvictionCount() {
+
+        return _EvictionCount.get();
+    }
+
+    /**
+     * The number of lookups that returned a cached route.
+     */
+    public long getHitCount() {
+
+        return _HitCount.get();
+    }
+
+    /**
+     * The share of lookups that returned a cached route (<code>1.0</code> if there have been no lookups).
+     */
+    public double getHitRate() {
+
+        final long hitCount = _HitCount.get();
+        final long requestCount = hitCount + _MissCount.get();
+        return (requestCount == 0) ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * The number of times that the cache has been invalidated.
+     */
+    public long getInvalidationCount() {
+
+        return _InvalidationCount.get();
+    }
+
+    public int getMaximumSize() {
+
+        return _MaximumSize;
+    }
+
+    /**
+     * The number of lookups that did not find a cached route.
+     */
+    public long getMissCount() {
+
+        return _MissCount.get();
+    }
+
+    /**
+     * The number of cached routes.
+     */
+    public int getSize() {
+
+        return _Routes.size();
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " { size : " + getSize() + ", maximumSize : " + _MaximumSize + ", hitCount : " + getHitCount()
+                + ", missCount : " + getMissCount() + ", evictionCount : " + getEvictionCount() + ", invalidationCount : "
+                + getInvalidationCount() + "}";
+    }
+}
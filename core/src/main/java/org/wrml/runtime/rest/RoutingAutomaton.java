@@ -0,0 +1,328 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * <p>
+ * An immutable, compiled form of an {@link ApiNavigator}'s {@link Resource} tree, used to match request URIs to
+ * {@link Resource}s.
+ * </p>
+ * <p>
+ * Each {@link Resource} is compiled to a node that holds its literal path subresources in an open addressing hash
+ * table (which is probed directly with the characters of the request path, without first splitting it into segment
+ * strings) and its variable path subresources as an ordered list of fallbacks. A match is a single depth-first walk
+ * over the nodes that keeps track of the highest scoring {@link Resource}; it allocates nothing.
+ * </p>
+ * <p>
+ * The scoring rules are those of the {@link ApiNavigator}'s original recursive matcher: each path segment adds its
+ * (one-based) position to the score, a literal segment match adds 10 and a variable segment match adds 5. Only
+ * {@link Resource}s that have link templates may match, with the exception of the docroot, which is always the match
+ * for an empty (or "/") path. When several {@link Resource}s match with the same score, the first one found (in walk
+ * order) wins.
+ * </p>
+ */
+final class RoutingAutomaton {
+
+    /**
+     * The score given to the docroot when it is matched by an empty path.
+     */
+    static final int DOCROOT_SCORE = 10000;
+
+    private static final long NO_MATCH = -1L;
+
+    private static final int LITERAL_MATCH_SCORE = 10;
+
+    private static final int VARIABLE_MATCH_SCORE = 5;
+
+    private final Node _Root;
+
+    private final Resource[] _Resources;
+
+    private RoutingAutomaton(final Node root, final Resource[] resources) {
+
+        _Root = root;
+        _Resources = resources;
+    }
+
+    /**
+     * Compiles the tree of {@link Resource}s rooted at the specified docroot.
+     */
+    static RoutingAutomaton compile(final Resource docroot) {
+
+        final List<Resource> resources = new ArrayList<>();
+        final Node root = compileNode(docroot, resources);
+        return new RoutingAutomaton(root, resources.toArray(new Resource[resources.size()]));
+    }
+
+    private static Node compileNode(final Resource resource, final List<Resource> resources) {
+
+        final int ordinal = resources.size();
+        resources.add(resource);
+
+        final Map<String, Resource> literalPathSubresources = resource.getLiteralPathSubresources();
+        final String[] literalSegments = new String[literalPathSubresources.size()];
+        final Node[] literalChildren = new Node[literalSegments.length];
+        int i = 0;
+        for (final Map.Entry<String, Resource> entry : literalPathSubresources.entrySet()) {
+            literalSegments[i] = entry.getKey();
+            literalChildren[i] = compileNode(entry.getValue(), resources);
+            i++;
+        }
+
+        // The variable path subresources are tried in the (iteration) order that the original matcher used.
+        final Map<String, Resource> variablePathSubresources = resource.getVariablePathSubresources();
+        final List<Node> variableChildren = new ArrayList<>(variablePathSubresources.size());
+        for (final String variablePathSegment : variablePathSubresources.keySet()) {
+            final Resource variablePathSubresource = variablePathSubresources.get(variablePathSegment);
+            if (variablePathSubresource != null) {
+                variableChildren.add(compileNode(variablePathSubresource, resources));
+            }
+        }
+
+        final boolean matchable = !resource.getLinkTemplates().isEmpty();
+        return new Node(ordinal, matchable, literalSegments, literalChildren, variableChildren.toArray(new Node[variableChildren.size()]));
+    }
+
+    /**
+     * Returns the highest scoring {@link Resource} matching the path that starts at the specified index of the request
+     * URI string, or <code>null</code> if there is no match.
+     */
+    Resource match(final String uriString, final int pathStart) {
+
+        final long best = match(uriString, pathStart, null);
+        return (best == NO_MATCH) ? null : _Resources[(int) best];
+    }
+
+    /**
+     * Collects every matching {@link Resource}, keyed by score, into the specified ranking; the first {@link Resource}
+     * found with a given score is the one kept. The ranking's comparator determines its order (the callers use highest
+     * score first).
+     */
+    void rank(final String uriString, final int pathStart, final SortedMap<Integer, Resource> ranking) {
+
+        match(uriString, pathStart, ranking);
+    }
+
+    private long match(final String uriString, final int pathStart, final SortedMap<Integer, Resource> ranking) {
+
+        int start = pathStart;
+        int end = uriString.length();
+
+        // Trim control characters and whitespace, as the original matcher did with StringUtils.trim.
+        while (start < end && uriString.charAt(start) <= ' ') {
+            start++;
+        }
+
+        while (end > start && uriString.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        final int length = end - start;
+        if (length == 0 || (length == 1 && uriString.charAt(start) == ApiNavigator.PATH_SEPARATOR_CHAR)) {
+            return offer(NO_MATCH, DOCROOT_SCORE, _Root._Ordinal, ranking);
+        }
+
+        final int segmentStart = skipSeparators(uriString, start, end);
+        if (segmentStart == end) {
+            // The path is nothing but separators.
+            return NO_MATCH;
+        }
+
+        return matchSegment(_Root, uriString, segmentStart, end, 0, 0, NO_MATCH, ranking);
+    }
+
+    private long matchSegment(final Node node, final String path, final int segmentStart, final int end, final int segmentIndex, int score,
+                              long best, final SortedMap<Integer, Resource> ranking) {
+
+        int segmentEnd = segmentStart;
+        while (segmentEnd < end && path.charAt(segmentEnd) != ApiNavigator.PATH_SEPARATOR_CHAR) {
+            segmentEnd++;
+        }
+
+        final int nextSegmentStart = skipSeparators(path, segmentEnd, end);
+        final boolean isLastSegment = (nextSegmentStart == end);
+        final int nextSegmentIndex = segmentIndex + 1;
+
+        score += nextSegmentIndex;
+
+        final Node literalChild = node.getLiteralChild(path, segmentStart, segmentEnd - segmentStart);
+        if (literalChild != null) {
+            if (isLastSegment) {
+                if (literalChild._Matchable) {
+                    best = offer(best, score + LITERAL_MATCH_SCORE, literalChild._Ordinal, ranking);
+                }
+            }
+            else if (literalChild._Descendable) {
+                best = matchSegment(literalChild, path, nextSegmentStart, end, nextSegmentIndex, score + LITERAL_MATCH_SCORE, best, ranking);
+            }
+        }
+
+        final Node[] variableChildren = node._VariableChildren;
+        for (int i = 0; i < variableChildren.length; i++) {
+            final Node variableChild = variableChildren[i];
+            if (variableChild._Matchable) {
+                best = offer(best, score + VARIABLE_MATCH_SCORE, variableChild._Ordinal, ranking);
+            }
+
+            if (!isLastSegment && variableChild._Descendable) {
+                best = matchSegment(variableChild, path, nextSegmentStart, end, nextSegmentIndex, score + VARIABLE_MATCH_SCORE, best, ranking);
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Records a match, returning the new best match packed into a long (the score in the high 32 bits and the
+     * {@link Resource} ordinal in the low 32 bits). Only a strictly higher score replaces the current best, so that the
+     * first of several equally scored matches wins.
+     */
+    private long offer(final long best, final int score, final int ordinal, final SortedMap<Integer, Resource> ranking) {
+
+        if (ranking != null && !ranking.containsKey(score)) {
+            ranking.put(score, _Resources[ordinal]);
+        }
+
+        if (best != NO_MATCH && score <= (int) (best >>> 32)) {
+            return best;
+        }
+
+        return ((long) score << 32) | ordinal;
+    }
+
+    private static int skipSeparators(final String path, int index, final int end) {
+
+        while (index < end && path.charAt(index) == ApiNavigator.PATH_SEPARATOR_CHAR) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static final class Node {
+
+        private final int _Ordinal;
+
+        private final boolean _Matchable;
+
+        /**
+         * Whether any of the node's descendants are matchable; the walk skips the subtrees that have none.
+         */
+        private final boolean _Descendable;
+
+        private final String[] _LiteralTableSegments;
+
+        private final Node[] _LiteralTableChildren;
+
+        private final int _LiteralTableMask;
+
+        private final Node[] _VariableChildren;
+
+        Node(final int ordinal, final boolean matchable, final String[] literalSegments, final Node[] literalChildren, final Node[] variableChildren) {
+
+            _Ordinal = ordinal;
+            _Matchable = matchable;
+            _VariableChildren = variableChildren;
+            _Descendable = isAnyMatchable(literalChildren) || isAnyMatchable(variableChildren);
+
+            if (literalSegments.length == 0) {
+                _LiteralTableSegments = null;
+                _LiteralTableChildren = null;
+                _LiteralTableMask = 0;
+                return;
+            }
+
+            // A power of two table that is at most half full keeps the probe sequences short.
+            int capacity = 2;
+            while (capacity < literalSegments.length * 2) {
+                capacity <<= 1;
+            }
+
+            _LiteralTableSegments = new String[capacity];
+            _LiteralTableChildren = new Node[capacity];
+            _LiteralTableMask = capacity - 1;
+
+            for (int i = 0; i < literalSegments.length; i++) {
+                final String segment = literalSegments[i];
+                int slot = spread(segment.hashCode()) & _LiteralTableMask;
+                while (_LiteralTableSegments[slot] != null) {
+                    slot = (slot + 1) & _LiteralTableMask;
+                }
+
+                _LiteralTableSegments[slot] = segment;
+                _LiteralTableChildren[slot] = literalChildren[i];
+            }
+        }
+
+        /**
+         * Looks up the literal child whose segment equals the specified region of the path. The region's hash is
+         * computed with the {@link String#hashCode()} formula so that no substring needs to be created.
+         */
+        Node getLiteralChild(final String path, final int offset, final int length) {
+
+            if (_LiteralTableSegments == null) {
+                return null;
+            }
+
+            int hash = 0;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+
+            int slot = spread(hash) & _LiteralTableMask;
+            String segment;
+            while ((segment = _LiteralTableSegments[slot]) != null) {
+                if (segment.length() == length && path.regionMatches(offset, segment, 0, length)) {
+                    return _LiteralTableChildren[slot];
+                }
+
+                slot = (slot + 1) & _LiteralTableMask;
+            }
+
+            return null;
+        }
+
+        private static boolean isAnyMatchable(final Node[] nodes) {
+
+            for (final Node node : nodes) {
+                if (node._Matchable || node._Descendable) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private static int spread(final int hash) {
+
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
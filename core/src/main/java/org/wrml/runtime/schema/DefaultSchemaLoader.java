@@ -45,8 +45,8 @@ import org.wrml.runtime.Keys;
 import org.wrml.runtime.format.application.schema.json.JsonSchema;
 import org.wrml.runtime.format.application.schema.json.JsonSchemaLoader;
 import org.wrml.runtime.rest.ApiLoader;
-import org.wrml.runtime.rest.ApiNavigator;
 import org.wrml.runtime.rest.Resource;
+import org.wrml.runtime.rest.Route;
 import org.wrml.runtime.rest.SystemApi;
 import org.wrml.runtime.schema.generator.JavaBytecodeClass;
 import org.wrml.runtime.schema.generator.SchemaGenerator;
@@ -108,6 +108,8 @@ public class DefaultSchemaLoader extends ClassLoader implements SchemaLoader {
 
     private final ConcurrentHashMap<URI, Class<?>> _SchemaInterfaces;
 
+    private final ConcurrentHashMap<URI, Class<?>> _SchemaImplementations;
+
     private final Dimensions _LinkRelationDimensions;
 
     private final Dimensions _FormatDimensions;
@@ -151,6 +153,7 @@ public class DefaultSchemaLoader extends ClassLoader implements SchemaLoader {
         _Schemas = new ConcurrentHashMap<>();
         _NativeSchemas = new ConcurrentHashMap<>();
         _SchemaInterfaces = new ConcurrentHashMap<>();
+        _SchemaImplementations = new ConcurrentHashMap<>();
         _Prototypes = new ConcurrentHashMap<>();
         _Choices = new ConcurrentHashMap<>();
         _NativeChoices = new ConcurrentHashMap<>();
@@ -571,6 +574,45 @@ public class DefaultSchemaLoader extends ClassLoader implements SchemaLoader {
 
     }
 
+    @Override
+    public final Class<?> getSchemaImplementation(final URI schemaUri) throws ClassNotFoundException {
+
+        Class<?> schemaImplementation = _SchemaImplementations.get(schemaUri);
+        if (schemaImplementation != null) {
+            return schemaImplementation;
+        }
+
+        // Serialize generation; a class may only be defined once.
+        synchronized (_SchemaImplementations) {
+
+            schemaImplementation = _SchemaImplementations.get(schemaUri);
+            if (schemaImplementation == null) {
+
+                final Class<?> schemaInterface = getSchemaInterface(schemaUri);
+                if (schemaInterface == null) {
+                    throw new ClassNotFoundException("No schema interface is associated with: " + schemaUri);
+                }
+
+                final SchemaGenerator generator = getSchemaGenerator();
+                final JavaBytecodeClass javaBytecodeClass = generator.generateSchemaImplementation(schemaInterface);
+                final byte[] bytecode = javaBytecodeClass.getBytecode();
+                final String className = SchemaGenerator.internalTypeNameToExternalTypeName(javaBytecodeClass.getInternalName());
+
+                try {
+                    schemaImplementation = defineClass(className, bytecode, 0, bytecode.length);
+                }
+                catch (final LinkageError e) {
+                    throw new ClassNotFoundException("Failed to define the implementation class (" + className + ") of: " + schemaUri, e);
+                }
+
+                LOG.debug("Generated model implementation class: {}", className);
+                _SchemaImplementations.put(schemaUri, schemaImplementation);
+            }
+        }
+
+        return schemaImplementation;
+    }
+
     @Override
     public final byte[] getSchemaInterfaceBytecode(final Schema schema) {
 
@@ -1137,12 +1179,12 @@ public class DefaultSchemaLoader extends ClassLoader implements SchemaLoader {
 
         final Context context = getContext();
         final ApiLoader apiLoader = context.getApiLoader();
-        final ApiNavigator apiNavigator = apiLoader.getParentApiNavigator(uri);
-        if (apiNavigator == null) {
+        final Route route = apiLoader.getRoute(uri);
+        if (route == null) {
             return getSchemaSchemaUri();
         }
 
-        final Resource resource = apiNavigator.getResource(uri);
+        final Resource resource = route.getResource();
         if (resource == null) {
             return getSchemaSchemaUri();
         }
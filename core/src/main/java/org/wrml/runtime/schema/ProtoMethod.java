@@ -0,0 +1,138 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.schema;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+
+/**
+ * <p>
+ * A ProtoMethod (prototypical method) is a {@link Prototype}'s pre-resolved description of one of its schema
+ * interface's methods; recording how the runtime should handle an invocation of it.
+ * </p>
+ * <p>
+ * The {@link Prototype} resolves these once, so that each model method invocation requires only a lookup rather than
+ * reflecting upon the method's name and declaring class.
+ * </p>
+ *
+ * @see Prototype#getProtoMethod(Method)
+ */
+public final class ProtoMethod {
+
+    private final Method _Method;
+
+    private final Kind _Kind;
+
+    private final String _SlotName;
+
+    private final URI _DeclaringSchemaUri;
+
+    private final ProtoSlot _ProtoSlot;
+
+    ProtoMethod(final Method method, final Kind kind, final String slotName, final URI declaringSchemaUri, final ProtoSlot protoSlot) {
+
+        _Method = method;
+        _Kind = kind;
+        _SlotName = slotName;
+        _DeclaringSchemaUri = declaringSchemaUri;
+        _ProtoSlot = protoSlot;
+    }
+
+    /**
+     * The URI of the schema that declared the method; used to resolve slot aliases.
+     */
+    public URI getDeclaringSchemaUri() {
+
+        return _DeclaringSchemaUri;
+    }
+
+    public Kind getKind() {
+
+        return _Kind;
+    }
+
+    /**
+     * The {@link LinkProtoSlot} that a {@link Kind#LINK} method "clicks", or <code>null</code>.
+     */
+    public LinkProtoSlot getLinkProtoSlot() {
+
+        return (_ProtoSlot instanceof LinkProtoSlot) ? (LinkProtoSlot) _ProtoSlot : null;
+    }
+
+    public Method getMethod() {
+
+        return _Method;
+    }
+
+    /**
+     * The {@link ProtoSlot} (possibly an alias, see {@link ProtoSlot#getRealName()}) accessed by the method, or
+     * <code>null</code> if the slot is unknown to the {@link Prototype}.
+     */
+    public ProtoSlot getProtoSlot() {
+
+        return _ProtoSlot;
+    }
+
+    /**
+     * The name of the slot accessed (or link slot referenced) by the method, as derived from the method's name.
+     */
+    public String getSlotName() {
+
+        return _SlotName;
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " { method : " + _Method.getName() + ", kind : " + _Kind + ", slotName : " + _SlotName
+                + ", declaringSchemaUri : " + _DeclaringSchemaUri + "}";
+    }
+
+    /**
+     * The ways in which a schema interface method may be handled.
+     */
+    public static enum Kind {
+
+        /**
+         * A slot getter (<code>getX()</code> or <code>isX()</code>).
+         */
+        GET_SLOT,
+
+        /**
+         * A slot setter (<code>setX(value)</code>).
+         */
+        SET_SLOT,
+
+        /**
+         * A link method, which is interpreted as a link reference (i.e. "click").
+         */
+        LINK,
+
+        /**
+         * A method that the runtime does not know how to handle.
+         */
+        UNHANDLED
+    }
+}
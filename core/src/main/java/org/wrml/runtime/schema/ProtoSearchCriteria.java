@@ -55,6 +55,24 @@ import java.util.regex.Pattern;
  */
 public final class ProtoSearchCriteria {
 
+    /**
+     * The name of the (collection slot name prefixed) query parameter that specifies the number of results to skip;
+     * e.g. <code>?elements.offset=20</code>.
+     */
+    public static final String RESULT_OFFSET_PARAMETER_NAME = "offset";
+
+    /**
+     * The name of the (collection slot name prefixed) query parameter that specifies the maximum number of results,
+     * which may only lower the collection slot's own limit.
+     */
+    public static final String RESULT_LIMIT_PARAMETER_NAME = "limit";
+
+    /**
+     * The name of the (collection slot name prefixed) query parameter that specifies the continuation token of the
+     * previous page of results.
+     */
+    public static final String CONTINUATION_TOKEN_PARAMETER_NAME = "continuation";
+
     private final CollectionPropertyProtoSlot _CollectionPropertyProtoSlot;
 
     private final Prototype _ReferencePrototype;
@@ -133,14 +151,48 @@ public final class ProtoSearchCriteria {
         final Set<String> projectionSlotNames = buildProjectionFromDimensions(resultDimensions);
 
         final String referrerCollectionSlotName = _CollectionPropertyProtoSlot.getName();
-        final Integer resultLimit = _CollectionPropertyProtoSlot.getLimit();
+
+        final Map<String, String> queryParameters = resultDimensions.getQueryParameters();
+        final Integer resultLimit = buildResultLimit(queryParameters);
+        final Integer resultOffset = parseIntegerParameter(queryParameters, RESULT_OFFSET_PARAMETER_NAME);
+        final String continuationToken = (queryParameters != null) ? queryParameters.get(CONTINUATION_TOKEN_PARAMETER_NAME) : null;
 
         final SearchCriteria searchCriteria =
-                new DefaultSearchCriteria(resultDimensions, and, or, projectionSlotNames, resultLimit, referrer, referrerCollectionSlotName);
+                new DefaultSearchCriteria(resultDimensions, and, or, projectionSlotNames, resultLimit, resultOffset, continuationToken, referrer,
+                        referrerCollectionSlotName);
 
         return searchCriteria;
     }
 
+    private Integer buildResultLimit(final Map<String, String> queryParameters) {
+
+        final Integer slotLimit = _CollectionPropertyProtoSlot.getLimit();
+        final Integer parameterLimit = parseIntegerParameter(queryParameters, RESULT_LIMIT_PARAMETER_NAME);
+        if (parameterLimit == null || parameterLimit <= 0) {
+            return slotLimit;
+        }
+
+        if (slotLimit == null || slotLimit <= 0) {
+            return parameterLimit;
+        }
+
+        return Math.min(slotLimit, parameterLimit);
+    }
+
+    private static Integer parseIntegerParameter(final Map<String, String> queryParameters, final String parameterName) {
+
+        if (queryParameters == null || !queryParameters.containsKey(parameterName)) {
+            return null;
+        }
+
+        try {
+            return Integer.valueOf(queryParameters.get(parameterName).trim());
+        }
+        catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
     private List<SearchCriterion> buildSearchCriterionList(final Model referrer, final List<ProtoSearchCriterion> protoSearchCriterionList) {
 
         if (protoSearchCriterionList == null || protoSearchCriterionList.isEmpty()) {
@@ -277,11 +329,17 @@ public final class ProtoSearchCriteria {
 
         private final Integer _ResultLimit;
 
+        private final Integer _ResultOffset;
+
+        private final String _ContinuationToken;
+
         DefaultSearchCriteria(final Dimensions resultDimensions,
                               final List<SearchCriterion> and,
                               final List<SearchCriterion> or,
                               final Set<String> projectionSlotNames,
                               final Integer resultLimit,
+                              final Integer resultOffset,
+                              final String continuationToken,
                               final Model referrer,
                               final String referrerCollectionSlotName) {
 
@@ -290,6 +348,8 @@ public final class ProtoSearchCriteria {
             _Or = or;
             _ProjectionSlotNames = projectionSlotNames;
             _ResultLimit = resultLimit;
+            _ResultOffset = resultOffset;
+            _ContinuationToken = continuationToken;
 
             _Referrer = referrer;
             _ReferrerCollectionSlotName = referrerCollectionSlotName;
@@ -326,6 +386,18 @@ public final class ProtoSearchCriteria {
             return _ResultLimit;
         }
 
+        @Override
+        public Integer getResultOffset() {
+
+            return _ResultOffset;
+        }
+
+        @Override
+        public String getContinuationToken() {
+
+            return _ContinuationToken;
+        }
+
         @Override
         public Model getReferrer() {
 
@@ -109,6 +109,26 @@ public class Prototype {
 
     private final SortedMap<String, CollectionPropertyProtoSlot> _CollectionPropertyProtoSlots;
 
+    /**
+     * The "dispatch table" for the schema interface's methods (excluding those declared by Model).
+     */
+    private final Map<Method, ProtoMethod> _ProtoMethods;
+
+    /**
+     * The (real, non-alias) slot names in slot index order.
+     */
+    private final List<String> _IndexedSlotNames;
+
+    /**
+     * The dense slot index of each slot name (aliases share the index of their real slot).
+     */
+    private final Map<String, Integer> _SlotIndexes;
+
+    /**
+     * The (real, non-alias) slots in slot index order.
+     */
+    private final ProtoSlot[] _IndexedProtoSlots;
+
     private boolean _IsAbstract;
 
     private Set<Prototype> _BasePrototypes;
@@ -446,6 +466,32 @@ public class Prototype {
             }
         }
 
+        _ProtoMethods = Collections.unmodifiableMap(createProtoMethods(schemaInterface));
+
+        // Assign each of the real slots a dense index, which may be used to store slot values in an array
+        final List<String> indexedSlotNames = new ArrayList<>(_AllSlotNames.size());
+        _SlotIndexes = new HashMap<>();
+        for (final String slotName : _AllSlotNames) {
+            if (!_SlotAliases.containsKey(slotName)) {
+                _SlotIndexes.put(slotName, indexedSlotNames.size());
+                indexedSlotNames.add(slotName);
+            }
+        }
+
+        for (final String alias : _SlotAliases.keySet()) {
+            final Integer slotIndex = _SlotIndexes.get(_SlotAliases.get(alias));
+            if (slotIndex != null) {
+                _SlotIndexes.put(alias, slotIndex);
+            }
+        }
+
+        _IndexedSlotNames = Collections.unmodifiableList(indexedSlotNames);
+
+        _IndexedProtoSlots = new ProtoSlot[indexedSlotNames.size()];
+        for (int i = 0; i < _IndexedProtoSlots.length; i++) {
+            _IndexedProtoSlots[i] = _ProtoSlots.get(indexedSlotNames.get(i));
+        }
+
     }
 
     public boolean containsEmbeddedLink() {
@@ -515,6 +561,39 @@ public class Prototype {
         return _AllSlotNames;
     }
 
+    /**
+     * The names of the prototype's real (non-alias) slots, in slot index order.
+     *
+     * @see #getSlotIndex(String)
+     */
+    public List<String> getIndexedSlotNames() {
+
+        return _IndexedSlotNames;
+    }
+
+    /**
+     * Get the dense (zero-based) index of the named slot; a slot's alias has the same index as the slot.
+     *
+     * @return the slot's index or <code>-1</code> if the prototype does not have the named slot.
+     * @see #getIndexedSlotNames()
+     */
+    public int getSlotIndex(final String slotName) {
+
+        final Integer slotIndex = _SlotIndexes.get(slotName);
+        return (slotIndex != null) ? slotIndex : -1;
+    }
+
+    /**
+     * Get the (real, non-alias) slot with the specified index.
+     *
+     * @see #getSlotIndex(String)
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends ProtoSlot> T getIndexedProtoSlot(final int slotIndex) {
+
+        return (T) _IndexedProtoSlots[slotIndex];
+    }
+
     public Set<String> getComparableSlotNames() {
 
         return _ComparableSlotNames;
@@ -589,6 +668,17 @@ public class Prototype {
         return _SearchableSlots;
     }
 
+    /**
+     * Get the pre-resolved handling of the specified schema interface method.
+     *
+     * @return the {@link ProtoMethod} or <code>null</code> if the method is not a schema method (e.g. it was declared
+     *         by {@link org.wrml.model.Model} or {@link Object}).
+     */
+    public ProtoMethod getProtoMethod(final Method method) {
+
+        return _ProtoMethods.get(method);
+    }
+
     public <T extends ProtoSlot> T getProtoSlot(final String slotName) {
 
         return getProtoSlot(slotName, true);
@@ -737,6 +827,57 @@ public class Prototype {
 
     }
 
+    private Map<Method, ProtoMethod> createProtoMethods(final Class<?> schemaInterface) {
+
+        final Map<Method, ProtoMethod> protoMethods = new HashMap<>();
+        final SortedMap<String, SortedSet<JavaMethod>> linkMethods = _SchemaBean.getOtherMethods();
+
+        for (final Method method : schemaInterface.getMethods()) {
+
+            final Class<?> declaringClass = method.getDeclaringClass();
+            if (declaringClass.equals(ValueType.JAVA_TYPE_MODEL) || declaringClass.equals(Object.class) || declaringClass.equals(Comparable.class)) {
+                // The model's own methods are handled by the runtime as special cases.
+                continue;
+            }
+
+            final String methodName = method.getName();
+            final int parameterCount = method.getParameterTypes().length;
+
+            ProtoMethod.Kind kind = ProtoMethod.Kind.UNHANDLED;
+            String slotName = null;
+
+            if (linkMethods.containsKey(methodName)) {
+                kind = ProtoMethod.Kind.LINK;
+                slotName = methodName.startsWith(JavaBean.GET) ? toSlotName(methodName, JavaBean.GET.length()) : methodName;
+            }
+            else if (methodName.startsWith(JavaBean.GET) && methodName.length() > JavaBean.GET.length() && parameterCount == 0) {
+                kind = ProtoMethod.Kind.GET_SLOT;
+                slotName = toSlotName(methodName, JavaBean.GET.length());
+            }
+            else if (methodName.startsWith(JavaBean.IS) && methodName.length() > JavaBean.IS.length() && parameterCount == 0) {
+                kind = ProtoMethod.Kind.GET_SLOT;
+                slotName = toSlotName(methodName, JavaBean.IS.length());
+            }
+            else if (methodName.startsWith(JavaBean.SET) && methodName.length() > JavaBean.SET.length() && parameterCount == 1) {
+                kind = ProtoMethod.Kind.SET_SLOT;
+                slotName = toSlotName(methodName, JavaBean.SET.length());
+            }
+
+            final URI declaringSchemaUri = (kind != ProtoMethod.Kind.UNHANDLED) ? _SchemaLoader.getTypeUri(declaringClass) : null;
+            final ProtoSlot protoSlot = (slotName != null) ? _ProtoSlots.get(slotName) : null;
+
+            protoMethods.put(method, new ProtoMethod(method, kind, slotName, declaringSchemaUri, protoSlot));
+        }
+
+        return protoMethods;
+    }
+
+    private static String toSlotName(final String methodName, final int prefixLength) {
+
+        final String slotName = methodName.substring(prefixLength);
+        return Character.toLowerCase(slotName.charAt(0)) + slotName.substring(1);
+    }
+
     private Class<?> getSchemaInterface() throws PrototypeException {
 
         Class<?> schemaInterface = null;
@@ -199,6 +199,17 @@ public interface SchemaLoader extends Loader {
 
     byte[] getSchemaInterfaceBytecode(final Schema schema) throws ClassNotFoundException;
 
+    /**
+     * <p>
+     * Get the generated Java {@link Class} that implements the {@link URI}-identified {@link Schema}'s interface (see
+     * {@link #getSchemaInterface(URI)}) as a subclass of {@link org.wrml.runtime.GeneratedModel}.
+     * </p>
+     * <p>
+     * The {@link SchemaLoader} will generate each implementation {@link Class} only once and it will retain them in the heap.
+     * </p>
+     */
+    Class<?> getSchemaImplementation(final URI schemaUri) throws ClassNotFoundException;
+
     /**
      * <p>
      * Get the native type name associated with the {@link URI}-identified <i>type</i> (either a {@link Schema} or {@link Choices}).
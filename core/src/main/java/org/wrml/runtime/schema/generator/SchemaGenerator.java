@@ -38,6 +38,8 @@ import org.wrml.model.rest.LinkRelation;
 import org.wrml.model.rest.Method;
 import org.wrml.model.schema.*;
 import org.wrml.runtime.Context;
+import org.wrml.runtime.GeneratedModel;
+import org.wrml.runtime.ModelException;
 import org.wrml.runtime.format.application.schema.json.JsonSchema;
 import org.wrml.runtime.format.application.schema.json.JsonSchema.Definitions.JsonType;
 import org.wrml.runtime.format.application.schema.json.JsonSchema.Definitions.PropertyType;
@@ -105,6 +107,8 @@ public class SchemaGenerator implements Opcodes {
 
     private static final String ANNOTATION_INTERNAL_NAME_READ_ONLY = SchemaGenerator.classToInternalTypeName(ReadOnly.class);
 
+    private static final String ANNOTATION_INTERNAL_NAME_SEARCHABLE = SchemaGenerator.classToInternalTypeName(Searchable.class);
+
     private static final String ANNOTATION_INTERNAL_NAME_TAGS = SchemaGenerator.classToInternalTypeName(Tags.class);
 
     private static final String ANNOTATION_INTERNAL_NAME_THUMBNAIL_IMAGE = SchemaGenerator.classToInternalTypeName(ThumbnailImage.class);
@@ -166,6 +170,36 @@ public class SchemaGenerator implements Opcodes {
 
     private static final String MODEL_INTERFACE_INTERNAL_NAME = SchemaGenerator.classToInternalTypeName(Model.class);
 
+    private static final String GENERATED_MODEL_INTERNAL_NAME = SchemaGenerator.classToInternalTypeName(GeneratedModel.class);
+
+    /**
+     * Appended to a schema interface's name to name its generated implementation class.
+     */
+    private static final String IMPLEMENTATION_CLASS_NAME_SUFFIX = "$Impl";
+
+    private static final String SCHEMA_URI_FIELD_NAME_PREFIX = "SCHEMA_URI_";
+
+    private static final String URI_INTERNAL_NAME = "java/net/URI";
+
+    private static final String URI_TYPE_DESCRIPTOR = "L" + URI_INTERNAL_NAME + ";";
+
+    private static final String URI_CREATE_METHOD_DESCRIPTOR = "(L" + STRING_INTERNAL_NAME + ";)" + URI_TYPE_DESCRIPTOR;
+
+    private static final String GET_SLOT_METHOD_DESCRIPTOR = "(L" + STRING_INTERNAL_NAME + ";" + URI_TYPE_DESCRIPTOR + ")L" + OBJECT_INTERNAL_NAME + ";";
+
+    private static final String SET_SLOT_METHOD_DESCRIPTOR = "(L" + STRING_INTERNAL_NAME + ";L" + OBJECT_INTERNAL_NAME + ";" + URI_TYPE_DESCRIPTOR + ")L"
+            + OBJECT_INTERNAL_NAME + ";";
+
+    private static final String GET_INDEXED_SLOT_METHOD_DESCRIPTOR = "(I)L" + OBJECT_INTERNAL_NAME + ";";
+
+    private static final String SET_INDEXED_SLOT_METHOD_DESCRIPTOR = "(IL" + OBJECT_INTERNAL_NAME + ";)L" + OBJECT_INTERNAL_NAME + ";";
+
+    private static final String INVOKE_LINK_METHOD_DESCRIPTOR = "(L" + STRING_INTERNAL_NAME + ";[L" + OBJECT_INTERNAL_NAME + ";)L" + OBJECT_INTERNAL_NAME
+            + ";";
+
+    private static final String UNHANDLED_METHOD_METHOD_DESCRIPTOR = "(L" + STRING_INTERNAL_NAME + ";)L"
+            + SchemaGenerator.classToInternalTypeName(ModelException.class) + ";";
+
     private static final String OPEN_PARENTHESIS = "(";
 
 
@@ -359,6 +393,140 @@ public class SchemaGenerator implements Opcodes {
         return enumByteCodeClass;
     }
 
+    private boolean isImplementedByGeneratedModel(final java.lang.reflect.Method method) {
+
+        final Class<?> declaringClass = method.getDeclaringClass();
+        if (declaringClass.equals(ValueType.JAVA_TYPE_MODEL) || declaringClass.equals(Object.class)) {
+            return true;
+        }
+
+        // A schema interface may redeclare a Model (or Object) method, which GeneratedModel implements as final.
+        for (final Class<?> implementedClass : new Class<?>[]{ValueType.JAVA_TYPE_MODEL, Object.class}) {
+            try {
+                implementedClass.getMethod(method.getName(), method.getParameterTypes());
+                return true;
+            }
+            catch (final NoSuchMethodException e) {
+                // Not a redeclaration.
+            }
+        }
+
+        return false;
+    }
+
+    private String methodNameToSlotName(final String methodName, final int prefixLength) {
+
+        final String slotName = methodName.substring(prefixLength);
+        return Character.toLowerCase(slotName.charAt(0)) + slotName.substring(1);
+    }
+
+    private void visitArgument(final MethodVisitor methodVisitor, final Class<?> argumentClass, final int localIndex) {
+
+        final org.objectweb.asm.Type argumentType = org.objectweb.asm.Type.getType(argumentClass);
+        methodVisitor.visitVarInsn(argumentType.getOpcode(ILOAD), localIndex);
+
+        if (argumentClass.isPrimitive()) {
+            final String wrapperName = getWrapperInternalName(argumentType);
+            methodVisitor.visitMethodInsn(INVOKESTATIC, wrapperName, VALUE_OF_METHOD_NAME, "(" + argumentType.getDescriptor() + ")L" + wrapperName + ";");
+        }
+    }
+
+    private void visitArgumentArray(final MethodVisitor methodVisitor, final Class<?>[] argumentClasses) {
+
+        if (argumentClasses.length == 0) {
+            // Matches the null args array passed to a Proxy's InvocationHandler.
+            methodVisitor.visitInsn(ACONST_NULL);
+            return;
+        }
+
+        methodVisitor.visitLdcInsn(argumentClasses.length);
+        methodVisitor.visitTypeInsn(ANEWARRAY, OBJECT_INTERNAL_NAME);
+
+        int localIndex = 1;
+        for (int i = 0; i < argumentClasses.length; i++) {
+            methodVisitor.visitInsn(DUP);
+            methodVisitor.visitLdcInsn(i);
+            visitArgument(methodVisitor, argumentClasses[i], localIndex);
+            methodVisitor.visitInsn(AASTORE);
+            localIndex += org.objectweb.asm.Type.getType(argumentClasses[i]).getSize();
+        }
+    }
+
+    private void visitGetSlot(final MethodVisitor methodVisitor, final String className, final Prototype prototype, final String slotName,
+                              final java.lang.reflect.Method method, final Map<URI, String> schemaUriFieldNames) {
+
+        final int slotIndex = prototype.getSlotIndex(slotName);
+        if (slotIndex >= 0) {
+            methodVisitor.visitLdcInsn(slotIndex);
+            methodVisitor.visitMethodInsn(INVOKEVIRTUAL, className, "getSlot", GET_INDEXED_SLOT_METHOD_DESCRIPTOR);
+            return;
+        }
+
+        methodVisitor.visitLdcInsn(slotName);
+        visitSchemaUriField(methodVisitor, className, method, schemaUriFieldNames);
+        methodVisitor.visitMethodInsn(INVOKEVIRTUAL, className, "getSlot", GET_SLOT_METHOD_DESCRIPTOR);
+    }
+
+    private void visitReturnValue(final MethodVisitor methodVisitor, final Class<?> returnClass) {
+
+        if (returnClass == void.class) {
+            methodVisitor.visitInsn(POP);
+            methodVisitor.visitInsn(RETURN);
+            return;
+        }
+
+        final org.objectweb.asm.Type returnType = org.objectweb.asm.Type.getType(returnClass);
+
+        if (returnClass.isPrimitive()) {
+            final String wrapperName = getWrapperInternalName(returnType);
+            methodVisitor.visitTypeInsn(CHECKCAST, wrapperName);
+            methodVisitor.visitMethodInsn(INVOKEVIRTUAL, wrapperName, returnClass.getName() + "Value", "()" + returnType.getDescriptor());
+        }
+        else if (returnClass != Object.class) {
+            methodVisitor.visitTypeInsn(CHECKCAST, returnType.getInternalName());
+        }
+
+        methodVisitor.visitInsn(returnType.getOpcode(IRETURN));
+    }
+
+    private void visitSchemaUriField(final MethodVisitor methodVisitor, final String className, final java.lang.reflect.Method method,
+                                     final Map<URI, String> schemaUriFieldNames) {
+
+        final URI declaringSchemaUri = _SchemaLoader.getTypeUri(method.getDeclaringClass());
+
+        String fieldName = schemaUriFieldNames.get(declaringSchemaUri);
+        if (fieldName == null) {
+            fieldName = SCHEMA_URI_FIELD_NAME_PREFIX + schemaUriFieldNames.size();
+            schemaUriFieldNames.put(declaringSchemaUri, fieldName);
+        }
+
+        methodVisitor.visitFieldInsn(GETSTATIC, className, fieldName, URI_TYPE_DESCRIPTOR);
+    }
+
+    private static String getWrapperInternalName(final org.objectweb.asm.Type primitiveType) {
+
+        switch (primitiveType.getSort()) {
+            case org.objectweb.asm.Type.BOOLEAN:
+                return "java/lang/Boolean";
+            case org.objectweb.asm.Type.CHAR:
+                return "java/lang/Character";
+            case org.objectweb.asm.Type.BYTE:
+                return "java/lang/Byte";
+            case org.objectweb.asm.Type.SHORT:
+                return "java/lang/Short";
+            case org.objectweb.asm.Type.INT:
+                return "java/lang/Integer";
+            case org.objectweb.asm.Type.FLOAT:
+                return "java/lang/Float";
+            case org.objectweb.asm.Type.LONG:
+                return "java/lang/Long";
+            case org.objectweb.asm.Type.DOUBLE:
+                return "java/lang/Double";
+            default:
+                throw new IllegalArgumentException("Not a primitive type: " + primitiveType);
+        }
+    }
+
     private void visitConstantIncrement(final MethodVisitor methodVisitor, final int constantIndex) {
 
         switch (constantIndex) {
@@ -837,6 +1005,140 @@ public class SchemaGenerator implements Opcodes {
         return javaBytecodeClass;
     }
 
+    /**
+     * Generate a concrete {@link GeneratedModel} subclass that implements the specified schema interface.
+     * <p/>
+     * Each slot accessor is implemented with a direct call to the slot storage, passing the slot's index within the
+     * schema's {@link Prototype} (see {@link Prototype#getSlotIndex(String)}) as a constant, and each link method is
+     * bound to its link slot by name. This spares every
+     * call the reflective dispatch that a {@link java.lang.reflect.Proxy}-based model requires.
+     *
+     * @param schemaInterface The schema interface to implement.
+     * @return The Java class that implements the specified schema interface.
+     */
+    public JavaBytecodeClass generateSchemaImplementation(final Class<?> schemaInterface) {
+
+        final URI schemaUri = _SchemaLoader.getTypeUri(schemaInterface);
+        final Prototype prototype = _SchemaLoader.getPrototype(schemaUri);
+        final Set<String> linkMethodNames = prototype.getSchemaBean().getOtherMethods().keySet();
+
+        final String interfaceName = org.objectweb.asm.Type.getInternalName(schemaInterface);
+        final String className = interfaceName + IMPLEMENTATION_CLASS_NAME_SUFFIX;
+
+        final JavaBytecodeClass javaBytecodeClass = new JavaBytecodeClass(className);
+        javaBytecodeClass.setSuperName(GENERATED_MODEL_INTERNAL_NAME);
+        javaBytecodeClass.getInterfaces().add(interfaceName);
+        if (!ValueType.JAVA_TYPE_MODEL.isAssignableFrom(schemaInterface)) {
+            javaBytecodeClass.getInterfaces().add(MODEL_INTERFACE_INTERNAL_NAME);
+        }
+
+        final List<String> interfaces = javaBytecodeClass.getInterfaces();
+        final ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(JVM_VERSION, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, className, null, GENERATED_MODEL_INTERNAL_NAME,
+                interfaces.toArray(new String[interfaces.size()]));
+
+        MethodVisitor methodVisitor = classWriter.visitMethod(ACC_PUBLIC, INIT_METHOD_NAME, CLOSED_METHOD_DESCRIPTOR, null, null);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(ALOAD, 0);
+        methodVisitor.visitMethodInsn(INVOKESPECIAL, GENERATED_MODEL_INTERNAL_NAME, INIT_METHOD_NAME, CLOSED_METHOD_DESCRIPTOR);
+        methodVisitor.visitInsn(RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+
+        // The declaring schema URIs (of any slots that the prototype has not indexed) are held in static fields.
+        final Map<URI, String> schemaUriFieldNames = new LinkedHashMap<>();
+        final Set<String> implementedMethods = new HashSet<>();
+
+        for (final java.lang.reflect.Method method : schemaInterface.getMethods()) {
+
+            if (isImplementedByGeneratedModel(method)) {
+                continue;
+            }
+
+            final String methodName = method.getName();
+            final String methodDescriptor = org.objectweb.asm.Type.getMethodDescriptor(method);
+            if (!implementedMethods.add(methodName + methodDescriptor)) {
+                continue;
+            }
+
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            final Class<?> returnType = method.getReturnType();
+
+            methodVisitor = classWriter.visitMethod(ACC_PUBLIC, methodName, methodDescriptor, null, null);
+            methodVisitor.visitCode();
+            methodVisitor.visitVarInsn(ALOAD, 0);
+
+            if (linkMethodNames.contains(methodName)) {
+
+                String linkSlotName = methodName;
+                if (linkSlotName.startsWith(JavaBean.GET)) {
+                    linkSlotName = methodNameToSlotName(methodName, JavaBean.GET.length());
+                }
+
+                methodVisitor.visitLdcInsn(linkSlotName);
+                visitArgumentArray(methodVisitor, parameterTypes);
+                methodVisitor.visitMethodInsn(INVOKEVIRTUAL, className, "invokeLink", INVOKE_LINK_METHOD_DESCRIPTOR);
+                visitReturnValue(methodVisitor, returnType);
+            }
+            else if (parameterTypes.length == 0 && methodName.length() > JavaBean.GET.length() && methodName.startsWith(JavaBean.GET)) {
+
+                visitGetSlot(methodVisitor, className, prototype, methodNameToSlotName(methodName, JavaBean.GET.length()), method, schemaUriFieldNames);
+                visitReturnValue(methodVisitor, returnType);
+            }
+            else if (parameterTypes.length == 0 && methodName.length() > JavaBean.IS.length() && methodName.startsWith(JavaBean.IS)) {
+
+                visitGetSlot(methodVisitor, className, prototype, methodNameToSlotName(methodName, JavaBean.IS.length()), method, schemaUriFieldNames);
+                visitReturnValue(methodVisitor, returnType);
+            }
+            else if (parameterTypes.length == 1 && methodName.length() > JavaBean.SET.length() && methodName.startsWith(JavaBean.SET)) {
+
+                final String slotName = methodNameToSlotName(methodName, JavaBean.SET.length());
+                final int slotIndex = prototype.getSlotIndex(slotName);
+                if (slotIndex >= 0) {
+                    methodVisitor.visitLdcInsn(slotIndex);
+                    visitArgument(methodVisitor, parameterTypes[0], 1);
+                    methodVisitor.visitMethodInsn(INVOKEVIRTUAL, className, "setSlot", SET_INDEXED_SLOT_METHOD_DESCRIPTOR);
+                }
+                else {
+                    methodVisitor.visitLdcInsn(slotName);
+                    visitArgument(methodVisitor, parameterTypes[0], 1);
+                    visitSchemaUriField(methodVisitor, className, method, schemaUriFieldNames);
+                    methodVisitor.visitMethodInsn(INVOKEVIRTUAL, className, "setSlot", SET_SLOT_METHOD_DESCRIPTOR);
+                }
+                visitReturnValue(methodVisitor, returnType);
+            }
+            else {
+
+                methodVisitor.visitLdcInsn(methodName);
+                methodVisitor.visitMethodInsn(INVOKEVIRTUAL, className, "unhandledMethod", UNHANDLED_METHOD_METHOD_DESCRIPTOR);
+                methodVisitor.visitInsn(ATHROW);
+            }
+
+            methodVisitor.visitMaxs(0, 0);
+            methodVisitor.visitEnd();
+        }
+
+        methodVisitor = classWriter.visitMethod(ACC_STATIC, CLINIT_METHOD_NAME, CLOSED_METHOD_DESCRIPTOR, null, null);
+        methodVisitor.visitCode();
+        for (final URI declaringSchemaUri : schemaUriFieldNames.keySet()) {
+            final String fieldName = schemaUriFieldNames.get(declaringSchemaUri);
+            final FieldVisitor fieldVisitor = classWriter.visitField(ACC_PRIVATE + ACC_STATIC + ACC_FINAL, fieldName, URI_TYPE_DESCRIPTOR, null, null);
+            fieldVisitor.visitEnd();
+
+            methodVisitor.visitLdcInsn(declaringSchemaUri.toString());
+            methodVisitor.visitMethodInsn(INVOKESTATIC, URI_INTERNAL_NAME, "create", URI_CREATE_METHOD_DESCRIPTOR);
+            methodVisitor.visitFieldInsn(PUTSTATIC, className, fieldName, URI_TYPE_DESCRIPTOR);
+        }
+        methodVisitor.visitInsn(RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+
+        classWriter.visitEnd();
+
+        javaBytecodeClass.setBytecode(classWriter.toByteArray());
+        return javaBytecodeClass;
+    }
+
     public Context getContext() {
 
         return getSchemaLoader().getContext();
@@ -982,6 +1284,11 @@ public class SchemaGenerator implements Opcodes {
             defaultValueAnnotation.setAttributeValue(AnnotationParameterName.value.name(), defaultValueString);
         }
 
+        JavaBytecodeAnnotation searchableAnnotation = null;
+        if (Boolean.TRUE.equals(slot.isSearchable())) {
+            searchableAnnotation = new JavaBytecodeAnnotation(SchemaGenerator.ANNOTATION_INTERNAL_NAME_SEARCHABLE);
+        }
+
         JavaBytecodeAnnotation disallowedValuesAnnotation = null;
         JavaBytecodeAnnotation divisibleByAnnotation = null;
         JavaBytecodeAnnotation maximumLengthAnnotation = null;
@@ -1127,7 +1434,8 @@ public class SchemaGenerator implements Opcodes {
         final JavaBytecodeMethod readMethod = generateMethod(readMethodName, type, aliasAnnotation,
                 descriptionAnnotation, titleAnnotation, defaultValueAnnotation, disallowedValuesAnnotation,
                 divisibleByAnnotation, maximumValueAnnotation, minimumValueAnnotation, maximumLengthAnnotation,
-                minimumLengthAnnotation, maximumSizeAnnotation, minimumSizeAnnotation, multilineAnnotation, collectionSlotAnnotation);
+                minimumLengthAnnotation, maximumSizeAnnotation, minimumSizeAnnotation, multilineAnnotation, collectionSlotAnnotation,
+                searchableAnnotation);
 
         javaBytecodeClass.getMethods().add(readMethod);
 
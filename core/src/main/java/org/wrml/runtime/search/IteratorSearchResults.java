@@ -0,0 +1,188 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.search;
+
+import org.wrml.model.Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * {@link SearchResults} that apply a {@link SearchCriteria}'s offset and limit to an {@link Iterator} of the (unpaged)
+ * matching {@link Model}s. The continuation token is the offset of the next page's first result.
+ * </p>
+ * <p>
+ * The iterator is closed along with the results if it is {@link Closeable}.
+ * </p>
+ *
+ * @see org.wrml.runtime.service.AbstractService#openSearch(SearchCriteria)
+ */
+public class IteratorSearchResults implements SearchResults {
+
+    private final Iterator<? extends Model> _Iterator;
+
+    private final int _Offset;
+
+    private final int _Limit;
+
+    private int _Count;
+
+    private boolean _Done;
+
+    private String _ContinuationToken;
+
+    public IteratorSearchResults(final Iterator<? extends Model> iterator, final SearchCriteria searchCriteria) {
+
+        this(iterator, getOffset(searchCriteria), getLimit(searchCriteria));
+    }
+
+    /**
+     * @param iterator The matching models.
+     * @param offset   The number of matching models to skip.
+     * @param limit    The maximum number of models to return, or <code>0</code> for no limit.
+     */
+    public IteratorSearchResults(final Iterator<? extends Model> iterator, final int offset, final int limit) {
+
+        this(iterator, offset, limit, false);
+    }
+
+    /**
+     * @param iterator The matching models.
+     * @param offset   The number of matching models to skip.
+     * @param limit    The maximum number of models to return, or <code>0</code> for no limit.
+     * @param skipped  Whether or not the iterator has already skipped the offset's models (e.g. without reading them).
+     */
+    public IteratorSearchResults(final Iterator<? extends Model> iterator, final int offset, final int limit, final boolean skipped) {
+
+        _Iterator = iterator;
+        _Offset = offset;
+        _Limit = limit;
+
+        if (!skipped) {
+            for (int i = 0; i < offset && _Iterator.hasNext(); i++) {
+                _Iterator.next();
+            }
+        }
+    }
+
+    /**
+     * The number of results to skip; the offset encoded by the {@link SearchCriteria#getContinuationToken()} (if it is
+     * an offset) takes precedence over the {@link SearchCriteria#getResultOffset()}.
+     */
+    public static int getOffset(final SearchCriteria searchCriteria) {
+
+        final String continuationToken = searchCriteria.getContinuationToken();
+        if (continuationToken != null) {
+            try {
+                return Math.max(0, Integer.parseInt(continuationToken));
+            }
+            catch (final NumberFormatException e) {
+                // Not an offset; some other service's token.
+            }
+        }
+
+        final Integer offset = searchCriteria.getResultOffset();
+        return (offset != null && offset > 0) ? offset : 0;
+    }
+
+    /**
+     * The maximum number of results, or <code>0</code> if there is no limit.
+     */
+    public static int getLimit(final SearchCriteria searchCriteria) {
+
+        final Integer limit = searchCriteria.getResultLimit();
+        return (limit != null && limit > 0) ? limit : 0;
+    }
+
+    @Override
+    public String getContinuationToken() {
+
+        return _ContinuationToken;
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        if (_Done) {
+            return false;
+        }
+
+        if (_Limit > 0 && _Count >= _Limit) {
+            if (_Iterator.hasNext()) {
+                _ContinuationToken = String.valueOf(_Offset + _Count);
+            }
+
+            close();
+            return false;
+        }
+
+        if (!_Iterator.hasNext()) {
+            close();
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public Model next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        _Count++;
+        return _Iterator.next();
+    }
+
+    @Override
+    public void remove() {
+
+        throw new UnsupportedOperationException("Search results cannot be removed.");
+    }
+
+    @Override
+    public void close() {
+
+        if (_Done) {
+            return;
+        }
+
+        _Done = true;
+
+        if (_Iterator instanceof Closeable) {
+            try {
+                ((Closeable) _Iterator).close();
+            }
+            catch (final IOException e) {
+                // Nothing left to read from it anyway.
+            }
+        }
+    }
+
+}
@@ -35,6 +35,7 @@ import java.util.Set;
  *
  * @see org.wrml.runtime.schema.ProtoSearchCriteria#buildSearchCriteria(org.wrml.model.Model)
  * @see org.wrml.runtime.service.Service#search(SearchCriteria)
+ * @see org.wrml.runtime.service.Service#openSearch(SearchCriteria)
  */
 public interface SearchCriteria {
 
@@ -59,10 +60,21 @@ public interface SearchCriteria {
     Set<String> getProjectionSlotNames();
 
     /**
-     * TODO: Javadoc
+     * The maximum number of results to return, or <code>null</code> (or zero) if there is no limit.
      */
     Integer getResultLimit();
 
+    /**
+     * The number of matching results to skip, or <code>null</code> (or zero) to start with the first result.
+     */
+    Integer getResultOffset();
+
+    /**
+     * The {@link SearchResults#getContinuationToken()} of the previous page of results, with which the search should
+     * continue; or <code>null</code> to start with the {@link #getResultOffset()}.
+     */
+    String getContinuationToken();
+
     /**
      * TODO: Javadoc
      */
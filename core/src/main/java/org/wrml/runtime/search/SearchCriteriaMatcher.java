@@ -0,0 +1,286 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.search;
+
+import org.apache.commons.lang3.StringUtils;
+import org.wrml.model.Model;
+import org.wrml.model.schema.ComparisonOperator;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Evaluates a {@link SearchCriteria}'s criterion lists against (in memory) {@link Model}s; for {@link
+ * org.wrml.runtime.service.Service}s whose backend cannot evaluate the criteria itself.
+ * </p>
+ * <p>
+ * A model matches if it matches all of the "and" criteria and, if there are any "or" criteria, at least one of them.
+ * A criterion's reference slot may use "." (dot notation) to reach the slots of nested models. Numbers are compared by
+ * value, regardless of their type, and a {@link String} comparison value is compared with the text of the slot value.
+ * </p>
+ *
+ * @see SearchCriterion#getComparisonOperator()
+ */
+public final class SearchCriteriaMatcher {
+
+    private final List<SearchCriterion> _And;
+
+    private final List<SearchCriterion> _Or;
+
+    public SearchCriteriaMatcher(final SearchCriteria searchCriteria) {
+
+        _And = (searchCriteria.getAnd() != null) ? searchCriteria.getAnd() : Collections.<SearchCriterion>emptyList();
+        _Or = (searchCriteria.getOr() != null) ? searchCriteria.getOr() : Collections.<SearchCriterion>emptyList();
+    }
+
+    public boolean matches(final Model model) {
+
+        for (final SearchCriterion searchCriterion : _And) {
+            if (!matches(model, searchCriterion)) {
+                return false;
+            }
+        }
+
+        if (_Or.isEmpty()) {
+            return true;
+        }
+
+        for (final SearchCriterion searchCriterion : _Or) {
+            if (matches(model, searchCriterion)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public static boolean matches(final Model model, final SearchCriterion searchCriterion) {
+
+        final Object value = getReferenceSlotValue(model, searchCriterion.getReferenceSlot());
+        final Object comparisonValue = searchCriterion.getComparisonValue();
+
+        final ComparisonOperator comparisonOperator = (searchCriterion.getComparisonOperator() != null) ? searchCriterion
+                .getComparisonOperator() : ComparisonOperator.equalTo;
+
+        switch (comparisonOperator) {
+
+            case containsAll: {
+                if (!(value instanceof Collection)) {
+                    return false;
+                }
+
+                for (final Object element : toCollection(comparisonValue)) {
+                    if (!containsEqual((Collection<?>) value, element)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+
+            case equalTo: {
+                return isEqual(value, comparisonValue);
+            }
+
+            case equalToAny: {
+                return containsEqual(toCollection(comparisonValue), value);
+            }
+
+            case exists: {
+                return value != null;
+            }
+
+            case greaterThan: {
+                final Integer comparison = compare(value, comparisonValue);
+                return comparison != null && comparison > 0;
+            }
+
+            case greaterThanOrEqualTo: {
+                final Integer comparison = compare(value, comparisonValue);
+                return comparison != null && comparison >= 0;
+            }
+
+            case lessThan: {
+                final Integer comparison = compare(value, comparisonValue);
+                return comparison != null && comparison < 0;
+            }
+
+            case lessThanOrEqualTo: {
+                final Integer comparison = compare(value, comparisonValue);
+                return comparison != null && comparison <= 0;
+            }
+
+            case notEqualTo: {
+                return !isEqual(value, comparisonValue);
+            }
+
+            case notEqualToAny: {
+                return !containsEqual(toCollection(comparisonValue), value);
+            }
+
+            case notExists: {
+                return value == null;
+            }
+
+            case regex: {
+                Pattern regexPattern = searchCriterion.getRegexPattern();
+                if (regexPattern == null) {
+                    final String regex = searchCriterion.getRegex();
+                    if (regex == null || regex.isEmpty()) {
+                        return true;
+                    }
+
+                    regexPattern = Pattern.compile(regex);
+                }
+
+                return value != null && regexPattern.matcher(String.valueOf(value)).find();
+            }
+
+            default: {
+                return false;
+            }
+        }
+    }
+
+    private static Object getReferenceSlotValue(final Model model, final String referenceSlot) {
+
+        if (!referenceSlot.contains(".")) {
+            return getSlotValue(model, referenceSlot);
+        }
+
+        Object value = model;
+        for (final String slotName : StringUtils.split(referenceSlot, '.')) {
+            if (!(value instanceof Model)) {
+                return null;
+            }
+
+            value = getSlotValue((Model) value, slotName);
+        }
+
+        return value;
+    }
+
+    private static Object getSlotValue(final Model model, final String slotName) {
+
+        if (model.getPrototype() == null || model.getPrototype().getProtoSlot(slotName, false) == null) {
+            return model.getSlotMap().get(slotName);
+        }
+
+        return model.getSlotValue(slotName);
+    }
+
+    private static Collection<?> toCollection(final Object value) {
+
+        if (value == null) {
+            return Collections.emptyList();
+        }
+
+        if (value instanceof Collection) {
+            return (Collection<?>) value;
+        }
+
+        if (value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            final List<Object> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(Array.get(value, i));
+            }
+
+            return list;
+        }
+
+        return Collections.singletonList(value);
+    }
+
+    private static boolean containsEqual(final Collection<?> collection, final Object value) {
+
+        for (final Object element : collection) {
+            if (isEqual(element, value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isEqual(final Object value, final Object comparisonValue) {
+
+        if (value == null || comparisonValue == null) {
+            return value == comparisonValue;
+        }
+
+        if (value instanceof Number && comparisonValue instanceof Number) {
+            return compareNumbers((Number) value, (Number) comparisonValue) == 0;
+        }
+
+        if (value.getClass() != comparisonValue.getClass() && (value instanceof String || comparisonValue instanceof String)) {
+            return String.valueOf(value).equals(String.valueOf(comparisonValue));
+        }
+
+        return value.equals(comparisonValue);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Integer compare(final Object value, final Object comparisonValue) {
+
+        if (value == null || comparisonValue == null) {
+            return null;
+        }
+
+        if (value instanceof Number && comparisonValue instanceof Number) {
+            return compareNumbers((Number) value, (Number) comparisonValue);
+        }
+
+        if (value instanceof Comparable && value.getClass().isInstance(comparisonValue)) {
+            return ((Comparable) value).compareTo(comparisonValue);
+        }
+
+        if (value.getClass() != comparisonValue.getClass() && (value instanceof String || comparisonValue instanceof String)) {
+            return String.valueOf(value).compareTo(String.valueOf(comparisonValue));
+        }
+
+        return null;
+    }
+
+    private static int compareNumbers(final Number value, final Number comparisonValue) {
+
+        if (isIntegral(value) && isIntegral(comparisonValue)) {
+            return Long.compare(value.longValue(), comparisonValue.longValue());
+        }
+
+        return Double.compare(value.doubleValue(), comparisonValue.doubleValue());
+    }
+
+    private static boolean isIntegral(final Number number) {
+
+        return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+
+}
@@ -0,0 +1,194 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.search;
+
+import org.wrml.model.Model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * A collection slot's {@link List} of {@link SearchResults}, which reads the results as its elements are requested. A
+ * {@link org.wrml.runtime.format.ModelWriter} may start writing the collection while the rest of its elements are still
+ * being read from the backend.
+ * </p>
+ * <p>
+ * Iterating the list, and {@link #isEmpty()}, read only as far as needed. The list's other methods (e.g.
+ * {@link #size()}) read all of the results first. The list may be modified, once it has read all of its results.
+ * </p>
+ *
+ * @see org.wrml.runtime.DefaultContext#STREAMING_COLLECTIONS_SETTING_NAME
+ */
+public final class SearchResultList extends AbstractList<Model> {
+
+    private final SearchResults _SearchResults;
+
+    private final List<Model> _Elements;
+
+    private boolean _Loaded;
+
+    public SearchResultList(final SearchResults searchResults) {
+
+        _SearchResults = searchResults;
+        _Elements = new ArrayList<>();
+    }
+
+    /**
+     * The continuation token of the {@link SearchResults}, once they have all been read (see {@link #isLoaded()}).
+     */
+    public synchronized String getContinuationToken() {
+
+        return (_Loaded) ? _SearchResults.getContinuationToken() : null;
+    }
+
+    /**
+     * Determines whether or not all of the results have been read.
+     */
+    public synchronized boolean isLoaded() {
+
+        return _Loaded;
+    }
+
+    /**
+     * Stops reading the results; the list keeps the elements that were read before it was closed.
+     */
+    public synchronized void close() {
+
+        if (!_Loaded) {
+            _Loaded = true;
+            _SearchResults.close();
+        }
+    }
+
+    @Override
+    public Model get(final int index) {
+
+        load(index + 1);
+        synchronized (this) {
+            return _Elements.get(index);
+        }
+    }
+
+    @Override
+    public int size() {
+
+        load(Integer.MAX_VALUE);
+        synchronized (this) {
+            return _Elements.size();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+
+        return !load(1);
+    }
+
+    @Override
+    public Iterator<Model> iterator() {
+
+        return new Iterator<Model>() {
+
+            private int _NextIndex;
+
+            @Override
+            public boolean hasNext() {
+
+                return load(_NextIndex + 1);
+            }
+
+            @Override
+            public Model next() {
+
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return get(_NextIndex++);
+            }
+
+            @Override
+            public void remove() {
+
+                SearchResultList.this.remove(--_NextIndex);
+            }
+        };
+    }
+
+    @Override
+    public synchronized void add(final int index, final Model element) {
+
+        load(Integer.MAX_VALUE);
+        _Elements.add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public synchronized Model remove(final int index) {
+
+        load(Integer.MAX_VALUE);
+        modCount++;
+        return _Elements.remove(index);
+    }
+
+    @Override
+    public synchronized Model set(final int index, final Model element) {
+
+        load(Integer.MAX_VALUE);
+        return _Elements.set(index, element);
+    }
+
+    @Override
+    public synchronized void clear() {
+
+        close();
+        _Elements.clear();
+        modCount++;
+    }
+
+    /**
+     * Reads results until the list has (at least) the specified number of elements, or there are no more results.
+     *
+     * @return <code>true</code> if the list has the specified number of elements.
+     */
+    private synchronized boolean load(final int count) {
+
+        while (_Elements.size() < count && !_Loaded) {
+            if (_SearchResults.hasNext()) {
+                _Elements.add(_SearchResults.next());
+            }
+            else {
+                close();
+            }
+        }
+
+        return _Elements.size() >= count;
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.search;
+
+import org.wrml.model.Model;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * <p>
+ * The (streaming) results of a search; an {@link Iterator} of the found {@link Model}s that reads them from the
+ * {@link org.wrml.runtime.service.Service}'s backend as they are iterated, rather than all at once.
+ * </p>
+ * <p>
+ * The results hold backend resources (e.g. a database cursor) until they are either iterated to the end or closed.
+ * </p>
+ *
+ * @see org.wrml.runtime.service.Service#openSearch(SearchCriteria)
+ * @see SearchCriteria#getResultLimit()
+ * @see SearchCriteria#getContinuationToken()
+ */
+public interface SearchResults extends Iterator<Model>, Closeable {
+
+    /**
+     * <p>
+     * The opaque token with which a subsequent search (see {@link SearchCriteria#getContinuationToken()}) may continue
+     * from where these (limited) results ended.
+     * </p>
+     * <p>
+     * The token is known once the results have been iterated to the end; it is <code>null</code> if there are no more
+     * results to continue with.
+     * </p>
+     */
+    String getContinuationToken();
+
+    /**
+     * Releases the backend resources held by the results; any results that have not been iterated are discarded.
+     */
+    @Override
+    void close();
+
+}
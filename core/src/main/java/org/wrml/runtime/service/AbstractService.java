@@ -28,8 +28,16 @@ import org.wrml.model.Model;
 import org.wrml.runtime.Context;
 import org.wrml.runtime.Dimensions;
 import org.wrml.runtime.Keys;
+import org.wrml.runtime.search.IteratorSearchResults;
 import org.wrml.runtime.search.SearchCriteria;
-
+import org.wrml.runtime.search.SearchResults;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -79,6 +87,26 @@ public abstract class AbstractService implements Service {
         throwUnsupportedOperationException("delete");
     }
 
+    @Override
+    public Map<Keys, Model> getAll(final Collection<Keys> multipleKeys, final Dimensions dimensions) {
+
+        final Map<Keys, Model> models = new LinkedHashMap<>(multipleKeys.size());
+        for (final Keys keys : multipleKeys) {
+            final Model model = get(keys, dimensions);
+            if (model != null) {
+                models.put(keys, model);
+            }
+        }
+
+        return models;
+    }
+
+    @Override
+    public ModelVersion getVersion(final Keys keys, final Dimensions dimensions) {
+
+        return null;
+    }
+
     @Override
     public Model save(final Model model) throws UnsupportedOperationException {
 
@@ -87,6 +115,17 @@ public abstract class AbstractService implements Service {
         return null;
     }
 
+    @Override
+    public List<Model> saveAll(final Collection<Model> models) throws UnsupportedOperationException {
+
+        final List<Model> savedModels = new ArrayList<>(models.size());
+        for (final Model model : models) {
+            savedModels.add(save(model));
+        }
+
+        return savedModels;
+    }
+
     @Override
     public Set<Model> search(final SearchCriteria searchCriteria) throws UnsupportedOperationException {
 
@@ -95,6 +134,17 @@ public abstract class AbstractService implements Service {
         return null;
     }
 
+    @Override
+    public SearchResults openSearch(final SearchCriteria searchCriteria) throws UnsupportedOperationException {
+
+        final Set<Model> resultSet = search(searchCriteria);
+        if (resultSet == null) {
+            return new IteratorSearchResults(Collections.<Model>emptyIterator(), 0, 0);
+        }
+
+        return new IteratorSearchResults(resultSet.iterator(), searchCriteria);
+    }
+
     @Override
     public Model invoke(final Model function, final Dimensions responseDimensions, final Model parameter) throws UnsupportedOperationException {
 
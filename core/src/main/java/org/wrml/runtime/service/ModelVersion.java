@@ -0,0 +1,108 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service;
+
+import org.wrml.model.Model;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.Keys;
+
+/**
+ * The version metadata of a stored {@link Model}, as reported by its {@link Service} without loading the model.
+ *
+ * @see Service#getVersion(Keys, Dimensions)
+ */
+public final class ModelVersion {
+
+    /**
+     * The value of {@link #getLastModified()} when the service does not know when the model was last modified.
+     */
+    public static final long UNKNOWN_LAST_MODIFIED = -1L;
+
+    private final String _Tag;
+
+    private final long _LastModified;
+
+    /**
+     * Creates a new {@link ModelVersion}.
+     *
+     * @param tag          The opaque tag that changes whenever the stored model changes (e.g. a revision counter or a
+     *                     checksum).
+     * @param lastModified The time (in milliseconds since the epoch) at which the stored model was last modified, or
+     *                     {@link #UNKNOWN_LAST_MODIFIED}.
+     */
+    public ModelVersion(final String tag, final long lastModified) {
+
+        if (tag == null) {
+            throw new IllegalArgumentException("The tag cannot be null.");
+        }
+
+        _Tag = tag;
+        _LastModified = lastModified;
+    }
+
+    /**
+     * The opaque tag that changes whenever the stored model changes.
+     */
+    public String getTag() {
+
+        return _Tag;
+    }
+
+    /**
+     * The time (in milliseconds since the epoch) at which the stored model was last modified, or
+     * {@link #UNKNOWN_LAST_MODIFIED}.
+     */
+    public long getLastModified() {
+
+        return _LastModified;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof ModelVersion)) {
+            return false;
+        }
+
+        final ModelVersion other = (ModelVersion) obj;
+        return _LastModified == other._LastModified && _Tag.equals(other._Tag);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return 31 * _Tag.hashCode() + (int) (_LastModified ^ (_LastModified >>> 32));
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " [tag = " + _Tag + ", lastModified = " + _LastModified + "]";
+    }
+}
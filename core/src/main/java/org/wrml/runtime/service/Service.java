@@ -29,7 +29,11 @@ import org.wrml.runtime.Context;
 import org.wrml.runtime.Dimensions;
 import org.wrml.runtime.Keys;
 import org.wrml.runtime.search.SearchCriteria;
+import org.wrml.runtime.search.SearchResults;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -92,6 +96,43 @@ public interface Service {
      */
     Model get(final Keys keys, final Dimensions dimensions);
 
+    /**
+     * <p>
+     * The {@link Context} invokes this method to delegate the retrieval of a batch of {@link Model}s, each keyed with
+     * one of the specified {@link Keys} and all dimensioned by the requested {@link Dimensions}.
+     * </p>
+     * <p>
+     * Implementations that are able to fetch several models with a single backend request (e.g. a database "in" query)
+     * should do so. The {@link AbstractService} implements this method by calling {@link #get(Keys, Dimensions)} for
+     * each of the keys.
+     * </p>
+     *
+     * @param multipleKeys The {@link Keys} of the sought-after {@link Model}s.
+     * @param dimensions   The {@link Dimensions} of the desired {@link Model}s.
+     * @return The found {@link Model}s, mapped by the {@link Keys} that they were requested with; the keys of the models
+     * that were not found are absent from the map.
+     * @see Context#getMultipleModels(java.util.List, Dimensions)
+     */
+    Map<Keys, Model> getAll(final Collection<Keys> multipleKeys, final Dimensions dimensions);
+
+    /**
+     * <p>
+     * The {@link Context} invokes this method to ask for the version of the stored {@link Model} keyed with the specified
+     * {@link Keys}, without loading it. The version's tag must change whenever the stored model's state changes; clients
+     * (e.g. the HTTP server's conditional GET handling) rely on it to skip loading an unchanged model.
+     * </p>
+     * <p>
+     * This method may be considered <i>optional</i>. The {@link AbstractService} implements it by returning
+     * <code>null</code>.
+     * </p>
+     *
+     * @param keys       The {@link Keys} of the stored {@link Model}.
+     * @param dimensions The {@link Dimensions} of the desired {@link Model}.
+     * @return The stored model's version or <code>null</code> if the model was not found or its version is unknown.
+     * @see Context#getModelVersion(Keys, Dimensions)
+     */
+    ModelVersion getVersion(final Keys keys, final Dimensions dimensions);
+
     /**
      * Get the Context that loaded this {@link Service}.
      *
@@ -132,6 +173,23 @@ public interface Service {
      */
     Model save(final Model model) throws UnsupportedOperationException;
 
+    /**
+     * <p>
+     * Saves (upserts) each of the specified {@link Model}s, as if by calling {@link #save(Model)} for each of them.
+     * </p>
+     * <p>
+     * Implementations that are able to save several models with a single backend request (e.g. a batched database
+     * write) should do so. The {@link AbstractService} implements this method by calling {@link #save(Model)} for each
+     * of the models.
+     * </p>
+     *
+     * @param models The {@link Model}s to be persisted.
+     * @return The saved {@link Model}s, in the order that they were specified.
+     * @throws UnsupportedOperationException Thrown if the save operation is not supported by this {@link Service}.
+     * @see #save(Model)
+     */
+    List<Model> saveAll(final Collection<Model> models) throws UnsupportedOperationException;
+
     /**
      * <p>
      * This method may be considered <i>optional</i>.
@@ -144,6 +202,28 @@ public interface Service {
      */
     Set<Model> search(final SearchCriteria searchCriteria) throws UnsupportedOperationException;
 
+    /**
+     * <p>
+     * Opens a search that streams its results; the matching {@link Model}s are read from the backend as the returned
+     * {@link SearchResults} are iterated. The {@link SearchCriteria}'s limit, offset and continuation token select the
+     * page of results.
+     * </p>
+     * <p>
+     * Implementations that are able to read the results incrementally (e.g. with a database cursor) should do so. The
+     * {@link AbstractService} implements this method by paging the {@link Set} returned by {@link #search(SearchCriteria)}.
+     * </p>
+     * <p>
+     * This method may be considered <i>optional</i>.
+     * Implementations that cannot support this operation may throw {@link UnsupportedOperationException} upon invocation.
+     * </p>
+     *
+     * @param searchCriteria The {@link org.wrml.runtime.search.SearchCriteria}.
+     * @return The (open) {@link SearchResults}, which must be iterated to the end or closed.
+     * @throws UnsupportedOperationException Thrown if the search operation is not supported by this {@link Service}.
+     * @see #search(SearchCriteria)
+     */
+    SearchResults openSearch(final SearchCriteria searchCriteria) throws UnsupportedOperationException;
+
     /**
      * <p>
      * Invokes the functional model with the (optional) parameter model.
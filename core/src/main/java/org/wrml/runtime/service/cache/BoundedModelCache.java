@@ -0,0 +1,783 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wrml.model.Model;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.Keys;
+import org.wrml.runtime.service.AbstractService;
+import org.wrml.runtime.service.ServiceConfiguration;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * A {@link ModelCache} implementation that, like the {@link ShardedModelCache}, maps each {@link Schema}-declared key
+ * value to a model heap id, but which also bounds the number of models (and/or their approximate weight in bytes) that
+ * it will hold.
+ * </p>
+ * <p>
+ * Eviction follows a <i>segmented LRU</i> policy. Newly cached models enter a "probation" segment and are promoted to a
+ * "protected" segment when they are read again. Victims are always taken from the probation segment first, which keeps
+ * a one-off scan of many distinct documents from flushing the hot working set out of the cache.
+ * </p>
+ * <p>
+ * Cached models may also expire, either a fixed time after they were saved (time-to-live) or after they have not been
+ * read for a while (time-to-idle). Both may be overridden per {@link Schema} by appending a schema URI to the setting's
+ * name.
+ * </p>
+ * <p>
+ * <b>Configuration:</b>
+ * </p>
+ * <p>
+ * <code>
+ * <p/>
+ * "context" :
+ * {
+ * <p/>
+ * "modelCache" :
+ * {
+ * "name" : "Cache",
+ * "implementation" : "org.wrml.runtime.service.cache.BoundedModelCache",
+ * "settings" :
+ * {
+ * "maximumSize" : "10000",
+ * "maximumWeight" : "268435456",
+ * "timeToLive" : "600000",
+ * "timeToIdle" : "120000",
+ * "timeToLive.http://schema.api.wrml.org/org/example/Weather" : "30000"
+ * }
+ * }
+ * <p/>
+ * }
+ * </code>
+ * </p>
+ * <p>
+ * All times are in milliseconds and all settings are optional; a value of <code>0</code> disables the associated
+ * bound.
+ * </p>
+ *
+ * @see org.wrml.model.schema.Schema
+ */
+public class BoundedModelCache extends AbstractService implements ModelCache {
+
+    public static final String MAXIMUM_SIZE_SETTING_NAME = "maximumSize";
+
+    public static final String MAXIMUM_WEIGHT_SETTING_NAME = "maximumWeight";
+
+    public static final String TIME_TO_LIVE_SETTING_NAME = "timeToLive";
+
+    public static final String TIME_TO_IDLE_SETTING_NAME = "timeToIdle";
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10000L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(BoundedModelCache.class);
+
+    /**
+     * The share of the cache's capacity that is reserved for models that have been read at least twice.
+     */
+    private static final double PROTECTED_SEGMENT_RATIO = 0.8;
+
+    /**
+     * The depth to which nested models are followed when estimating a model's weight.
+     */
+    private static final int MAXIMUM_WEIGHING_DEPTH = 8;
+
+    /**
+     * Mapping of Model heap id to cache entry.
+     */
+    private final ConcurrentHashMap<UUID, Entry> _Entries;
+
+    /**
+     * Mapping of Schema URI to Shard (Mapping of Schema-declared Key value to Model heap id).
+     */
+    private final ConcurrentHashMap<URI, ConcurrentHashMap<Object, UUID>> _Shards;
+
+    /**
+     * Guards the eviction policy's segments and weight tally.
+     */
+    private final ReentrantLock _PolicyLock;
+
+    private final LinkedHashMap<UUID, Entry> _ProbationSegment;
+
+    private final LinkedHashMap<UUID, Entry> _ProtectedSegment;
+
+    private final Map<URI, Long> _SchemaTimeToLive;
+
+    private final Map<URI, Long> _SchemaTimeToIdle;
+
+    private final AtomicLong _HitCount;
+
+    private final AtomicLong _MissCount;
+
+    private final AtomicLong _LoadCount;
+
+    private final AtomicLong _EvictionCount;
+
+    private final AtomicLong _ExpirationCount;
+
+    private long _Weight;
+
+    private long _ProtectedWeight;
+
+    private long _MaximumSize;
+
+    private long _MaximumWeight;
+
+    private long _TimeToLive;
+
+    private long _TimeToIdle;
+
+    public BoundedModelCache() {
+
+        _Entries = new ConcurrentHashMap<>();
+        _Shards = new ConcurrentHashMap<>();
+        _PolicyLock = new ReentrantLock();
+
+        // Access-ordered, so that the eldest entry is always the least recently used one.
+        _ProbationSegment = new LinkedHashMap<>(16, 0.75f, true);
+        _ProtectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+        _SchemaTimeToLive = new HashMap<>();
+        _SchemaTimeToIdle = new HashMap<>();
+
+        _HitCount = new AtomicLong();
+        _MissCount = new AtomicLong();
+        _LoadCount = new AtomicLong();
+        _EvictionCount = new AtomicLong();
+        _ExpirationCount = new AtomicLong();
+
+        _MaximumSize = DEFAULT_MAXIMUM_SIZE;
+    }
+
+    @Override
+    public void clear() {
+
+        // The entries are cleared along with the policy, so that a concurrent save cannot add an entry to the (cleared)
+        // policy that is no longer in the entries map.
+        _PolicyLock.lock();
+        try {
+            _ProbationSegment.clear();
+            _ProtectedSegment.clear();
+            _Weight = 0;
+            _ProtectedWeight = 0;
+            _Entries.clear();
+        }
+        finally {
+            _PolicyLock.unlock();
+        }
+
+        _Shards.clear();
+    }
+
+    @Override
+    public boolean contains(final Keys keys, final Dimensions requestedDimensions) {
+
+        final Entry entry = getCachedEntry(keys);
+        return entry != null && !entry.isExpired(System.currentTimeMillis());
+    }
+
+    @Override
+    public void delete(final Keys keys, final Dimensions dimensions) {
+
+        final Entry entry = getCachedEntry(keys);
+        if (entry != null) {
+            invalidate(entry);
+        }
+    }
+
+    @Override
+    public Model get(final Keys keys, final Dimensions dimensions) {
+
+        final Entry entry = getCachedEntry(keys);
+        if (entry == null) {
+            _MissCount.incrementAndGet();
+            return null;
+        }
+
+        final long now = System.currentTimeMillis();
+        if (entry.isExpired(now)) {
+            if (invalidate(entry)) {
+                _ExpirationCount.incrementAndGet();
+            }
+
+            _MissCount.incrementAndGet();
+            return null;
+        }
+
+        recordAccess(entry, now);
+        _HitCount.incrementAndGet();
+        return entry.getModel();
+    }
+
+    public long getMaximumSize() {
+
+        return _MaximumSize;
+    }
+
+    public long getMaximumWeight() {
+
+        return _MaximumWeight;
+    }
+
+    @Override
+    public ModelCacheStatistics getStatistics() {
+
+        final long entryCount;
+        final long weight;
+
+        _PolicyLock.lock();
+        try {
+            entryCount = _ProbationSegment.size() + _ProtectedSegment.size();
+            weight = _Weight;
+        }
+        finally {
+            _PolicyLock.unlock();
+        }
+
+        return new ModelCacheStatistics(_HitCount.get(), _MissCount.get(), _LoadCount.get(), _EvictionCount.get(), _ExpirationCount.get(),
+                entryCount, weight);
+    }
+
+    @Override
+    public Model save(final Model model) {
+
+        final Keys keys = model.getKeys();
+        final UUID heapId = model.getHeapId();
+        final URI schemaUri = model.getSchemaUri();
+
+        final long weight = (_MaximumWeight > 0) ? estimateWeight(model, 0, new HashSet<UUID>()) : 0;
+        final Entry entry = new Entry(heapId, model, keys, weight, System.currentTimeMillis(), getTimeToLive(schemaUri), getTimeToIdle(schemaUri));
+        final Entry previous = _Entries.put(heapId, entry);
+
+        final boolean added;
+        _PolicyLock.lock();
+        try {
+            if (previous != null) {
+                removeFromPolicy(previous);
+            }
+
+            added = addToPolicy(entry);
+        }
+        finally {
+            _PolicyLock.unlock();
+        }
+
+        if (previous != null) {
+            unlinkKeys(previous, keys);
+        }
+
+        if (added) {
+            linkKeys(entry);
+        }
+
+        _LoadCount.incrementAndGet();
+        evictIfNeeded();
+        return model;
+    }
+
+    @Override
+    protected void initFromConfiguration(final ServiceConfiguration config) {
+
+        final Map<String, String> settings = (config != null) ? config.getSettings() : null;
+        if (settings == null) {
+            return;
+        }
+
+        _MaximumSize = parseLongSetting(settings, MAXIMUM_SIZE_SETTING_NAME, DEFAULT_MAXIMUM_SIZE);
+        _MaximumWeight = parseLongSetting(settings, MAXIMUM_WEIGHT_SETTING_NAME, 0);
+        _TimeToLive = parseLongSetting(settings, TIME_TO_LIVE_SETTING_NAME, 0);
+        _TimeToIdle = parseLongSetting(settings, TIME_TO_IDLE_SETTING_NAME, 0);
+
+        final String timeToLivePrefix = TIME_TO_LIVE_SETTING_NAME + ".";
+        final String timeToIdlePrefix = TIME_TO_IDLE_SETTING_NAME + ".";
+
+        for (final String settingName : settings.keySet()) {
+            if (settingName.startsWith(timeToLivePrefix)) {
+                final URI schemaUri = URI.create(settingName.substring(timeToLivePrefix.length()));
+                _SchemaTimeToLive.put(schemaUri, parseLongSetting(settings, settingName, _TimeToLive));
+            }
+            else if (settingName.startsWith(timeToIdlePrefix)) {
+                final URI schemaUri = URI.create(settingName.substring(timeToIdlePrefix.length()));
+                _SchemaTimeToIdle.put(schemaUri, parseLongSetting(settings, settingName, _TimeToIdle));
+            }
+        }
+
+        LOG.info("Bounded model cache - maximum size: {}, maximum weight: {}, time to live: {}, time to idle: {}",
+                new Object[]{_MaximumSize, _MaximumWeight, _TimeToLive, _TimeToIdle});
+    }
+
+    /**
+     * Must be called while holding the policy lock.
+     * <p/>
+     * The entry is only added if it is still the current entry for its heap id. Another thread may have invalidated (or
+     * superseded) it after it was put in the entries map, but before this call; adding it anyway would leave an orphan in
+     * the policy, counting towards the cache's bounds. Every removal from the entries map is followed by a removal from
+     * the policy under the lock, so the check cannot go stale while the lock is held.
+     *
+     * @return <code>true</code> if the entry was added.
+     */
+    private boolean addToPolicy(final Entry entry) {
+
+        if (_Entries.get(entry.getHeapId()) != entry) {
+            return false;
+        }
+
+        entry._Segment = Segment.PROBATION;
+        _ProbationSegment.put(entry.getHeapId(), entry);
+        _Weight += entry.getWeight();
+        return true;
+    }
+
+    /**
+     * Roughly estimates the number of bytes retained by the specified slot value, following nested models and
+     * collections down to a fixed depth.
+     */
+    private long estimateWeight(final Object value, final int depth, final Set<UUID> visitedHeapIds) {
+
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof String) {
+            return 40 + 2 * ((String) value).length();
+        }
+
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return 16;
+        }
+
+        if (value instanceof Enum) {
+            // Shared constant
+            return 0;
+        }
+
+        if (value instanceof URI) {
+            return 80 + 2 * value.toString().length();
+        }
+
+        if (depth >= MAXIMUM_WEIGHING_DEPTH) {
+            return 16;
+        }
+
+        if (value instanceof Model) {
+            final Model model = (Model) value;
+            if (!visitedHeapIds.add(model.getHeapId())) {
+                // Shared (or cyclic) model state is only counted once.
+                return 16;
+            }
+
+            long weight = 160;
+            final Map<String, Object> slotMap = model.getSlotMap();
+            for (final Object slotValue : slotMap.values()) {
+                weight += 48 + estimateWeight(slotValue, depth + 1, visitedHeapIds);
+            }
+
+            return weight;
+        }
+
+        if (value instanceof Collection) {
+            long weight = 48;
+            for (final Object element : (Collection<?>) value) {
+                weight += 16 + estimateWeight(element, depth + 1, visitedHeapIds);
+            }
+
+            return weight;
+        }
+
+        if (value instanceof Map) {
+            long weight = 64;
+            for (final Map.Entry<?, ?> mapEntry : ((Map<?, ?>) value).entrySet()) {
+                weight += 32 + estimateWeight(mapEntry.getKey(), depth + 1, visitedHeapIds) + estimateWeight(mapEntry.getValue(), depth + 1, visitedHeapIds);
+            }
+
+            return weight;
+        }
+
+        return 32;
+    }
+
+    private void evictIfNeeded() {
+
+        List<Entry> victims = null;
+
+        _PolicyLock.lock();
+        try {
+            final long now = System.currentTimeMillis();
+
+            // Opportunistically drop expired entries that have drifted to the cold end of probation.
+            while (!_ProbationSegment.isEmpty()) {
+                final Entry eldest = _ProbationSegment.values().iterator().next();
+                if (!eldest.isExpired(now)) {
+                    break;
+                }
+
+                removeFromPolicy(eldest);
+                if (_Entries.remove(eldest.getHeapId(), eldest)) {
+                    _ExpirationCount.incrementAndGet();
+                    victims = addVictim(victims, eldest);
+                }
+            }
+
+            while (isOverBounds()) {
+                final Entry victim;
+                if (!_ProbationSegment.isEmpty()) {
+                    victim = _ProbationSegment.values().iterator().next();
+                }
+                else if (!_ProtectedSegment.isEmpty()) {
+                    victim = _ProtectedSegment.values().iterator().next();
+                }
+                else {
+                    break;
+                }
+
+                removeFromPolicy(victim);
+                if (_Entries.remove(victim.getHeapId(), victim)) {
+                    _EvictionCount.incrementAndGet();
+                    victims = addVictim(victims, victim);
+                }
+            }
+        }
+        finally {
+            _PolicyLock.unlock();
+        }
+
+        if (victims != null) {
+            for (final Entry victim : victims) {
+                unlinkKeys(victim, null);
+            }
+        }
+    }
+
+    private List<Entry> addVictim(final List<Entry> victims, final Entry victim) {
+
+        final List<Entry> list = (victims != null) ? victims : new ArrayList<Entry>();
+        list.add(victim);
+        return list;
+    }
+
+    private Entry getCachedEntry(final Keys keys) {
+
+        final Set<URI> keyedSchemaUris = keys.getKeyedSchemaUris();
+        for (final URI keyedSchemaUri : keyedSchemaUris) {
+            if (keyedSchemaUri == null) {
+                continue;
+            }
+
+            final ConcurrentHashMap<Object, UUID> shard = _Shards.get(keyedSchemaUri);
+            if (shard == null) {
+                continue;
+            }
+
+            final Object key = keys.getValue(keyedSchemaUri);
+            if (key == null) {
+                continue;
+            }
+
+            final UUID heapId = shard.get(key);
+            if (heapId == null) {
+                continue;
+            }
+
+            final Entry entry = _Entries.get(heapId);
+            if (entry != null) {
+                return entry;
+            }
+
+            // The key outlived its model; tidy up the stale link.
+            shard.remove(key, heapId);
+        }
+
+        return null;
+    }
+
+    private long getTimeToIdle(final URI schemaUri) {
+
+        final Long timeToIdle = (schemaUri != null) ? _SchemaTimeToIdle.get(schemaUri) : null;
+        return (timeToIdle != null) ? timeToIdle : _TimeToIdle;
+    }
+
+    private long getTimeToLive(final URI schemaUri) {
+
+        final Long timeToLive = (schemaUri != null) ? _SchemaTimeToLive.get(schemaUri) : null;
+        return (timeToLive != null) ? timeToLive : _TimeToLive;
+    }
+
+    private boolean invalidate(final Entry entry) {
+
+        if (!_Entries.remove(entry.getHeapId(), entry)) {
+            return false;
+        }
+
+        _PolicyLock.lock();
+        try {
+            removeFromPolicy(entry);
+        }
+        finally {
+            _PolicyLock.unlock();
+        }
+
+        unlinkKeys(entry, null);
+        return true;
+    }
+
+    /**
+     * Must be called while holding the policy lock.
+     */
+    private boolean isOverBounds() {
+
+        if (_MaximumSize > 0 && (_ProbationSegment.size() + _ProtectedSegment.size()) > _MaximumSize) {
+            return true;
+        }
+
+        return _MaximumWeight > 0 && _Weight > _MaximumWeight;
+    }
+
+    private void linkKeys(final Entry entry) {
+
+        final UUID heapId = entry.getHeapId();
+        final Keys keys = entry.getKeys();
+        if (keys == null) {
+            return;
+        }
+
+        for (final URI keyedSchemaUri : keys.getKeyedSchemaUris()) {
+            if (keyedSchemaUri == null) {
+                continue;
+            }
+
+            final Object key = keys.getValue(keyedSchemaUri);
+            if (key == null) {
+                continue;
+            }
+
+            ConcurrentHashMap<Object, UUID> shard = _Shards.get(keyedSchemaUri);
+            if (shard == null) {
+                final ConcurrentHashMap<Object, UUID> newShard = new ConcurrentHashMap<>();
+                shard = _Shards.putIfAbsent(keyedSchemaUri, newShard);
+                if (shard == null) {
+                    shard = newShard;
+                }
+            }
+
+            final UUID displacedHeapId = shard.put(key, heapId);
+            if (displacedHeapId != null && !displacedHeapId.equals(heapId)) {
+                // A different model instance was cached under this key; it has been superseded so drop it entirely
+                // rather than leaving it reachable through its other keys.
+                final Entry displaced = _Entries.get(displacedHeapId);
+                if (displaced != null) {
+                    invalidate(displaced);
+                }
+            }
+        }
+    }
+
+    private long parseLongSetting(final Map<String, String> settings, final String settingName, final long defaultValue) {
+
+        final String settingValue = settings.get(settingName);
+        if (settingValue == null || settingValue.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(settingValue.trim());
+        }
+        catch (final NumberFormatException e) {
+            throw new ModelCacheException("The \"" + settingName + "\" setting must be a whole number, not: " + settingValue, e, this);
+        }
+    }
+
+    private void recordAccess(final Entry entry, final long now) {
+
+        entry._AccessTime = now;
+
+        // Reordering is best-effort; a contended read simply skips it rather than waiting on the lock.
+        if (!_PolicyLock.tryLock()) {
+            return;
+        }
+
+        try {
+            if (entry._Segment == Segment.PROBATION) {
+                _ProbationSegment.remove(entry.getHeapId());
+                entry._Segment = Segment.PROTECTED;
+                _ProtectedSegment.put(entry.getHeapId(), entry);
+                _ProtectedWeight += entry.getWeight();
+
+                // Demote the coldest protected entries back into probation if the protected segment is now too big.
+                final long maximumProtectedSize = (long) (_MaximumSize * PROTECTED_SEGMENT_RATIO);
+                final long maximumProtectedWeight = (long) (_MaximumWeight * PROTECTED_SEGMENT_RATIO);
+                while (_ProtectedSegment.size() > 1
+                        && ((_MaximumSize > 0 && _ProtectedSegment.size() > maximumProtectedSize) || (_MaximumWeight > 0 && _ProtectedWeight > maximumProtectedWeight))) {
+
+                    final Entry demoted = _ProtectedSegment.values().iterator().next();
+                    _ProtectedSegment.remove(demoted.getHeapId());
+                    _ProtectedWeight -= demoted.getWeight();
+                    demoted._Segment = Segment.PROBATION;
+                    _ProbationSegment.put(demoted.getHeapId(), demoted);
+                }
+            }
+            else if (entry._Segment == Segment.PROTECTED) {
+                // Touch to move it to the most recently used end.
+                _ProtectedSegment.get(entry.getHeapId());
+            }
+        }
+        finally {
+            _PolicyLock.unlock();
+        }
+    }
+
+    /**
+     * Must be called while holding the policy lock.
+     */
+    private void removeFromPolicy(final Entry entry) {
+
+        if (entry._Segment == Segment.PROBATION) {
+            _ProbationSegment.remove(entry.getHeapId());
+        }
+        else if (entry._Segment == Segment.PROTECTED) {
+            _ProtectedSegment.remove(entry.getHeapId());
+            _ProtectedWeight -= entry.getWeight();
+        }
+        else {
+            return;
+        }
+
+        entry._Segment = Segment.NONE;
+        _Weight -= entry.getWeight();
+    }
+
+    /**
+     * Removes the entry's key links (those that still reference its heap id), skipping any that are also present in
+     * the (optional) retained keys.
+     */
+    private void unlinkKeys(final Entry entry, final Keys retainedKeys) {
+
+        final UUID heapId = entry.getHeapId();
+        final Keys keys = entry.getKeys();
+        if (keys == null) {
+            return;
+        }
+
+        for (final URI keyedSchemaUri : keys.getKeyedSchemaUris()) {
+            if (keyedSchemaUri == null) {
+                continue;
+            }
+
+            final Object key = keys.getValue(keyedSchemaUri);
+            if (key == null) {
+                continue;
+            }
+
+            if (retainedKeys != null && key.equals(retainedKeys.getValue(keyedSchemaUri))) {
+                continue;
+            }
+
+            final ConcurrentHashMap<Object, UUID> shard = _Shards.get(keyedSchemaUri);
+            if (shard != null) {
+                shard.remove(key, heapId);
+            }
+        }
+    }
+
+    private static enum Segment {
+        NONE,
+        PROBATION,
+        PROTECTED
+    }
+
+    private static final class Entry {
+
+        private final UUID _HeapId;
+
+        private final Model _Model;
+
+        private final Keys _Keys;
+
+        private final long _Weight;
+
+        private final long _WriteTime;
+
+        private final long _TimeToLive;
+
+        private final long _TimeToIdle;
+
+        private volatile long _AccessTime;
+
+        /**
+         * Guarded by the policy lock.
+         */
+        private Segment _Segment;
+
+        Entry(final UUID heapId, final Model model, final Keys keys, final long weight, final long writeTime, final long timeToLive,
+              final long timeToIdle) {
+
+            _HeapId = heapId;
+            _Model = model;
+            _Keys = keys;
+            _Weight = weight;
+            _WriteTime = writeTime;
+            _AccessTime = writeTime;
+            _TimeToLive = timeToLive;
+            _TimeToIdle = timeToIdle;
+            _Segment = Segment.NONE;
+        }
+
+        UUID getHeapId() {
+
+            return _HeapId;
+        }
+
+        Keys getKeys() {
+
+            return _Keys;
+        }
+
+        Model getModel() {
+
+            return _Model;
+        }
+
+        long getWeight() {
+
+            return _Weight;
+        }
+
+        boolean isExpired(final long now) {
+
+            if (_TimeToLive > 0 && now - _WriteTime >= _TimeToLive) {
+                return true;
+            }
+
+            return _TimeToIdle > 0 && now - _AccessTime >= _TimeToIdle;
+        }
+    }
+
+}
@@ -37,4 +37,11 @@ public interface ModelCache extends Service {
 
     boolean contains(final Keys keys, final Dimensions requestedDimensions);
 
+    /**
+     * A snapshot of this cache's hit, miss, load and eviction counters.
+     *
+     * @return the current {@link ModelCacheStatistics}.
+     */
+    ModelCacheStatistics getStatistics();
+
 }
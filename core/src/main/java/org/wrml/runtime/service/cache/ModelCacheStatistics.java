@@ -0,0 +1,134 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.cache;
+
+/**
+ * An immutable snapshot of a {@link ModelCache}'s counters, intended to help size a cache for production use.
+ */
+public final class ModelCacheStatistics {
+
+    private final long _HitCount;
+
+    private final long _MissCount;
+
+    private final long _LoadCount;
+
+    private final long _EvictionCount;
+
+    private final long _ExpirationCount;
+
+    private final long _EntryCount;
+
+    private final long _Weight;
+
+    public ModelCacheStatistics(final long hitCount, final long missCount, final long loadCount, final long evictionCount,
+                                final long expirationCount, final long entryCount, final long weight) {
+
+        _HitCount = hitCount;
+        _MissCount = missCount;
+        _LoadCount = loadCount;
+        _EvictionCount = evictionCount;
+        _ExpirationCount = expirationCount;
+        _EntryCount = entryCount;
+        _Weight = weight;
+    }
+
+    /**
+     * The number of cache lookups that returned a cached model.
+     */
+    public long getHitCount() {
+
+        return _HitCount;
+    }
+
+    /**
+     * The number of cache lookups that did not find a (live) cached model.
+     */
+    public long getMissCount() {
+
+        return _MissCount;
+    }
+
+    /**
+     * The number of models that have been saved into the cache.
+     */
+    public long getLoadCount() {
+
+        return _LoadCount;
+    }
+
+    /**
+     * The number of models that were removed to keep the cache within its size and/or weight bounds.
+     */
+    public long getEvictionCount() {
+
+        return _EvictionCount;
+    }
+
+    /**
+     * The number of models that were removed because their time-to-live or time-to-idle had elapsed.
+     */
+    public long getExpirationCount() {
+
+        return _ExpirationCount;
+    }
+
+    /**
+     * The number of models currently held by the cache.
+     */
+    public long getEntryCount() {
+
+        return _EntryCount;
+    }
+
+    /**
+     * The approximate number of bytes currently held by the cache (or <code>0</code> if the cache is not weighed).
+     */
+    public long getWeight() {
+
+        return _Weight;
+    }
+
+    public long getRequestCount() {
+
+        return _HitCount + _MissCount;
+    }
+
+    /**
+     * The ratio of hits to lookups, or <code>1.0</code> if the cache has not been asked for anything yet.
+     */
+    public double getHitRate() {
+
+        final long requestCount = getRequestCount();
+        return (requestCount == 0) ? 1.0 : (double) _HitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + " { hits : " + _HitCount + ", misses : " + _MissCount + ", loads : " + _LoadCount + ", evictions : "
+                + _EvictionCount + ", expirations : " + _ExpirationCount + ", entries : " + _EntryCount + ", weight : " + _Weight + "}";
+    }
+}
@@ -32,9 +32,9 @@ import org.wrml.runtime.service.AbstractService;
 import org.wrml.runtime.service.ServiceConfiguration;
 
 import java.net.URI;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>
@@ -72,10 +72,19 @@ public class ShardedModelCache extends AbstractService implements ModelCache {
      */
     private final ConcurrentHashMap<URI, ConcurrentHashMap<Object, UUID>> _Shards;
 
+    private final AtomicLong _HitCount;
+
+    private final AtomicLong _MissCount;
+
+    private final AtomicLong _LoadCount;
+
     public ShardedModelCache() {
 
         _Models = new ConcurrentHashMap<UUID, Model>();
         _Shards = new ConcurrentHashMap<URI, ConcurrentHashMap<Object, UUID>>();
+        _HitCount = new AtomicLong();
+        _MissCount = new AtomicLong();
+        _LoadCount = new AtomicLong();
     }
 
     @Override
@@ -123,11 +132,45 @@ public class ShardedModelCache extends AbstractService implements ModelCache {
     public Model get(final Keys keys, final Dimensions dimensions) {
 
         final UUID heapId = getCachedHeapId(keys);
-        if (heapId == null) {
+        final Model model = (heapId != null) ? _Models.get(heapId) : null;
+        if (model == null) {
+            _MissCount.incrementAndGet();
             return null;
         }
 
-        return _Models.get(heapId);
+        _HitCount.incrementAndGet();
+        return model;
+    }
+
+    /**
+     * Looks up a batch of models; resolving each keyed schema's shard once per batch and updating the hit and miss
+     * counters once.
+     */
+    @Override
+    public Map<Keys, Model> getAll(final Collection<Keys> multipleKeys, final Dimensions dimensions) {
+
+        final Map<Keys, Model> models = new LinkedHashMap<>(multipleKeys.size());
+        final Map<URI, ConcurrentHashMap<Object, UUID>> shards = new HashMap<>();
+
+        long hitCount = 0;
+        for (final Keys keys : multipleKeys) {
+            final UUID heapId = getCachedHeapId(keys, shards);
+            final Model model = (heapId != null) ? _Models.get(heapId) : null;
+            if (model != null) {
+                models.put(keys, model);
+                hitCount++;
+            }
+        }
+
+        _HitCount.addAndGet(hitCount);
+        _MissCount.addAndGet(multipleKeys.size() - hitCount);
+        return models;
+    }
+
+    @Override
+    public ModelCacheStatistics getStatistics() {
+
+        return new ModelCacheStatistics(_HitCount.get(), _MissCount.get(), _LoadCount.get(), 0, 0, _Models.size(), 0);
     }
 
     @Override
@@ -136,6 +179,7 @@ public class ShardedModelCache extends AbstractService implements ModelCache {
         final Keys keys = model.getKeys();
         final UUID heapId = model.getHeapId();
         _Models.put(heapId, model);
+        _LoadCount.incrementAndGet();
 
         final Set<URI> keyedSchemaUris = keys.getKeyedSchemaUris();
         for (final URI keyedSchemaUri : keyedSchemaUris) {
@@ -179,4 +223,30 @@ public class ShardedModelCache extends AbstractService implements ModelCache {
 
         return null;
     }
+
+    private UUID getCachedHeapId(final Keys keys, final Map<URI, ConcurrentHashMap<Object, UUID>> shards) {
+
+        final Set<URI> keyedSchemaUris = keys.getKeyedSchemaUris();
+        for (final URI keyedSchemaUri : keyedSchemaUris) {
+            if (keyedSchemaUri == null) {
+                continue;
+            }
+
+            ConcurrentHashMap<Object, UUID> shard = shards.get(keyedSchemaUri);
+            if (shard == null && !shards.containsKey(keyedSchemaUri)) {
+                shard = _Shards.get(keyedSchemaUri);
+                shards.put(keyedSchemaUri, shard);
+            }
+
+            final Object key = keys.getValue(keyedSchemaUri);
+            if (shard != null && key != null) {
+                final UUID heapId = shard.get(key);
+                if (heapId != null) {
+                    return heapId;
+                }
+            }
+        }
+
+        return null;
+    }
 }
@@ -0,0 +1,438 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * The {@link FileSystemKeyIndex} that keeps the keys in memory (in a hash map) and persists them to a single,
+ * append-only log file (named {@link #LOG_FILE_NAME}) in the service's root directory. A lookup is a hash map
+ * {@link Map#get(Object)}, with no file system calls, and a save appends one record per key to the log.
+ * </p>
+ * <p>
+ * Each log record is framed by its length and a CRC32 checksum, so that a record torn by a crash is detected (and
+ * truncated away) when the log is replayed by {@link #open(Path, Map)}. When the log has accumulated enough records
+ * that are superseded (by later puts and removes) it is compacted: the live keys are written to a new log file, which
+ * is forced to disk and then atomically renamed over the old one. A crash during compaction leaves the old log intact,
+ * and the partially written compaction file is deleted the next time the log is opened.
+ * </p>
+ * <p>
+ * The {@link #main(String[])} method migrates an existing tree of symbolic key links (see
+ * {@link SymbolicLinkKeyIndex}) into the log.
+ * </p>
+ *
+ * @see FileSystemService#KEY_INDEX_SETTING_NAME
+ */
+public final class AppendOnlyLogKeyIndex implements FileSystemKeyIndex {
+
+    public static final String LOG_FILE_NAME = "keys.log";
+
+    /**
+     * The name of the (optional) setting that, when <code>true</code>, forces each appended record to disk before the
+     * save returns. Otherwise a crash of the host (but not of the JVM) may lose the most recently appended keys. The
+     * default is <code>false</code>.
+     */
+    public static final String SYNC_SETTING_NAME = "keyIndexSync";
+
+    /**
+     * The log is not compacted until it has at least this many records.
+     */
+    public static final int COMPACTION_MINIMUM_RECORD_COUNT = 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(AppendOnlyLogKeyIndex.class);
+
+    private static final String COMPACTION_FILE_SUFFIX = ".compact";
+
+    /**
+     * A record type byte and two (modified UTF-8) paths, each at most 65535 bytes long with a two byte length.
+     */
+    private static final int MAXIMUM_PAYLOAD_LENGTH = 1 + 2 * (2 + 65535);
+
+    private static final byte PUT_RECORD = 1;
+
+    private static final byte REMOVE_DATA_FILE_RECORD = 2;
+
+    /**
+     * The data file paths by key link path; both relative to the root directory.
+     */
+    private final Map<String, String> _DataFilePaths;
+
+    /**
+     * The key link paths by data file path; used to remove a deleted data file's keys.
+     */
+    private final Map<String, Set<String>> _KeyLinkPaths;
+
+    private Path _RootDirectoryPath;
+
+    private Path _LogFilePath;
+
+    private FileChannel _LogChannel;
+
+    private boolean _Sync;
+
+    private int _RecordCount;
+
+    public AppendOnlyLogKeyIndex() {
+
+        _DataFilePaths = new HashMap<>();
+        _KeyLinkPaths = new HashMap<>();
+    }
+
+    /**
+     * Imports the symbolic key links found under the root directory (given as the first argument) into its key log,
+     * which is then compacted. The links themselves are left in place.
+     */
+    public static void main(final String[] args) throws Exception {
+
+        final Path rootDirectoryPath = Paths.get(args[0]).toAbsolutePath().normalize();
+        final AppendOnlyLogKeyIndex keyIndex = new AppendOnlyLogKeyIndex();
+        keyIndex.open(rootDirectoryPath, new HashMap<String, String>());
+        try {
+            final int importCount = keyIndex.importKeyLinks();
+            keyIndex.compact();
+            System.out.println("Imported " + importCount + " key links into: " + keyIndex.getLogFilePath());
+        }
+        finally {
+            keyIndex.close();
+        }
+    }
+
+    @Override
+    public synchronized void open(final Path rootDirectoryPath, final Map<String, String> settings) throws IOException {
+
+        _RootDirectoryPath = rootDirectoryPath;
+        _LogFilePath = rootDirectoryPath.resolve(LOG_FILE_NAME);
+        _Sync = settings.containsKey(SYNC_SETTING_NAME) && Boolean.parseBoolean(settings.get(SYNC_SETTING_NAME).trim());
+
+        // A compaction file is only left behind by an interrupted compaction, which did not replace the log.
+        Files.deleteIfExists(getCompactionFilePath());
+
+        final long validLength = Files.exists(_LogFilePath) ? replay() : 0L;
+
+        _LogChannel = FileChannel.open(_LogFilePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (_LogChannel.size() > validLength) {
+            LOG.warn("Truncating the torn tail of the key log: {} ({} bytes)", _LogFilePath, _LogChannel.size() - validLength);
+            _LogChannel.truncate(validLength);
+        }
+
+        _LogChannel.position(validLength);
+        compactIfNeeded();
+    }
+
+    @Override
+    public synchronized Path getDataFilePath(final Path keyLinkPath) {
+
+        final String dataFilePath = _DataFilePaths.get(toEntry(keyLinkPath));
+        return (dataFilePath != null) ? toPath(dataFilePath) : null;
+    }
+
+    @Override
+    public synchronized void put(final Path keyLinkPath, final Path dataFilePath) throws IOException {
+
+        final String keyLinkEntry = toEntry(keyLinkPath);
+        final String dataFileEntry = toEntry(dataFilePath);
+        if (dataFileEntry.equals(_DataFilePaths.get(keyLinkEntry))) {
+            return;
+        }
+
+        append(encodeRecord(PUT_RECORD, keyLinkEntry, dataFileEntry));
+        applyPut(keyLinkEntry, dataFileEntry);
+        compactIfNeeded();
+    }
+
+    @Override
+    public synchronized void removeDataFile(final Path dataFilePath) throws IOException {
+
+        final String dataFileEntry = toEntry(dataFilePath);
+        if (!_KeyLinkPaths.containsKey(dataFileEntry)) {
+            return;
+        }
+
+        append(encodeRecord(REMOVE_DATA_FILE_RECORD, dataFileEntry, null));
+        applyRemoveDataFile(dataFileEntry);
+        compactIfNeeded();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (_LogChannel != null) {
+            _LogChannel.close();
+            _LogChannel = null;
+        }
+    }
+
+    /**
+     * Rewrites the log with only the live keys, replacing the old log with an atomic rename.
+     */
+    public synchronized void compact() throws IOException {
+
+        final Path compactionFilePath = getCompactionFilePath();
+        int recordCount = 0;
+        try (final FileChannel compactionChannel = FileChannel.open(compactionFilePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+            for (final Map.Entry<String, String> entry : _DataFilePaths.entrySet()) {
+                buffer.write(encodeRecord(PUT_RECORD, entry.getKey(), entry.getValue()));
+                recordCount++;
+                if (buffer.size() >= 64 * 1024) {
+                    write(compactionChannel, buffer.toByteArray());
+                    buffer.reset();
+                }
+            }
+
+            write(compactionChannel, buffer.toByteArray());
+            compactionChannel.force(true);
+        }
+
+        _LogChannel.close();
+        try {
+            Files.move(compactionFilePath, _LogFilePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            _RecordCount = recordCount;
+        }
+        finally {
+            _LogChannel = FileChannel.open(_LogFilePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            _LogChannel.position(_LogChannel.size());
+        }
+
+        LOG.debug("Compacted the key log: {} ({} keys)", _LogFilePath, recordCount);
+    }
+
+    public Path getLogFilePath() {
+
+        return _LogFilePath;
+    }
+
+    /**
+     * Puts each of the symbolic links (to existing files) found under the root directory.
+     *
+     * @return The number of links imported.
+     */
+    public synchronized int importKeyLinks() throws IOException {
+
+        final int[] importCount = new int[1];
+        Files.walkFileTree(_RootDirectoryPath, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+
+                if (attrs.isSymbolicLink()) {
+                    final Path dataFilePath = file.getParent().resolve(Files.readSymbolicLink(file)).normalize();
+                    if (Files.isRegularFile(dataFilePath)) {
+                        put(file, dataFilePath);
+                        importCount[0]++;
+                    }
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return importCount[0];
+    }
+
+    private void append(final byte[] record) throws IOException {
+
+        write(_LogChannel, record);
+        if (_Sync) {
+            _LogChannel.force(false);
+        }
+
+        _RecordCount++;
+    }
+
+    private void applyPut(final String keyLinkEntry, final String dataFileEntry) {
+
+        final String previousDataFileEntry = _DataFilePaths.put(keyLinkEntry, dataFileEntry);
+        if (previousDataFileEntry != null) {
+            final Set<String> previousKeyLinkEntries = _KeyLinkPaths.get(previousDataFileEntry);
+            if (previousKeyLinkEntries != null) {
+                previousKeyLinkEntries.remove(keyLinkEntry);
+                if (previousKeyLinkEntries.isEmpty()) {
+                    _KeyLinkPaths.remove(previousDataFileEntry);
+                }
+            }
+        }
+
+        Set<String> keyLinkEntries = _KeyLinkPaths.get(dataFileEntry);
+        if (keyLinkEntries == null) {
+            keyLinkEntries = new HashSet<>(2);
+            _KeyLinkPaths.put(dataFileEntry, keyLinkEntries);
+        }
+
+        keyLinkEntries.add(keyLinkEntry);
+    }
+
+    private void applyRemoveDataFile(final String dataFileEntry) {
+
+        final Set<String> keyLinkEntries = _KeyLinkPaths.remove(dataFileEntry);
+        if (keyLinkEntries != null) {
+            for (final String keyLinkEntry : keyLinkEntries) {
+                _DataFilePaths.remove(keyLinkEntry);
+            }
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+
+        if (_RecordCount >= COMPACTION_MINIMUM_RECORD_COUNT && _RecordCount > 2 * _DataFilePaths.size()) {
+            compact();
+        }
+    }
+
+    private Path getCompactionFilePath() {
+
+        return _LogFilePath.resolveSibling(LOG_FILE_NAME + COMPACTION_FILE_SUFFIX);
+    }
+
+    /**
+     * Reads the log's records into memory.
+     *
+     * @return The length of the log's valid records; any bytes beyond it are a torn (or corrupt) record.
+     */
+    private long replay() throws IOException {
+
+        long validLength = 0L;
+        _RecordCount = 0;
+        final CRC32 crc = new CRC32();
+        try (final InputStream in = new BufferedInputStream(Files.newInputStream(_LogFilePath), 64 * 1024)) {
+
+            final DataInputStream dataIn = new DataInputStream(in);
+            while (true) {
+                final byte[] payload;
+                try {
+                    final int payloadLength = dataIn.readInt();
+                    if (payloadLength <= 0 || payloadLength > MAXIMUM_PAYLOAD_LENGTH) {
+                        break;
+                    }
+
+                    payload = new byte[payloadLength];
+                    dataIn.readFully(payload);
+                    crc.reset();
+                    crc.update(payload, 0, payloadLength);
+                    if (dataIn.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                }
+                catch (final EOFException e) {
+                    break;
+                }
+
+                final DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(payload));
+                final byte recordType = recordIn.readByte();
+                if (recordType == PUT_RECORD) {
+                    applyPut(recordIn.readUTF(), recordIn.readUTF());
+                }
+                else if (recordType == REMOVE_DATA_FILE_RECORD) {
+                    applyRemoveDataFile(recordIn.readUTF());
+                }
+                else {
+                    break;
+                }
+
+                validLength += 8 + payload.length;
+                _RecordCount++;
+            }
+        }
+        return validLength;
+    }
+
+    private String toEntry(final Path path) {
+
+        final Path relativePath = _RootDirectoryPath.relativize(path);
+        final StringBuilder entry = new StringBuilder();
+        for (final Path name : relativePath) {
+            if (entry.length() > 0) {
+                entry.append('/');
+            }
+
+            entry.append(name.toString());
+        }
+
+        return entry.toString();
+    }
+
+    private Path toPath(final String entry) {
+
+        return _RootDirectoryPath.resolve(entry).normalize();
+    }
+
+    private static byte[] encodeRecord(final byte recordType, final String first, final String second) throws IOException {
+
+        final ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(128);
+        final DataOutputStream payloadOut = new DataOutputStream(payloadBytes);
+        payloadOut.writeByte(recordType);
+        payloadOut.writeUTF(first);
+        if (second != null) {
+            payloadOut.writeUTF(second);
+        }
+
+        final byte[] payload = payloadBytes.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(payload.length + 8);
+        final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+        recordOut.writeInt(payload.length);
+        recordOut.write(payload);
+        recordOut.writeInt((int) crc.getValue());
+        return recordBytes.toByteArray();
+    }
+
+    private static void write(final FileChannel channel, final byte[] bytes) throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * <p>
+ * The {@link FileSystemService}'s index of model keys, which maps each key's "key link" {@link Path} (see the
+ * {@link FileSystemService} description of the <i>keys</i> directories) to the {@link Path} of the model's data file.
+ * </p>
+ * <p>
+ * The key link paths are computed from the key values (without touching the file system), so an implementation
+ * decides whether the keys are actually stored as links. The {@link SymbolicLinkKeyIndex} (the default) stores each
+ * key as a symbolic link file, while the {@link AppendOnlyLogKeyIndex} stores them all in a single log file that is
+ * read into memory when the service starts.
+ * </p>
+ *
+ * @see FileSystemService#KEY_INDEX_SETTING_NAME
+ */
+public interface FileSystemKeyIndex extends Closeable {
+
+    /**
+     * Prepares the index for use, given the service's root directory and configuration settings.
+     */
+    void open(Path rootDirectoryPath, Map<String, String> settings) throws IOException;
+
+    /**
+     * Gets the path of the data file that the key link path references, or <code>null</code> if the key is not indexed.
+     */
+    Path getDataFilePath(Path keyLinkPath) throws IOException;
+
+    /**
+     * Indexes the key link path as a reference to the data file; replacing any previous reference.
+     */
+    void put(Path keyLinkPath, Path dataFilePath) throws IOException;
+
+    /**
+     * Removes the keys that reference the (deleted) data file. An index that cannot find these keys may leave them,
+     * provided that {@link #getDataFilePath(Path)} does not return a data file that no longer exists.
+     */
+    void removeDataFile(Path dataFilePath) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,669 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.file;
+
+import org.wrml.model.Model;
+import org.wrml.model.schema.ComparisonOperator;
+import org.wrml.model.schema.ValueType;
+import org.wrml.runtime.schema.ProtoSlot;
+import org.wrml.runtime.schema.Prototype;
+import org.wrml.runtime.search.SearchCriteria;
+import org.wrml.runtime.search.SearchCriteriaMatcher;
+import org.wrml.runtime.search.SearchCriterion;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * An in-memory secondary index of one schema's data files, which answers a {@link SearchCriteria} with the data files
+ * of the matching models without opening any of them.
+ * </p>
+ * <p>
+ * Each of the schema's {@link Prototype#getSearchableSlots() searchable slots} has a hash index of its values (for the
+ * equality operators) and sorted indexes of its numeric (and date) and text values (for the range operators). The text
+ * index also serves <code>^</code> anchored regex patterns, by their literal prefix. The elements of a list slot are
+ * indexed for the {@link ComparisonOperator#containsAll} operator only.
+ * </p>
+ * <p>
+ * The index gives the same answers as the {@link SearchCriteriaMatcher}, which compares a {@link String} with a value of
+ * another type by its text, numbers by value and other values of the same type by their natural order. A criterion that
+ * the index cannot answer that way (e.g. a number compared with text slot values, or a range of enum values, which are
+ * ordered by ordinal) or that refers to a slot that is not indexed (e.g. a nested slot) cannot be answered by the index,
+ * in which case {@link #search(SearchCriteria)} returns <code>null</code>.
+ * </p>
+ *
+ * @see FileSystemService#SEARCH_INDEX_SETTING_NAME
+ */
+final class FileSystemSearchIndex {
+
+    private final Map<String, SlotIndex> _SlotIndexes;
+
+    private final SortedSet<Path> _DataFilePaths;
+
+    FileSystemSearchIndex(final Prototype prototype) {
+
+        _SlotIndexes = new HashMap<>();
+        for (final String slotName : prototype.getSearchableSlots()) {
+            final ProtoSlot protoSlot = prototype.getProtoSlot(slotName);
+            _SlotIndexes.put(slotName, new SlotIndex(protoSlot.getValueType() == ValueType.List));
+        }
+
+        _DataFilePaths = new TreeSet<>();
+    }
+
+    /**
+     * Indexes (or re-indexes) the model stored in the data file.
+     */
+    synchronized void put(final Path dataFilePath, final Model model) {
+
+        remove(dataFilePath);
+        _DataFilePaths.add(dataFilePath);
+
+        for (final String slotName : _SlotIndexes.keySet()) {
+            final Object value = model.getSlotValue(slotName);
+            if (value != null) {
+                _SlotIndexes.get(slotName).put(dataFilePath, value);
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the data file was indexed.
+     */
+    synchronized boolean remove(final Path dataFilePath) {
+
+        if (!_DataFilePaths.remove(dataFilePath)) {
+            return false;
+        }
+
+        for (final SlotIndex slotIndex : _SlotIndexes.values()) {
+            slotIndex.remove(dataFilePath);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The data files of the matching models, in (path) order; or <code>null</code> if the criteria refer to a
+     * slot that is not indexed.
+     */
+    synchronized List<Path> search(final SearchCriteria searchCriteria) {
+
+        Set<Path> result = null;
+
+        final List<SearchCriterion> and = searchCriteria.getAnd();
+        if (and != null) {
+            for (final SearchCriterion searchCriterion : and) {
+                final Set<Path> dataFilePaths = evaluate(searchCriterion);
+                if (dataFilePaths == null) {
+                    return null;
+                }
+
+                if (result == null) {
+                    result = dataFilePaths;
+                }
+                else {
+                    result.retainAll(dataFilePaths);
+                }
+            }
+        }
+
+        final List<SearchCriterion> or = searchCriteria.getOr();
+        if (or != null && !or.isEmpty()) {
+            final Set<Path> union = new HashSet<>();
+            for (final SearchCriterion searchCriterion : or) {
+                final Set<Path> dataFilePaths = evaluate(searchCriterion);
+                if (dataFilePaths == null) {
+                    return null;
+                }
+
+                union.addAll(dataFilePaths);
+            }
+
+            if (result == null) {
+                result = union;
+            }
+            else {
+                result.retainAll(union);
+            }
+        }
+
+        if (result == null) {
+            return new ArrayList<>(_DataFilePaths);
+        }
+
+        return new ArrayList<>(new TreeSet<>(result));
+    }
+
+    private Set<Path> evaluate(final SearchCriterion searchCriterion) {
+
+        final String referenceSlot = searchCriterion.getReferenceSlot();
+        final SlotIndex slotIndex = (referenceSlot != null) ? _SlotIndexes.get(referenceSlot) : null;
+        if (slotIndex == null) {
+            return null;
+        }
+
+        final ComparisonOperator comparisonOperator = (searchCriterion.getComparisonOperator() != null) ? searchCriterion
+                .getComparisonOperator() : ComparisonOperator.equalTo;
+
+        final Object comparisonValue = searchCriterion.getComparisonValue();
+
+        switch (comparisonOperator) {
+
+            case exists: {
+                return slotIndex.getValuedPaths();
+            }
+
+            case notExists: {
+                return complement(slotIndex.getValuedPaths());
+            }
+
+            case containsAll: {
+                final Collection<?> comparisonValues = toCollection(comparisonValue);
+                return (slotIndex.isComparable(comparisonValues, false)) ? slotIndex.containsAll(comparisonValues) : null;
+            }
+
+            default: {
+                if (slotIndex.isListIndex()) {
+                    return null;
+                }
+            }
+        }
+
+        switch (comparisonOperator) {
+
+            case equalTo:
+            case notEqualTo:
+            case equalToAny:
+            case notEqualToAny: {
+                if (!slotIndex.isComparable(toCollection(comparisonValue), false)) {
+                    return null;
+                }
+
+                break;
+            }
+
+            case greaterThan:
+            case greaterThanOrEqualTo:
+            case lessThan:
+            case lessThanOrEqualTo: {
+                if (!slotIndex.isComparable(toCollection(comparisonValue), true)) {
+                    return null;
+                }
+
+                break;
+            }
+
+            default: {
+                break;
+            }
+        }
+
+        switch (comparisonOperator) {
+
+            case equalTo: {
+                return (comparisonValue != null) ? slotIndex.equalTo(comparisonValue) : complement(slotIndex.getValuedPaths());
+            }
+
+            case notEqualTo: {
+                return (comparisonValue != null) ? complement(slotIndex.equalTo(comparisonValue)) : slotIndex.getValuedPaths();
+            }
+
+            case equalToAny: {
+                return slotIndex.equalToAny(toCollection(comparisonValue));
+            }
+
+            case notEqualToAny: {
+                final Set<Path> dataFilePaths = slotIndex.equalToAny(toCollection(comparisonValue));
+                return (dataFilePaths != null) ? complement(dataFilePaths) : null;
+            }
+
+            case greaterThan: {
+                return slotIndex.range(comparisonValue, false, true);
+            }
+
+            case greaterThanOrEqualTo: {
+                return slotIndex.range(comparisonValue, true, true);
+            }
+
+            case lessThan: {
+                return slotIndex.range(comparisonValue, false, false);
+            }
+
+            case lessThanOrEqualTo: {
+                return slotIndex.range(comparisonValue, true, false);
+            }
+
+            case regex: {
+                Pattern regexPattern = searchCriterion.getRegexPattern();
+                if (regexPattern == null) {
+                    final String regex = searchCriterion.getRegex();
+                    if (regex == null || regex.isEmpty()) {
+                        return new HashSet<>(_DataFilePaths);
+                    }
+
+                    regexPattern = Pattern.compile(regex);
+                }
+
+                return slotIndex.regex(regexPattern);
+            }
+
+            default: {
+                return null;
+            }
+        }
+    }
+
+    private Set<Path> complement(final Set<Path> dataFilePaths) {
+
+        final Set<Path> complement = new HashSet<>(_DataFilePaths);
+        complement.removeAll(dataFilePaths);
+        return complement;
+    }
+
+    /**
+     * The key by which a value is indexed; numbers (and dates) are indexed by their numeric value, regardless of their
+     * type, and all other values by their text. Like the {@link SearchCriteriaMatcher}, integral numbers are keyed by
+     * their <code>long</code> value and other numbers by their <code>double</code> value.
+     */
+    static Object toIndexKey(final Object value) {
+
+        if (value instanceof Number) {
+            if (isIntegral(value)) {
+                return BigDecimal.valueOf(((Number) value).longValue());
+            }
+
+            final double doubleValue = ((Number) value).doubleValue();
+            if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+                return String.valueOf(doubleValue);
+            }
+
+            final BigDecimal number = new BigDecimal(doubleValue);
+            return (number.signum() == 0) ? BigDecimal.ZERO : number.stripTrailingZeros();
+        }
+
+        if (value instanceof Date) {
+            return BigDecimal.valueOf(((Date) value).getTime());
+        }
+
+        return String.valueOf(value);
+    }
+
+    /**
+     * Determines whether the {@link SearchCriteriaMatcher} compares (for equality or, if range, order) a slot value of
+     * the specified class with the comparison value the same way that the index compares their keys.
+     */
+    static boolean isComparable(final Class<?> valueClass, final Object comparisonValue, final boolean range) {
+
+        final boolean numbers = Number.class.isAssignableFrom(valueClass) && comparisonValue instanceof Number;
+        if (numbers) {
+            return true;
+        }
+
+        if (valueClass == comparisonValue.getClass()) {
+            // Compared with equals or, for a range, compareTo; which (e.g. for enums) is not necessarily by text.
+            return !range || valueClass == String.class || valueClass == Date.class;
+        }
+
+        // Compared by text, if one of them is text; the index keys numbers and dates by value rather than by text.
+        final boolean text = valueClass == String.class || comparisonValue instanceof String;
+        return text && !isKeyedByValue(valueClass) && !isKeyedByValue(comparisonValue.getClass());
+    }
+
+    private static boolean isKeyedByValue(final Class<?> valueClass) {
+
+        return Number.class.isAssignableFrom(valueClass) || Date.class.isAssignableFrom(valueClass);
+    }
+
+    private static boolean isIntegral(final Object number) {
+
+        return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+
+    private static Collection<?> toCollection(final Object value) {
+
+        if (value == null) {
+            return Collections.emptyList();
+        }
+
+        if (value instanceof Collection) {
+            return (Collection<?>) value;
+        }
+
+        if (value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            final List<Object> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(Array.get(value, i));
+            }
+
+            return list;
+        }
+
+        return Collections.singletonList(value);
+    }
+
+    /**
+     * The literal text that all of the pattern's matches start with, or <code>null</code> if the pattern is not anchored
+     * (or is case insensitive).
+     */
+    static String getLiteralPrefix(final Pattern pattern) {
+
+        final String regex = pattern.pattern();
+        final int ignoredFlags = Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.LITERAL | Pattern.MULTILINE;
+        if (!regex.startsWith("^") || regex.indexOf('|') >= 0 || (pattern.flags() & ignoredFlags) != 0) {
+            return null;
+        }
+
+        final StringBuilder prefix = new StringBuilder();
+        for (int i = 1; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if ("*?{".indexOf(c) >= 0) {
+                // The preceding character is optional (or repeated)
+                if (prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+
+                break;
+            }
+
+            if (".[]()\\+^$".indexOf(c) >= 0) {
+                break;
+            }
+
+            prefix.append(c);
+        }
+
+        return (prefix.length() > 0) ? prefix.toString() : null;
+    }
+
+    /**
+     * The indexes of one slot's values.
+     */
+    private static final class SlotIndex {
+
+        private final boolean _ListIndex;
+
+        private final Map<Object, Set<Path>> _Hash;
+
+        private final TreeMap<BigDecimal, Set<Path>> _Numbers;
+
+        private final TreeMap<String, Set<Path>> _Texts;
+
+        private final Map<Path, Object> _Values;
+
+        /**
+         * The number of indexed values (or list elements) of each class.
+         */
+        private final Map<Class<?>, Integer> _ValueClassCounts;
+
+        SlotIndex(final boolean listIndex) {
+
+            _ListIndex = listIndex;
+            _Hash = new HashMap<>();
+            _Numbers = new TreeMap<>();
+            _Texts = new TreeMap<>();
+            _Values = new HashMap<>();
+            _ValueClassCounts = new HashMap<>();
+        }
+
+        boolean isListIndex() {
+
+            return _ListIndex;
+        }
+
+        Set<Path> getValuedPaths() {
+
+            return new HashSet<>(_Values.keySet());
+        }
+
+        /**
+         * Determines whether the index can answer a comparison with each of the (non-null) comparison values, given the
+         * classes of the indexed values.
+         */
+        boolean isComparable(final Collection<?> comparisonValues, final boolean range) {
+
+            for (final Object comparisonValue : comparisonValues) {
+                if (comparisonValue == null) {
+                    continue;
+                }
+
+                for (final Class<?> valueClass : _ValueClassCounts.keySet()) {
+                    if (!FileSystemSearchIndex.isComparable(valueClass, comparisonValue, range)) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        void put(final Path dataFilePath, final Object value) {
+
+            if (_ListIndex) {
+                if (value instanceof Collection) {
+                    // Keep a copy, so that the keys to remove are those that were put, whatever happens to the list.
+                    final List<Object> elements = new ArrayList<>((Collection<?>) value);
+                    _Values.put(dataFilePath, elements);
+                    for (final Object element : elements) {
+                        if (element != null) {
+                            putKey(toIndexKey(element), dataFilePath);
+                            countValueClass(element.getClass(), 1);
+                        }
+                    }
+                }
+                else {
+                    _Values.put(dataFilePath, value);
+                }
+            }
+            else {
+                _Values.put(dataFilePath, value);
+                putKey(toIndexKey(value), dataFilePath);
+                countValueClass(value.getClass(), 1);
+            }
+        }
+
+        void remove(final Path dataFilePath) {
+
+            final Object value = _Values.remove(dataFilePath);
+            if (value == null) {
+                return;
+            }
+
+            if (_ListIndex) {
+                if (value instanceof Collection) {
+                    for (final Object element : (Collection<?>) value) {
+                        if (element != null) {
+                            removeKey(toIndexKey(element), dataFilePath);
+                            countValueClass(element.getClass(), -1);
+                        }
+                    }
+                }
+            }
+            else {
+                removeKey(toIndexKey(value), dataFilePath);
+                countValueClass(value.getClass(), -1);
+            }
+        }
+
+        Set<Path> equalTo(final Object comparisonValue) {
+
+            final Set<Path> dataFilePaths = _Hash.get(toIndexKey(comparisonValue));
+            return (dataFilePaths != null) ? new HashSet<>(dataFilePaths) : new HashSet<Path>();
+        }
+
+        Set<Path> equalToAny(final Collection<?> comparisonValues) {
+
+            final Set<Path> union = new HashSet<>();
+            for (final Object comparisonValue : comparisonValues) {
+                if (comparisonValue == null) {
+                    // Matches the unvalued paths, which only the search index knows.
+                    return null;
+                }
+
+                union.addAll(equalTo(comparisonValue));
+            }
+
+            return union;
+        }
+
+        Set<Path> containsAll(final Collection<?> comparisonValues) {
+
+            if (!_ListIndex) {
+                return null;
+            }
+
+            Set<Path> intersection = null;
+            for (final Object comparisonValue : comparisonValues) {
+                if (comparisonValue == null) {
+                    return null;
+                }
+
+                final Set<Path> dataFilePaths = _Hash.get(toIndexKey(comparisonValue));
+                if (dataFilePaths == null) {
+                    return new HashSet<>();
+                }
+
+                if (intersection == null) {
+                    intersection = new HashSet<>(dataFilePaths);
+                }
+                else {
+                    intersection.retainAll(dataFilePaths);
+                }
+            }
+
+            return (intersection != null) ? intersection : getValuedPaths();
+        }
+
+        Set<Path> range(final Object comparisonValue, final boolean inclusive, final boolean greater) {
+
+            if (comparisonValue == null) {
+                return new HashSet<>();
+            }
+
+            final Object key = toIndexKey(comparisonValue);
+            final Collection<Set<Path>> matches;
+            if (key instanceof BigDecimal) {
+                if (!_Texts.isEmpty()) {
+                    // Mixed value types; the (text) values are not comparable with a number.
+                    return null;
+                }
+
+                final BigDecimal number = (BigDecimal) key;
+                matches = (greater) ? _Numbers.tailMap(number, inclusive).values() : _Numbers.headMap(number, inclusive).values();
+            }
+            else {
+                if (!_Numbers.isEmpty()) {
+                    return null;
+                }
+
+                final String text = (String) key;
+                matches = (greater) ? _Texts.tailMap(text, inclusive).values() : _Texts.headMap(text, inclusive).values();
+            }
+
+            final Set<Path> union = new HashSet<>();
+            for (final Set<Path> dataFilePaths : matches) {
+                union.addAll(dataFilePaths);
+            }
+
+            return union;
+        }
+
+        Set<Path> regex(final Pattern regexPattern) {
+
+            final String prefix = getLiteralPrefix(regexPattern);
+
+            final Collection<Path> candidates;
+            if (prefix != null && _Numbers.isEmpty()) {
+                candidates = new ArrayList<>();
+                for (final Set<Path> dataFilePaths : _Texts.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+                    candidates.addAll(dataFilePaths);
+                }
+            }
+            else {
+                candidates = _Values.keySet();
+            }
+
+            final Set<Path> matches = new HashSet<>();
+            for (final Path dataFilePath : candidates) {
+                if (regexPattern.matcher(String.valueOf(_Values.get(dataFilePath))).find()) {
+                    matches.add(dataFilePath);
+                }
+            }
+
+            return matches;
+        }
+
+        private void putKey(final Object key, final Path dataFilePath) {
+
+            Set<Path> dataFilePaths = _Hash.get(key);
+            if (dataFilePaths == null) {
+                dataFilePaths = new HashSet<>();
+                _Hash.put(key, dataFilePaths);
+
+                if (key instanceof BigDecimal) {
+                    _Numbers.put((BigDecimal) key, dataFilePaths);
+                }
+                else {
+                    _Texts.put((String) key, dataFilePaths);
+                }
+            }
+
+            dataFilePaths.add(dataFilePath);
+        }
+
+        private void countValueClass(final Class<?> valueClass, final int delta) {
+
+            final Integer count = _ValueClassCounts.get(valueClass);
+            final int newCount = ((count != null) ? count : 0) + delta;
+            if (newCount > 0) {
+                _ValueClassCounts.put(valueClass, newCount);
+            }
+            else {
+                _ValueClassCounts.remove(valueClass);
+            }
+        }
+
+        private void removeKey(final Object key, final Path dataFilePath) {
+
+            final Set<Path> dataFilePaths = _Hash.get(key);
+            if (dataFilePaths == null) {
+                return;
+            }
+
+            dataFilePaths.remove(dataFilePath);
+            if (dataFilePaths.isEmpty()) {
+                _Hash.remove(key);
+                _Numbers.remove(key);
+                _Texts.remove(key);
+            }
+        }
+    }
+
+}
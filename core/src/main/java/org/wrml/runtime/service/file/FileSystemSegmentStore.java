@@ -0,0 +1,693 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * The {@link FileSystemService}'s store of serialized models, which appends them (as records named by a "handle") to
+ * large segment files rather than writing each one to its own small data file.
+ * </p>
+ * <p>
+ * Only the newest (active) segment is appended to. Once it reaches the maximum segment size it is sealed and a new
+ * segment is started. A sealed segment is immutable, so its records are read through slices of a read-only
+ * {@link MappedByteBuffer}; which the model parser then reads directly, with no copying or file system calls. The
+ * active segment's records are read with a positional channel read.
+ * </p>
+ * <p>
+ * The records' locations are kept in memory, and are rebuilt by scanning the segments when the store is opened. A
+ * delete appends a "tombstone" record, so that it survives the rescan. Each record is checksummed, so that the torn tail
+ * of a crashed append is detected (and truncated away). When the superseded ("dead") records of a sealed segment reach
+ * the compaction ratio, a background thread copies its live records to the active segment and deletes it. Tombstones
+ * are only discarded with the oldest segment, since an older segment could otherwise resurrect the deleted record.
+ * </p>
+ *
+ * @see FileSystemService#STORAGE_SETTING_NAME
+ */
+final class FileSystemSegmentStore implements Closeable {
+
+    static final String SEGMENT_FILE_EXTENSION = ".segment";
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileSystemSegmentStore.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte PUT_RECORD = 1;
+
+    private static final byte DELETE_RECORD = 2;
+
+    /**
+     * The record length, type, handle length and payload length that precede a record's handle and payload; which are
+     * followed by a CRC32 checksum.
+     */
+    private static final int RECORD_HEADER_LENGTH = 4 + 1 + 2 + 4;
+
+    private static final int RECORD_OVERHEAD = RECORD_HEADER_LENGTH + 4;
+
+    private final Path _DirectoryPath;
+
+    private final long _MaximumSegmentSize;
+
+    private final double _CompactionRatio;
+
+    private final ConcurrentHashMap<String, Location> _Locations;
+
+    private final ConcurrentSkipListMap<Long, Segment> _Segments;
+
+    private final ExecutorService _CompactionExecutor;
+
+    private final AtomicBoolean _CompactionScheduled;
+
+    private Segment _ActiveSegment;
+
+    FileSystemSegmentStore(final Path directoryPath, final long maximumSegmentSize, final double compactionRatio, final String threadName)
+            throws IOException {
+
+        _DirectoryPath = directoryPath;
+        _MaximumSegmentSize = Math.min(maximumSegmentSize, Integer.MAX_VALUE);
+        _CompactionRatio = compactionRatio;
+        _Locations = new ConcurrentHashMap<>();
+        _Segments = new ConcurrentSkipListMap<>();
+        _CompactionScheduled = new AtomicBoolean();
+        _CompactionExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+
+                final Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        open();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        _CompactionExecutor.shutdownNow();
+        for (final Segment segment : _Segments.values()) {
+            segment.close();
+        }
+
+        _Segments.clear();
+        _Locations.clear();
+    }
+
+    /**
+     * Lists the (sorted) handles that start with the prefix.
+     */
+    List<String> listHandles(final String prefix) {
+
+        final List<String> handles = new ArrayList<>();
+        for (final String handle : _Locations.keySet()) {
+            if (handle.startsWith(prefix)) {
+                handles.add(handle);
+            }
+        }
+
+        Collections.sort(handles);
+        return handles;
+    }
+
+    /**
+     * Opens a stream of the record's payload, or returns <code>null</code> if there is no such record.
+     */
+    InputStream openInputStream(final String handle) throws IOException {
+
+        while (true) {
+            final Location location = _Locations.get(handle);
+            if (location == null) {
+                return null;
+            }
+
+            try {
+                return new ByteBufferInputStream(location._Segment.read(location._PayloadOffset, location._PayloadLength));
+            }
+            catch (final ClosedChannelException e) {
+                // The segment was compacted (and the record moved) since the location was read.
+                if (_Locations.get(handle) == location) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    synchronized void put(final String handle, final byte[] payload) throws IOException {
+
+        final Location location = append(PUT_RECORD, handle, payload);
+        supersede(_Locations.put(handle, location));
+    }
+
+    synchronized boolean remove(final String handle) throws IOException {
+
+        final Location location = _Locations.remove(handle);
+        if (location == null) {
+            return false;
+        }
+
+        append(DELETE_RECORD, handle, new byte[0]);
+        supersede(location);
+        return true;
+    }
+
+    /**
+     * Compacts each of the sealed segments (oldest first) with enough dead records.
+     */
+    void compact() throws IOException {
+
+        for (final Segment segment : _Segments.values()) {
+            synchronized (this) {
+                if (segment == _ActiveSegment) {
+                    break;
+                }
+
+                if (_Segments.get(segment._Id) != segment) {
+                    // The segment was already compacted (or the store closed).
+                    continue;
+                }
+
+                if (isCompactable(segment)) {
+                    compact(segment, segment == _Segments.firstEntry().getValue());
+                }
+            }
+        }
+    }
+
+    private Location append(final byte recordType, final String handle, final byte[] payload) throws IOException {
+
+        final byte[] handleBytes = handle.getBytes(UTF_8);
+        final int recordLength = RECORD_OVERHEAD + handleBytes.length + payload.length;
+
+        final ByteBuffer record = ByteBuffer.allocate(recordLength);
+        record.putInt(recordLength);
+        record.put(recordType);
+        record.putShort((short) handleBytes.length);
+        record.put(handleBytes);
+        record.putInt(payload.length);
+        record.put(payload);
+
+        final CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, recordLength - 8);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        if (_ActiveSegment._Size > 0 && _ActiveSegment._Size + recordLength > _MaximumSegmentSize) {
+            _ActiveSegment.seal();
+            _ActiveSegment = createSegment(_ActiveSegment._Id + 1);
+        }
+
+        final Segment segment = _ActiveSegment;
+        final long recordOffset = segment._Size;
+        segment.write(record, recordOffset);
+
+        segment._Size += recordLength;
+
+        if (recordType == DELETE_RECORD) {
+            return null;
+        }
+
+        segment._LiveBytes += recordLength;
+        return new Location(segment, recordOffset, recordLength, recordOffset + RECORD_HEADER_LENGTH + handleBytes.length, payload.length);
+    }
+
+    private void compact(final Segment segment, final boolean oldest) throws IOException {
+
+        LOG.debug("Compacting segment: {} ({} of {} bytes live)", new Object[]{segment._Path, segment._LiveBytes, segment._Size});
+
+        final ByteBuffer records = segment.read(0, (int) segment._Size);
+        while (records.remaining() >= RECORD_OVERHEAD) {
+            final long recordOffset = records.position();
+            final Record record = Record.read(records);
+            if (record == null) {
+                break;
+            }
+
+            if (record._Type == PUT_RECORD) {
+                final Location location = _Locations.get(record._Handle);
+                if (location != null && location._Segment == segment && location._RecordOffset == recordOffset) {
+                    final byte[] payload = new byte[record._Payload.remaining()];
+                    record._Payload.get(payload);
+                    _Locations.put(record._Handle, append(PUT_RECORD, record._Handle, payload));
+                }
+            }
+            else if (!oldest && !_Locations.containsKey(record._Handle)) {
+                // An older segment may still hold a record that this tombstone deletes.
+                append(DELETE_RECORD, record._Handle, new byte[0]);
+            }
+        }
+
+        // The copies must be durable before the original records are deleted.
+        _ActiveSegment.force();
+
+        _Segments.remove(segment._Id);
+        segment.close();
+        Files.deleteIfExists(segment._Path);
+    }
+
+    private Segment createSegment(final long id) throws IOException {
+
+        final Path segmentPath = _DirectoryPath.resolve(String.format("%016d", id) + SEGMENT_FILE_EXTENSION);
+        final Segment segment = new Segment(id, segmentPath);
+        _Segments.put(id, segment);
+        return segment;
+    }
+
+    private boolean isCompactable(final Segment segment) {
+
+        return segment._Size > 0 && (segment._Size - segment._LiveBytes) >= _CompactionRatio * segment._Size;
+    }
+
+    /**
+     * Reads the segments' records into memory, oldest first.
+     */
+    private void open() throws IOException {
+
+        Files.createDirectories(_DirectoryPath);
+
+        final List<Path> segmentPaths = new ArrayList<>();
+        try (final DirectoryStream<Path> directoryStream = Files.newDirectoryStream(_DirectoryPath, "*" + SEGMENT_FILE_EXTENSION)) {
+            for (final Path segmentPath : directoryStream) {
+                segmentPaths.add(segmentPath);
+            }
+        }
+
+        Collections.sort(segmentPaths);
+
+        Segment segment = null;
+        for (final Path segmentPath : segmentPaths) {
+            final String fileName = segmentPath.getFileName().toString();
+            final long id = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_FILE_EXTENSION.length()));
+            segment = createSegment(id);
+            scan(segment);
+        }
+
+        _ActiveSegment = (segment != null) ? segment : createSegment(1);
+        for (final Segment sealedSegment : _Segments.headMap(_ActiveSegment._Id).values()) {
+            sealedSegment.seal();
+        }
+
+        scheduleCompaction();
+    }
+
+    private void scan(final Segment segment) throws IOException {
+
+        final long fileSize = segment._Channel.size();
+        if (fileSize == 0) {
+            return;
+        }
+
+        final ByteBuffer records = segment._Channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        while (records.remaining() >= RECORD_OVERHEAD) {
+            final int recordOffset = records.position();
+            final Record record = Record.read(records);
+            if (record == null) {
+                break;
+            }
+
+            final int recordLength = records.position() - recordOffset;
+            segment._Size = records.position();
+            if (record._Type == PUT_RECORD) {
+                segment._LiveBytes += recordLength;
+                final Location location = new Location(segment, recordOffset, recordLength, record._Payload.position(),
+                        record._Payload.remaining());
+                supersede(_Locations.put(record._Handle, location));
+            }
+            else {
+                supersede(_Locations.remove(record._Handle));
+            }
+        }
+
+        if (segment._Size < fileSize) {
+            LOG.warn("Truncating the torn tail of segment: {} ({} bytes)", segment._Path, fileSize - segment._Size);
+            segment._Channel.truncate(segment._Size);
+        }
+    }
+
+    private void scheduleCompaction() {
+
+        if (!_CompactionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        _CompactionExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+
+                _CompactionScheduled.set(false);
+                try {
+                    compact();
+                }
+                catch (final IOException e) {
+                    LOG.error("Failed to compact the segments in: " + _DirectoryPath, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Accounts for a record that has been replaced or deleted.
+     */
+    private void supersede(final Location location) {
+
+        if (location == null) {
+            return;
+        }
+
+        final Segment segment = location._Segment;
+        segment._LiveBytes -= location._RecordLength;
+        if (segment._Sealed && isCompactable(segment)) {
+            scheduleCompaction();
+        }
+    }
+
+    private static final class Location {
+
+        private final Segment _Segment;
+
+        private final long _RecordOffset;
+
+        private final int _RecordLength;
+
+        private final long _PayloadOffset;
+
+        private final int _PayloadLength;
+
+        Location(final Segment segment, final long recordOffset, final int recordLength, final long payloadOffset, final int payloadLength) {
+
+            _Segment = segment;
+            _RecordOffset = recordOffset;
+            _RecordLength = recordLength;
+            _PayloadOffset = payloadOffset;
+            _PayloadLength = payloadLength;
+        }
+    }
+
+    /**
+     * A record read from a buffer, whose payload is a slice of the buffer.
+     */
+    private static final class Record {
+
+        private final byte _Type;
+
+        private final String _Handle;
+
+        private final ByteBuffer _Payload;
+
+        private Record(final byte type, final String handle, final ByteBuffer payload) {
+
+            _Type = type;
+            _Handle = handle;
+            _Payload = payload;
+        }
+
+        /**
+         * Reads the record at the buffer's position, or returns <code>null</code> (leaving the position) if it is torn
+         * or corrupt.
+         */
+        static Record read(final ByteBuffer buffer) {
+
+            final int recordOffset = buffer.position();
+            final int recordLength = buffer.getInt(recordOffset);
+            if (recordLength < RECORD_OVERHEAD || recordLength > buffer.limit() - recordOffset) {
+                return null;
+            }
+
+            final byte type = buffer.get(recordOffset + 4);
+            final int handleLength = buffer.getShort(recordOffset + 5) & 0xFFFF;
+            final int payloadOffset = recordOffset + RECORD_HEADER_LENGTH + handleLength;
+            if (payloadOffset > recordOffset + recordLength - 4) {
+                return null;
+            }
+
+            final int payloadLength = buffer.getInt(payloadOffset - 4);
+            if (payloadLength != recordLength - RECORD_OVERHEAD - handleLength || (type != PUT_RECORD && type != DELETE_RECORD)) {
+                return null;
+            }
+
+            final byte[] checkedBytes = new byte[recordLength - 8];
+            final ByteBuffer checked = buffer.duplicate();
+            checked.position(recordOffset + 4);
+            checked.get(checkedBytes);
+
+            final CRC32 crc = new CRC32();
+            crc.update(checkedBytes, 0, checkedBytes.length);
+            if (checked.getInt() != (int) crc.getValue()) {
+                return null;
+            }
+
+            final String handle = new String(checkedBytes, 1 + 2, handleLength, UTF_8);
+
+            final ByteBuffer payload = buffer.duplicate();
+            payload.position(payloadOffset);
+            payload.limit(payloadOffset + payloadLength);
+
+            buffer.position(recordOffset + recordLength);
+            return new Record(type, handle, payload);
+        }
+    }
+
+    /**
+     * A segment file. Its channel is shared by all of the threads that read or append to the segment; and since an
+     * interrupt of any one of them closes the channel for all of them, a channel that was closed (other than by
+     * {@link #close()}) is reopened and the operation retried.
+     */
+    private static final class Segment {
+
+        private final long _Id;
+
+        private final Path _Path;
+
+        private volatile FileChannel _Channel;
+
+        private volatile boolean _Closed;
+
+        private long _Size;
+
+        private long _LiveBytes;
+
+        private volatile boolean _Sealed;
+
+        private volatile MappedByteBuffer _MappedBuffer;
+
+        Segment(final long id, final Path path) throws IOException {
+
+            _Id = id;
+            _Path = path;
+            _Channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void close() throws IOException {
+
+            synchronized (this) {
+                _Closed = true;
+            }
+
+            _Channel.close();
+        }
+
+        /**
+         * Reads a region of the segment; as a slice of the mapped segment once it is sealed.
+         */
+        ByteBuffer read(final long offset, final int length) throws IOException {
+
+            while (true) {
+                final FileChannel channel = _Channel;
+                try {
+                    return read(channel, offset, length);
+                }
+                catch (final ClosedChannelException e) {
+                    reopen(channel, e);
+                }
+            }
+        }
+
+        /**
+         * Writes the buffer's (remaining) bytes at the offset.
+         */
+        void write(final ByteBuffer buffer, final long offset) throws IOException {
+
+            final int position = buffer.position();
+            while (true) {
+                final FileChannel channel = _Channel;
+                try {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer, offset + buffer.position() - position);
+                    }
+
+                    return;
+                }
+                catch (final ClosedChannelException e) {
+                    reopen(channel, e);
+
+                    // Rewrite the whole buffer, over whatever part of it was written.
+                    buffer.position(position);
+                }
+            }
+        }
+
+        void force() throws IOException {
+
+            while (true) {
+                final FileChannel channel = _Channel;
+                try {
+                    channel.force(false);
+                    return;
+                }
+                catch (final ClosedChannelException e) {
+                    reopen(channel, e);
+                }
+            }
+        }
+
+        /**
+         * Replaces the closed channel, unless the segment itself was closed; then rethrows the exception if the current
+         * thread was interrupted (as the interrupt was meant for it) and otherwise returns, so that the caller retries.
+         */
+        private void reopen(final FileChannel closedChannel, final ClosedChannelException e) throws IOException {
+
+            synchronized (this) {
+                if (_Closed) {
+                    throw e;
+                }
+
+                if (_Channel == closedChannel) {
+                    LOG.debug("Reopening the (interrupted) channel of segment: {}", _Path);
+                    _Channel = FileChannel.open(_Path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+            }
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+        }
+
+        private ByteBuffer read(final FileChannel channel, final long offset, final int length) throws IOException {
+
+            if (_Sealed) {
+                MappedByteBuffer mappedBuffer = _MappedBuffer;
+                if (mappedBuffer == null) {
+                    synchronized (this) {
+                        mappedBuffer = _MappedBuffer;
+                        if (mappedBuffer == null) {
+                            mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, _Size);
+                            _MappedBuffer = mappedBuffer;
+                        }
+                    }
+                }
+
+                final ByteBuffer slice = mappedBuffer.duplicate();
+                slice.position((int) offset);
+                slice.limit((int) offset + length);
+                return slice.slice();
+            }
+
+            final ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of segment: " + _Path);
+                }
+            }
+
+            buffer.flip();
+            return buffer;
+        }
+
+        void seal() throws IOException {
+
+            force();
+            _Sealed = true;
+        }
+    }
+
+    /**
+     * Reads a buffer (slice) as a stream, without copying it.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer _Buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+
+            _Buffer = buffer;
+        }
+
+        @Override
+        public int available() {
+
+            return _Buffer.remaining();
+        }
+
+        @Override
+        public int read() {
+
+            return _Buffer.hasRemaining() ? (_Buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+
+            if (length == 0) {
+                return 0;
+            }
+
+            if (!_Buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int count = Math.min(length, _Buffer.remaining());
+            _Buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
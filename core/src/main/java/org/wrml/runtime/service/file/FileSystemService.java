@@ -36,29 +36,50 @@ import org.wrml.model.format.Format;
 import org.wrml.model.rest.Api;
 import org.wrml.model.schema.Schema;
 import org.wrml.runtime.Context;
+import org.wrml.runtime.DefaultConfiguration;
 import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.DimensionsBuilder;
 import org.wrml.runtime.Keys;
+import org.wrml.runtime.KeysBuilder;
 import org.wrml.runtime.format.ModelFormattingException;
 import org.wrml.runtime.format.ModelWriteOptions;
 import org.wrml.runtime.format.ModelWriterException;
 import org.wrml.runtime.format.SystemFormat;
+import org.wrml.runtime.schema.Prototype;
 import org.wrml.runtime.schema.SchemaLoader;
+import org.wrml.runtime.search.IteratorSearchResults;
+import org.wrml.runtime.search.SearchCriteria;
+import org.wrml.runtime.search.SearchCriteriaMatcher;
+import org.wrml.runtime.search.SearchResults;
 import org.wrml.runtime.service.AbstractService;
+import org.wrml.runtime.service.ModelVersion;
 import org.wrml.runtime.service.Service;
 import org.wrml.runtime.service.ServiceConfiguration;
 import org.wrml.runtime.service.ServiceException;
 import org.wrml.util.UniqueName;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * <p>
@@ -161,7 +182,7 @@ import java.util.*;
  * <p>
  * Within each (non-{@link Abstract}) {@link Schema}-based directory, a "data" subdirectory may be found. The data
  * directory contains "model state" files, one per {@link Model} named with {@link UUID}s. The format of the stored
- * model data files depends on the {@link Format} that has been configured.
+ * model data files depends on the {@link Format} that has been configured (see {@link #FILE_FORMAT_SETTING_NAME}).
  * </p>
  * <p/>
  * <p>
@@ -214,6 +235,16 @@ import java.util.*;
  * {@link UniqueName} of "com/example/ShapeApi", as a directory/file {@link Path} <code>com/example/ShapeApi.json</code>
  * .
  * </p>
+ * <p/>
+ * <h3>Key Index</h3>
+ * <p/>
+ * <p>
+ * The key links are maintained by a pluggable {@link FileSystemKeyIndex}, selected by the
+ * {@link FileSystemService#KEY_INDEX_SETTING_NAME} configuration value. By default they are the Symbolic Links
+ * described above. Alternatively, the {@link AppendOnlyLogKeyIndex} records the same key link {@link Path}s in a single
+ * log file, which avoids the large <i>keys</i> directories (and the file system calls to resolve a key) of services
+ * that store many models.
+ * </p>
  *
  * @see Filed
  * @see Service
@@ -227,6 +258,99 @@ public final class FileSystemService extends AbstractService {
 
     public static final String ROOT_DIRECTORY_SETTING_NAME = "rootDirectory";
 
+    /**
+     * The name of the (optional) setting that specifies the number of threads used to read the model files of a
+     * {@link #getAll(Collection, Dimensions)} batch in parallel. A value of <code>0</code> or <code>1</code> reads them one
+     * after another on the calling thread. The default is {@link #DEFAULT_READ_THREADS}.
+     */
+    public static final String READ_THREADS_SETTING_NAME = "readThreads";
+
+    public static final int DEFAULT_READ_THREADS = 4;
+
+    /**
+     * The name of the (optional) setting that, when <code>true</code>, answers searches from in-memory secondary indexes
+     * of the schemas' searchable slots (see {@link FileSystemSearchIndex}) rather than by reading all of the schema's
+     * data files. A schema's index is built when it is first searched and is then kept up to date by saves and deletes.
+     * The default is <code>false</code>.
+     */
+    public static final String SEARCH_INDEX_SETTING_NAME = "searchIndex";
+
+    /**
+     * The name of the (optional) setting that selects the {@link FileSystemKeyIndex} that maps the models' keys to their
+     * data files; either {@link #SYMBOLIC_LINK_KEY_INDEX} (the default), {@link #APPEND_ONLY_LOG_KEY_INDEX} or the class
+     * name of a {@link FileSystemKeyIndex} implementation. The key index is given the service's settings when it is
+     * opened.
+     */
+    public static final String KEY_INDEX_SETTING_NAME = "keyIndex";
+
+    /**
+     * Selects the {@link SymbolicLinkKeyIndex}.
+     */
+    public static final String SYMBOLIC_LINK_KEY_INDEX = "symbolicLinks";
+
+    /**
+     * Selects the {@link AppendOnlyLogKeyIndex}.
+     */
+    public static final String APPEND_ONLY_LOG_KEY_INDEX = "appendOnlyLog";
+
+    /**
+     * The name of the (optional) setting that selects how the model data is stored; either {@link #FILE_STORAGE} (the
+     * default) or {@link #SEGMENT_STORAGE}. The segment storage requires a key index other than the
+     * {@link #SYMBOLIC_LINK_KEY_INDEX}, and defaults to the {@link #APPEND_ONLY_LOG_KEY_INDEX}.
+     */
+    public static final String STORAGE_SETTING_NAME = "storage";
+
+    /**
+     * Stores each model in its own data file.
+     */
+    public static final String FILE_STORAGE = "files";
+
+    /**
+     * Appends the models to large segment files, in the root directory's <i>segments</i> directory, which are read
+     * through memory-mapped buffers and compacted in the background (see {@link FileSystemSegmentStore}). The models'
+     * data file paths are then names for their records, rather than actual files.
+     */
+    public static final String SEGMENT_STORAGE = "segments";
+
+    /**
+     * The name of the (optional) setting that specifies the size, in bytes, at which a segment is sealed and a new one
+     * started. The default is {@link #DEFAULT_SEGMENT_SIZE}.
+     */
+    public static final String SEGMENT_SIZE_SETTING_NAME = "segmentSize";
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The name of the (optional) setting that specifies the fraction of a segment's bytes that must be dead (replaced or
+     * deleted) before it is compacted. The default is {@link #DEFAULT_SEGMENT_COMPACTION_RATIO}.
+     */
+    public static final String SEGMENT_COMPACTION_RATIO_SETTING_NAME = "segmentCompactionRatio";
+
+    public static final double DEFAULT_SEGMENT_COMPACTION_RATIO = 0.5;
+
+    /**
+     * The name of the (optional) setting that specifies the number of write lock stripes. Saves and deletes lock the
+     * stripes of the model's keys, so that those of the same keys are serialized while others run in parallel. The
+     * default is {@link #DEFAULT_WRITE_LOCK_STRIPES}.
+     */
+    public static final String WRITE_LOCK_STRIPES_SETTING_NAME = "writeLockStripes";
+
+    public static final int DEFAULT_WRITE_LOCK_STRIPES = 64;
+
+    /**
+     * The name of the (optional) setting that selects the format of the model data; either the name of a
+     * {@link SystemFormat} (e.g. <code>vnd_wrml_binary</code>, for its compact binary encoding) or a format URI. The
+     * default is {@link SystemFormat#json}. The format determines the data files' extension, which is also part of the
+     * key link paths, so a root directory should keep the format that it was written with.
+     */
+    public static final String FILE_FORMAT_SETTING_NAME = "fileFormat";
+
+    /**
+     * The name of the setting that specifies the data files' extension (without the dot) for a {@link #FILE_FORMAT_SETTING_NAME}
+     * that is not a {@link SystemFormat}; by default, a system format's own {@link SystemFormat#getFileExtension()}.
+     */
+    public static final String FILE_EXTENSION_SETTING_NAME = "fileExtension";
+
 
     private static final Logger LOG = LoggerFactory.getLogger(FileSystemService.class);
 
@@ -234,6 +358,10 @@ public final class FileSystemService extends AbstractService {
 
     private static final String STATIC_PATH_SEGMENT_KEYS = "keys";
 
+    private static final String STATIC_PATH_SEGMENT_SEGMENTS = "segments";
+
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
 
     private Path _RootDirectoryPath;
 
@@ -241,32 +369,70 @@ public final class FileSystemService extends AbstractService {
 
     private URI _FileFormatUri;
 
+    private ExecutorService _ReadExecutor;
+
+    private FileSystemKeyIndex _KeyIndex;
+
+    /**
+     * The store of the model data, or <code>null</code> if each model is stored in its own data file.
+     */
+    private FileSystemSegmentStore _SegmentStore;
+
+    /**
+     * The search indexes by schema URI, or <code>null</code> if searches are not indexed.
+     */
+    private ConcurrentHashMap<URI, FileSystemSearchIndex> _SearchIndexes;
+
+    /**
+     * Writes (which update the search indexes) share this lock, while a search index is built with it held exclusively;
+     * so that a data file cannot be written between the listing of the data files and the index's registration.
+     */
+    private final ReentrantReadWriteLock _SearchIndexLock = new ReentrantReadWriteLock();
+
+    /**
+     * The striped write locks, which are locked by the key link paths of the models being saved or deleted.
+     */
+    private ReentrantLock[] _WriteLocks;
+
+    /**
+     * Writes the model to a temporary file, in the same directory, which is then atomically renamed to the model file
+     * path; so that a reader of the model file sees either its previous or its new contents, but never a partial write.
+     */
     public static void writeModelFile(final Model model, final Path modelFilePath, final URI fileFormatUri,
                                       final ModelWriteOptions writeOptions) throws IOException, ModelWriterException {
 
         final Context context = model.getContext();
-        OutputStream out = null;
+        final Path directoryPath = modelFilePath.toAbsolutePath().getParent();
+        Files.createDirectories(directoryPath);
+
+        final Path tempFilePath = directoryPath.resolve("." + modelFilePath.getFileName() + "." + UUID.randomUUID() + TEMP_FILE_EXTENSION);
+        boolean moved = false;
         try {
-            Files.createDirectories(modelFilePath.getParent());
-            Files.deleteIfExists(modelFilePath);
-            Files.createFile(modelFilePath);
-            out = Files.newOutputStream(modelFilePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+            try (final OutputStream out = Files.newOutputStream(tempFilePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                context.writeModel(out, model, writeOptions, fileFormatUri);
+            }
+
+            moveAtomically(tempFilePath, modelFilePath);
+            moved = true;
         }
-        catch (final IOException e) {
-            IOUtils.closeQuietly(out);
-            throw e;
+        finally {
+            if (!moved) {
+                Files.deleteIfExists(tempFilePath);
+            }
         }
+    }
+
+    /**
+     * Renames the file, replacing any existing target file, atomically if the file system supports it.
+     */
+    static void moveAtomically(final Path sourcePath, final Path targetPath) throws IOException {
 
         try {
-            context.writeModel(out, model, writeOptions, fileFormatUri);
+            Files.move(sourcePath, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
         }
-        catch (final ModelWriterException e) {
-            IOUtils.closeQuietly(out);
-            throw e;
+        catch (final AtomicMoveNotSupportedException e) {
+            Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
         }
-
-        IOUtils.closeQuietly(out);
     }
 
     @Override
@@ -279,15 +445,34 @@ public final class FileSystemService extends AbstractService {
         }
 
 
-        final File file = getDataFile(keys);
+        final List<ReentrantLock> writeLocks = lockWrites(getKeyLinkPaths(keys));
+        try {
+            final File file = getDataFile(keys);
 
-        if (file == null) {
-            return;
-        }
+            if (file == null) {
+                return;
+            }
 
-        // TODO: Need to delete the key symlink files too?
+            if (_SearchIndexes == null) {
+                deleteDataFile(file);
+                return;
+            }
 
-        FileUtils.deleteQuietly(file);
+            _SearchIndexLock.readLock().lock();
+            try {
+                final Path indexedPath = toIndexedPath(file.toPath());
+                deleteDataFile(file);
+                for (final FileSystemSearchIndex searchIndex : _SearchIndexes.values()) {
+                    searchIndex.remove(indexedPath);
+                }
+            }
+            finally {
+                _SearchIndexLock.readLock().unlock();
+            }
+        }
+        finally {
+            unlockWrites(writeLocks);
+        }
     }
 
     @Override
@@ -311,32 +496,154 @@ public final class FileSystemService extends AbstractService {
             return null;
         }
 
-        InputStream in;
+        return readDataFile(file, keys, dimensions);
+    }
+
+    /**
+     * Reports the model data file's identity, modification time and size, which change with each (atomic) save of the
+     * model. Models kept in the segment store have no data file of their own, so their version is unknown.
+     */
+    @Override
+    public ModelVersion getVersion(final Keys keys, final Dimensions dimensions) {
+
+        if (keys == null) {
+            final ServiceException e = new ServiceException("The keys cannot be null.", null, this);
+            LOG.error(e.getMessage(), e);
+            throw e;
+        }
+
+        if (_SegmentStore != null) {
+            return null;
+        }
+
+        final File file = getDataFile(keys);
+        if (file == null) {
+            return null;
+        }
+
+        final BasicFileAttributes attributes;
         try {
-            in = FileUtils.openInputStream(file);
+            attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
         }
-        catch (final Exception e) {
-            throw new ServiceException("Failed to open stream content.", e, this);
+        catch (final NoSuchFileException e) {
+            // The model was deleted (concurrently) after its key was read.
+            return null;
+        }
+        catch (final IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ServiceException("Failed to read the attributes of model data file: " + file, e, this);
         }
 
-        final Context context = getContext();
-        final Model model;
+        final FileTime lastModifiedTime = attributes.lastModifiedTime();
+        final StringBuilder tag = new StringBuilder();
+        tag.append(Long.toHexString(lastModifiedTime.to(TimeUnit.NANOSECONDS))).append('-').append(Long.toHexString(attributes.size()));
+
+        // Each save writes a new file, so on file systems with coarse timestamps the file's identity tells saves apart.
+        final Object fileKey = attributes.fileKey();
+        if (fileKey != null) {
+            tag.append('-').append(Integer.toHexString(fileKey.hashCode()));
+        }
+
+        return new ModelVersion(tag.toString(), lastModifiedTime.toMillis());
+    }
+
+    /**
+     * Reads the batch's model files in parallel (see {@link #READ_THREADS_SETTING_NAME}).
+     */
+    @Override
+    public Map<Keys, Model> getAll(final Collection<Keys> multipleKeys, final Dimensions dimensions) {
+
+        if (_ReadExecutor == null || multipleKeys.size() < 2) {
+            return super.getAll(multipleKeys, dimensions);
+        }
+
+        final Map<Keys, Future<Model>> futures = new LinkedHashMap<>(multipleKeys.size());
+        for (final Keys keys : multipleKeys) {
+            futures.put(keys, _ReadExecutor.submit(new Callable<Model>() {
+
+                @Override
+                public Model call() throws Exception {
+
+                    return get(keys, dimensions);
+                }
+            }));
+        }
+
+        final Map<Keys, Model> models = new LinkedHashMap<>(futures.size());
         try {
-            model = context.readModel(in, keys, dimensions, _FileFormatUri);
+            for (final Keys keys : futures.keySet()) {
+                final Model model = futures.get(keys).get();
+                if (model != null) {
+                    models.put(keys, model);
+                }
+            }
         }
-        catch (final ModelFormattingException e) {
-            throw new ServiceException("Failed to read model.", e, this);
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (final Future<Model> future : futures.values()) {
+                future.cancel(false);
+            }
+
+            throw new ServiceException("Interrupted while reading models.", e, this);
         }
-        finally {
-            IOUtils.closeQuietly(in);
+        catch (final ExecutionException e) {
+            // The sibling reads are cancelled, but not interrupted; an interrupt would close the (shared) channel of the
+            // segment that they are reading.
+            for (final Future<Model> future : futures.values()) {
+                future.cancel(false);
+            }
+
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new ServiceException("Failed to read models.", cause, this);
         }
 
-        if (model instanceof Filed) {
-            ((Filed) model).setFile(file);
+        return models;
+    }
+
+    /**
+     * Scans the data files of the result schema. The data files are listed up front, so that no directory handle is
+     * held open, and each one is read (and matched against the criteria) as the results are iterated.
+     */
+    @Override
+    public SearchResults openSearch(final SearchCriteria searchCriteria) {
+
+        final Dimensions resultDimensions = searchCriteria.getResultDimensions();
+
+        final FileSystemSearchIndex searchIndex = getSearchIndex(resultDimensions.getSchemaUri());
+        final List<Path> indexedPaths = (searchIndex != null) ? searchIndex.search(searchCriteria) : null;
+        if (indexedPaths != null) {
+            // The index's answer is exact, so the page's files are the only ones read.
+            final int offset = IteratorSearchResults.getOffset(searchCriteria);
+            final List<Path> pagePaths = (offset < indexedPaths.size()) ? indexedPaths.subList(offset, indexedPaths.size())
+                    : Collections.<Path>emptyList();
+            return new IteratorSearchResults(new DataFileIterator(pagePaths, null, resultDimensions), offset,
+                    IteratorSearchResults.getLimit(searchCriteria), true);
         }
 
-        return model;
+        final List<Path> dataFilePaths = listManagedDataFilePaths(resultDimensions.getSchemaUri());
+        final SearchCriteriaMatcher searchCriteriaMatcher = new SearchCriteriaMatcher(searchCriteria);
+        return new IteratorSearchResults(new DataFileIterator(dataFilePaths, searchCriteriaMatcher, resultDimensions), searchCriteria);
+    }
+
+    @Override
+    public Set<Model> search(final SearchCriteria searchCriteria) {
+
+        final Set<Model> resultSet = new LinkedHashSet<>();
+        final SearchResults searchResults = openSearch(searchCriteria);
+        try {
+            while (searchResults.hasNext()) {
+                resultSet.add(searchResults.next());
+            }
+        }
+        finally {
+            searchResults.close();
+        }
 
+        return resultSet;
     }
 
     public URI getFileFormatUri() {
@@ -353,7 +660,6 @@ public final class FileSystemService extends AbstractService {
             throw e;
         }
 
-        final Context context = model.getContext();
         final Keys keys = model.getKeys();
 
         if (keys == null) {
@@ -371,75 +677,81 @@ public final class FileSystemService extends AbstractService {
             throw e;
         }
 
-        final int keyCount = keyedSchemaUris.size();
-        final Set<Path> keyLinkPaths = new LinkedHashSet<Path>(keyCount);
-
         // TODO Perhaps this flag should be overridable via config?
         //final URI documentSchemaUri = context.getSchemaLoader().getDocumentSchemaUri();
 
-        UUID managedDataFileHandle = null;
+        final Set<Path> keyLinkPaths = getKeyLinkPaths(keys);
 
-        final URI filedSchemaUri = getFiledSchemaUri(context);
+        Path filedDataFilePath = null;
+        if (model instanceof Filed) {
+            final Filed filed = (Filed) model;
+            final File file = filed.getFile();
+            if (file != null) {
+                filedDataFilePath = file.toPath();
+            }
 
-        for (final URI keyedSchemaUri : keyedSchemaUris) {
+        }
 
-            if (keyedSchemaUri.equals(filedSchemaUri)) {
-                continue;
-            }
+        // Concurrent saves (and deletes) of the same keys are serialized, while those of other keys proceed in parallel.
+        final List<Path> lockedPaths = new ArrayList<Path>(keyLinkPaths);
+        if (filedDataFilePath != null) {
+            lockedPaths.add(filedDataFilePath);
+        }
 
-            final Object keyValue = keys.getValue(keyedSchemaUri);
-            final Path keyLinkPath = getKeyLinkPath(keyedSchemaUri, keyValue);
-            if (keyLinkPath == null) {
-                continue;
-            }
+        final List<ReentrantLock> writeLocks = lockWrites(lockedPaths);
+        try {
+            Path dataFilePath = filedDataFilePath;
+            if (dataFilePath == null) {
+                // This model may have been saved here before; in which case its existing data file is overwritten.
+                Path keyedDataFilePath = null;
+                for (final Path keyLinkPath : keyLinkPaths) {
+                    keyedDataFilePath = getKeyedDataFilePath(keyLinkPath);
+                    if (keyedDataFilePath != null) {
+                        break;
+                    }
+                }
 
-            if (managedDataFileHandle == null && Files.exists(keyLinkPath)) {
-                // This model has been saved here (managed) before.
-                // Get the name of the file associated with the (existing) model's data (so we can overwrite it).
-                final String dataFileHandleString = keyLinkPath.getFileName().toString();
-                try {
-                    managedDataFileHandle = UUID.fromString(dataFileHandleString);
+                final Path dataDirectoryPath = getManagedDataDirectoryPath(model.getSchemaUri());
+                if (keyedDataFilePath != null && dataDirectoryPath.equals(keyedDataFilePath.getParent())) {
+                    dataFilePath = keyedDataFilePath;
                 }
-                catch (final Exception e) {
-                    managedDataFileHandle = null;
+                else {
+                    dataFilePath = dataDirectoryPath.resolve(UUID.randomUUID().toString() + getFileExtension());
                 }
+            }
 
+            if (_SearchIndexes != null) {
+                _SearchIndexLock.readLock().lock();
             }
 
-            // Add the key link path
-            keyLinkPaths.add(keyLinkPath);
+            try {
+                // Write the model data to a "data" file
+                writeDataFile(model, dataFilePath);
 
-        }
+                for (final Path keyLinkPath : keyLinkPaths) {
+                    // Index each key as a "key link" that references the model's data file
+                    writeKeyLink(keyLinkPath, dataFilePath);
+                }
 
-        Path dataFilePath = null;
-        if (model instanceof Filed) {
-            final Filed filed = (Filed) model;
-            final File file = filed.getFile();
-            if (file != null) {
-                dataFilePath = file.toPath();
+                if (_SearchIndexes != null) {
+                    final FileSystemSearchIndex searchIndex = _SearchIndexes.get(model.getSchemaUri());
+                    if (searchIndex != null) {
+                        searchIndex.put(toIndexedPath(dataFilePath), model);
+                    }
+                }
             }
-
-        }
-
-        if (dataFilePath == null) {
-            if (managedDataFileHandle == null) {
-                managedDataFileHandle = UUID.randomUUID();
+            finally {
+                if (_SearchIndexes != null) {
+                    _SearchIndexLock.readLock().unlock();
+                }
             }
 
-            dataFilePath = getManagedDataFilePath(model.getSchemaUri(), managedDataFileHandle.toString());
+            // Read the model back from the data file, rather than (re)resolving its keys.
+            return readDataFile(dataFilePath.toFile(), keys, model.getDimensions());
         }
-
-        // TODO: All of the writes should probably be synchronized somehow, yes?.
-
-        // Write the model data to a "data" file
-        writeDataFile(model, dataFilePath);
-
-        for (final Path keyLinkPath : keyLinkPaths) {
-            // Write each key as a symlink "key" that references the model's data file
-            writeKeyLink(keyLinkPath, dataFilePath);
+        finally {
+            unlockWrites(writeLocks);
         }
-
-        return get(keys, model.getDimensions());
     }
 
     @Override
@@ -478,32 +790,127 @@ public final class FileSystemService extends AbstractService {
         }
         // Make this reference absolute
         givenPath = givenPath.getAbsoluteFile();
-        _RootDirectoryPath = givenPath.toPath();
-
-        // TODO: Make this configurable
-        _FileFormatUri = SystemFormat.json.getFormatUri();
-        _FileExtension = "." + SystemFormat.json.getFileExtension();
+        _RootDirectoryPath = givenPath.toPath().normalize();
 
-    }
+        initFileFormat(settings);
 
-    private Path findExistingKeyLinkPath(final Keys keys) {
+        int readThreads = DEFAULT_READ_THREADS;
+        if (settings.containsKey(READ_THREADS_SETTING_NAME)) {
+            readThreads = Integer.parseInt(settings.get(READ_THREADS_SETTING_NAME).trim());
+        }
 
-        final Set<URI> keyedSchemaUris = keys.getKeyedSchemaUris();
-        for (final URI keyedSchemaUri : keyedSchemaUris) {
-            final Object keyValue = keys.getValue(keyedSchemaUri);
-            final Path keyLinkPath = getKeyLinkPath(keyedSchemaUri, keyValue);
+        if (readThreads > 1) {
+            final ThreadPoolExecutor readExecutor = new ThreadPoolExecutor(readThreads, readThreads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
 
-            LOG.debug("Key link from schema {} with value {} is {}", new Object[]{keyedSchemaUri, keyValue,
-                    keyLinkPath});
+                @Override
+                public Thread newThread(final Runnable runnable) {
 
-            if (keyLinkPath != null) {
-                if (Files.exists(keyLinkPath) && !Files.isDirectory(keyLinkPath)) {
-                    return keyLinkPath;
+                    final Thread thread = new Thread(runnable, getConfiguration().getName() + "-read");
+                    thread.setDaemon(true);
+                    return thread;
                 }
+            });
+
+            readExecutor.allowCoreThreadTimeOut(true);
+            _ReadExecutor = readExecutor;
+        }
+
+        int writeLockStripes = DEFAULT_WRITE_LOCK_STRIPES;
+        if (settings.containsKey(WRITE_LOCK_STRIPES_SETTING_NAME)) {
+            writeLockStripes = Math.max(1, Integer.parseInt(settings.get(WRITE_LOCK_STRIPES_SETTING_NAME).trim()));
+        }
+
+        _WriteLocks = new ReentrantLock[writeLockStripes];
+        for (int i = 0; i < writeLockStripes; i++) {
+            _WriteLocks[i] = new ReentrantLock();
+        }
+
+        if (settings.containsKey(SEARCH_INDEX_SETTING_NAME) && Boolean.parseBoolean(settings.get(SEARCH_INDEX_SETTING_NAME).trim())) {
+            _SearchIndexes = new ConcurrentHashMap<>();
+        }
+
+        String storage = FILE_STORAGE;
+        if (settings.containsKey(STORAGE_SETTING_NAME)) {
+            storage = settings.get(STORAGE_SETTING_NAME).trim();
+        }
+
+        if (SEGMENT_STORAGE.equals(storage)) {
+            long segmentSize = DEFAULT_SEGMENT_SIZE;
+            if (settings.containsKey(SEGMENT_SIZE_SETTING_NAME)) {
+                segmentSize = Long.parseLong(settings.get(SEGMENT_SIZE_SETTING_NAME).trim());
+            }
+
+            double compactionRatio = DEFAULT_SEGMENT_COMPACTION_RATIO;
+            if (settings.containsKey(SEGMENT_COMPACTION_RATIO_SETTING_NAME)) {
+                compactionRatio = Double.parseDouble(settings.get(SEGMENT_COMPACTION_RATIO_SETTING_NAME).trim());
+            }
+
+            final Path segmentDirectoryPath = _RootDirectoryPath.resolve(STATIC_PATH_SEGMENT_SEGMENTS);
+            try {
+                _SegmentStore = new FileSystemSegmentStore(segmentDirectoryPath, segmentSize, compactionRatio, config.getName() + "-compaction");
             }
+            catch (final IOException e) {
+                final ServiceException se = new ServiceException("Failed to open the segments in: " + segmentDirectoryPath, e, this);
+                LOG.error(se.getMessage(), se);
+                throw se;
+            }
+        }
+        else if (!FILE_STORAGE.equals(storage)) {
+            final ServiceException e = new ServiceException("Unknown storage: " + storage, null, this);
+            LOG.error(e.getMessage(), e);
+            throw e;
         }
 
-        return null;
+        String keyIndexName = (_SegmentStore != null) ? APPEND_ONLY_LOG_KEY_INDEX : SYMBOLIC_LINK_KEY_INDEX;
+        if (settings.containsKey(KEY_INDEX_SETTING_NAME)) {
+            keyIndexName = settings.get(KEY_INDEX_SETTING_NAME).trim();
+        }
+
+        if (_SegmentStore != null && SYMBOLIC_LINK_KEY_INDEX.equals(keyIndexName)) {
+            final ServiceException e = new ServiceException("The symbolic link key index cannot reference segment stored models.", null, this);
+            LOG.error(e.getMessage(), e);
+            throw e;
+        }
+
+        if (SYMBOLIC_LINK_KEY_INDEX.equals(keyIndexName)) {
+            _KeyIndex = new SymbolicLinkKeyIndex();
+        }
+        else if (APPEND_ONLY_LOG_KEY_INDEX.equals(keyIndexName)) {
+            _KeyIndex = new AppendOnlyLogKeyIndex();
+        }
+        else {
+            _KeyIndex = DefaultConfiguration.newInstance(keyIndexName);
+        }
+
+        try {
+            _KeyIndex.open(_RootDirectoryPath, settings);
+        }
+        catch (final IOException e) {
+            final ServiceException se = new ServiceException("Failed to open the key index: " + keyIndexName, e, this);
+            LOG.error(se.getMessage(), se);
+            throw se;
+        }
+
+    }
+
+    private void deleteDataFile(final File file) {
+
+        try {
+            // Remove the keys first, so that readers are less likely to find a key to a deleted file.
+            _KeyIndex.removeDataFile(file.toPath());
+
+            if (_SegmentStore != null) {
+                _SegmentStore.remove(toSegmentHandle(file.toPath()));
+            }
+            else {
+                FileUtils.deleteQuietly(file);
+            }
+        }
+        catch (final IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ServiceException("Failed to remove the keys of model data file: " + file, e, this);
+        }
     }
 
     private File getDataFile(final Keys keys) {
@@ -518,41 +925,168 @@ public final class FileSystemService extends AbstractService {
             }
         }
 
-        final Path keyLinkPath = findExistingKeyLinkPath(keys);
-        if (keyLinkPath == null) {
-            LOG.debug("A key link was NOT found for keys:\n{}", keys);
+        for (final URI keyedSchemaUri : keyedSchemaUris) {
+            final Object keyValue = keys.getValue(keyedSchemaUri);
+            final Path keyLinkPath = getKeyLinkPath(keyedSchemaUri, keyValue);
+            if (keyLinkPath == null) {
+                continue;
+            }
+
+            final Path dataFilePath = getKeyedDataFilePath(keyLinkPath);
+            if (dataFilePath != null) {
+                LOG.debug("A key link \"{}\" was found for keys:\n{}", keyLinkPath, keys);
+                return dataFilePath.toFile();
+            }
+        }
+
+        LOG.debug("A key link was NOT found for keys:\n{}", keys);
+        return null;
+    }
+
+    private Path getKeyedDataFilePath(final Path keyLinkPath) {
+
+        try {
+            return _KeyIndex.getDataFilePath(keyLinkPath);
+        }
+        catch (final IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new ServiceException("Unable to dereference the key link (I/O problem: " + e.getMessage() + ").", e, this);
+        }
+    }
+
+    private URI getFiledSchemaUri(final Context context) {
+
+        return context.getSchemaLoader().getTypeUri(Filed.class);
+    }
+
+    /**
+     * Gets the schema's search index, building it (from the schema's data files) if necessary; or returns
+     * <code>null</code> if searches are not indexed or the schema has no searchable slots.
+     */
+    private FileSystemSearchIndex getSearchIndex(final URI schemaUri) {
+
+        if (_SearchIndexes == null) {
             return null;
         }
 
-        LOG.debug("A key link \"{}\" was found for keys:\n{}", keyLinkPath, keys);
+        FileSystemSearchIndex searchIndex = _SearchIndexes.get(schemaUri);
+        if (searchIndex != null) {
+            return searchIndex;
+        }
 
-        if (!Files.isSymbolicLink(keyLinkPath)) {
-            final File keyLinkPathFile = keyLinkPath.toFile();
-            return keyLinkPathFile;
+        final Prototype prototype = getContext().getSchemaLoader().getPrototype(schemaUri);
+        if (prototype == null || prototype.getSearchableSlots().isEmpty()) {
+            return null;
         }
 
-        if (Files.isSymbolicLink(keyLinkPath)) {
-            // Resolve the key symlink to the model's data file.
-            try {
-                final Path dataFilePath = keyLinkPath.toRealPath();
-                return dataFilePath.toFile();
+        _SearchIndexLock.writeLock().lock();
+        try {
+            searchIndex = _SearchIndexes.get(schemaUri);
+            if (searchIndex != null) {
+                return searchIndex;
             }
-            catch (final IOException e) {
 
-                LOG.error(e.getMessage(), e);
-                throw new ServiceException("Unable to dereference the key symlink (I/O problem: " + e.getMessage()
-                        + ").", e, this);
+            searchIndex = new FileSystemSearchIndex(prototype);
 
+            final Dimensions dimensions = new DimensionsBuilder(schemaUri).toDimensions();
+            final URI filedSchemaUri = getFiledSchemaUri(getContext());
+            for (final Path dataFilePath : listManagedDataFilePaths(schemaUri)) {
+                final File file = dataFilePath.toFile();
+                try {
+                    final Model model = readDataFile(file, new KeysBuilder(filedSchemaUri, file).toKeys(), dimensions);
+                    if (model != null) {
+                        searchIndex.put(toIndexedPath(dataFilePath), model);
+                    }
+                }
+                catch (final ServiceException e) {
+                    LOG.warn("Not indexing unreadable data file: " + file, e);
+                }
             }
+
+            _SearchIndexes.put(schemaUri, searchIndex);
+            LOG.debug("Indexed the data files of schema: {}", schemaUri);
+            return searchIndex;
+        }
+        finally {
+            _SearchIndexLock.writeLock().unlock();
         }
+    }
 
-        return null;
+    /**
+     * The (canonical) path by which a data file is indexed; since key links resolve to the data file's real path.
+     */
+    private static Path toIndexedPath(final Path dataFilePath) {
 
+        try {
+            return dataFilePath.toRealPath();
+        }
+        catch (final IOException e) {
+            return dataFilePath.toAbsolutePath().normalize();
+        }
     }
 
-    private URI getFiledSchemaUri(final Context context) {
+    /**
+     * Locks the write lock stripes of the paths, in stripe order (so that concurrent writers cannot deadlock).
+     */
+    private List<ReentrantLock> lockWrites(final Collection<Path> paths) {
 
-        return context.getSchemaLoader().getTypeUri(Filed.class);
+        final SortedSet<Integer> stripes = new TreeSet<>();
+        for (final Path path : paths) {
+            stripes.add((path.hashCode() & Integer.MAX_VALUE) % _WriteLocks.length);
+        }
+
+        final List<ReentrantLock> writeLocks = new ArrayList<>(stripes.size());
+        for (final Integer stripe : stripes) {
+            final ReentrantLock writeLock = _WriteLocks[stripe];
+            writeLock.lock();
+            writeLocks.add(writeLock);
+        }
+
+        return writeLocks;
+    }
+
+    private static void unlockWrites(final List<ReentrantLock> writeLocks) {
+
+        for (final ReentrantLock writeLock : writeLocks) {
+            writeLock.unlock();
+        }
+    }
+
+    private void initFileFormat(final Map<String, String> settings) {
+
+        final String fileFormat = settings.get(FILE_FORMAT_SETTING_NAME);
+        SystemFormat systemFormat = SystemFormat.json;
+        URI fileFormatUri = null;
+        if (fileFormat != null && !fileFormat.trim().isEmpty()) {
+            try {
+                systemFormat = SystemFormat.valueOf(fileFormat.trim());
+            }
+            catch (final IllegalArgumentException e) {
+                fileFormatUri = URI.create(fileFormat.trim());
+                systemFormat = null;
+                for (final SystemFormat format : SystemFormat.values()) {
+                    if (format.getFormatUri().equals(fileFormatUri)) {
+                        systemFormat = format;
+                        break;
+                    }
+                }
+            }
+        }
+
+        String fileExtension = settings.get(FILE_EXTENSION_SETTING_NAME);
+        if (fileExtension == null && systemFormat != null) {
+            fileExtension = systemFormat.getFileExtension();
+        }
+
+        if (fileExtension == null || fileExtension.trim().isEmpty()) {
+            final ServiceException e = new ServiceException("The " + FILE_EXTENSION_SETTING_NAME + " config parameter is required for file format: "
+                    + fileFormat, null, this);
+            LOG.error(e.getMessage(), e);
+            throw e;
+        }
+
+        _FileFormatUri = (systemFormat != null) ? systemFormat.getFormatUri() : fileFormatUri;
+        _FileExtension = "." + fileExtension.trim();
     }
 
     private String getFileExtension() {
@@ -560,6 +1094,30 @@ public final class FileSystemService extends AbstractService {
         return _FileExtension;
     }
 
+    /**
+     * The key link paths of the (non-{@link Filed}) keys.
+     */
+    private Set<Path> getKeyLinkPaths(final Keys keys) {
+
+        final Set<URI> keyedSchemaUris = keys.getKeyedSchemaUris();
+        final Set<Path> keyLinkPaths = new LinkedHashSet<Path>(keyedSchemaUris.size());
+        final URI filedSchemaUri = getFiledSchemaUri(getContext());
+        for (final URI keyedSchemaUri : keyedSchemaUris) {
+
+            if (keyedSchemaUri.equals(filedSchemaUri)) {
+                continue;
+            }
+
+            final Object keyValue = keys.getValue(keyedSchemaUri);
+            final Path keyLinkPath = getKeyLinkPath(keyedSchemaUri, keyValue);
+            if (keyLinkPath != null) {
+                keyLinkPaths.add(keyLinkPath);
+            }
+        }
+
+        return keyLinkPaths;
+    }
+
     private Path getKeyLinkPath(final URI keyedSchemaUri, final Object keyValue) {
 
         final Path rootDirectoryPath = getRootDirectoryPath();
@@ -601,13 +1159,11 @@ public final class FileSystemService extends AbstractService {
         return path.normalize();
     }
 
-    private Path getManagedDataFilePath(final URI schemaUri, final String dataFileHandle) {
+    private Path getManagedDataDirectoryPath(final URI schemaUri) {
 
         final Path rootDirectoryPath = getRootDirectoryPath();
-        Path dataFilePath = rootDirectoryPath.resolve(StringUtils.stripStart(schemaUri.getPath(), "/"));
-        dataFilePath = dataFilePath.resolve(STATIC_PATH_SEGMENT_DATA);
-        dataFilePath = dataFilePath.resolve(dataFileHandle + getFileExtension());
-        return dataFilePath;
+        final Path dataDirectoryPath = rootDirectoryPath.resolve(StringUtils.stripStart(schemaUri.getPath(), "/"));
+        return dataDirectoryPath.resolve(STATIC_PATH_SEGMENT_DATA);
     }
 
     private Path getRootDirectoryPath() {
@@ -615,10 +1171,83 @@ public final class FileSystemService extends AbstractService {
         return _RootDirectoryPath;
     }
 
+    /**
+     * Lists the managed data files of the schema, in (file) name order so that the search results can be paged.
+     */
+    private List<Path> listManagedDataFilePaths(final URI schemaUri) {
+
+        final Path dataDirectoryPath = getManagedDataDirectoryPath(schemaUri);
+        final List<Path> dataFilePaths = new ArrayList<>();
+        if (_SegmentStore != null) {
+            final Path rootDirectoryPath = getRootDirectoryPath();
+            for (final String handle : _SegmentStore.listHandles(toSegmentHandle(dataDirectoryPath) + "/")) {
+                dataFilePaths.add(rootDirectoryPath.resolve(handle));
+            }
+
+            return dataFilePaths;
+        }
+
+        if (!Files.isDirectory(dataDirectoryPath)) {
+            return dataFilePaths;
+        }
+
+        try (final DirectoryStream<Path> directoryStream = Files.newDirectoryStream(dataDirectoryPath, "*" + getFileExtension())) {
+            for (final Path dataFilePath : directoryStream) {
+                dataFilePaths.add(dataFilePath);
+            }
+        }
+        catch (final IOException e) {
+            throw new ServiceException("Failed to list the data files in: " + dataDirectoryPath, e, this);
+        }
+
+        Collections.sort(dataFilePaths);
+        return dataFilePaths;
+    }
+
+    private Model readDataFile(final File file, final Keys keys, final Dimensions dimensions) {
+
+        InputStream in;
+        try {
+            // Open the file directly; FileUtils.openInputStream checks that the file exists and is readable first, and so
+            // reports a concurrent delete (between the checks) as an IOException rather than a FileNotFoundException.
+            in = (_SegmentStore != null) ? _SegmentStore.openInputStream(toSegmentHandle(file.toPath())) : new FileInputStream(file);
+        }
+        catch (final FileNotFoundException e) {
+            // The model was deleted (concurrently) after its key was read.
+            return null;
+        }
+        catch (final Exception e) {
+            throw new ServiceException("Failed to open stream content.", e, this);
+        }
+
+        if (in == null) {
+            // The segment stored model was deleted.
+            return null;
+        }
+
+        final Context context = getContext();
+        final Model model;
+        try {
+            model = context.readModel(in, keys, dimensions, _FileFormatUri);
+        }
+        catch (final ModelFormattingException e) {
+            throw new ServiceException("Failed to read model.", e, this);
+        }
+        finally {
+            IOUtils.closeQuietly(in);
+        }
+
+        if (model instanceof Filed) {
+            ((Filed) model).setFile(file);
+        }
+
+        return model;
+    }
+
     private void writeDataFile(final Model model, final Path dataFilePath) {
 
         final ModelWriteOptions writeOptions = new ModelWriteOptions();
-        writeOptions.setPrettyPrint(true);
+        writeOptions.setPrettyPrint(_SegmentStore == null);
         final Set<URI> excludedSchemaUris = new HashSet<>(1);
         final SchemaLoader schemaLoader = model.getContext().getSchemaLoader();
 
@@ -631,7 +1260,14 @@ public final class FileSystemService extends AbstractService {
         writeOptions.setExcludedSchemaUris(excludedSchemaUris);
 
         try {
-            FileSystemService.writeModelFile(model, dataFilePath, _FileFormatUri, writeOptions);
+            if (_SegmentStore != null) {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                model.getContext().writeModel(out, model, writeOptions, _FileFormatUri);
+                _SegmentStore.put(toSegmentHandle(dataFilePath), out.toByteArray());
+            }
+            else {
+                FileSystemService.writeModelFile(model, dataFilePath, _FileFormatUri, writeOptions);
+            }
         }
         catch (final Exception e) {
             LOG.error(e.getMessage(), e);
@@ -641,23 +1277,28 @@ public final class FileSystemService extends AbstractService {
 
     }
 
-    private void writeKeyLink(final Path keyLinkPath, final Path dataFilePath) {
+    /**
+     * The name of the data file's record in the segment store; its path relative to the root directory.
+     */
+    private String toSegmentHandle(final Path dataFilePath) {
+
+        final Path relativePath = getRootDirectoryPath().relativize(dataFilePath.toAbsolutePath().normalize());
+        final StringBuilder handle = new StringBuilder();
+        for (final Path name : relativePath) {
+            if (handle.length() > 0) {
+                handle.append('/');
+            }
 
-        if (!Files.exists(dataFilePath)) {
-            throw new ServiceException("Attempting to make link to non-existent resource " + dataFilePath, null, this);
+            handle.append(name.toString());
         }
 
+        return handle.toString();
+    }
+
+    private void writeKeyLink(final Path keyLinkPath, final Path dataFilePath) {
+
         try {
-            // TODO: Should this block be synchronized?
-            /**
-             * Changing this to be a relative path since a lot of these files are checked in.
-             */
-            // Get the parent or path treats the file as a node.
-            final Path relPath = keyLinkPath.getParent().relativize(dataFilePath);
-            Files.deleteIfExists(keyLinkPath);
-            Files.createDirectories(keyLinkPath.getParent());
-            Files.createDirectories(dataFilePath.getParent());
-            Files.createSymbolicLink(keyLinkPath, relPath);
+            _KeyIndex.put(keyLinkPath, dataFilePath);
         }
         catch (final IOException e) {
             LOG.error(e.getMessage(), e);
@@ -667,4 +1308,72 @@ public final class FileSystemService extends AbstractService {
         }
     }
 
+    /**
+     * Reads the (listed) data files one at a time, skipping those that do not match the search criteria (if any).
+     */
+    private final class DataFileIterator implements Iterator<Model> {
+
+        private final Iterator<Path> _DataFilePaths;
+
+        private final SearchCriteriaMatcher _SearchCriteriaMatcher;
+
+        private final Dimensions _ResultDimensions;
+
+        private final URI _FiledSchemaUri;
+
+        private Model _NextModel;
+
+        DataFileIterator(final List<Path> dataFilePaths, final SearchCriteriaMatcher searchCriteriaMatcher, final Dimensions resultDimensions) {
+
+            _DataFilePaths = dataFilePaths.iterator();
+            _SearchCriteriaMatcher = searchCriteriaMatcher;
+            _ResultDimensions = resultDimensions;
+            _FiledSchemaUri = getFiledSchemaUri(getContext());
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            while (_NextModel == null && _DataFilePaths.hasNext()) {
+
+                final File file = _DataFilePaths.next().toFile();
+                final Keys keys = new KeysBuilder(_FiledSchemaUri, file).toKeys();
+
+                final Model model;
+                try {
+                    model = readDataFile(file, keys, _ResultDimensions);
+                }
+                catch (final ServiceException e) {
+                    // The file may have been deleted since it was listed.
+                    LOG.warn("Skipping unreadable data file: " + file, e);
+                    continue;
+                }
+
+                if (model != null && (_SearchCriteriaMatcher == null || _SearchCriteriaMatcher.matches(model))) {
+                    _NextModel = model;
+                }
+            }
+
+            return _NextModel != null;
+        }
+
+        @Override
+        public Model next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Model model = _NextModel;
+            _NextModel = null;
+            return model;
+        }
+
+        @Override
+        public void remove() {
+
+            throw new UnsupportedOperationException("Search results cannot be removed.");
+        }
+    }
+
 }
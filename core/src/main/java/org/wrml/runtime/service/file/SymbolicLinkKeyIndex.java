@@ -0,0 +1,99 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The {@link FileSystemKeyIndex} that stores each key as a (relative) symbolic link to the model's data file; which
+ * makes the stored models browse-able by their key values. A lookup costs several file system calls (to check and
+ * resolve the link), so services with many models may prefer the {@link AppendOnlyLogKeyIndex}.
+ */
+public final class SymbolicLinkKeyIndex implements FileSystemKeyIndex {
+
+    @Override
+    public void open(final Path rootDirectoryPath, final Map<String, String> settings) {
+
+    }
+
+    @Override
+    public Path getDataFilePath(final Path keyLinkPath) throws IOException {
+
+        if (!Files.isSymbolicLink(keyLinkPath)) {
+            // A regular file in place of the key link is the model's data file.
+            return Files.isRegularFile(keyLinkPath) ? keyLinkPath : null;
+        }
+
+        // Resolve the key symlink to the model's data file.
+        final Path dataFilePath;
+        try {
+            dataFilePath = keyLinkPath.getParent().resolve(Files.readSymbolicLink(keyLinkPath)).normalize();
+        }
+        catch (final NoSuchFileException e) {
+            // The link was (concurrently) removed.
+            return null;
+        }
+
+        return Files.exists(dataFilePath) ? dataFilePath : null;
+    }
+
+    @Override
+    public void put(final Path keyLinkPath, final Path dataFilePath) throws IOException {
+
+        // Changing this to be a relative path since a lot of these files are checked in.
+        // Get the parent or path treats the file as a node.
+        final Path relPath = keyLinkPath.getParent().relativize(dataFilePath);
+        Files.createDirectories(keyLinkPath.getParent());
+
+        // Replace the link with a rename, so that a concurrent reader never finds it missing.
+        final Path tempLinkPath = keyLinkPath.resolveSibling("." + keyLinkPath.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        Files.createSymbolicLink(tempLinkPath, relPath);
+        try {
+            FileSystemService.moveAtomically(tempLinkPath, keyLinkPath);
+        }
+        catch (final IOException e) {
+            Files.deleteIfExists(tempLinkPath);
+            throw e;
+        }
+    }
+
+    /**
+     * Leaves the key links, which dangle once the data file is deleted (and so no longer resolve).
+     */
+    @Override
+    public void removeDataFile(final Path dataFilePath) {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+}
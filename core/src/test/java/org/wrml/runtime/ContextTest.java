@@ -31,6 +31,8 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.BlockJUnit4ClassRunner;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.wrml.model.Model;
 import org.wrml.model.format.Format;
 import org.wrml.model.rest.*;
@@ -38,12 +40,27 @@ import org.wrml.model.schema.*;
 import org.wrml.runtime.format.SystemFormat;
 import org.wrml.runtime.rest.*;
 import org.wrml.runtime.schema.SchemaLoader;
+import org.wrml.runtime.service.DefaultServiceConfiguration;
+import org.wrml.runtime.service.Service;
+import org.wrml.runtime.service.cache.BoundedModelCache;
+import org.wrml.runtime.service.cache.ModelCacheConfiguration;
 import org.wrml.runtime.syntax.SystemSyntax;
 
 import java.io.IOException;
 import java.net.URI;
-
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(BlockJUnit4ClassRunner.class)
@@ -168,6 +185,136 @@ public class ContextTest extends TestCase {
         assertNull(_Context.getModelCache());
     }
 
+    @Test
+    public void modelChangeListenersAreNotifiedOfDeletes() {
+
+        final ModelChangeListener listener = mock(ModelChangeListener.class);
+        _Context.addModelChangeListener(listener);
+
+        final SchemaLoader schemaLoader = _Context.getSchemaLoader();
+        final Keys keys = new KeysBuilder(schemaLoader.getDocumentSchemaUri(), URI.create("http://unknown.api.wrml.org/things/1")).toKeys();
+        final Dimensions dimensions = new DimensionsBuilder(schemaLoader.getDocumentSchemaUri()).toDimensions();
+        _Context.deleteModel(keys, dimensions);
+        verify(listener).modelDeleted(keys, dimensions);
+
+        _Context.removeModelChangeListener(listener);
+        _Context.deleteModel(keys, dimensions);
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void concurrentGetsThatDifferOnlyInMetadataShareOneLoad() throws Exception {
+
+        final URI schemaUri = ApiLoaderTest.WRML_SCHEMA_WIZARD_URI;
+        final URI uri = ApiLoaderTest.WRML_API_WIZARD_EXAMPLE_URI.resolve("/wizards/merlin");
+        final Keys keys = new KeysBuilder(_Context.getSchemaLoader().getDocumentSchemaUri(), uri).toKeys();
+
+        // Load the schema up front, so that the service's get is the only load in flight.
+        _Context.newModel(schemaUri);
+
+        final AtomicInteger getCount = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final DefaultServiceConfiguration serviceConfig = new DefaultServiceConfiguration();
+        serviceConfig.setName("Blocking");
+        final Service service = mock(Service.class);
+        when(service.getConfiguration()).thenReturn(serviceConfig);
+        when(service.get(any(Keys.class), any(Dimensions.class))).thenAnswer(new Answer<Model>() {
+
+            @Override
+            public Model answer(final InvocationOnMock invocation) throws Throwable {
+
+                getCount.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                final Model wizard = _Context.newModel(schemaUri);
+                wizard.setSlotValue(Document.SLOT_NAME_URI, uri);
+                return wizard;
+            }
+        });
+
+        _Context.getServiceLoader().loadService(service, serviceConfig.getName());
+        _Context.getServiceLoader().mapSchemaPatternToService(schemaUri.toString(), serviceConfig.getName());
+
+        // Two requests for the same model, that differ only in their (request header) metadata.
+        final DimensionsBuilder jsonDimensionsBuilder = new DimensionsBuilder(schemaUri);
+        jsonDimensionsBuilder.getMetadata().put("Accept", "application/json");
+        jsonDimensionsBuilder.getMetadata().put("User-Agent", "first");
+        final DimensionsBuilder anyDimensionsBuilder = new DimensionsBuilder(schemaUri);
+        anyDimensionsBuilder.getMetadata().put("Accept", "*/*");
+        anyDimensionsBuilder.getMetadata().put("User-Agent", "second");
+
+        final Queue<Model> models = new ConcurrentLinkedQueue<>();
+        final Thread first = newGetThread(keys, jsonDimensionsBuilder.toDimensions(), models);
+        final Thread second = newGetThread(keys, anyDimensionsBuilder.toDimensions(), models);
+
+        first.start();
+        while (getCount.get() == 0) {
+            Thread.sleep(1);
+        }
+
+        second.start();
+        while (second.getState() != Thread.State.WAITING && second.getState() != Thread.State.TERMINATED) {
+            // The second get either waits on the first's load (or, if it was not coalesced, on the release latch)
+            Thread.sleep(1);
+        }
+
+        release.countDown();
+        first.join();
+        second.join();
+
+        assertEquals(1, getCount.get());
+        assertEquals(2, models.size());
+        for (final Model model : models) {
+            assertEquals(uri, model.getSlotValue(Document.SLOT_NAME_URI));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void savedModelIsCachedAsACopy() throws Exception {
+
+        final EngineConfiguration config = EngineConfiguration.load(EngineTest.class, EngineTest.WRML_CONFIG_RESOURCE);
+        final ModelCacheConfiguration cacheConfig = new ModelCacheConfiguration();
+        cacheConfig.setName("Cache");
+        cacheConfig.setImplementation(BoundedModelCache.class.getName());
+        config.getContext().setModelCache(cacheConfig);
+        final Context context = EngineTest.createTestEngine(config).getContext();
+
+        // A service that (like many) saves and returns the caller's own model instance.
+        final DefaultServiceConfiguration serviceConfig = new DefaultServiceConfiguration();
+        serviceConfig.setName("Returning");
+        final Service service = mock(Service.class);
+        when(service.getConfiguration()).thenReturn(serviceConfig);
+        when(service.save(any(Model.class))).thenAnswer(returnsFirstArg());
+
+        final URI schemaUri = ApiLoaderTest.WRML_SCHEMA_WIZARD_URI;
+        context.getServiceLoader().loadService(service, serviceConfig.getName());
+        context.getServiceLoader().mapSchemaPatternToService(schemaUri.toString(), serviceConfig.getName());
+
+        final URI uri = ApiLoaderTest.WRML_API_WIZARD_EXAMPLE_URI.resolve("/wizards/merlin");
+        final Model wizard = context.newModel(schemaUri);
+        wizard.setSlotValue(Document.SLOT_NAME_URI, uri);
+        wizard.setSlotValue("wizardId", "merlin");
+        wizard.setSlotValue("guildId", 1);
+        wizard.setSlotValue("spellBookSpellIds", Arrays.asList("heal"));
+
+        final Model savedWizard = context.saveModel(wizard);
+        assertNotSame(wizard, savedWizard);
+
+        // The caller goes on to change its model, after it was saved
+        wizard.setSlotValue("guildId", 2);
+        ((List<Object>) wizard.getSlotValue("spellBookSpellIds")).add("tornado");
+
+        final Model cachedWizard = context.getModelCache().get(wizard.getKeys(), wizard.getDimensions());
+        assertNotNull(cachedWizard);
+        assertNotSame(wizard, cachedWizard);
+        assertEquals(1, cachedWizard.getSlotValue("guildId"));
+        assertEquals(Arrays.asList("heal"), cachedWizard.getSlotValue("spellBookSpellIds"));
+
+        final Model gotWizard = context.getModel(wizard.getKeys(), wizard.getDimensions());
+        assertEquals(1, gotWizard.getSlotValue("guildId"));
+        assertEquals(1, savedWizard.getSlotValue("guildId"));
+    }
+
     @Test
     public void newModelSyntaxNotNull() {
 
@@ -434,4 +581,18 @@ public class ContextTest extends TestCase {
         fail("TODO: WRML-483"); // TODO: WRML-483
     }
 
+    private Thread newGetThread(final Keys keys, final Dimensions dimensions, final Queue<Model> models) {
+
+        return new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                final Model model = _Context.getModel(keys, dimensions);
+                if (model != null) {
+                    models.add(model);
+                }
+            }
+        });
+    }
 }
@@ -0,0 +1,326 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.model.Titled;
+import org.wrml.model.rest.Document;
+import org.wrml.model.rest.LinkRelation;
+import org.wrml.model.rest.Method;
+import org.wrml.model.schema.Schema;
+import org.wrml.runtime.rest.SystemApi;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class DefaultModelBuilderTest {
+
+    private static final String SLOT_NAME_SECONDS_TO_LIVE = "secondsToLive";
+
+    private ModelBuilder _ModelBuilder;
+
+    private Schema _Schema;
+
+    @Before
+    public void setUp() throws Exception {
+
+        final Context context = ContextTest.createTestContext();
+        _ModelBuilder = context.getModelBuilder();
+
+        _Schema = context.newModel(Schema.class);
+        _Schema.setTitle("Original");
+        _Schema.getKeySlotNames().add("id");
+    }
+
+    @Test
+    public void snapshotReadsSharedSlots() {
+
+        final Schema snapshot = _ModelBuilder.snapshotModel(_Schema);
+
+        assertNotSame(_Schema, snapshot);
+        assertEquals("Original", snapshot.getTitle());
+        assertEquals(_Schema.getKeySlotNames(), snapshot.getKeySlotNames());
+        assertFalse(_Schema.getHeapId().equals(snapshot.getHeapId()));
+    }
+
+    @Test
+    public void snapshotWritesDoNotLeak() {
+
+        final Schema snapshot = _ModelBuilder.snapshotModel(_Schema);
+        snapshot.setTitle("Changed");
+        snapshot.getKeySlotNames().add("otherId");
+
+        assertEquals("Changed", snapshot.getTitle());
+        assertEquals(2, snapshot.getKeySlotNames().size());
+
+        assertEquals("Original", _Schema.getTitle());
+        assertEquals(1, _Schema.getKeySlotNames().size());
+    }
+
+    @Test
+    public void snapshotsAreIndependent() {
+
+        final Schema first = _ModelBuilder.snapshotModel(_Schema);
+        final Schema second = _ModelBuilder.snapshotModel(_Schema);
+        first.setTitle("First");
+
+        assertEquals("Original", second.getTitle());
+    }
+
+    @Test
+    public void clearedSlotStaysCleared() {
+
+        final Schema snapshot = _ModelBuilder.snapshotModel(_Schema);
+        snapshot.clearSlotValue(Titled.SLOT_NAME_TITLE);
+
+        assertFalse(snapshot.containsSlotValue(Titled.SLOT_NAME_TITLE));
+        assertFalse(snapshot.getSlotMap().containsKey(Titled.SLOT_NAME_TITLE));
+        assertEquals("Original", _Schema.getTitle());
+    }
+
+    @Test
+    public void copyIsIndependentOfOriginal() {
+
+        final Schema copy = _ModelBuilder.copyModel(_Schema);
+        copy.setTitle("Copy");
+        _Schema.setTitle("Changed");
+
+        assertEquals("Copy", copy.getTitle());
+        assertEquals("Changed", _Schema.getTitle());
+    }
+
+    @Test
+    public void copyDoesNotShareLists() {
+
+        final Schema copy = _ModelBuilder.copyModel(_Schema);
+        assertNotSame(_Schema.getKeySlotNames(), copy.getSlotMap().get(Schema.SLOT_NAME_KEY_SLOT_NAMES));
+
+        copy.getKeySlotNames().add("otherId");
+        _Schema.getKeySlotNames().add("anotherId");
+
+        assertEquals(2, copy.getKeySlotNames().size());
+        assertEquals("otherId", copy.getKeySlotNames().get(1));
+        assertEquals("anotherId", _Schema.getKeySlotNames().get(1));
+    }
+
+    @Test
+    public void proxyModelsByDefault() {
+
+        assertTrue(Proxy.isProxyClass(_Schema.getClass()));
+    }
+
+    @Test
+    public void generatedModels() throws Exception {
+
+        final Context context = createGeneratedModelContext();
+        final LinkRelation relation = context.newModel(LinkRelation.class);
+
+        assertTrue(relation instanceof GeneratedModel);
+        assertTrue(relation.getClass().getName().startsWith(LinkRelation.class.getName()));
+
+        final URI uri = SystemApi.LinkRelation.getUri().resolve(ContextTest.TEST_RESOURCE_PATH + "generated");
+        relation.setUri(uri);
+        relation.setTitle("Generated");
+        relation.setMethod(Method.Save);
+
+        assertEquals(uri, relation.getUri());
+        assertEquals("Generated", relation.getTitle());
+        assertEquals(Method.Save, relation.getMethod());
+        assertEquals("Generated", relation.getSlotValue(Titled.SLOT_NAME_TITLE));
+        assertEquals(uri, relation.getKeys().getValue(context.getSchemaLoader().getDocumentSchemaUri()));
+        assertEquals(context.getSchemaLoader().getLinkRelationSchemaUri(), relation.getSchemaUri());
+
+        relation.setSlotValue(Titled.SLOT_NAME_TITLE, "Changed");
+        assertEquals("Changed", relation.getTitle());
+        assertTrue(relation.containsSlotValue(Document.SLOT_NAME_URI));
+    }
+
+    @Test
+    public void generatedModelAlternatesShareState() throws Exception {
+
+        final Context context = createGeneratedModelContext();
+        final Schema schema = context.newModel(Schema.class);
+        schema.setTitle("Shared");
+
+        final Schema alternate = schema.newAlternate(schema.getDimensions());
+        alternate.setTitle("Alternate");
+
+        assertEquals("Alternate", schema.getTitle());
+        assertEquals(schema, alternate);
+        assertEquals(schema.hashCode(), alternate.hashCode());
+
+        final Schema snapshot = context.getModelBuilder().snapshotModel(schema);
+        assertTrue(snapshot instanceof GeneratedModel);
+        assertEquals("Alternate", snapshot.getTitle());
+    }
+
+    @Test
+    public void generatedModelsWithIndexedModelStates() throws Exception {
+
+        final Map<String, String> settings = new HashMap<>();
+        settings.put(DefaultModelBuilder.MODEL_IMPLEMENTATION_SETTING_NAME, DefaultModelBuilder.GENERATED_MODEL_IMPLEMENTATION);
+        settings.put(DefaultModelBuilder.MODEL_STATE_SETTING_NAME, DefaultModelBuilder.INDEXED_MODEL_STATE);
+        settings.put(DefaultModelBuilder.PRIMITIVE_SLOTS_SETTING_NAME, "true");
+        final Context context = createContext(settings);
+
+        final LinkRelation relation = context.newModel(LinkRelation.class);
+        assertTrue(relation instanceof GeneratedModel);
+
+        relation.setTitle("Indexed");
+        relation.setSecondsToLive(60L);
+        assertEquals("Indexed", relation.getTitle());
+        assertEquals(Long.valueOf(60L), relation.getSecondsToLive());
+
+        // The indexed accessors and the named slot methods read and write the same slots
+        assertEquals("Indexed", relation.getSlotValue(Titled.SLOT_NAME_TITLE));
+        assertEquals(60L, relation.getSlotMap().get(SLOT_NAME_SECONDS_TO_LIVE));
+        relation.setSlotValue(Titled.SLOT_NAME_TITLE, "Changed");
+        assertEquals("Changed", relation.getTitle());
+
+        relation.setSecondsToLive(null);
+        assertFalse(relation.containsSlotValue(SLOT_NAME_SECONDS_TO_LIVE));
+
+        final LinkRelation alternate = relation.newAlternate(relation.getDimensions());
+        alternate.setTitle("Alternate");
+        assertEquals("Alternate", relation.getTitle());
+
+        final LinkRelation snapshot = context.getModelBuilder().snapshotModel(relation);
+        snapshot.setTitle("Snapshot");
+        assertEquals("Snapshot", snapshot.getTitle());
+        assertEquals("Alternate", relation.getTitle());
+    }
+
+    @Test
+    public void indexedModelStates() throws Exception {
+
+        final Map<String, String> settings = new HashMap<>();
+        settings.put(DefaultModelBuilder.MODEL_STATE_SETTING_NAME, DefaultModelBuilder.INDEXED_MODEL_STATE);
+        settings.put(DefaultModelBuilder.PRIMITIVE_SLOTS_SETTING_NAME, "true");
+        final Context context = createContext(settings);
+
+        final LinkRelation relation = context.newModel(LinkRelation.class);
+        final URI uri = SystemApi.LinkRelation.getUri().resolve(ContextTest.TEST_RESOURCE_PATH + "indexed");
+        relation.setUri(uri);
+        relation.setTitle("Indexed");
+        relation.setSecondsToLive(60L);
+
+        assertEquals(uri, relation.getUri());
+        assertEquals("Indexed", relation.getTitle());
+        assertEquals(Long.valueOf(60L), relation.getSecondsToLive());
+
+        final Map<String, Object> slotMap = relation.getSlotMap();
+        assertEquals("Indexed", slotMap.get(Titled.SLOT_NAME_TITLE));
+        assertEquals(60L, slotMap.get(SLOT_NAME_SECONDS_TO_LIVE));
+        assertTrue(slotMap.containsKey(Document.SLOT_NAME_URI));
+        assertEquals(slotMap.size(), new HashMap<>(slotMap).size());
+
+        // The slot map is a live view
+        slotMap.put(Titled.SLOT_NAME_TITLE, "Changed");
+        assertEquals("Changed", relation.getTitle());
+        relation.clearSlotValue(SLOT_NAME_SECONDS_TO_LIVE);
+        assertFalse(slotMap.containsKey(SLOT_NAME_SECONDS_TO_LIVE));
+
+        final LinkRelation copy = relation.newCopy();
+        assertEquals("Changed", copy.getTitle());
+        assertEquals(uri, copy.getKeys().getValue(context.getSchemaLoader().getDocumentSchemaUri()));
+    }
+
+    @Test
+    public void indexedModelStatesAreThreadSafe() throws Exception {
+
+        final Map<String, String> settings = new HashMap<>();
+        settings.put(DefaultModelBuilder.MODEL_STATE_SETTING_NAME, DefaultModelBuilder.INDEXED_MODEL_STATE);
+        settings.put(DefaultModelBuilder.PRIMITIVE_SLOTS_SETTING_NAME, "true");
+        final Context context = createContext(settings);
+
+        final LinkRelation relation = context.newModel(LinkRelation.class);
+        relation.setTitle("Shared");
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread writer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                try {
+                    for (long i = 0; i < 20000; i++) {
+                        if (i % 2 == 0) {
+                            relation.setSecondsToLive(i);
+                        }
+                        else {
+                            relation.clearSlotValue(SLOT_NAME_SECONDS_TO_LIVE);
+                        }
+                    }
+                }
+                catch (final Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+
+        writer.start();
+        while (writer.isAlive()) {
+            // Readers iterate (and copy) the live state while it is being written
+            final LinkRelation snapshot = context.getModelBuilder().snapshotModel(relation);
+            assertEquals("Shared", snapshot.getTitle());
+            for (final Map.Entry<String, Object> slot : relation.getSlotMap().entrySet()) {
+                assertNotNull(slot.getValue());
+            }
+
+            assertEquals("Shared", relation.<LinkRelation>newCopy().getTitle());
+        }
+
+        writer.join();
+        assertNull(failure.get());
+    }
+
+    private static Context createGeneratedModelContext() throws Exception {
+
+        return createContext(Collections.singletonMap(DefaultModelBuilder.MODEL_IMPLEMENTATION_SETTING_NAME,
+                DefaultModelBuilder.GENERATED_MODEL_IMPLEMENTATION));
+    }
+
+    private static Context createContext(final Map<String, String> modelBuilderSettings) throws Exception {
+
+        final EngineConfiguration config = EngineConfiguration.load(EngineTest.class, EngineTest.WRML_CONFIG_RESOURCE);
+
+        ModelBuilderConfiguration modelBuilderConfig = config.getContext().getModelBuilder();
+        if (modelBuilderConfig == null) {
+            modelBuilderConfig = new ModelBuilderConfiguration();
+            config.getContext().setModelBuilder(modelBuilderConfig);
+        }
+
+        modelBuilderConfig.setSettings(modelBuilderSettings);
+
+        return EngineTest.createTestEngine(config).getContext();
+    }
+}
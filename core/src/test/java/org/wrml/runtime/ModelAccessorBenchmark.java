@@ -0,0 +1,99 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime;
+
+import org.wrml.model.schema.Schema;
+
+import java.util.Collections;
+
+/**
+ * A simple (non-JUnit) micro-benchmark of model slot accessor throughput, for comparing the {@link DefaultModel}
+ * proxy's method dispatch with the generated model implementation, whose accessors are bound to their slot indexes.
+ * <p/>
+ * Run the class's main method from the test classpath; the optional argument is the number of measured iterations.
+ */
+public class ModelAccessorBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200000;
+
+    private static final int DEFAULT_ITERATIONS = 2000000;
+
+    public static void main(final String[] args) throws Exception {
+
+        final int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+        final Context proxyContext = ContextTest.createTestContext();
+        final Context generatedContext = createContext(DefaultModelBuilder.GENERATED_MODEL_IMPLEMENTATION);
+
+        for (int round = 0; round < 3; round++) {
+            final long proxyNanos = run("proxy", proxyContext, iterations);
+            final long generatedNanos = run("generated", generatedContext, iterations);
+            System.out.println(String.format("generated/proxy: %.2fx faster", (double) proxyNanos / generatedNanos));
+        }
+    }
+
+    private static long run(final String name, final Context context, final int iterations) {
+
+        final Schema schema = context.newModel(Schema.class);
+        schema.setTitle("Benchmark");
+
+        measure(schema, WARMUP_ITERATIONS);
+        final long nanos = measure(schema, iterations);
+
+        System.out.println(String.format("%-10s %,8d us total, %6.1f ns/op (get + set)", name, nanos / 1000, (double) nanos / iterations));
+        return nanos;
+    }
+
+    private static long measure(final Schema schema, final int iterations) {
+
+        int sink = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += schema.getTitle().length();
+            schema.setDescription(null);
+        }
+
+        final long nanos = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+
+        return nanos;
+    }
+
+    private static Context createContext(final String modelImplementation) throws Exception {
+
+        final EngineConfiguration config = EngineConfiguration.load(EngineTest.class, EngineTest.WRML_CONFIG_RESOURCE);
+
+        ModelBuilderConfiguration modelBuilderConfig = config.getContext().getModelBuilder();
+        if (modelBuilderConfig == null) {
+            modelBuilderConfig = new ModelBuilderConfiguration();
+            config.getContext().setModelBuilder(modelBuilderConfig);
+        }
+
+        modelBuilderConfig.setSettings(Collections.singletonMap(DefaultModelBuilder.MODEL_IMPLEMENTATION_SETTING_NAME, modelImplementation));
+        return EngineTest.createTestEngine(config).getContext();
+    }
+}
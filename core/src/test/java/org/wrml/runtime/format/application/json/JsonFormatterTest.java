@@ -0,0 +1,208 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.model.Model;
+import org.wrml.model.rest.LinkRelation;
+import org.wrml.model.rest.Method;
+import org.wrml.model.schema.Schema;
+import org.wrml.model.schema.Slot;
+import org.wrml.runtime.*;
+import org.wrml.runtime.format.*;
+import org.wrml.runtime.rest.SystemApi;
+import org.wrml.runtime.schema.SchemaLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class JsonFormatterTest {
+
+    private Context _Context;
+
+    private Formatter _Formatter;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _Context = ContextTest.createTestContext();
+        _Formatter = _Context.getFormatLoader().getFormatter(SystemFormat.json.getFormatUri());
+    }
+
+    @Test
+    public void jsonFormatterIsStreaming() {
+
+        assertTrue(_Formatter instanceof JsonFormatter);
+        assertNotNull(((JsonFormatter) _Formatter).getJsonModelReader());
+        assertNotNull(((JsonFormatter) _Formatter).getJsonModelWriter());
+    }
+
+    @Test
+    public void readLinkRelation() throws Exception {
+
+        final LinkRelation relation = _Context.newModel(LinkRelation.class);
+        final URI uri = SystemApi.LinkRelation.getUri().resolve(ContextTest.TEST_RESOURCE_PATH + "json");
+        relation.setUri(uri);
+        relation.setTitle("JSON");
+        relation.setMethod(Method.Save);
+        relation.setSecondsToLive(60L);
+
+        final LinkRelation readRelation = read(write(relation), relation.getKeys(), relation.getDimensions(), _Formatter);
+
+        assertEquals(uri, readRelation.getUri());
+        assertEquals("JSON", readRelation.getTitle());
+        assertEquals(Method.Save, readRelation.getMethod());
+        assertEquals(Long.valueOf(60L), readRelation.getSecondsToLive());
+        assertEquals(relation.getKeys(), readRelation.getKeys());
+    }
+
+    @Test
+    public void readMatchesPluggableReader() throws Exception {
+
+        final SchemaLoader schemaLoader = _Context.getSchemaLoader();
+        final URI schemaUri = schemaLoader.getTypeUri(LinkRelation.class);
+        final Keys keys = new KeysBuilder(schemaLoader.getDocumentSchemaUri(), schemaUri).toKeys();
+        final Schema schema = schemaLoader.getNativeSchema(keys);
+
+        final byte[] json = write(schema);
+
+        final Formatter pluggableFormatter = createPluggableFormatter();
+        final Schema pluggableSchema = read(json, keys, schema.getDimensions(), pluggableFormatter);
+        final Schema streamingSchema = read(json, keys, schema.getDimensions(), _Formatter);
+
+        assertEquals(schema.getSlots().size(), streamingSchema.getSlots().size());
+        assertEquals(new String(write(pluggableSchema), "UTF-8"), new String(write(streamingSchema), "UTF-8"));
+    }
+
+    @Test
+    public void writeMatchesPluggableWriter() throws Exception {
+
+        final SchemaLoader schemaLoader = _Context.getSchemaLoader();
+        final URI schemaUri = schemaLoader.getTypeUri(LinkRelation.class);
+        final Keys keys = new KeysBuilder(schemaLoader.getDocumentSchemaUri(), schemaUri).toKeys();
+        final Schema schema = schemaLoader.getNativeSchema(keys);
+
+        final Formatter pluggableFormatter = createPluggableFormatter();
+        final byte[] streamingJson = write(schema, _Formatter);
+        final byte[] pluggableJson = write(schema, pluggableFormatter);
+
+        // The slots may be written in a different order
+        final ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals(objectMapper.readTree(pluggableJson), objectMapper.readTree(streamingJson));
+    }
+
+    @Test
+    public void writeWithSlotExclusions() throws Exception {
+
+        final SchemaLoader schemaLoader = _Context.getSchemaLoader();
+        final URI schemaUri = schemaLoader.getTypeUri(LinkRelation.class);
+        final Keys keys = new KeysBuilder(schemaLoader.getDocumentSchemaUri(), schemaUri).toKeys();
+        final Schema schema = schemaLoader.getNativeSchema(keys);
+
+        final ModelWriteOptions writeOptions = new ModelWriteOptions();
+        writeOptions.setExcludedSchemaUris(Collections.singleton(schemaLoader.getTypeUri(Slot.class)));
+        writeOptions.setDocumentKeyExcludedIfSecondary(true);
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals(objectMapper.readTree(write(schema, createPluggableFormatter(), writeOptions)),
+                objectMapper.readTree(write(schema, _Formatter, writeOptions)));
+    }
+
+    @Test
+    public void writeModelReferences() throws Exception {
+
+        final Schema schema = _Context.newModel(Schema.class);
+        final Slot slot = _Context.newModel(Slot.class);
+        slot.setName("repeated");
+        schema.getSlots().add(slot);
+        schema.getSlots().add(slot);
+
+        final JsonModelWriter jsonModelWriter = ((JsonFormatter) _Formatter).getJsonModelWriter();
+        assertFalse(jsonModelWriter.isModelGraphTree(schema));
+
+        // The graph's second reference to the slot is written as a heapId reference.
+        final String json = new String(write(schema, _Formatter), "UTF-8");
+        assertTrue(json.contains(Model.SLOT_NAME_HEAP_ID));
+        assertTrue(jsonModelWriter.isModelGraphTree(slot));
+    }
+
+    @Test(expected = ModelReadingException.class)
+    public void readMismatchedValue() throws Exception {
+
+        final LinkRelation relation = _Context.newModel(LinkRelation.class);
+        final String json = "{ \"title\" : 42 }";
+        read(json.getBytes("UTF-8"), null, relation.getDimensions(), _Formatter);
+    }
+
+    private Formatter createPluggableFormatter() {
+
+        final Map<String, String> settings = new HashMap<>();
+        settings.put(PluggableFormatter.PARSER_FACTORY_SETTING_NAME, JsonModelParserFactory.class.getName());
+        settings.put(PluggableFormatter.PRINTER_FACTORY_SETTING_NAME, JsonModelPrinterFactory.class.getName());
+        settings.put(JsonFormatter.STREAMING_READER_SETTING_NAME, "false");
+        settings.put(JsonFormatter.STREAMING_WRITER_SETTING_NAME, "false");
+
+        final FormatterConfiguration config = new FormatterConfiguration();
+        config.setFormatUri(SystemFormat.json.getFormatUri());
+        config.setSettings(settings);
+
+        final JsonFormatter formatter = new JsonFormatter();
+        formatter.init(_Context, config);
+        assertNull(formatter.getJsonModelReader());
+        assertNull(formatter.getJsonModelWriter());
+        return formatter;
+    }
+
+    private <M extends Model> M read(final byte[] json, final Keys keys, final Dimensions dimensions, final Formatter formatter)
+            throws Exception {
+
+        return formatter.readModel(new ByteArrayInputStream(json), keys, dimensions);
+    }
+
+    private byte[] write(final Model model) throws Exception {
+
+        return write(model, _Formatter);
+    }
+
+    private byte[] write(final Model model, final Formatter formatter) throws Exception {
+
+        return write(model, formatter, null);
+    }
+
+    private byte[] write(final Model model, final Formatter formatter, final ModelWriteOptions writeOptions) throws Exception {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        formatter.writeModel(out, model, writeOptions);
+        return out.toByteArray();
+    }
+}
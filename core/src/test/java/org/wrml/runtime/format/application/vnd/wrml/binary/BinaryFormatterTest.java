@@ -0,0 +1,182 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.format.application.vnd.wrml.binary;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.model.Model;
+import org.wrml.model.rest.Api;
+import org.wrml.model.rest.LinkRelation;
+import org.wrml.model.rest.Method;
+import org.wrml.model.schema.Schema;
+import org.wrml.model.schema.Slot;
+import org.wrml.runtime.*;
+import org.wrml.runtime.format.Formatter;
+import org.wrml.runtime.format.ModelReadingException;
+import org.wrml.runtime.format.ModelWriteOptions;
+import org.wrml.runtime.format.ModelWritingException;
+import org.wrml.runtime.format.SystemFormat;
+import org.wrml.runtime.rest.SystemApi;
+import org.wrml.runtime.schema.SchemaLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class BinaryFormatterTest {
+
+    private Context _Context;
+
+    private Formatter _Formatter;
+
+    private Formatter _JsonFormatter;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _Context = ContextTest.createTestContext();
+        _Formatter = _Context.getFormatLoader().getFormatter(SystemFormat.vnd_wrml_binary.getFormatUri());
+        _JsonFormatter = _Context.getFormatLoader().getFormatter(SystemFormat.json.getFormatUri());
+    }
+
+    @Test
+    public void binaryFormatterIsLoaded() {
+
+        assertTrue(_Formatter instanceof BinaryFormatter);
+        assertNotNull(((BinaryFormatter) _Formatter).getBinaryModelReader());
+        assertNotNull(((BinaryFormatter) _Formatter).getBinaryModelWriter());
+    }
+
+    @Test
+    public void readLinkRelation() throws Exception {
+
+        final LinkRelation relation = _Context.newModel(LinkRelation.class);
+        final URI uri = SystemApi.LinkRelation.getUri().resolve(ContextTest.TEST_RESOURCE_PATH + "binary");
+        relation.setUri(uri);
+        relation.setTitle("Binary");
+        relation.setMethod(Method.Save);
+        relation.setSecondsToLive(60L);
+
+        final LinkRelation readRelation = read(write(relation, _Formatter, null), relation.getKeys(), relation.getDimensions());
+
+        assertEquals(uri, readRelation.getUri());
+        assertEquals("Binary", readRelation.getTitle());
+        assertEquals(Method.Save, readRelation.getMethod());
+        assertEquals(Long.valueOf(60L), readRelation.getSecondsToLive());
+        assertEquals(relation.getKeys(), readRelation.getKeys());
+    }
+
+    @Test
+    public void readSchema() throws Exception {
+
+        final SchemaLoader schemaLoader = _Context.getSchemaLoader();
+        final URI schemaUri = schemaLoader.getTypeUri(LinkRelation.class);
+        final Keys keys = new KeysBuilder(schemaLoader.getDocumentSchemaUri(), schemaUri).toKeys();
+        final Schema schema = schemaLoader.getNativeSchema(keys);
+
+        final byte[] binary = write(schema, _Formatter, null);
+        final Schema readSchema = read(binary, keys, schema.getDimensions());
+
+        assertEquals(schema.getSlots().size(), readSchema.getSlots().size());
+
+        // The read schema is written (as JSON) just like the original
+        final ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals(objectMapper.readTree(write(schema, _JsonFormatter, null)), objectMapper.readTree(write(readSchema, _JsonFormatter, null)));
+
+        // The repeated slot names and strings (and URI prefixes) are dictionary references
+        final ModelWriteOptions writeOptions = new ModelWriteOptions();
+        writeOptions.setPrettyPrint(false);
+        assertTrue(binary.length * 3 < write(schema, _JsonFormatter, writeOptions).length * 2);
+    }
+
+    @Test
+    public void readWithChangedSchemaSlots() throws Exception {
+
+        final LinkRelation relation = _Context.newModel(LinkRelation.class);
+        final URI uri = SystemApi.LinkRelation.getUri().resolve(ContextTest.TEST_RESOURCE_PATH + "evolved");
+        relation.setUri(uri);
+        relation.setTitle("Evolved");
+        relation.setMethod(Method.Save);
+
+        // Read with a schema that shares some of the slots and lacks others, as if the schema had changed since the write
+        final Dimensions apiDimensions = _Context.getSchemaLoader().getApiDimensions();
+        final Api api = read(write(relation, _Formatter, null), null, apiDimensions);
+
+        assertEquals(uri, api.getUri());
+        assertEquals("Evolved", api.getTitle());
+        assertEquals(Method.Save.name(), api.getSlotMap().get("method"));
+    }
+
+    @Test
+    public void writeWithSlotExclusions() throws Exception {
+
+        final SchemaLoader schemaLoader = _Context.getSchemaLoader();
+        final URI schemaUri = schemaLoader.getTypeUri(LinkRelation.class);
+        final Keys keys = new KeysBuilder(schemaLoader.getDocumentSchemaUri(), schemaUri).toKeys();
+        final Schema schema = schemaLoader.getNativeSchema(keys);
+
+        final ModelWriteOptions writeOptions = new ModelWriteOptions();
+        writeOptions.setExcludedSchemaUris(Collections.singleton(schemaLoader.getTypeUri(Slot.class)));
+
+        final Schema readSchema = read(write(schema, _Formatter, writeOptions), keys, schema.getDimensions());
+        assertFalse(readSchema.getSlots().isEmpty());
+        assertNotNull(schema.getSlots().get(0).getValue());
+        assertNull(readSchema.getSlots().get(0).getValue());
+        assertEquals(schema.getSlots().get(0).getName(), readSchema.getSlots().get(0).getName());
+        assertEquals(schema.getUniqueName(), readSchema.getUniqueName());
+    }
+
+    @Test(expected = ModelWritingException.class)
+    public void writeCycle() throws Exception {
+
+        final Model model = _Context.getModelBuilder().newModel();
+        model.getSlotMap().put("self", model);
+
+        write(model, _Formatter, null);
+    }
+
+    @Test(expected = ModelReadingException.class)
+    public void readJson() throws Exception {
+
+        final LinkRelation relation = _Context.newModel(LinkRelation.class);
+        read("{ \"title\" : \"JSON\" }".getBytes("UTF-8"), null, relation.getDimensions());
+    }
+
+    private <M extends Model> M read(final byte[] binary, final Keys keys, final Dimensions dimensions) throws Exception {
+
+        return _Formatter.readModel(new ByteArrayInputStream(binary), keys, dimensions);
+    }
+
+    private static byte[] write(final Model model, final Formatter formatter, final ModelWriteOptions writeOptions) throws Exception {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        formatter.writeModel(out, model, writeOptions);
+        return out.toByteArray();
+    }
+}
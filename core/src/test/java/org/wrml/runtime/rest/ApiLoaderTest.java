@@ -38,6 +38,7 @@ import org.wrml.runtime.schema.SchemaLoader;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.*;
 
 public class ApiLoaderTest {
 
@@ -51,6 +52,8 @@ public class ApiLoaderTest {
 
     public static final URI WRML_MERLIN_URI = WRML_API_WIZARD_EXAMPLE_URI.resolve("/wizards/merlin?rg=42");
 
+    public static final URI WRML_SCHEMA_SPELL_URI = SystemApi.Schema.getUri().resolve(TEST_WIZARD_RESOURCE_PATH + "Spell");
+
     private ApiLoader _ApiLoader;
 
     @Before
@@ -144,6 +147,36 @@ public class ApiLoaderTest {
         Assert.assertNotNull(aggregate.reference("c"));
     }
 
+    @Test
+    public void loadScreenApiAndGetAggregateInParallel() throws IOException {
+
+        final Map<String, String> settings = new HashMap<>();
+        settings.put(DefaultContext.AGGREGATION_THREADS_SETTING_NAME, "4");
+        settings.put(DefaultContext.AGGREGATION_TIMEOUT_SETTING_NAME, "60000");
+        final Context context = createContext(settings);
+
+        final AggregateDocument aggregate = getScreenAggregate(context);
+
+        for (final String linkSlotName : new String[]{"a", "b", "c"}) {
+            final Link link = (Link) aggregate.getSlotValue(linkSlotName);
+            Assert.assertNotNull(link.getDoc());
+            Assert.assertEquals(((Document) link.getDoc()).getUri(), link.getHref());
+        }
+    }
+
+    @Test
+    public void loadScreenApiAndGetAggregateBeyondDepthLimit() throws IOException {
+
+        final Context context = createContext(Collections.singletonMap(DefaultContext.AGGREGATION_DEPTH_SETTING_NAME, "0"));
+
+        final AggregateDocument aggregate = getScreenAggregate(context);
+
+        // The linked documents are not embedded; though they may still be referenced.
+        final Link aLink = (Link) aggregate.getSlotValue("a");
+        Assert.assertNull(aLink.getDoc());
+        Assert.assertNotNull(aggregate.reference("a"));
+    }
+
     @Test
     public void loadWizardApiAndGetMerlin() throws IOException {
 
@@ -174,6 +207,137 @@ public class ApiLoaderTest {
 
     }
 
+    @Test
+    public void loadWizardApiAndGetMultipleSpells() throws IOException {
+
+        final Context context = _ApiLoader.getContext();
+        final SchemaLoader schemaLoader = context.getSchemaLoader();
+
+        final Api api = ContextTest.getModelResource(context, WRML_API_WIZARD_EXAMPLE_URI, schemaLoader.getApiDimensions());
+        _ApiLoader.loadApi(api);
+
+        final String[] spellNames = {"tornado", "missing", "heal", "iceStorm"};
+        final List<Keys> multipleKeys = new ArrayList<>(spellNames.length);
+        for (final String spellName : spellNames) {
+            final URI spellUri = WRML_API_WIZARD_EXAMPLE_URI.resolve("/spells/" + spellName);
+            multipleKeys.add(_ApiLoader.buildDocumentKeys(spellUri, WRML_SCHEMA_SPELL_URI));
+        }
+
+        final Dimensions spellDimensions = new DimensionsBuilder().setSchemaUri(WRML_SCHEMA_SPELL_URI).toDimensions();
+        final List<Document> spells = context.getMultipleModels(multipleKeys, spellDimensions);
+
+        // The missing spell is skipped and the others are returned in order.
+        Assert.assertEquals(3, spells.size());
+        Assert.assertTrue(spells.get(0).getUri().getPath().endsWith("/tornado"));
+        Assert.assertTrue(spells.get(1).getUri().getPath().endsWith("/heal"));
+        Assert.assertTrue(spells.get(2).getUri().getPath().endsWith("/iceStorm"));
+
+        // The second batch is served from the cache.
+        final List<Document> cachedSpells = context.getMultipleModels(multipleKeys, spellDimensions);
+        Assert.assertEquals(spells.size(), cachedSpells.size());
+        for (int i = 0; i < spells.size(); i++) {
+            Assert.assertEquals(spells.get(i).getUri(), cachedSpells.get(i).getUri());
+        }
+    }
+
+    @Test
+    public void routesAreCachedUntilTheApiIsReloaded() throws IOException {
+
+        final Context context = _ApiLoader.getContext();
+        final SchemaLoader schemaLoader = context.getSchemaLoader();
+
+        final Api api = ContextTest.getModelResource(context, WRML_API_WIZARD_EXAMPLE_URI, schemaLoader.getApiDimensions());
+        final ApiNavigator apiNavigator = _ApiLoader.loadApi(api);
+
+        final Route route = _ApiLoader.getRoute(WRML_MERLIN_URI);
+        Assert.assertSame(apiNavigator, route.getApiNavigator());
+        Assert.assertSame(apiNavigator, _ApiLoader.getParentApiNavigator(WRML_MERLIN_URI));
+        Assert.assertEquals("/wizards/{wizardId}", route.getResource().getPathText());
+        Assert.assertEquals("merlin", route.getParameters().first().getValue());
+
+        final RouteCache routeCache = ((DefaultApiLoader) _ApiLoader).getRouteCache();
+        final long hitCount = routeCache.getHitCount();
+        Assert.assertSame(route, _ApiLoader.getRoute(WRML_MERLIN_URI));
+        Assert.assertEquals(hitCount + 1, routeCache.getHitCount());
+
+        final ApiNavigator reloadedApiNavigator = _ApiLoader.loadApi(api);
+        final Route reloadedRoute = _ApiLoader.getRoute(WRML_MERLIN_URI);
+        Assert.assertNotSame(route, reloadedRoute);
+        Assert.assertSame(reloadedApiNavigator, reloadedRoute.getApiNavigator());
+
+        Assert.assertNull(_ApiLoader.getRoute(URI.create("http://unknown.api.wrml.org/wizards")));
+    }
+
+    @Test
+    public void routesAreInvalidatedWhenAResourceIsAdded() throws IOException {
+
+        final Context context = _ApiLoader.getContext();
+        final SchemaLoader schemaLoader = context.getSchemaLoader();
+
+        final Api api = ContextTest.getModelResource(context, WRML_API_WIZARD_EXAMPLE_URI, schemaLoader.getApiDimensions());
+        final ApiNavigator apiNavigator = _ApiLoader.loadApi(api);
+
+        final Route route = _ApiLoader.getRoute(WRML_MERLIN_URI);
+        Assert.assertSame(route, _ApiLoader.getRoute(WRML_MERLIN_URI));
+
+        final RouteCache routeCache = ((DefaultApiLoader) _ApiLoader).getRouteCache();
+        final long generation = routeCache.getGeneration();
+
+        final ResourceTemplate potionsTemplate = context.newModel(ResourceTemplate.class);
+        potionsTemplate.setUniqueId(UUID.randomUUID());
+        potionsTemplate.setPathSegment("potions");
+        final Resource potions = apiNavigator.addResource(api.getDocroot().getUniqueId(), potionsTemplate);
+
+        Assert.assertSame(potions, apiNavigator.getResource(api.getDocroot().getUniqueId()).getLiteralPathSubresources().get("potions"));
+        Assert.assertTrue(routeCache.getGeneration() > generation);
+
+        final Route addedRoute = _ApiLoader.getRoute(WRML_MERLIN_URI);
+        Assert.assertNotSame(route, addedRoute);
+        Assert.assertEquals("/wizards/{wizardId}", addedRoute.getResource().getPathText());
+    }
+
     // TODO: Add more tests
 
+    private static AggregateDocument getScreenAggregate(final Context context) throws IOException {
+
+        final ApiLoader apiLoader = context.getApiLoader();
+        final SchemaLoader schemaLoader = context.getSchemaLoader();
+
+        final Schema aSchema = ContextTest.getModelResource(context, ContextTest.WRML_SCHEMA_A_URI, schemaLoader.getSchemaDimensions());
+        final Schema bSchema = ContextTest.getModelResource(context, ContextTest.WRML_SCHEMA_B_URI, schemaLoader.getSchemaDimensions());
+        final Schema cSchema = ContextTest.getModelResource(context, ContextTest.WRML_SCHEMA_C_URI, schemaLoader.getSchemaDimensions());
+
+        final LinkRelation a = ContextTest.getModelResource(context, ContextTest.WRML_RELATION_A_URI, schemaLoader.getLinkRelationDimensions());
+        Assert.assertNotNull(a);
+        final LinkRelation b = ContextTest.getModelResource(context, ContextTest.WRML_RELATION_B_URI, schemaLoader.getLinkRelationDimensions());
+        Assert.assertNotNull(b);
+        final LinkRelation c = ContextTest.getModelResource(context, ContextTest.WRML_RELATION_C_URI, schemaLoader.getLinkRelationDimensions());
+        Assert.assertNotNull(c);
+
+        final Schema aggregateSchema = ContextTest.getModelResource(context, ContextTest.WRML_SCHEMA_SCREEN_URI, schemaLoader.getSchemaDimensions());
+        Assert.assertNotNull(aggregateSchema);
+        final JsonSchema jsonSchema = schemaLoader.getJsonSchemaLoader().load(aggregateSchema);
+        Assert.assertNotNull(jsonSchema);
+
+        final Api api = ContextTest.getModelResource(context, ContextTest.WRML_API_SCREEN_EXAMPLE_URI, schemaLoader.getApiDimensions());
+        final ApiNavigator apiNavigator = apiLoader.loadApi(api);
+        Assert.assertNotNull(apiNavigator);
+        Assert.assertNotNull(apiNavigator.toString());
+
+        Assert.assertEquals(api, apiLoader.loadApi(ContextTest.WRML_API_SCREEN_EXAMPLE_URI).getApi());
+
+        final Keys aggregateKeys = apiLoader.buildDocumentKeys(ContextTest.WRML_SCREEN_AGGREGATE_URI, aggregateSchema.getUri());
+        final Dimensions aggregateDimensions = new DimensionsBuilder().setSchemaUri(aggregateSchema.getUri()).toDimensions();
+        final AggregateDocument aggregate = context.getModel(aggregateKeys, aggregateDimensions);
+        Assert.assertNotNull(aggregate);
+        return aggregate;
+    }
+
+    private static Context createContext(final Map<String, String> contextSettings) throws IOException {
+
+        final EngineConfiguration config = EngineConfiguration.load(EngineTest.class, EngineTest.WRML_CONFIG_RESOURCE);
+        config.getContext().setSettings(contextSettings);
+        return EngineTest.createTestEngine(config).getContext();
+    }
+
 }
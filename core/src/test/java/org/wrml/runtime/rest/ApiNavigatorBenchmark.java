@@ -0,0 +1,99 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.rest;
+
+import org.wrml.runtime.Context;
+import org.wrml.runtime.ContextTest;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * A simple (non-JUnit) micro-benchmark of {@link ApiNavigator} URI matching throughput over a synthetic API, for
+ * comparing the {@link RoutingAutomaton} with the original recursive matcher (see
+ * {@link ApiNavigatorTest#recursiveMatch(Resource, String)}).
+ * <p/>
+ * Run the class's main method from the test classpath; the optional arguments are the number of resources in the
+ * synthetic API and the number of measured iterations.
+ */
+public class ApiNavigatorBenchmark {
+
+    private static final int DEFAULT_RESOURCE_COUNT = 1000;
+
+    private static final int WARMUP_ITERATIONS = 200000;
+
+    private static final int DEFAULT_ITERATIONS = 2000000;
+
+    public static void main(final String[] args) throws Exception {
+
+        final int resourceCount = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_RESOURCE_COUNT;
+        final int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+
+        final Context context = ContextTest.createTestContext();
+        final List<String> paths = ApiNavigatorTest.createSyntheticResourcePaths(resourceCount, 42L);
+        final ApiNavigator apiNavigator = ApiNavigatorTest.createSyntheticApiNavigator(context, paths);
+        final URI[] uris = ApiNavigatorTest.createSyntheticRequestUris(paths, 7L).toArray(new URI[0]);
+
+        for (int round = 0; round < 3; round++) {
+            run("recursive", apiNavigator, uris, iterations, true);
+            run("automaton", apiNavigator, uris, iterations, false);
+        }
+    }
+
+    private static void run(final String name, final ApiNavigator apiNavigator, final URI[] uris, final int iterations, final boolean recursive) {
+
+        measure(apiNavigator, uris, WARMUP_ITERATIONS, recursive);
+        final long nanos = measure(apiNavigator, uris, iterations, recursive);
+
+        System.out.println(String.format("%-10s %,8d us total, %6.1f ns/op (match)", name, nanos / 1000, (double) nanos / iterations));
+    }
+
+    private static long measure(final ApiNavigator apiNavigator, final URI[] uris, final int iterations, final boolean recursive) {
+
+        // The automaton is used directly (as the recursive matcher is) to leave the ApiNavigator's logging out of it.
+        final Resource docroot = apiNavigator.getDocroot();
+        final RoutingAutomaton routingAutomaton = RoutingAutomaton.compile(docroot);
+        final int pathStart = apiNavigator.getApiUri().toString().length();
+
+        int sink = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            final URI uri = uris[i % uris.length];
+            if (recursive) {
+                sink += ApiNavigatorTest.recursiveMatch(docroot, uri.toString().substring(pathStart)).size();
+            }
+            else if (routingAutomaton.match(uri.toString(), pathStart) != null) {
+                sink++;
+            }
+        }
+
+        final long nanos = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+
+        return nanos;
+    }
+}
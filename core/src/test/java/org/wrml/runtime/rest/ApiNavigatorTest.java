@@ -0,0 +1,253 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.rest;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.ContextTest;
+
+import java.net.URI;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link ApiNavigator}'s URI matching.
+ * <p/>
+ * Static method(s) are helpers for other test classes.
+ */
+public class ApiNavigatorTest {
+
+    public static final URI SYNTHETIC_API_URI = URI.create("http://synthetic.api.wrml.org");
+
+    private Context _Context;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _Context = ContextTest.createTestContext();
+    }
+
+    /**
+     * Generates the paths of a random (but repeatable) tree of resources, with a mix of literal and variable path
+     * segments.
+     */
+    public static List<String> createSyntheticResourcePaths(final int resourceCount, final long seed) {
+
+        final Random random = new Random(seed);
+        final List<String> paths = new ArrayList<>(resourceCount);
+        paths.add(ApiNavigator.DOCROOT_PATH);
+
+        for (int i = 1; i < resourceCount; i++) {
+            final String parentPath = paths.get(random.nextInt(paths.size()));
+            final String pathSegment = (random.nextInt(3) == 0) ? "{v" + i + "}" : "s" + random.nextInt(resourceCount / 4 + 1);
+            final String path = (parentPath.equals(ApiNavigator.DOCROOT_PATH) ? "" : parentPath) + ApiNavigator.PATH_SEPARATOR + pathSegment;
+
+            if (paths.contains(path)) {
+                i--;
+                continue;
+            }
+
+            paths.add(path);
+        }
+
+        return paths;
+    }
+
+    /**
+     * Creates an {@link ApiNavigator} for an API with the specified resource paths; three out of every four resources
+     * have a "self" link (and so may be matched).
+     */
+    public static ApiNavigator createSyntheticApiNavigator(final Context context, final List<String> paths) {
+
+        final ApiBuilder apiBuilder = new ApiBuilder(context).uri(SYNTHETIC_API_URI).title("Synthetic");
+        for (final String path : paths) {
+            apiBuilder.resource(path);
+        }
+
+        for (int i = 0; i < paths.size(); i++) {
+            if (i % 4 != 3) {
+                final String path = paths.get(i);
+                apiBuilder.link(path, SystemLinkRelation.self.getUri(), path, (URI) null);
+            }
+        }
+
+        return apiBuilder.navigate();
+    }
+
+    /**
+     * Generates request URIs for the specified resource paths, with their variable path segments filled in, along with
+     * some near misses.
+     */
+    public static List<URI> createSyntheticRequestUris(final List<String> paths, final long seed) {
+
+        final Random random = new Random(seed);
+        final List<URI> uris = new ArrayList<>();
+        for (final String path : paths) {
+            final String[] pathSegments = StringUtils.split(path, ApiNavigator.PATH_SEPARATOR_CHAR);
+            final StringBuilder requestPath = new StringBuilder();
+            for (final String pathSegment : pathSegments) {
+                requestPath.append(ApiNavigator.PATH_SEPARATOR);
+                requestPath.append(pathSegment.startsWith("{") ? "x" + random.nextInt(1000) : pathSegment);
+            }
+
+            uris.add(SYNTHETIC_API_URI.resolve(requestPath.length() == 0 ? ApiNavigator.DOCROOT_PATH : requestPath.toString()));
+            uris.add(URI.create(SYNTHETIC_API_URI + requestPath.toString() + "/nope"));
+            uris.add(URI.create(SYNTHETIC_API_URI + requestPath.toString() + "/"));
+        }
+
+        return uris;
+    }
+
+    @Test
+    public void matchesLikeTheRecursiveMatcher() {
+
+        final List<String> paths = createSyntheticResourcePaths(300, 42L);
+        final ApiNavigator apiNavigator = createSyntheticApiNavigator(_Context, paths);
+        final RoutingAutomaton routingAutomaton = RoutingAutomaton.compile(apiNavigator.getDocroot());
+        final int pathStart = SYNTHETIC_API_URI.toString().length();
+
+        final List<URI> uris = createSyntheticRequestUris(paths, 7L);
+        uris.add(URI.create(SYNTHETIC_API_URI + "//"));
+        uris.add(URI.create(SYNTHETIC_API_URI + "//s1//s2"));
+
+        int matchCount = 0;
+        for (final URI uri : uris) {
+            final String uriString = uri.toString();
+            final SortedMap<Integer, Resource> expected = recursiveMatch(apiNavigator.getDocroot(), uriString.substring(pathStart));
+
+            final SortedMap<Integer, Resource> ranking = new TreeMap<>(Collections.<Integer>reverseOrder());
+            routingAutomaton.rank(uriString, pathStart, ranking);
+            assertEquals(uri.toString(), expected, ranking);
+
+            final Resource resource = apiNavigator.getResource(uri);
+            if (expected.isEmpty()) {
+                assertNull(uri.toString(), resource);
+            }
+            else {
+                assertSame(uri.toString(), expected.get(expected.firstKey()), resource);
+                matchCount++;
+            }
+        }
+
+        assertTrue(matchCount > paths.size() / 2);
+    }
+
+    @Test
+    public void literalSegmentsOutscoreVariables() {
+
+        final ApiNavigator apiNavigator = createSyntheticApiNavigator(_Context, Arrays.asList("/", "/wizards", "/wizards/{name}", "/unlinked", "/wizards/merlin",
+                "/{key}"));
+
+        assertEquals("/wizards/merlin", apiNavigator.getResource(SYNTHETIC_API_URI.resolve("/wizards/merlin")).getPathText());
+        assertEquals("/wizards/{name}", apiNavigator.getResource(SYNTHETIC_API_URI.resolve("/wizards/gandalf")).getPathText());
+        assertEquals("/wizards", apiNavigator.getResource(SYNTHETIC_API_URI.resolve("/wizards")).getPathText());
+        assertEquals("/{key}", apiNavigator.getResource(SYNTHETIC_API_URI.resolve("/witches")).getPathText());
+
+        // A resource without any links is never matched.
+        assertEquals("/{key}", apiNavigator.getResource(SYNTHETIC_API_URI.resolve("/unlinked")).getPathText());
+        assertSame(apiNavigator.getDocroot(), apiNavigator.getResource(SYNTHETIC_API_URI));
+        assertSame(apiNavigator.getDocroot(), apiNavigator.getResource(SYNTHETIC_API_URI.resolve("/")));
+    }
+
+    @Test(expected = ApiNavigatorException.class)
+    public void unmanagedUri() {
+
+        final ApiNavigator apiNavigator = createSyntheticApiNavigator(_Context, Arrays.asList("/", "/wizards"));
+        apiNavigator.getResource(URI.create("http://other.api.wrml.org/wizards"));
+    }
+
+    @Test(expected = ApiNavigatorException.class)
+    public void nullUri() {
+
+        final ApiNavigator apiNavigator = createSyntheticApiNavigator(_Context, Arrays.asList("/", "/wizards"));
+        apiNavigator.getResource((URI) null);
+    }
+
+    /**
+     * The {@link ApiNavigator}'s original (recursive) matching algorithm, which the {@link RoutingAutomaton} replaced;
+     * the highest scoring result is the first.
+     */
+    static SortedMap<Integer, Resource> recursiveMatch(final Resource docroot, final String path) {
+
+        final SortedMap<Integer, Resource> results = new TreeMap<>(Collections.<Integer>reverseOrder());
+        final String trimmedPath = StringUtils.trim(path);
+        if (trimmedPath.isEmpty() || ApiNavigator.DOCROOT_PATH.equals(trimmedPath)) {
+            results.put(RoutingAutomaton.DOCROOT_SCORE, docroot);
+            return results;
+        }
+
+        recursiveMatch(docroot, StringUtils.split(trimmedPath, ApiNavigator.PATH_SEPARATOR_CHAR), 0, 0, results);
+        return results;
+    }
+
+    private static void recursiveMatch(final Resource resource, final String[] pathSegments, final int segmentIndex, int score,
+                                       final SortedMap<Integer, Resource> results) {
+
+        if (segmentIndex >= pathSegments.length) {
+            return;
+        }
+
+        final String segment = pathSegments[segmentIndex];
+        final int nextSegmentIndex = segmentIndex + 1;
+        final boolean isLastSegment = nextSegmentIndex == pathSegments.length;
+
+        score += nextSegmentIndex;
+
+        final Resource literalPathSubresource = resource.getLiteralPathSubresources().get(segment);
+        if (literalPathSubresource != null) {
+            if (isLastSegment) {
+                if (!literalPathSubresource.getLinkTemplates().isEmpty()) {
+                    addResult(results, score + 10, literalPathSubresource);
+                }
+            }
+            else {
+                recursiveMatch(literalPathSubresource, pathSegments, nextSegmentIndex, score + 10, results);
+            }
+        }
+
+        final Map<String, Resource> variablePathSubresources = resource.getVariablePathSubresources();
+        for (final String variablePathSegment : variablePathSubresources.keySet()) {
+            final Resource variablePathSubresource = variablePathSubresources.get(variablePathSegment);
+            if (!variablePathSubresource.getLinkTemplates().isEmpty()) {
+                addResult(results, score + 5, variablePathSubresource);
+            }
+
+            if (!isLastSegment) {
+                recursiveMatch(variablePathSubresource, pathSegments, nextSegmentIndex, score + 5, results);
+            }
+        }
+    }
+
+    private static void addResult(final SortedMap<Integer, Resource> results, final int score, final Resource resource) {
+
+        if (!results.containsKey(score)) {
+            results.put(score, resource);
+        }
+    }
+
+}
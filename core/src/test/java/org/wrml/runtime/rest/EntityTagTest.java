@@ -0,0 +1,128 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.rest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.model.Model;
+import org.wrml.model.rest.Document;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.ContextTest;
+import org.wrml.runtime.service.ModelVersion;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EntityTagTest {
+
+    private static final String JSON = "application/json";
+
+    private Context _Context;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _Context = ContextTest.createTestContext();
+    }
+
+    @Test
+    public void modelTagsFollowSlotState() {
+
+        final Model wizard = newWizard("merlin", Arrays.asList("fireball", "teleport"));
+        final EntityTag entityTag = EntityTag.fromModel(wizard, JSON);
+
+        assertFalse(entityTag.isWeak());
+        assertEquals(entityTag, EntityTag.fromModel(newWizard("merlin", Arrays.asList("fireball", "teleport")), JSON));
+
+        // Slot values, their order in lists and their types all matter; as does the representation.
+        assertNotEquals(entityTag, EntityTag.fromModel(newWizard("merlin", Arrays.asList("teleport", "fireball")), JSON));
+        assertNotEquals(entityTag, EntityTag.fromModel(newWizard("gandalf", Arrays.asList("fireball", "teleport")), JSON));
+        assertNotEquals(entityTag, EntityTag.fromModel(wizard, "application/xml"));
+
+        wizard.setSlotValue("guildId", 1);
+        final EntityTag intGuildTag = EntityTag.fromModel(wizard, JSON);
+        wizard.setSlotValue("guildId", 1L);
+        assertNotEquals(intGuildTag, EntityTag.fromModel(wizard, JSON));
+    }
+
+    @Test
+    public void versionTagsFollowVersion() {
+
+        final EntityTag entityTag = EntityTag.fromVersion(new ModelVersion("v1", 1000L), JSON);
+
+        assertEquals(entityTag, EntityTag.fromVersion(new ModelVersion("v1", ModelVersion.UNKNOWN_LAST_MODIFIED), JSON));
+        assertNotEquals(entityTag, EntityTag.fromVersion(new ModelVersion("v2", 1000L), JSON));
+        assertNotEquals(entityTag, EntityTag.fromVersion(new ModelVersion("v1", 1000L), "application/xml"));
+    }
+
+    @Test
+    public void parsesLists() {
+
+        final List<EntityTag> entityTags = EntityTag.parseList(" \"a\", W/\"b,c\" ,bogus, \"\"");
+
+        assertEquals(Arrays.asList(new EntityTag("a", false), new EntityTag("b,c", true), new EntityTag("", false)), entityTags);
+        assertEquals("W/\"b,c\"", entityTags.get(1).toString());
+        assertEquals(new EntityTag("a", false), EntityTag.parse("\"a\""));
+        assertNull(EntityTag.parse("a"));
+        assertTrue(EntityTag.parseList(null).isEmpty());
+    }
+
+    @Test
+    public void ifNoneMatchUsesWeakComparison() {
+
+        final EntityTag entityTag = new EntityTag("a", false);
+
+        assertTrue(entityTag.isMatchedBy("\"a\""));
+        assertTrue(entityTag.isMatchedBy("\"x\", W/\"a\""));
+        assertTrue(entityTag.isMatchedBy(" * "));
+        assertFalse(entityTag.isMatchedBy("\"b\""));
+        assertFalse(entityTag.isMatchedBy("a"));
+        assertFalse(entityTag.isMatchedBy(null));
+    }
+
+    @Test
+    public void encodedRepresentationsHaveTheirOwnTags() {
+
+        final EntityTag entityTag = new EntityTag("a", false);
+        final EntityTag gzipEntityTag = entityTag.withContentCoding("gzip");
+
+        assertEquals("\"a-gzip\"", gzipEntityTag.toString());
+        assertFalse(gzipEntityTag.isWeak());
+        assertFalse(entityTag.isMatchedBy(gzipEntityTag.toString()));
+        assertNotEquals(gzipEntityTag, entityTag.withContentCoding("deflate"));
+    }
+
+    private Model newWizard(final String wizardId, final List<String> spellBookSpellIds) {
+
+        final Model wizard = _Context.newModel(ApiLoaderTest.WRML_SCHEMA_WIZARD_URI);
+        wizard.setSlotValue(Document.SLOT_NAME_URI, URI.create("http://wizard.api.wrml.org/wizards/" + wizardId));
+        wizard.setSlotValue("wizardId", wizardId);
+        wizard.setSlotValue("spellBookSpellIds", spellBookSpellIds);
+        return wizard;
+    }
+}
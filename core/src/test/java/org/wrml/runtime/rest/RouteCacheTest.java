@@ -0,0 +1,97 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.rest;
+
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.junit.Assert.*;
+
+public class RouteCacheTest {
+
+    @Test
+    public void getReturnsPutRoute() {
+
+        final RouteCache cache = new RouteCache(10);
+        assertNull(cache.get("http://a"));
+
+        final Route route = newRoute("http://a");
+        cache.put("http://a", route, cache.getGeneration());
+
+        assertSame(route, cache.get("http://a"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate(), 0.0);
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+
+        final RouteCache cache = new RouteCache(3);
+        for (int i = 0; i < 3; i++) {
+            cache.put("http://r" + i, newRoute("http://r" + i), cache.getGeneration());
+        }
+
+        // Reading the eldest makes r1 the least recently used.
+        assertNotNull(cache.get("http://r0"));
+        cache.put("http://r3", newRoute("http://r3"), cache.getGeneration());
+
+        assertEquals(3, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get("http://r1"));
+        assertNotNull(cache.get("http://r0"));
+        assertNotNull(cache.get("http://r3"));
+    }
+
+    @Test
+    public void invalidateDropsRoutesOfEarlierGenerations() {
+
+        final RouteCache cache = new RouteCache(10);
+        cache.put("http://a", newRoute("http://a"), cache.getGeneration());
+
+        final long generation = cache.getGeneration();
+        cache.invalidate();
+        assertNull(cache.get("http://a"));
+
+        // A route resolved before the invalidation is not cached.
+        cache.put("http://b", newRoute("http://b"), generation);
+        assertNull(cache.get("http://b"));
+        assertEquals(0, cache.getSize());
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maximumSizeMustBePositive() {
+
+        new RouteCache(0);
+    }
+
+    private static Route newRoute(final String uriString) {
+
+        return new Route(URI.create(uriString), null);
+    }
+}
@@ -27,6 +27,7 @@ package org.wrml.runtime.schema;
 import org.junit.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wrml.model.Titled;
 import org.wrml.model.format.Format;
 import org.wrml.model.rest.Api;
 import org.wrml.model.rest.Document;
@@ -120,6 +121,34 @@ public class SchemaLoaderTest {
         }
     }
 
+    @Test
+    public void getProtoMethods() throws Exception {
+
+        final Prototype prototype = _SchemaLoader.getPrototype(_SchemaLoader.getTypeUri(LinkRelation.class));
+
+        final ProtoMethod getTitle = prototype.getProtoMethod(LinkRelation.class.getMethod("getTitle"));
+        Assert.assertEquals(ProtoMethod.Kind.GET_SLOT, getTitle.getKind());
+        Assert.assertEquals("title", getTitle.getSlotName());
+        Assert.assertEquals(_SchemaLoader.getTypeUri(Titled.class), getTitle.getDeclaringSchemaUri());
+        Assert.assertNotNull(getTitle.getProtoSlot());
+
+        final ProtoMethod setUri = prototype.getProtoMethod(LinkRelation.class.getMethod("setUri", URI.class));
+        Assert.assertEquals(ProtoMethod.Kind.SET_SLOT, setUri.getKind());
+        Assert.assertEquals(Document.SLOT_NAME_URI, setUri.getSlotName());
+
+        final ProtoMethod save = prototype.getProtoMethod(LinkRelation.class.getMethod("save"));
+        Assert.assertEquals(ProtoMethod.Kind.LINK, save.getKind());
+        Assert.assertEquals("save", save.getSlotName());
+        Assert.assertNotNull(save.getLinkProtoSlot());
+
+        final ProtoMethod getSelf = prototype.getProtoMethod(LinkRelation.class.getMethod("getSelf"));
+        Assert.assertEquals(ProtoMethod.Kind.LINK, getSelf.getKind());
+        Assert.assertEquals("self", getSelf.getSlotName());
+
+        // Model's own methods are not part of the table
+        Assert.assertNull(prototype.getProtoMethod(LinkRelation.class.getMethod("getSlotMap")));
+    }
+
     @Test
     public void loadPrototypedSchemas() {
 
@@ -0,0 +1,284 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.search;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.model.Model;
+import org.wrml.model.rest.LinkRelation;
+import org.wrml.model.schema.ComparisonOperator;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.ContextTest;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.rest.SystemApi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class IteratorSearchResultsTest {
+
+    private Context _Context;
+
+    private List<Model> _Models;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _Context = ContextTest.createTestContext();
+        _Models = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final LinkRelation relation = _Context.newModel(LinkRelation.class);
+            relation.setUri(SystemApi.LinkRelation.getUri().resolve(ContextTest.TEST_RESOURCE_PATH + "r" + i));
+            relation.setTitle("Relation " + i);
+            relation.setSecondsToLive((long) i);
+            _Models.add(relation);
+        }
+    }
+
+    @Test
+    public void pagesWithOffsetAndLimit() {
+
+        final SearchResults firstPage = new IteratorSearchResults(_Models.iterator(), new TestSearchCriteria(null, 2, null));
+        assertEquals(_Models.subList(0, 2), drain(firstPage));
+        assertEquals("2", firstPage.getContinuationToken());
+
+        final SearchResults lastPage = new IteratorSearchResults(_Models.iterator(), new TestSearchCriteria(3, 2, null));
+        assertEquals(_Models.subList(3, 5), drain(lastPage));
+        assertNull(lastPage.getContinuationToken());
+    }
+
+    @Test
+    public void continuationTokenTakesPrecedenceOverOffset() {
+
+        final SearchResults page = new IteratorSearchResults(_Models.iterator(), new TestSearchCriteria(0, 2, "2"));
+        assertEquals(_Models.subList(2, 4), drain(page));
+        assertEquals("4", page.getContinuationToken());
+    }
+
+    @Test
+    public void unlimitedResults() {
+
+        final SearchResults searchResults = new IteratorSearchResults(_Models.iterator(), new TestSearchCriteria(null, null, null));
+        assertEquals(_Models, drain(searchResults));
+        assertNull(searchResults.getContinuationToken());
+    }
+
+    @Test
+    public void searchResultListReadsAsNeeded() {
+
+        final SearchResultList list = new SearchResultList(new IteratorSearchResults(_Models.iterator(), 0, 3));
+
+        assertFalse(list.isEmpty());
+        assertFalse(list.isLoaded());
+        assertSame(_Models.get(0), list.iterator().next());
+        assertFalse(list.isLoaded());
+        assertNull(list.getContinuationToken());
+
+        assertEquals(3, list.size());
+        assertTrue(list.isLoaded());
+        assertEquals("3", list.getContinuationToken());
+
+        list.add(_Models.get(4));
+        assertEquals(4, list.size());
+    }
+
+    @Test
+    public void matchesCriteria() {
+
+        final SearchCriteriaMatcher matcher = new SearchCriteriaMatcher(new TestSearchCriteria(
+                Arrays.<SearchCriterion>asList(new TestSearchCriterion("secondsToLive", ComparisonOperator.greaterThanOrEqualTo, 1),
+                        new TestSearchCriterion("title", ComparisonOperator.regex, "^Relation [0-3]$")),
+                Arrays.<SearchCriterion>asList(new TestSearchCriterion("secondsToLive", ComparisonOperator.equalToAny, Arrays.asList(1, 3)),
+                        new TestSearchCriterion("title", ComparisonOperator.equalTo, "Relation 2"))));
+
+        final List<Model> matches = new ArrayList<>();
+        for (final Model model : _Models) {
+            if (matcher.matches(model)) {
+                matches.add(model);
+            }
+        }
+
+        assertEquals(_Models.subList(1, 4), matches);
+    }
+
+    @Test
+    public void matchesExistence() {
+
+        final Model model = _Models.get(0);
+        assertTrue(SearchCriteriaMatcher.matches(model, new TestSearchCriterion("title", ComparisonOperator.exists, null)));
+        assertFalse(SearchCriteriaMatcher.matches(model, new TestSearchCriterion("title", ComparisonOperator.notExists, null)));
+        assertTrue(SearchCriteriaMatcher.matches(model, new TestSearchCriterion("secondsToLive", ComparisonOperator.lessThan, 0.5)));
+        assertTrue(SearchCriteriaMatcher.matches(model, new TestSearchCriterion("secondsToLive", ComparisonOperator.notEqualTo, 1)));
+    }
+
+    private static List<Model> drain(final SearchResults searchResults) {
+
+        final List<Model> models = new ArrayList<>();
+        while (searchResults.hasNext()) {
+            models.add(searchResults.next());
+        }
+
+        return models;
+    }
+
+    private static final class TestSearchCriteria implements SearchCriteria {
+
+        private final List<SearchCriterion> _And;
+
+        private final List<SearchCriterion> _Or;
+
+        private final Integer _ResultOffset;
+
+        private final Integer _ResultLimit;
+
+        private final String _ContinuationToken;
+
+        TestSearchCriteria(final Integer resultOffset, final Integer resultLimit, final String continuationToken) {
+
+            this(Collections.<SearchCriterion>emptyList(), Collections.<SearchCriterion>emptyList(), resultOffset, resultLimit, continuationToken);
+        }
+
+        TestSearchCriteria(final List<SearchCriterion> and, final List<SearchCriterion> or) {
+
+            this(and, or, null, null, null);
+        }
+
+        TestSearchCriteria(final List<SearchCriterion> and, final List<SearchCriterion> or, final Integer resultOffset, final Integer resultLimit,
+                           final String continuationToken) {
+
+            _And = and;
+            _Or = or;
+            _ResultOffset = resultOffset;
+            _ResultLimit = resultLimit;
+            _ContinuationToken = continuationToken;
+        }
+
+        @Override
+        public Dimensions getResultDimensions() {
+
+            return null;
+        }
+
+        @Override
+        public List<SearchCriterion> getAnd() {
+
+            return _And;
+        }
+
+        @Override
+        public List<SearchCriterion> getOr() {
+
+            return _Or;
+        }
+
+        @Override
+        public Set<String> getProjectionSlotNames() {
+
+            return null;
+        }
+
+        @Override
+        public Integer getResultLimit() {
+
+            return _ResultLimit;
+        }
+
+        @Override
+        public Integer getResultOffset() {
+
+            return _ResultOffset;
+        }
+
+        @Override
+        public String getContinuationToken() {
+
+            return _ContinuationToken;
+        }
+
+        @Override
+        public Model getReferrer() {
+
+            return null;
+        }
+
+        @Override
+        public String getReferrerCollectionSlotName() {
+
+            return null;
+        }
+    }
+
+    private static final class TestSearchCriterion implements SearchCriterion {
+
+        private final String _ReferenceSlot;
+
+        private final ComparisonOperator _ComparisonOperator;
+
+        private final Object _ComparisonValue;
+
+        TestSearchCriterion(final String referenceSlot, final ComparisonOperator comparisonOperator, final Object comparisonValue) {
+
+            _ReferenceSlot = referenceSlot;
+            _ComparisonOperator = comparisonOperator;
+            _ComparisonValue = comparisonValue;
+        }
+
+        @Override
+        public String getReferenceSlot() {
+
+            return _ReferenceSlot;
+        }
+
+        @Override
+        public Object getComparisonValue() {
+
+            return _ComparisonValue;
+        }
+
+        @Override
+        public ComparisonOperator getComparisonOperator() {
+
+            return _ComparisonOperator;
+        }
+
+        @Override
+        public String getRegex() {
+
+            return (_ComparisonOperator == ComparisonOperator.regex) ? (String) _ComparisonValue : null;
+        }
+
+        @Override
+        public Pattern getRegexPattern() {
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.model.rest.LinkRelation;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.ContextTest;
+import org.wrml.runtime.Keys;
+import org.wrml.runtime.KeysBuilder;
+import org.wrml.runtime.rest.SystemApi;
+import org.wrml.util.UniqueName;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BoundedModelCacheTest {
+
+    private Context _Context;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _Context = ContextTest.createTestContext();
+    }
+
+    @Test
+    public void getReturnsSavedModel() {
+
+        final BoundedModelCache cache = createCache(BoundedModelCache.MAXIMUM_SIZE_SETTING_NAME, "10");
+        final LinkRelation relation = newLinkRelation("a");
+        cache.save(relation);
+
+        assertSame(relation, cache.get(relation.getKeys(), null));
+        assertTrue(cache.contains(relation.getKeys(), null));
+
+        final ModelCacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(0, statistics.getMissCount());
+        assertEquals(1, statistics.getLoadCount());
+        assertEquals(1, statistics.getEntryCount());
+    }
+
+    @Test
+    public void evictsBeyondMaximumSize() {
+
+        final BoundedModelCache cache = createCache(BoundedModelCache.MAXIMUM_SIZE_SETTING_NAME, "3");
+        final LinkRelation[] relations = new LinkRelation[5];
+        for (int i = 0; i < relations.length; i++) {
+            relations[i] = newLinkRelation("r" + i);
+            cache.save(relations[i]);
+        }
+
+        final ModelCacheStatistics statistics = cache.getStatistics();
+        assertEquals(3, statistics.getEntryCount());
+        assertEquals(2, statistics.getEvictionCount());
+
+        // The least recently saved models are the ones evicted.
+        assertNull(cache.get(relations[0].getKeys(), null));
+        assertNull(cache.get(relations[1].getKeys(), null));
+        assertSame(relations[4], cache.get(relations[4].getKeys(), null));
+    }
+
+    @Test
+    public void protectsRecentlyReadModelsFromScans() {
+
+        final BoundedModelCache cache = createCache(BoundedModelCache.MAXIMUM_SIZE_SETTING_NAME, "4");
+        final LinkRelation hot = newLinkRelation("hot");
+        cache.save(hot);
+        assertNotNull(cache.get(hot.getKeys(), null));
+
+        for (int i = 0; i < 20; i++) {
+            cache.save(newLinkRelation("scan" + i));
+        }
+
+        assertSame(hot, cache.get(hot.getKeys(), null));
+    }
+
+    @Test
+    public void evictionRemovesAllOfTheModelsKeys() {
+
+        final BoundedModelCache cache = createCache(BoundedModelCache.MAXIMUM_SIZE_SETTING_NAME, "1");
+        final LinkRelation relation = newLinkRelation("a");
+        relation.setUniqueName(new UniqueName("org/wrml/test/a"));
+        final Keys keys = relation.getKeys();
+        cache.save(relation);
+        cache.save(newLinkRelation("b"));
+
+        assertFalse(cache.contains(keys, null));
+        for (final URI keyedSchemaUri : keys.getKeyedSchemaUris()) {
+            final Keys singleKey = new KeysBuilder(keyedSchemaUri, keys.getValue(keyedSchemaUri)).toKeys();
+            assertFalse(keyedSchemaUri + " key is still cached", cache.contains(singleKey, null));
+        }
+    }
+
+    @Test
+    public void expiresAfterTimeToLive() throws Exception {
+
+        final BoundedModelCache cache = createCache(BoundedModelCache.TIME_TO_LIVE_SETTING_NAME, "1");
+        final LinkRelation relation = newLinkRelation("a");
+        cache.save(relation);
+        Thread.sleep(5);
+
+        assertNull(cache.get(relation.getKeys(), null));
+
+        final ModelCacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(1, statistics.getExpirationCount());
+        assertEquals(0, statistics.getEntryCount());
+    }
+
+    @Test
+    public void schemaTimeToLiveOverridesDefault() throws Exception {
+
+        final URI schemaUri = _Context.getSchemaLoader().getLinkRelationSchemaUri();
+        final BoundedModelCache cache = createCache(BoundedModelCache.TIME_TO_LIVE_SETTING_NAME, "600000",
+                BoundedModelCache.TIME_TO_LIVE_SETTING_NAME + "." + schemaUri, "1");
+
+        final LinkRelation relation = newLinkRelation("a");
+        cache.save(relation);
+        Thread.sleep(5);
+
+        assertFalse(cache.contains(relation.getKeys(), null));
+    }
+
+    @Test
+    public void evictsBeyondMaximumWeight() {
+
+        final BoundedModelCache cache = createCache(BoundedModelCache.MAXIMUM_SIZE_SETTING_NAME, "0", BoundedModelCache.MAXIMUM_WEIGHT_SETTING_NAME,
+                "2048");
+
+        for (int i = 0; i < 100; i++) {
+            cache.save(newLinkRelation("r" + i));
+        }
+
+        final ModelCacheStatistics statistics = cache.getStatistics();
+        assertTrue(statistics.getWeight() <= 2048);
+        assertTrue(statistics.getEvictionCount() > 0);
+        assertTrue(statistics.getEntryCount() < 100);
+    }
+
+    @Test
+    public void concurrentSavesAndDeletesLeaveNoOrphanedEntries() throws Exception {
+
+        // A (generous) maximum weight, so that the entries' weights are tallied
+        final BoundedModelCache cache = createCache(BoundedModelCache.MAXIMUM_SIZE_SETTING_NAME, "1000", BoundedModelCache.MAXIMUM_WEIGHT_SETTING_NAME,
+                String.valueOf(Long.MAX_VALUE));
+        final LinkRelation[] relations = {newLinkRelation("a"), newLinkRelation("b"), newLinkRelation("c"), newLinkRelation("d")};
+
+        final int threadCount = 8;
+        final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            final Random random = new Random(t);
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        start.await();
+                        for (int i = 0; i < 20000; i++) {
+                            // Re-saving a model (under the same heap id) races with deletes of the model's previous entry
+                            final LinkRelation relation = relations[random.nextInt(relations.length)];
+                            if (random.nextBoolean()) {
+                                cache.save(relation);
+                            }
+                            else {
+                                cache.delete(relation.getKeys(), null);
+                            }
+                        }
+                    }
+                    catch (final Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        assertTrue(failures.isEmpty());
+
+        int cachedCount = 0;
+        for (final LinkRelation relation : relations) {
+            if (cache.get(relation.getKeys(), null) != null) {
+                cachedCount++;
+            }
+        }
+
+        // Every entry counted by the eviction policy is still in the cache
+        assertEquals(cachedCount, cache.getStatistics().getEntryCount());
+
+        for (final LinkRelation relation : relations) {
+            cache.delete(relation.getKeys(), null);
+        }
+
+        // and nothing (no orphaned entry, nor its weight) is left behind once they are all deleted.
+        final ModelCacheStatistics statistics = cache.getStatistics();
+        assertEquals(0, statistics.getEntryCount());
+        assertEquals(0, statistics.getWeight());
+    }
+
+    private BoundedModelCache createCache(final String... settingNamesAndValues) {
+
+        final Map<String, String> settings = new HashMap<>();
+        for (int i = 0; i < settingNamesAndValues.length; i += 2) {
+            settings.put(settingNamesAndValues[i], settingNamesAndValues[i + 1]);
+        }
+
+        final ModelCacheConfiguration config = new ModelCacheConfiguration();
+        config.setName("Cache");
+        config.setImplementation(BoundedModelCache.class.getName());
+        config.setSettings(settings);
+
+        final BoundedModelCache cache = new BoundedModelCache();
+        cache.init(_Context, config);
+        return cache;
+    }
+
+    private LinkRelation newLinkRelation(final String name) {
+
+        final LinkRelation relation = _Context.newModel(LinkRelation.class);
+        relation.setUri(SystemApi.LinkRelation.getUri().resolve(ContextTest.TEST_RESOURCE_PATH + name));
+        return relation;
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.file;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class AppendOnlyLogKeyIndexTest {
+
+    private Path _RootDirectory;
+
+    private AppendOnlyLogKeyIndex _KeyIndex;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _RootDirectory = Files.createTempDirectory("wrml-key-index-test").toAbsolutePath().normalize();
+        _KeyIndex = open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        _KeyIndex.close();
+        FileUtils.deleteQuietly(_RootDirectory.toFile());
+    }
+
+    @Test
+    public void replaysTheLog() throws Exception {
+
+        _KeyIndex.put(keyLink("a"), dataFile("1"));
+        _KeyIndex.put(keyLink("b"), dataFile("1"));
+        _KeyIndex.put(keyLink("c"), dataFile("2"));
+        _KeyIndex.put(keyLink("c"), dataFile("3"));
+        _KeyIndex.removeDataFile(dataFile("1"));
+        reopen();
+
+        assertNull(_KeyIndex.getDataFilePath(keyLink("a")));
+        assertNull(_KeyIndex.getDataFilePath(keyLink("b")));
+        assertEquals(dataFile("3"), _KeyIndex.getDataFilePath(keyLink("c")));
+    }
+
+    @Test
+    public void truncatesATornRecord() throws Exception {
+
+        _KeyIndex.put(keyLink("a"), dataFile("1"));
+        _KeyIndex.put(keyLink("b"), dataFile("2"));
+        _KeyIndex.close();
+
+        // Tear the last record, as an interrupted append would
+        final Path logFilePath = _KeyIndex.getLogFilePath();
+        final long logLength = Files.size(logFilePath);
+        try (final FileChannel channel = FileChannel.open(logFilePath, StandardOpenOption.WRITE)) {
+            channel.truncate(logLength - 3);
+        }
+
+        _KeyIndex = open();
+        assertEquals(dataFile("1"), _KeyIndex.getDataFilePath(keyLink("a")));
+        assertNull(_KeyIndex.getDataFilePath(keyLink("b")));
+
+        // Appends follow the last valid record
+        _KeyIndex.put(keyLink("b"), dataFile("2"));
+        reopen();
+        assertEquals(dataFile("2"), _KeyIndex.getDataFilePath(keyLink("b")));
+    }
+
+    @Test
+    public void compactsSupersededRecords() throws Exception {
+
+        for (int i = 0; i < AppendOnlyLogKeyIndex.COMPACTION_MINIMUM_RECORD_COUNT * 2; i++) {
+            _KeyIndex.put(keyLink("a"), dataFile(String.valueOf(i)));
+        }
+
+        _KeyIndex.put(keyLink("b"), dataFile("b"));
+        assertTrue(Files.size(_KeyIndex.getLogFilePath()) < 1024);
+
+        // An interrupted compaction leaves a partial compaction file, which is ignored
+        Files.write(_KeyIndex.getLogFilePath().resolveSibling(AppendOnlyLogKeyIndex.LOG_FILE_NAME + ".compact"), new byte[]{1, 2, 3});
+        reopen();
+
+        final int last = AppendOnlyLogKeyIndex.COMPACTION_MINIMUM_RECORD_COUNT * 2 - 1;
+        assertEquals(dataFile(String.valueOf(last)), _KeyIndex.getDataFilePath(keyLink("a")));
+        assertEquals(dataFile("b"), _KeyIndex.getDataFilePath(keyLink("b")));
+    }
+
+    @Test
+    public void importsSymbolicKeyLinks() throws Exception {
+
+        final SymbolicLinkKeyIndex symbolicLinkKeyIndex = new SymbolicLinkKeyIndex();
+        for (final String name : new String[]{"a", "b"}) {
+            final Path dataFilePath = dataFile(name);
+            Files.createDirectories(dataFilePath.getParent());
+            Files.write(dataFilePath, new byte[0]);
+            symbolicLinkKeyIndex.put(keyLink(name), dataFilePath);
+        }
+
+        // A dangling link is not imported
+        symbolicLinkKeyIndex.put(keyLink("c"), dataFile("c"));
+
+        _KeyIndex.close();
+        AppendOnlyLogKeyIndex.main(new String[]{_RootDirectory.toString()});
+        _KeyIndex = open();
+
+        assertEquals(dataFile("a"), _KeyIndex.getDataFilePath(keyLink("a")));
+        assertEquals(dataFile("b"), _KeyIndex.getDataFilePath(keyLink("b")));
+        assertNull(_KeyIndex.getDataFilePath(keyLink("c")));
+    }
+
+    private AppendOnlyLogKeyIndex open() throws IOException {
+
+        final AppendOnlyLogKeyIndex keyIndex = new AppendOnlyLogKeyIndex();
+        keyIndex.open(_RootDirectory, new HashMap<String, String>());
+        return keyIndex;
+    }
+
+    private void reopen() throws IOException {
+
+        _KeyIndex.close();
+        _KeyIndex = open();
+    }
+
+    private Path keyLink(final String name) {
+
+        return _RootDirectory.resolve("org/wrml/test/Keyed/keys/" + name + ".json");
+    }
+
+    private Path dataFile(final String name) {
+
+        return _RootDirectory.resolve("org/wrml/test/Keyed/data/" + name + ".json");
+    }
+}
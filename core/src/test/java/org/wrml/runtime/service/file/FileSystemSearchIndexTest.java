@@ -0,0 +1,158 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.file;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.model.Model;
+import org.wrml.model.schema.ComparisonOperator;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.ContextTest;
+import org.wrml.runtime.rest.ApiLoaderTest;
+import org.wrml.runtime.search.SearchCriteria;
+import org.wrml.runtime.search.SearchCriteriaMatcher;
+import org.wrml.runtime.service.file.FileSystemServiceTest.TestSearchCriterion;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.wrml.runtime.service.file.FileSystemServiceTest.newSearchCriteria;
+
+public class FileSystemSearchIndexTest {
+
+    private static final String SLOT_NAME_WIZARD_ID = "wizardId";
+
+    private static final String SLOT_NAME_GUILD_ID = "guildId";
+
+    private static final String SLOT_NAME_SPELL_BOOK_SPELL_IDS = "spellBookSpellIds";
+
+    private Context _Context;
+
+    private FileSystemSearchIndex _SearchIndex;
+
+    private Map<Path, Model> _Models;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _Context = ContextTest.createTestContext();
+        _SearchIndex = new FileSystemSearchIndex(_Context.getSchemaLoader().getPrototype(ApiLoaderTest.WRML_SCHEMA_WIZARD_URI));
+        _Models = new LinkedHashMap<>();
+
+        for (int i = 0; i < 10; i++) {
+            put(Paths.get("w" + i), newWizard("w" + i, i % 3, "spell" + (i % 2)));
+        }
+    }
+
+    @Test
+    public void indexAgreesWithMatcher() {
+
+        // Answered by the index
+        assertIndexed(true, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.equalTo, 1L)));
+        assertIndexed(true, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.greaterThan, 0.5)));
+        assertIndexed(true, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_WIZARD_ID, ComparisonOperator.lessThan, "w5")));
+        assertIndexed(true, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_SPELL_BOOK_SPELL_IDS, ComparisonOperator.containsAll,
+                Arrays.asList("spell1"))));
+
+        // Text compared with numbers is left to the matcher
+        assertIndexed(false, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.equalTo, "1")));
+        assertIndexed(false, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.greaterThanOrEqualTo, "1")));
+        assertIndexed(false, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.equalToAny, Arrays.asList(0, "2"))));
+    }
+
+    @Test
+    public void enumRangesAreLeftToTheMatcher() {
+
+        final ComparisonOperator[] operators = ComparisonOperator.values();
+        for (int i = 0; i < 10; i++) {
+            final Path dataFilePath = Paths.get("w" + i);
+            final Model wizard = _Models.get(dataFilePath);
+            wizard.getSlotMap().put(SLOT_NAME_WIZARD_ID, operators[i % operators.length]);
+            put(dataFilePath, wizard);
+        }
+
+        // Enums are equal by name, which is their text, but are ordered by ordinal
+        assertIndexed(true, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_WIZARD_ID, ComparisonOperator.equalTo, operators[2])));
+        assertIndexed(true, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_WIZARD_ID, ComparisonOperator.equalTo, operators[3].name())));
+        assertIndexed(false, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_WIZARD_ID, ComparisonOperator.greaterThan, operators[2])));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void listValuesAreCopied() {
+
+        final Path dataFilePath = Paths.get("w0");
+        final Model wizard = _Models.get(dataFilePath);
+        wizard.setSlotValue(SLOT_NAME_SPELL_BOOK_SPELL_IDS, Arrays.asList("spellA", "spellB"));
+        put(dataFilePath, wizard);
+
+        // The model's list changes after it has been indexed, then the model is re-indexed
+        ((List<Object>) wizard.getSlotValue(SLOT_NAME_SPELL_BOOK_SPELL_IDS)).set(0, "spellC");
+        put(dataFilePath, wizard);
+
+        assertIndexed(true, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_SPELL_BOOK_SPELL_IDS, ComparisonOperator.containsAll,
+                Arrays.asList("spellA"))));
+        assertIndexed(true, newSearchCriteria(new TestSearchCriterion(SLOT_NAME_SPELL_BOOK_SPELL_IDS, ComparisonOperator.containsAll,
+                Arrays.asList("spellC"))));
+    }
+
+    /**
+     * Asserts that the index does (or does not) answer the criteria and that the answer, the index's or (if it has none)
+     * the matcher's, is the matcher's.
+     */
+    private void assertIndexed(final boolean indexed, final SearchCriteria searchCriteria) {
+
+        final SearchCriteriaMatcher matcher = new SearchCriteriaMatcher(searchCriteria);
+        final Set<Path> matches = new TreeSet<>();
+        for (final Map.Entry<Path, Model> entry : _Models.entrySet()) {
+            if (matcher.matches(entry.getValue())) {
+                matches.add(entry.getKey());
+            }
+        }
+
+        final List<Path> indexedMatches = _SearchIndex.search(searchCriteria);
+        assertEquals(indexed, indexedMatches != null);
+        if (indexedMatches != null) {
+            assertEquals(matches, new TreeSet<>(indexedMatches));
+        }
+    }
+
+    private void put(final Path dataFilePath, final Model wizard) {
+
+        _Models.put(dataFilePath, wizard);
+        _SearchIndex.put(dataFilePath, wizard);
+    }
+
+    private Model newWizard(final String wizardId, final int guildId, final String spellBookSpellId) {
+
+        final Model wizard = _Context.newModel(ApiLoaderTest.WRML_SCHEMA_WIZARD_URI);
+        wizard.setSlotValue(SLOT_NAME_WIZARD_ID, wizardId);
+        wizard.setSlotValue(SLOT_NAME_GUILD_ID, guildId);
+        wizard.setSlotValue(SLOT_NAME_SPELL_BOOK_SPELL_IDS, Arrays.asList("spell" + wizardId.substring(1), spellBookSpellId));
+        return wizard;
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.file;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class FileSystemSegmentStoreTest {
+
+    private static final long SEGMENT_SIZE = 256;
+
+    private Path _DirectoryPath;
+
+    private FileSystemSegmentStore _Store;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _DirectoryPath = Files.createTempDirectory("wrml-segment-store-test");
+        _Store = open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        _Store.close();
+        FileUtils.deleteQuietly(_DirectoryPath.toFile());
+    }
+
+    @Test
+    public void readsWhatWasWritten() throws Exception {
+
+        _Store.put("a/data/1.json", bytes("one"));
+        _Store.put("a/data/2.json", bytes("two"));
+        _Store.put("b/data/3.json", bytes("three"));
+        _Store.put("a/data/1.json", bytes("uno"));
+
+        assertEquals("uno", read("a/data/1.json"));
+        assertEquals(Arrays.asList("a/data/1.json", "a/data/2.json"), _Store.listHandles("a/"));
+
+        assertTrue(_Store.remove("a/data/2.json"));
+        assertFalse(_Store.remove("a/data/2.json"));
+        assertNull(_Store.openInputStream("a/data/2.json"));
+
+        reopen();
+        assertEquals("uno", read("a/data/1.json"));
+        assertEquals("three", read("b/data/3.json"));
+        assertNull(_Store.openInputStream("a/data/2.json"));
+    }
+
+    @Test
+    public void readsSealedSegments() throws Exception {
+
+        for (int i = 0; i < 50; i++) {
+            _Store.put("data/" + i + ".json", bytes("model " + i));
+        }
+
+        assertTrue(listSegments().size() > 1);
+        for (int i = 0; i < 50; i++) {
+            assertEquals("model " + i, read("data/" + i + ".json"));
+        }
+    }
+
+    @Test
+    public void compactsDeadRecords() throws Exception {
+
+        for (int i = 0; i < 100; i++) {
+            _Store.put("data/hot.json", bytes("version " + i));
+        }
+
+        _Store.put("data/cold.json", bytes("cold"));
+        _Store.compact();
+
+        // Only the (two) live records remain
+        assertTrue(listSegments().size() <= 2);
+        assertEquals("version 99", read("data/hot.json"));
+
+        reopen();
+        assertEquals("version 99", read("data/hot.json"));
+        assertEquals("cold", read("data/cold.json"));
+    }
+
+    @Test
+    public void compactionKeepsDeletesDeleted() throws Exception {
+
+        // The first segment stays mostly live, so it is not compacted.
+        _Store.put("data/deleted.json", bytes("deleted"));
+        _Store.put("data/live.json", bytes(new String(new char[150]).replace('\0', 'x')));
+
+        _Store.remove("data/deleted.json");
+        for (int i = 0; i < 20; i++) {
+            _Store.put("data/churn.json", bytes("churn " + i));
+        }
+
+        _Store.compact();
+        reopen();
+
+        assertNull(_Store.openInputStream("data/deleted.json"));
+        assertEquals("churn 19", read("data/churn.json"));
+    }
+
+    @Test
+    public void truncatesATornRecord() throws Exception {
+
+        _Store.put("data/1.json", bytes("one"));
+        _Store.put("data/2.json", bytes("two"));
+        _Store.close();
+
+        final Path segmentPath = listSegments().get(0);
+        try (final FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        _Store = open();
+        assertEquals("one", read("data/1.json"));
+        assertNull(_Store.openInputStream("data/2.json"));
+
+        _Store.put("data/2.json", bytes("two"));
+        reopen();
+        assertEquals("two", read("data/2.json"));
+    }
+
+    @Test
+    public void survivesAnInterruptedReader() throws Exception {
+
+        _Store.put("data/1.json", bytes("one"));
+
+        final AtomicReference<Exception> readFailure = new AtomicReference<>();
+        final Thread reader = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                // Interrupted while reading the active segment; which closes the segment's (shared) channel.
+                Thread.currentThread().interrupt();
+                try {
+                    read("data/1.json");
+                }
+                catch (final Exception e) {
+                    readFailure.set(e);
+                }
+            }
+        });
+
+        reader.start();
+        reader.join();
+        assertTrue(readFailure.get() instanceof ClosedByInterruptException);
+
+        assertEquals("one", read("data/1.json"));
+        _Store.put("data/2.json", bytes("two"));
+        assertEquals("two", read("data/2.json"));
+
+        reopen();
+        assertEquals("one", read("data/1.json"));
+        assertEquals("two", read("data/2.json"));
+    }
+
+    private FileSystemSegmentStore open() throws IOException {
+
+        return new FileSystemSegmentStore(_DirectoryPath, SEGMENT_SIZE, 0.5, "test-compaction");
+    }
+
+    private void reopen() throws IOException {
+
+        _Store.close();
+        _Store = open();
+    }
+
+    private List<Path> listSegments() throws IOException {
+
+        final List<Path> segmentPaths = new ArrayList<>();
+        try (final DirectoryStream<Path> directoryStream = Files.newDirectoryStream(_DirectoryPath, "*" + FileSystemSegmentStore.SEGMENT_FILE_EXTENSION)) {
+            for (final Path segmentPath : directoryStream) {
+                segmentPaths.add(segmentPath);
+            }
+        }
+
+        Collections.sort(segmentPaths);
+        return segmentPaths;
+    }
+
+    private String read(final String handle) throws IOException {
+
+        final InputStream in = _Store.openInputStream(handle);
+        assertNotNull(handle, in);
+        return IOUtils.toString(in, "UTF-8");
+    }
+
+    private static byte[] bytes(final String text) throws IOException {
+
+        return text.getBytes("UTF-8");
+    }
+}
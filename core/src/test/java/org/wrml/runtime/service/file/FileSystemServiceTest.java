@@ -0,0 +1,570 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.runtime.service.file;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.model.Model;
+import org.wrml.model.rest.Document;
+import org.wrml.model.schema.ComparisonOperator;
+import org.wrml.runtime.Context;
+import org.wrml.runtime.ContextTest;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.DimensionsBuilder;
+import org.wrml.runtime.format.SystemFormat;
+import org.wrml.runtime.rest.ApiLoaderTest;
+import org.wrml.runtime.search.SearchCriteria;
+import org.wrml.runtime.search.SearchCriterion;
+import org.wrml.runtime.service.DefaultServiceConfiguration;
+import org.wrml.runtime.service.ModelVersion;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class FileSystemServiceTest {
+
+    private static final String SLOT_NAME_WIZARD_ID = "wizardId";
+
+    private static final String SLOT_NAME_GUILD_ID = "guildId";
+
+    private static final String SLOT_NAME_SPELL_BOOK_SPELL_IDS = "spellBookSpellIds";
+
+    private static final String SLOT_NAME_PRIMARY_SPELL_ID = "primarySpellId";
+
+    private Context _Context;
+
+    private Path _RootDirectory;
+
+    private FileSystemService _IndexedService;
+
+    private FileSystemService _ScanningService;
+
+    @Before
+    public void setUp() throws Exception {
+
+        _Context = ContextTest.createTestContext();
+        _RootDirectory = Files.createTempDirectory("wrml-file-system-service-test");
+        _IndexedService = createService("IndexedFiles", true);
+
+        for (int i = 0; i < 10; i++) {
+            _IndexedService.save(newWizard("w" + i, i % 3, "spell" + i, "spell" + (i % 2)));
+        }
+
+        // Shares the root directory, but always scans the data files; so its answers are the reference.
+        _ScanningService = createService("ScannedFiles", false);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        Files.walkFileTree(_RootDirectory, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void searchesByEquality() {
+
+        final SearchCriteria searchCriteria = newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.equalTo, 1));
+        final Set<URI> uris = search(_IndexedService, searchCriteria);
+
+        assertEquals(wizardUris("w1", "w4", "w7"), uris);
+        assertEquals(search(_ScanningService, searchCriteria), uris);
+    }
+
+    @Test
+    public void searchesByRangeAndList() {
+
+        final SearchCriteria searchCriteria = newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.greaterThan, 0),
+                new TestSearchCriterion(SLOT_NAME_SPELL_BOOK_SPELL_IDS, ComparisonOperator.containsAll, Arrays.asList("spell1")));
+        final Set<URI> uris = search(_IndexedService, searchCriteria);
+
+        assertEquals(wizardUris("w1", "w5", "w7"), uris);
+        assertEquals(search(_ScanningService, searchCriteria), uris);
+    }
+
+    @Test
+    public void searchesByAnchoredRegex() {
+
+        final SearchCriteria searchCriteria = newSearchCriteria(new TestSearchCriterion(SLOT_NAME_WIZARD_ID, ComparisonOperator.regex, "^w[1-3]$"));
+        final Set<URI> uris = search(_IndexedService, searchCriteria);
+
+        assertEquals(wizardUris("w1", "w2", "w3"), uris);
+        assertEquals(search(_ScanningService, searchCriteria), uris);
+    }
+
+    @Test
+    public void scansUnindexedSlots() {
+
+        final SearchCriteria searchCriteria = newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.equalTo, 2),
+                new TestSearchCriterion(SLOT_NAME_PRIMARY_SPELL_ID, ComparisonOperator.equalTo, "spell5"));
+
+        assertEquals(wizardUris("w5"), search(_IndexedService, searchCriteria));
+    }
+
+    @Test
+    public void indexFollowsSavesAndDeletes() {
+
+        final SearchCriteria searchCriteria = newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.equalTo, 1));
+        assertEquals(wizardUris("w1", "w4", "w7"), search(_IndexedService, searchCriteria));
+
+        // Move a wizard into the guild and delete another
+        _IndexedService.save(newWizard("w0", 1, "spell0", "spell0"));
+        final Model w4 = newWizard("w4", 1, "spell4", "spell0");
+        _IndexedService.delete(w4.getKeys(), w4.getDimensions());
+
+        assertEquals(wizardUris("w0", "w1", "w7"), search(_IndexedService, searchCriteria));
+        assertEquals(search(_ScanningService, searchCriteria), search(_IndexedService, searchCriteria));
+    }
+
+    @Test
+    public void keysInAppendOnlyLog() {
+
+        final FileSystemService service = createService("LoggedKeys", false, FileSystemService.APPEND_ONLY_LOG_KEY_INDEX);
+        final Model w42 = newWizard("w42", 4, "spell42", "spell2");
+        service.save(w42);
+        service.save(newWizard("w42", 2, "spell42", "spell2"));
+
+        final Model saved = service.get(w42.getKeys(), w42.getDimensions());
+        assertEquals(2, saved.getSlotValue(SLOT_NAME_GUILD_ID));
+
+        // The second save overwrote the first's data file
+        final SearchCriteria searchCriteria = newSearchCriteria(new TestSearchCriterion(SLOT_NAME_WIZARD_ID, ComparisonOperator.equalTo, "w42"));
+        assertEquals(1, service.search(searchCriteria).size());
+
+        // The keys are read back from the log
+        final FileSystemService restartedService = createService("RestartedLoggedKeys", false, FileSystemService.APPEND_ONLY_LOG_KEY_INDEX);
+        assertNotNull(restartedService.get(w42.getKeys(), w42.getDimensions()));
+
+        restartedService.delete(w42.getKeys(), w42.getDimensions());
+        assertNull(restartedService.get(w42.getKeys(), w42.getDimensions()));
+    }
+
+    @Test
+    public void segmentStorage() throws Exception {
+
+        final Path rootDirectory = Files.createDirectory(_RootDirectory.resolve("segments-root"));
+        final Map<String, String> settings = new HashMap<>();
+        settings.put(FileSystemService.ROOT_DIRECTORY_SETTING_NAME, rootDirectory.toString());
+        settings.put(FileSystemService.STORAGE_SETTING_NAME, FileSystemService.SEGMENT_STORAGE);
+        settings.put(FileSystemService.SEGMENT_SIZE_SETTING_NAME, "4096");
+        final FileSystemService service = createService("Segments", true, settings);
+
+        for (int i = 0; i < 20; i++) {
+            service.save(newWizard("s" + i, i % 2, "spell" + i, "spell0"));
+        }
+
+        service.save(newWizard("s0", 1, "spell0", "spell0"));
+
+        final Model s0 = newWizard("s0", 1, "spell0", "spell0");
+        assertEquals(1, service.get(s0.getKeys(), s0.getDimensions()).getSlotValue(SLOT_NAME_GUILD_ID));
+
+        final Model s3 = newWizard("s3", 1, "spell3", "spell0");
+        service.delete(s3.getKeys(), s3.getDimensions());
+        assertNull(service.get(s3.getKeys(), s3.getDimensions()));
+
+        final SearchCriteria searchCriteria = newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.equalTo, 1),
+                new TestSearchCriterion(SLOT_NAME_PRIMARY_SPELL_ID, ComparisonOperator.regex, "^spell1"));
+        assertEquals(wizardUris("s1", "s11", "s13", "s15", "s17", "s19"), search(service, searchCriteria));
+
+        // The models are stored in segments (and their keys in the log), not in files
+        assertFalse(Files.exists(rootDirectory.resolve(ApiLoaderTest.WRML_SCHEMA_WIZARD_URI.getPath().substring(1))));
+
+        final FileSystemService restartedService = createService("RestartedSegments", false, settings);
+        assertEquals(1, restartedService.get(s0.getKeys(), s0.getDimensions()).getSlotValue(SLOT_NAME_GUILD_ID));
+        assertNull(restartedService.get(s3.getKeys(), s3.getDimensions()));
+        assertEquals(19, restartedService.search(newSearchCriteria()).size());
+    }
+
+    @Test
+    public void binaryFileFormat() throws Exception {
+
+        final Path rootDirectory = Files.createDirectory(_RootDirectory.resolve("binary-root"));
+        final Map<String, String> settings = new HashMap<>();
+        settings.put(FileSystemService.ROOT_DIRECTORY_SETTING_NAME, rootDirectory.toString());
+        settings.put(FileSystemService.FILE_FORMAT_SETTING_NAME, SystemFormat.vnd_wrml_binary.name());
+        final FileSystemService service = createService("Binary", true, settings);
+
+        for (int i = 0; i < 5; i++) {
+            service.save(newWizard("b" + i, i % 2, "spell" + i, "spell0"));
+        }
+
+        final Model b1 = newWizard("b1", 1, "spell1", "spell0");
+        final Model readB1 = service.get(b1.getKeys(), b1.getDimensions());
+        assertEquals(1, readB1.getSlotValue(SLOT_NAME_GUILD_ID));
+        assertEquals(Arrays.asList("spell1", "spell0"), readB1.getSlotValue(SLOT_NAME_SPELL_BOOK_SPELL_IDS));
+
+        final Path dataDirectory = rootDirectory.resolve(ApiLoaderTest.WRML_SCHEMA_WIZARD_URI.getPath().substring(1)).resolve("data");
+        try (final DirectoryStream<Path> dataFiles = Files.newDirectoryStream(dataDirectory, "*." + SystemFormat.vnd_wrml_binary.getFileExtension())) {
+            int dataFileCount = 0;
+            for (final Path dataFile : dataFiles) {
+                dataFileCount++;
+            }
+
+            assertEquals(5, dataFileCount);
+        }
+
+        final FileSystemService scanningService = createService("ScannedBinary", false, settings);
+        final SearchCriteria searchCriteria = newSearchCriteria(new TestSearchCriterion(SLOT_NAME_GUILD_ID, ComparisonOperator.equalTo, 1));
+        assertEquals(wizardUris("b1", "b3"), search(scanningService, searchCriteria));
+        assertEquals(wizardUris("b1", "b3"), search(service, searchCriteria));
+    }
+
+    @Test
+    public void versionChangesWithEachSave() {
+
+        final Model w1 = newWizard("w1", 1, "spell1", "spell1");
+        final ModelVersion version = _IndexedService.getVersion(w1.getKeys(), w1.getDimensions());
+        assertNotNull(version);
+        assertTrue(version.getLastModified() > 0);
+        assertEquals(version, _IndexedService.getVersion(w1.getKeys(), w1.getDimensions()));
+
+        // Saving the same state again still writes a new data file
+        _IndexedService.save(w1);
+        final ModelVersion savedVersion = _IndexedService.getVersion(w1.getKeys(), w1.getDimensions());
+        assertNotNull(savedVersion);
+        assertNotEquals(version.getTag(), savedVersion.getTag());
+
+        _IndexedService.delete(w1.getKeys(), w1.getDimensions());
+        assertNull(_IndexedService.getVersion(w1.getKeys(), w1.getDimensions()));
+    }
+
+    @Test
+    public void concurrentWritesToSymbolicLinks() throws Exception {
+
+        stress(FileSystemService.SYMBOLIC_LINK_KEY_INDEX);
+    }
+
+    @Test
+    public void concurrentWritesToAppendOnlyLog() throws Exception {
+
+        stress(FileSystemService.APPEND_ONLY_LOG_KEY_INDEX);
+    }
+
+    /**
+     * Hammers a few keys with saves, gets and deletes from several threads; checking that every get reads a whole model
+     * and that each saved model ends up with exactly one data file.
+     */
+    private void stress(final String keyIndex) throws Exception {
+
+        final Path rootDirectory = Files.createDirectory(_RootDirectory.resolve(keyIndex + "-root"));
+        final Map<String, String> settings = new HashMap<>();
+        settings.put(FileSystemService.ROOT_DIRECTORY_SETTING_NAME, rootDirectory.toString());
+        settings.put(FileSystemService.KEY_INDEX_SETTING_NAME, keyIndex);
+        settings.put(FileSystemService.WRITE_LOCK_STRIPES_SETTING_NAME, "4");
+        final FileSystemService service = createService(keyIndex, true, settings);
+
+        final String[] wizardIds = {"c0", "c1", "c2", "c3"};
+        final int threadCount = 8;
+        final int operationCount = 150;
+        final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            final Random random = new Random(t);
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        start.await();
+                        for (int i = 0; i < operationCount; i++) {
+                            final String wizardId = wizardIds[random.nextInt(wizardIds.length)];
+                            final Model wizard = newWizard(wizardId, random.nextInt(100), "spell" + i, "spell" + random.nextInt(3));
+                            final int operation = random.nextInt(10);
+                            if (operation < 5) {
+                                service.save(wizard);
+                            }
+                            else if (operation < 9) {
+                                final Model model = service.get(wizard.getKeys(), wizard.getDimensions());
+                                if (model != null) {
+                                    assertEquals(wizardId, model.getSlotValue(SLOT_NAME_WIZARD_ID));
+                                    assertNotNull(model.getSlotValue(SLOT_NAME_GUILD_ID));
+                                }
+                            }
+                            else {
+                                service.delete(wizard.getKeys(), wizard.getDimensions());
+                            }
+                        }
+                    }
+                    catch (final Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.peek());
+        }
+
+        int savedCount = 0;
+        for (final String wizardId : wizardIds) {
+            final Model wizard = newWizard(wizardId, 0, "spell", "spell");
+            if (service.get(wizard.getKeys(), wizard.getDimensions()) != null) {
+                savedCount++;
+            }
+        }
+
+        final Path dataDirectory = rootDirectory.resolve(ApiLoaderTest.WRML_SCHEMA_WIZARD_URI.getPath().substring(1)).resolve("data");
+        final List<String> dataFileNames = new ArrayList<>();
+        try (final DirectoryStream<Path> directoryStream = Files.newDirectoryStream(dataDirectory)) {
+            for (final Path dataFilePath : directoryStream) {
+                dataFileNames.add(dataFilePath.getFileName().toString());
+            }
+        }
+
+        // No orphaned data files, nor left over temporary files
+        assertEquals(dataFileNames.toString(), savedCount, dataFileNames.size());
+        assertEquals(savedCount, service.search(newSearchCriteria()).size());
+    }
+
+    private FileSystemService createService(final String name, final boolean searchIndex) {
+
+        return createService(name, searchIndex, FileSystemService.SYMBOLIC_LINK_KEY_INDEX);
+    }
+
+    private FileSystemService createService(final String name, final boolean searchIndex, final String keyIndex) {
+
+        return createService(name, searchIndex, Collections.singletonMap(FileSystemService.KEY_INDEX_SETTING_NAME, keyIndex));
+    }
+
+    private FileSystemService createService(final String name, final boolean searchIndex, final Map<String, String> otherSettings) {
+
+        final Map<String, String> settings = new HashMap<>(otherSettings);
+        if (!settings.containsKey(FileSystemService.ROOT_DIRECTORY_SETTING_NAME)) {
+            settings.put(FileSystemService.ROOT_DIRECTORY_SETTING_NAME, _RootDirectory.toString());
+        }
+
+        settings.put(FileSystemService.SEARCH_INDEX_SETTING_NAME, String.valueOf(searchIndex));
+
+        final DefaultServiceConfiguration config = new DefaultServiceConfiguration();
+        config.setName(name);
+        config.setImplementation(FileSystemService.class.getName());
+        config.setSettings(settings);
+
+        final FileSystemService service = new FileSystemService();
+        service.init(_Context, config);
+        return service;
+    }
+
+    private Model newWizard(final String wizardId, final int guildId, final String primarySpellId, final String spellBookSpellId) {
+
+        final Model wizard = _Context.newModel(ApiLoaderTest.WRML_SCHEMA_WIZARD_URI);
+        wizard.setSlotValue(Document.SLOT_NAME_URI, wizardUri(wizardId));
+        wizard.setSlotValue(SLOT_NAME_WIZARD_ID, wizardId);
+        wizard.setSlotValue(SLOT_NAME_GUILD_ID, guildId);
+        wizard.setSlotValue(SLOT_NAME_PRIMARY_SPELL_ID, primarySpellId);
+        wizard.setSlotValue(SLOT_NAME_SPELL_BOOK_SPELL_IDS, Arrays.asList(primarySpellId, spellBookSpellId));
+        return wizard;
+    }
+
+    private static URI wizardUri(final String wizardId) {
+
+        return ApiLoaderTest.WRML_API_WIZARD_EXAMPLE_URI.resolve("/wizards/" + wizardId);
+    }
+
+    private static Set<URI> wizardUris(final String... wizardIds) {
+
+        final Set<URI> uris = new LinkedHashSet<>();
+        for (final String wizardId : wizardIds) {
+            uris.add(wizardUri(wizardId));
+        }
+
+        return uris;
+    }
+
+    private static Set<URI> search(final FileSystemService service, final SearchCriteria searchCriteria) {
+
+        // The results are sorted by data file name, so compare them as sets of URIs
+        final Set<URI> uris = new TreeSet<>();
+        for (final Model model : service.search(searchCriteria)) {
+            uris.add((URI) model.getSlotValue(Document.SLOT_NAME_URI));
+        }
+
+        return new LinkedHashSet<>(uris);
+    }
+
+    static SearchCriteria newSearchCriteria(final SearchCriterion... and) {
+
+        return new TestSearchCriteria(Arrays.asList(and));
+    }
+
+    static final class TestSearchCriteria implements SearchCriteria {
+
+        private final List<SearchCriterion> _And;
+
+        private final Dimensions _ResultDimensions;
+
+        TestSearchCriteria(final List<SearchCriterion> and) {
+
+            _And = and;
+            _ResultDimensions = new DimensionsBuilder(ApiLoaderTest.WRML_SCHEMA_WIZARD_URI).toDimensions();
+        }
+
+        @Override
+        public Dimensions getResultDimensions() {
+
+            return _ResultDimensions;
+        }
+
+        @Override
+        public List<SearchCriterion> getAnd() {
+
+            return _And;
+        }
+
+        @Override
+        public List<SearchCriterion> getOr() {
+
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Set<String> getProjectionSlotNames() {
+
+            return null;
+        }
+
+        @Override
+        public Integer getResultLimit() {
+
+            return null;
+        }
+
+        @Override
+        public Integer getResultOffset() {
+
+            return null;
+        }
+
+        @Override
+        public String getContinuationToken() {
+
+            return null;
+        }
+
+        @Override
+        public Model getReferrer() {
+
+            return null;
+        }
+
+        @Override
+        public String getReferrerCollectionSlotName() {
+
+            return null;
+        }
+    }
+
+    static final class TestSearchCriterion implements SearchCriterion {
+
+        private final String _ReferenceSlot;
+
+        private final ComparisonOperator _ComparisonOperator;
+
+        private final Object _ComparisonValue;
+
+        TestSearchCriterion(final String referenceSlot, final ComparisonOperator comparisonOperator, final Object comparisonValue) {
+
+            _ReferenceSlot = referenceSlot;
+            _ComparisonOperator = comparisonOperator;
+            _ComparisonValue = comparisonValue;
+        }
+
+        @Override
+        public String getReferenceSlot() {
+
+            return _ReferenceSlot;
+        }
+
+        @Override
+        public Object getComparisonValue() {
+
+            return _ComparisonValue;
+        }
+
+        @Override
+        public ComparisonOperator getComparisonOperator() {
+
+            return _ComparisonOperator;
+        }
+
+        @Override
+        public String getRegex() {
+
+            return (_ComparisonOperator == ComparisonOperator.regex) ? (String) _ComparisonValue : null;
+        }
+
+        @Override
+        public Pattern getRegexPattern() {
+
+            return null;
+        }
+    }
+}
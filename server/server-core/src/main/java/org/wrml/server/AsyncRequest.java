@@ -0,0 +1,364 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import org.apache.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wrml.model.rest.status.Status;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A request that the {@link WrmlServlet} processes asynchronously, on its request executor rather than on the servlet
+ * container's thread.
+ * </p>
+ * <p>
+ * The request and its timeout race to respond. The request may only touch the response once it has "claimed" it,
+ * which it does implicitly the first time it changes the response (its status, headers or entity). If the timeout
+ * fires before then, the timeout responds (with a <code>504 Gateway Timeout</code> error report) and any later attempt
+ * by the request to change the response fails with an {@link IllegalStateException}. The request's worker thread is
+ * not interrupted (an interrupt would close any {@link java.nio.channels.FileChannel} that it is reading and fail the
+ * loads that other requests share with it); it is left to finish and its response is discarded. If the timeout fires after the request has claimed the response, the response is
+ * already being written, so the timeout waits (briefly) for it to be finished.
+ * </p>
+ */
+final class AsyncRequest implements Runnable, AsyncListener {
+
+    /**
+     * How long a timeout waits for a request that is already writing its response.
+     */
+    static final long WRITING_GRACE_PERIOD_MILLIS = 5000L;
+
+    /**
+     * The number of seconds that a rejected client is asked to wait before it retries its request.
+     */
+    static final int REJECTED_RETRY_AFTER_SECONDS = 1;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRequest.class);
+
+    private static final int QUEUED = 0;
+
+    private static final int RUNNING = 1;
+
+    private static final int WRITING = 2;
+
+    private static final int DONE = 3;
+
+    private final WrmlServlet _Servlet;
+
+    private final AsyncContext _AsyncContext;
+
+    private final AtomicInteger _State;
+
+    private final CountDownLatch _Done;
+
+    AsyncRequest(final WrmlServlet servlet, final AsyncContext asyncContext) {
+
+        _Servlet = servlet;
+        _AsyncContext = asyncContext;
+        _State = new AtomicInteger(QUEUED);
+        _Done = new CountDownLatch(1);
+    }
+
+    @Override
+    public void run() {
+
+        if (!_State.compareAndSet(QUEUED, RUNNING)) {
+            // Timed out while queued.
+            return;
+        }
+
+        final HttpServletRequest request = (HttpServletRequest) _AsyncContext.getRequest();
+        final HttpServletResponse response = (HttpServletResponse) _AsyncContext.getResponse();
+        try {
+            _Servlet.serviceRequest(request, new ClaimedResponse(response));
+        }
+        catch (final IOException | RuntimeException e) {
+            if (_State.get() == DONE) {
+                LOGGER.debug("A timed out request failed.", e);
+            }
+            else {
+                LOGGER.error("An exception was thrown during asynchronous request processing.", e);
+            }
+        }
+        finally {
+            final int previousState = _State.getAndSet(DONE);
+            _Done.countDown();
+            if (previousState != DONE) {
+                _AsyncContext.complete();
+            }
+        }
+    }
+
+    /**
+     * Responds with a <code>503 Service Unavailable</code> error report, for a request that the executor (which is at
+     * capacity) rejected.
+     */
+    void reject() {
+
+        if (_State.compareAndSet(QUEUED, DONE)) {
+            final HttpServletResponse response = (HttpServletResponse) _AsyncContext.getResponse();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(REJECTED_RETRY_AFTER_SECONDS));
+            _Servlet.writeErrorReport((HttpServletRequest) _AsyncContext.getRequest(), response, Status.SERVICE_UNAVAILABLE, "Service Unavailable",
+                    "The server is too busy to handle the request; please try again later.");
+            _Done.countDown();
+            _AsyncContext.complete();
+        }
+    }
+
+    @Override
+    public void onTimeout(final AsyncEvent event) throws IOException {
+
+        int state = _State.get();
+        while (state == QUEUED || state == RUNNING) {
+            if (_State.compareAndSet(state, DONE)) {
+                final HttpServletRequest request = (HttpServletRequest) _AsyncContext.getRequest();
+                LOGGER.warn("The request for {} timed out after {} ms", request.getRequestURI(), _AsyncContext.getTimeout());
+                _Servlet.writeErrorReport(request, (HttpServletResponse) _AsyncContext.getResponse(), Status.GATEWAY_TIMEOUT, "Gateway Timeout",
+                        "The request was not processed within " + _AsyncContext.getTimeout() + " ms.");
+                _AsyncContext.complete();
+                return;
+            }
+
+            state = _State.get();
+        }
+
+        if (state == WRITING) {
+            try {
+                _Done.await(WRITING_GRACE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void onComplete(final AsyncEvent event) throws IOException {
+
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) throws IOException {
+
+        LOGGER.error("An error occurred during asynchronous request processing.", event.getThrowable());
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) throws IOException {
+
+    }
+
+    private void claimResponse() {
+
+        final int state = _State.get();
+        if (state == WRITING || (state == RUNNING && _State.compareAndSet(RUNNING, WRITING))) {
+            return;
+        }
+
+        throw new IllegalStateException("The request has timed out; its response has already been sent.");
+    }
+
+    /**
+     * The view of the response given to the request's worker thread; it claims the response before changing it.
+     */
+    private final class ClaimedResponse extends HttpServletResponseWrapper {
+
+        ClaimedResponse(final HttpServletResponse response) {
+
+            super(response);
+        }
+
+        @Override
+        public void addCookie(final Cookie cookie) {
+
+            claimResponse();
+            super.addCookie(cookie);
+        }
+
+        @Override
+        public void addDateHeader(final String name, final long date) {
+
+            claimResponse();
+            super.addDateHeader(name, date);
+        }
+
+        @Override
+        public void addHeader(final String name, final String value) {
+
+            claimResponse();
+            super.addHeader(name, value);
+        }
+
+        @Override
+        public void addIntHeader(final String name, final int value) {
+
+            claimResponse();
+            super.addIntHeader(name, value);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+
+            claimResponse();
+            super.flushBuffer();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+
+            claimResponse();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+
+            claimResponse();
+            return super.getWriter();
+        }
+
+        @Override
+        public void reset() {
+
+            claimResponse();
+            super.reset();
+        }
+
+        @Override
+        public void resetBuffer() {
+
+            claimResponse();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void sendError(final int sc) throws IOException {
+
+            claimResponse();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(final int sc, final String msg) throws IOException {
+
+            claimResponse();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(final String location) throws IOException {
+
+            claimResponse();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void setBufferSize(final int size) {
+
+            claimResponse();
+            super.setBufferSize(size);
+        }
+
+        @Override
+        public void setCharacterEncoding(final String charset) {
+
+            claimResponse();
+            super.setCharacterEncoding(charset);
+        }
+
+        @Override
+        public void setContentLength(final int len) {
+
+            claimResponse();
+            super.setContentLength(len);
+        }
+
+        @Override
+        public void setContentType(final String type) {
+
+            claimResponse();
+            super.setContentType(type);
+        }
+
+        @Override
+        public void setDateHeader(final String name, final long date) {
+
+            claimResponse();
+            super.setDateHeader(name, date);
+        }
+
+        @Override
+        public void setHeader(final String name, final String value) {
+
+            claimResponse();
+            super.setHeader(name, value);
+        }
+
+        @Override
+        public void setIntHeader(final String name, final int value) {
+
+            claimResponse();
+            super.setIntHeader(name, value);
+        }
+
+        @Override
+        public void setLocale(final Locale loc) {
+
+            claimResponse();
+            super.setLocale(loc);
+        }
+
+        @Override
+        public void setStatus(final int sc) {
+
+            claimResponse();
+            super.setStatus(sc);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void setStatus(final int sc, final String sm) {
+
+            claimResponse();
+            super.setStatus(sc, sm);
+        }
+    }
+}
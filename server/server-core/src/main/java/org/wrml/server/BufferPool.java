@@ -0,0 +1,69 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A bounded pool of equally sized byte buffers, which spares each response from allocating (and the garbage collector
+ * from reclaiming) its own entity buffer.
+ * <p/>
+ * Buffers are not tied to threads; a buffer may be acquired on one thread and released on another. When the pool is
+ * empty a new buffer is allocated and when it is full a released buffer is simply dropped.
+ */
+final class BufferPool {
+
+    private final int _BufferSize;
+
+    private final ArrayBlockingQueue<byte[]> _Buffers;
+
+    BufferPool(final int bufferSize, final int maximumPooledBuffers) {
+
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("The buffer size must be positive, not: " + bufferSize);
+        }
+
+        _BufferSize = bufferSize;
+        _Buffers = new ArrayBlockingQueue<>(Math.max(1, maximumPooledBuffers));
+    }
+
+    byte[] acquire() {
+
+        final byte[] buffer = _Buffers.poll();
+        return (buffer != null) ? buffer : new byte[_BufferSize];
+    }
+
+    int getBufferSize() {
+
+        return _BufferSize;
+    }
+
+    void release(final byte[] buffer) {
+
+        if (buffer != null && buffer.length == _BufferSize) {
+            _Buffers.offer(buffer);
+        }
+    }
+}
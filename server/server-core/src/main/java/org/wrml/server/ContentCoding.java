@@ -0,0 +1,184 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The HTTP content codings (compression formats) that the {@link WrmlServlet} can apply to a response entity.
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc7231#section-3.1.2.1">RFC 7231, Section 3.1.2.1</a>
+ */
+enum ContentCoding {
+
+    GZIP("gzip") {
+        @Override
+        OutputStream newOutputStream(final OutputStream out, final int level, final int bufferSize) throws IOException {
+
+            return new GZIPOutputStream(out, bufferSize) {
+
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+    },
+
+    /**
+     * The "deflate" coding; which is the zlib format (RFC 1950), not raw deflate.
+     */
+    DEFLATE("deflate") {
+        @Override
+        OutputStream newOutputStream(final OutputStream out, final int level, final int bufferSize) {
+
+            return new DeflaterOutputStream(out, new Deflater(level), bufferSize) {
+
+                @Override
+                public void close() throws IOException {
+
+                    try {
+                        super.close();
+                    }
+                    finally {
+                        // The stream only ends the deflaters that it creates; release this one's native memory now.
+                        def.end();
+                    }
+                }
+            };
+        }
+    };
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final String _Name;
+
+    private ContentCoding(final String name) {
+
+        _Name = name;
+    }
+
+    /**
+     * Chooses the content coding that the client most prefers, per its <code>Accept-Encoding</code> header (with gzip
+     * preferred if the client does not mind).
+     *
+     * @param acceptEncoding The <code>Accept-Encoding</code> header value.
+     * @return The chosen content coding or <code>null</code> if the client does not accept any of them.
+     */
+    static ContentCoding negotiate(final String acceptEncoding) {
+
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+
+        final ContentCoding[] codings = values();
+        final float[] qualities = new float[codings.length];
+        float wildcardQuality = 0f;
+
+        for (final String element : acceptEncoding.split(",")) {
+            final String[] parts = element.split(";");
+            final String name = parts[0].trim().toLowerCase(Locale.ENGLISH);
+            float quality = 1f;
+            for (int i = 1; i < parts.length; i++) {
+                final String param = parts[i].trim();
+                if (param.startsWith("q=") || param.startsWith("Q=")) {
+                    try {
+                        quality = Float.parseFloat(param.substring(2).trim());
+                    }
+                    catch (final NumberFormatException e) {
+                        quality = 0f;
+                    }
+                }
+            }
+
+            if (name.equals("*")) {
+                wildcardQuality = quality;
+                continue;
+            }
+
+            final ContentCoding coding = forName(name);
+            if (coding != null) {
+                // A negative quality marks a coding that was listed (so the wildcard does not apply to it).
+                qualities[coding.ordinal()] = (quality > 0f) ? quality : -1f;
+            }
+        }
+
+        ContentCoding preferredCoding = null;
+        float preferredQuality = 0f;
+        for (final ContentCoding coding : codings) {
+            final float quality = (qualities[coding.ordinal()] == 0f) ? wildcardQuality : qualities[coding.ordinal()];
+            if (quality > preferredQuality) {
+                preferredCoding = coding;
+                preferredQuality = quality;
+            }
+        }
+
+        return preferredCoding;
+    }
+
+    private static ContentCoding forName(final String name) {
+
+        switch (name) {
+            case "gzip":
+            case "x-gzip":
+                return GZIP;
+            case "deflate":
+                return DEFLATE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * The coding's name, as used in the <code>Content-Encoding</code> header.
+     */
+    String getName() {
+
+        return _Name;
+    }
+
+    /**
+     * Encodes the bytes in one go.
+     */
+    byte[] encode(final byte[] bytes, final int off, final int len, final int level) throws IOException {
+
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream(Math.max(len / 4, 64));
+        final OutputStream out = newOutputStream(encoded, level, DEFAULT_BUFFER_SIZE);
+        out.write(bytes, off, len);
+        out.close();
+        return encoded.toByteArray();
+    }
+
+    /**
+     * Creates a stream that encodes the bytes written to it and writes them to the specified stream; closing it
+     * finishes the encoding and closes the specified stream.
+     */
+    abstract OutputStream newOutputStream(final OutputStream out, final int level, final int bufferSize) throws IOException;
+}
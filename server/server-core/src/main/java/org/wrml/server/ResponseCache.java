@@ -0,0 +1,518 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wrml.model.Model;
+import org.wrml.model.rest.Document;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.DimensionsBuilder;
+import org.wrml.runtime.Keys;
+import org.wrml.runtime.ModelChangeListener;
+import org.wrml.runtime.rest.EntityTag;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * A cache of encoded GET response entities, so that the {@link WrmlServlet} can answer a repeated request for a hot
+ * document without loading, aggregating or serializing any models.
+ * </p>
+ * <p>
+ * Responses are keyed by their request URI (with its query), their request {@link Dimensions} (less the request
+ * headers, which are the dimensions' metadata), format and content type. The cache is bounded by the total size of the
+ * cached entities (including their encoded forms) and evicts the least recently used responses first.
+ * </p>
+ * <p>
+ * A cached entity may also keep its encoded (compressed) forms, so that a hot entity is only compressed once for each
+ * {@link ContentCoding}.
+ * </p>
+ * <p>
+ * The cache listens to the {@link org.wrml.runtime.Context}'s saves and deletes. A change to a document removes the
+ * responses that include it, and any change removes the responses that include collections of models (which the
+ * changed model may have joined or left). Changes that bypass the context (e.g. made directly to a service's backing
+ * store) are not seen by the cache.
+ * </p>
+ */
+final class ResponseCache implements ModelChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCache.class);
+
+    private final long _MaximumSize;
+
+    private final int _MaximumEntrySize;
+
+    private final URI _DocumentSchemaUri;
+
+    /**
+     * The cached responses, in access order; guarded by this.
+     */
+    private final LinkedHashMap<Key, Entry> _Entries;
+
+    private long _Size;
+
+    private long _Generation;
+
+    private long _HitCount;
+
+    private long _MissCount;
+
+    private long _EvictionCount;
+
+    ResponseCache(final long maximumSize, final int maximumEntrySize, final URI documentSchemaUri) {
+
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size must be positive, not: " + maximumSize);
+        }
+
+        _MaximumSize = maximumSize;
+        _MaximumEntrySize = (int) Math.min(maximumEntrySize, maximumSize);
+        _DocumentSchemaUri = documentSchemaUri;
+        _Entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Creates a cache key; the dimensions' metadata (request headers) are left out.
+     */
+    static Key newKey(final URI requestUri, final String queryString, final Dimensions dimensions, final URI formatUri, final String contentType) {
+
+        final DimensionsBuilder dimensionsBuilder = new DimensionsBuilder(dimensions);
+        dimensionsBuilder.getMetadata().clear();
+
+        final String uri = (queryString != null) ? requestUri + "?" + queryString : requestUri.toString();
+        return new Key(uri, dimensionsBuilder.toDimensions(), formatUri, contentType);
+    }
+
+    /**
+     * Creates a cache entry for the response model's encoded entity; noting the documents and collections that the
+     * model includes, which the entry depends upon.
+     */
+    static Entry newEntry(final byte[] entity, final String contentType, final Locale locale, final EntityTag entityTag,
+                          final long lastModified, final Model responseModel) {
+
+        final Set<URI> documentUris = new HashSet<>();
+        final boolean aggregate = collectDependencies(responseModel, documentUris, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+        return new Entry(entity, contentType, locale, entityTag, lastModified, documentUris, aggregate);
+    }
+
+    synchronized Entry get(final Key key) {
+
+        final Entry entry = _Entries.get(key);
+        if (entry != null) {
+            _HitCount++;
+        }
+        else {
+            _MissCount++;
+        }
+
+        return entry;
+    }
+
+    /**
+     * The current generation; which is passed back to {@link #put(Key, Entry, long)} to detect (and ignore) responses
+     * that may have been produced from models that have since changed.
+     */
+    synchronized long getGeneration() {
+
+        return _Generation;
+    }
+
+    /**
+     * Caches the response unless it is too large, the cache was invalidated since the given generation, or it was
+     * written in a media type other than the one the key was negotiated for (the response model's schema need not be
+     * the requested one, so its negotiated media type may differ).
+     *
+     * @return <code>true</code> if the response was cached.
+     */
+    synchronized boolean put(final Key key, final Entry entry, final long generation) {
+
+        final int entrySize = entry.getSize();
+        if (generation != _Generation || entrySize > _MaximumEntrySize || !key.isContentType(entry.getContentType())) {
+            return false;
+        }
+
+        final Entry replacedEntry = _Entries.put(key, entry);
+        if (replacedEntry != null) {
+            removed(replacedEntry);
+        }
+
+        entry._Cached = true;
+        _Size += entrySize;
+        evict();
+        return true;
+    }
+
+    /**
+     * Gets the entry's entity in the specified coding; encoding it (and, if the entry is still cached, keeping the
+     * encoded form) on first use.
+     */
+    byte[] getEncodedEntity(final Entry entry, final ContentCoding contentCoding, final int compressionLevel) throws IOException {
+
+        synchronized (this) {
+            final byte[] encodedEntity = entry._EncodedEntities.get(contentCoding);
+            if (encodedEntity != null) {
+                return encodedEntity;
+            }
+        }
+
+        final byte[] entity = entry.getEntity();
+        final byte[] encodedEntity = contentCoding.encode(entity, 0, entity.length, compressionLevel);
+
+        synchronized (this) {
+            final byte[] concurrentlyEncodedEntity = entry._EncodedEntities.get(contentCoding);
+            if (concurrentlyEncodedEntity != null) {
+                return concurrentlyEncodedEntity;
+            }
+
+            if (entry._Cached) {
+                entry._EncodedEntities.put(contentCoding, encodedEntity);
+                _Size += encodedEntity.length;
+                evict();
+            }
+        }
+
+        return encodedEntity;
+    }
+
+    /**
+     * Removes the responses that include the document (and those that include collections); or all of the responses
+     * if the document URI is <code>null</code>.
+     */
+    synchronized void invalidate(final URI documentUri) {
+
+        _Generation++;
+
+        final Iterator<Entry> entries = _Entries.values().iterator();
+        while (entries.hasNext()) {
+            final Entry entry = entries.next();
+            if (documentUri == null || entry.isAggregate() || entry.getDocumentUris().contains(documentUri)) {
+                entries.remove();
+                removed(entry);
+            }
+        }
+    }
+
+    synchronized void clear() {
+
+        _Generation++;
+        for (final Entry entry : _Entries.values()) {
+            entry._Cached = false;
+        }
+
+        _Entries.clear();
+        _Size = 0;
+    }
+
+    @Override
+    public void modelSaved(final Model savedModel) {
+
+        invalidate(getDocumentUri(savedModel.getKeys()));
+    }
+
+    @Override
+    public void modelDeleted(final Keys keys, final Dimensions dimensions) {
+
+        invalidate(getDocumentUri(keys));
+    }
+
+    int getMaximumEntrySize() {
+
+        return _MaximumEntrySize;
+    }
+
+    long getMaximumSize() {
+
+        return _MaximumSize;
+    }
+
+    /**
+     * The total size (in bytes) of the cached entities.
+     */
+    synchronized long getSize() {
+
+        return _Size;
+    }
+
+    synchronized int getEntryCount() {
+
+        return _Entries.size();
+    }
+
+    synchronized long getHitCount() {
+
+        return _HitCount;
+    }
+
+    synchronized long getMissCount() {
+
+        return _MissCount;
+    }
+
+    synchronized long getEvictionCount() {
+
+        return _EvictionCount;
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache is within its size bound; the caller holds the lock.
+     */
+    private void evict() {
+
+        final Iterator<Entry> eldestEntries = _Entries.values().iterator();
+        while (_Size > _MaximumSize && eldestEntries.hasNext()) {
+            final Entry eldestEntry = eldestEntries.next();
+            eldestEntries.remove();
+            removed(eldestEntry);
+            _EvictionCount++;
+        }
+    }
+
+    /**
+     * Accounts for an entry that was removed from the map; the caller holds the lock.
+     */
+    private void removed(final Entry entry) {
+
+        entry._Cached = false;
+        _Size -= entry.getSize();
+    }
+
+    private URI getDocumentUri(final Keys keys) {
+
+        final URI documentUri = (keys != null) ? keys.<URI>getValue(_DocumentSchemaUri) : null;
+        if (documentUri == null) {
+            LOGGER.debug("Clearing the response cache; a changed model has no document URI.");
+        }
+
+        return documentUri;
+    }
+
+    /**
+     * Walks the model graph, collecting the URIs of the documents within it.
+     *
+     * @return <code>true</code> if the graph includes a collection of models.
+     */
+    private static boolean collectDependencies(final Object value, final Set<URI> documentUris, final Set<Object> visited) {
+
+        if (value instanceof Model) {
+            if (!visited.add(value)) {
+                return false;
+            }
+
+            final Model model = (Model) value;
+            if (model instanceof Document) {
+                final URI documentUri = ((Document) model).getUri();
+                if (documentUri != null) {
+                    documentUris.add(documentUri);
+                }
+            }
+
+            boolean aggregate = false;
+            for (final Object slotValue : model.getSlotMap().values()) {
+                aggregate |= collectDependencies(slotValue, documentUris, visited);
+            }
+
+            return aggregate;
+        }
+
+        if (value instanceof Collection || value instanceof Map) {
+            final Collection<?> elements = (value instanceof Map) ? ((Map<?, ?>) value).values() : (Collection<?>) value;
+            boolean aggregate = false;
+            for (final Object element : elements) {
+                aggregate |= (element instanceof Model) | collectDependencies(element, documentUris, visited);
+            }
+
+            return aggregate;
+        }
+
+        return false;
+    }
+
+    static final class Key {
+
+        private final String _Uri;
+
+        private final Dimensions _Dimensions;
+
+        private final URI _FormatUri;
+
+        private final String _ContentType;
+
+        private final int _HashCode;
+
+        private Key(final String uri, final Dimensions dimensions, final URI formatUri, final String contentType) {
+
+            _Uri = uri;
+            _Dimensions = dimensions;
+            _FormatUri = formatUri;
+            _ContentType = contentType;
+
+            int hashCode = uri.hashCode();
+            hashCode = 31 * hashCode + dimensions.hashCode();
+            hashCode = 31 * hashCode + ((formatUri != null) ? formatUri.hashCode() : 0);
+            hashCode = 31 * hashCode + ((contentType != null) ? contentType.hashCode() : 0);
+            _HashCode = hashCode;
+        }
+
+        boolean isContentType(final String contentType) {
+
+            return (_ContentType != null) ? _ContentType.equals(contentType) : contentType == null;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) obj;
+            return _HashCode == other._HashCode && _Uri.equals(other._Uri) && _Dimensions.equals(other._Dimensions)
+                    && (_FormatUri != null ? _FormatUri.equals(other._FormatUri) : other._FormatUri == null)
+                    && (_ContentType != null ? _ContentType.equals(other._ContentType) : other._ContentType == null);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return _HashCode;
+        }
+
+        @Override
+        public String toString() {
+
+            return getClass().getSimpleName() + " [uri = " + _Uri + ", formatUri = " + _FormatUri + ", contentType = " + _ContentType + "]";
+        }
+    }
+
+    static final class Entry {
+
+        private final byte[] _Entity;
+
+        private final String _ContentType;
+
+        private final Locale _Locale;
+
+        private final EntityTag _EntityTag;
+
+        private final long _LastModified;
+
+        private final Set<URI> _DocumentUris;
+
+        private final boolean _Aggregate;
+
+        /**
+         * The entity's encoded forms; guarded by the cache.
+         */
+        private final EnumMap<ContentCoding, byte[]> _EncodedEntities;
+
+        /**
+         * Whether the entry is (still) in the cache; guarded by the cache.
+         */
+        private boolean _Cached;
+
+        private Entry(final byte[] entity, final String contentType, final Locale locale, final EntityTag entityTag,
+                      final long lastModified, final Set<URI> documentUris, final boolean aggregate) {
+
+            _Entity = entity;
+            _ContentType = contentType;
+            _Locale = locale;
+            _EntityTag = entityTag;
+            _LastModified = lastModified;
+            _DocumentUris = documentUris;
+            _Aggregate = aggregate;
+            _EncodedEntities = new EnumMap<>(ContentCoding.class);
+        }
+
+        /**
+         * The total size of the entity and its encoded forms; the caller holds the cache's lock (or owns the entry).
+         */
+        private int getSize() {
+
+            int size = _Entity.length;
+            for (final byte[] encodedEntity : _EncodedEntities.values()) {
+                size += encodedEntity.length;
+            }
+
+            return size;
+        }
+
+        /**
+         * The encoded entity; which must not be modified.
+         */
+        byte[] getEntity() {
+
+            return _Entity;
+        }
+
+        String getContentType() {
+
+            return _ContentType;
+        }
+
+        Locale getLocale() {
+
+            return _Locale;
+        }
+
+        EntityTag getEntityTag() {
+
+            return _EntityTag;
+        }
+
+        long getLastModified() {
+
+            return _LastModified;
+        }
+
+        Set<URI> getDocumentUris() {
+
+            return _DocumentUris;
+        }
+
+        /**
+         * Whether the response includes a collection of models.
+         */
+        boolean isAggregate() {
+
+            return _Aggregate;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Captures a copy of a response entity, as it is written, for the {@link ResponseCache}. Capturing stops (and the
+ * partial copy is dropped) once the entity outgrows the limit.
+ */
+final class ResponseCapture extends OutputStream {
+
+    private final int _Limit;
+
+    private ByteArrayOutputStream _Copy;
+
+    ResponseCapture(final int limit) {
+
+        _Limit = limit;
+        _Copy = new ByteArrayOutputStream(Math.min(limit, 8192));
+    }
+
+    @Override
+    public void write(final int b) {
+
+        if (reserve(1)) {
+            _Copy.write(b);
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+
+        if (reserve(len)) {
+            _Copy.write(b, off, len);
+        }
+    }
+
+    /**
+     * Whether the whole entity was captured (i.e. it did not outgrow the limit).
+     */
+    boolean isComplete() {
+
+        return _Copy != null;
+    }
+
+    /**
+     * The captured entity or <code>null</code> if it outgrew the limit.
+     */
+    byte[] toByteArray() {
+
+        return (_Copy != null) ? _Copy.toByteArray() : null;
+    }
+
+    private boolean reserve(final int len) {
+
+        if (_Copy == null) {
+            return false;
+        }
+
+        if (_Copy.size() + len > _Limit) {
+            _Copy = null;
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import org.apache.http.HttpHeaders;
+import org.wrml.runtime.rest.EntityTag;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * The {@link OutputStream} that a response entity is written to. The entity is collected in a (pooled) buffer until
+ * either the stream is closed or the buffer fills up.
+ * </p>
+ * <p>
+ * If the whole entity fits in the buffer it is written to the response in one go, with an exact
+ * <code>Content-Length</code>. Otherwise the response switches to streaming: the buffer is written to the response
+ * (without a <code>Content-Length</code>, so the servlet container uses chunked transfer encoding) each time that it
+ * fills up, which means the client receives the first bytes while the rest of the entity is still being serialized.
+ * </p>
+ * <p>
+ * If a {@link ContentCoding} was negotiated, an entity of at least the minimum compression size is encoded: a buffered
+ * entity is compressed when the stream is closed (and sent with the compressed <code>Content-Length</code>, unless
+ * compression would not make it smaller) and a streamed entity is compressed as it is streamed. The response's
+ * <code>ETag</code> (if it has one) is amended to identify the encoded representation.
+ * </p>
+ * <p>
+ * Once streaming has begun the response is committed, so a failure part way through can only truncate the entity.
+ * Callers must {@link #discard()} the stream (which returns its buffer to the pool) if writing the entity fails.
+ * </p>
+ */
+final class ResponseEntityOutputStream extends OutputStream {
+
+    private final HttpServletResponse _Response;
+
+    private final BufferPool _BufferPool;
+
+    private byte[] _Buffer;
+
+    private int _Count;
+
+    private final ContentCoding _ContentCoding;
+
+    private final int _CompressionLevel;
+
+    private final int _CompressionMinimumSize;
+
+    private OutputStream _ResponseOut;
+
+    ResponseEntityOutputStream(final HttpServletResponse response, final BufferPool bufferPool) {
+
+        this(response, bufferPool, null, 0, 0);
+    }
+
+    ResponseEntityOutputStream(final HttpServletResponse response, final BufferPool bufferPool, final ContentCoding contentCoding,
+                               final int compressionLevel, final int compressionMinimumSize) {
+
+        _Response = response;
+        _BufferPool = bufferPool;
+        _Buffer = bufferPool.acquire();
+        _ContentCoding = contentCoding;
+        _CompressionLevel = compressionLevel;
+        _CompressionMinimumSize = compressionMinimumSize;
+    }
+
+    /**
+     * Whether the entity outgrew the buffer and is being streamed (without a <code>Content-Length</code>).
+     */
+    boolean isStreaming() {
+
+        return _ResponseOut != null;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+
+        ensureOpen();
+
+        if (_Count == _Buffer.length) {
+            drain();
+        }
+
+        _Buffer[_Count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+
+        ensureOpen();
+
+        if (len >= _Buffer.length) {
+            // Too big to buffer; drain what's buffered and write it straight through.
+            drain();
+            _ResponseOut.write(b, off, len);
+            return;
+        }
+
+        if (len > _Buffer.length - _Count) {
+            drain();
+        }
+
+        System.arraycopy(b, off, _Buffer, _Count, len);
+        _Count += len;
+    }
+
+    /**
+     * Flushes the buffered bytes to the response only once it is streaming; a buffered entity is held until
+     * {@link #close()} so that its <code>Content-Length</code> can be set.
+     */
+    @Override
+    public void flush() throws IOException {
+
+        if (_Buffer != null && isStreaming()) {
+            drain();
+            _ResponseOut.flush();
+        }
+    }
+
+    /**
+     * Completes the response entity and returns the buffer to the pool.
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (_Buffer == null) {
+            return;
+        }
+
+        try {
+            final OutputStream responseOut;
+            if (isStreaming()) {
+                drain();
+                responseOut = _ResponseOut;
+            }
+            else {
+                final byte[] encoded = (_ContentCoding != null && _Count >= _CompressionMinimumSize)
+                        ? _ContentCoding.encode(_Buffer, 0, _Count, _CompressionLevel) : null;
+                if (encoded != null && encoded.length < _Count) {
+                    setContentEncoding(_Response, _ContentCoding);
+                    _Response.setContentLength(encoded.length);
+                    responseOut = _Response.getOutputStream();
+                    responseOut.write(encoded);
+                }
+                else {
+                    _Response.setContentLength(_Count);
+                    responseOut = _Response.getOutputStream();
+                    responseOut.write(_Buffer, 0, _Count);
+                }
+            }
+
+            // Make sure it's on the wire
+            responseOut.flush();
+            responseOut.close();
+        }
+        finally {
+            discard();
+        }
+    }
+
+    /**
+     * Returns the buffer to the pool without writing any more of the entity; does nothing if the stream is already
+     * closed.
+     */
+    void discard() {
+
+        if (_Buffer != null) {
+            _BufferPool.release(_Buffer);
+            _Buffer = null;
+            _Count = 0;
+        }
+    }
+
+    /**
+     * Sets the response's <code>Content-Encoding</code> and amends its <code>ETag</code> (if it has one) to identify the
+     * encoded representation.
+     */
+    static void setContentEncoding(final HttpServletResponse response, final ContentCoding contentCoding) {
+
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, contentCoding.getName());
+
+        final String entityTagHeaderValue = response.getHeader(HttpHeaders.ETAG);
+        final EntityTag entityTag = (entityTagHeaderValue != null) ? EntityTag.parse(entityTagHeaderValue) : null;
+        if (entityTag != null) {
+            response.setHeader(HttpHeaders.ETAG, entityTag.withContentCoding(contentCoding.getName()).toString());
+        }
+    }
+
+    private void drain() throws IOException {
+
+        if (_ResponseOut == null) {
+            // No Content-Length has been set, so the container will use chunked transfer encoding. A streamed entity has
+            // outgrown the buffer, so it is (assumed to be) large enough to compress.
+            if (_ContentCoding != null) {
+                setContentEncoding(_Response, _ContentCoding);
+                _ResponseOut = _ContentCoding.newOutputStream(_Response.getOutputStream(), _CompressionLevel, _Buffer.length);
+            }
+            else {
+                _ResponseOut = _Response.getOutputStream();
+            }
+        }
+
+        if (_Count > 0) {
+            _ResponseOut.write(_Buffer, 0, _Count);
+            _Count = 0;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+
+        if (_Buffer == null) {
+            throw new IOException("The response entity stream is closed.");
+        }
+    }
+}
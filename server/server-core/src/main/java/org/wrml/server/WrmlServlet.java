@@ -25,6 +25,7 @@
 package org.wrml.server;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.TeeOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpHeaders;
 import org.apache.http.entity.ContentType;
@@ -48,21 +49,24 @@ import org.wrml.runtime.rest.MediaType.MediaTypeException;
 import org.wrml.runtime.schema.PropertyProtoSlot;
 import org.wrml.runtime.schema.Prototype;
 import org.wrml.runtime.schema.SchemaLoader;
+import org.wrml.runtime.service.ModelVersion;
 import org.wrml.util.PropertyUtil;
 import org.wrml.util.UniqueName;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The WRML engine's HTTP server adapter.
@@ -95,6 +99,95 @@ public class WrmlServlet extends HttpServlet {
 
     public static final String WRML_CONFIGURATION_RESOURCE_PATH_INIT_PARAM_NAME = "wrml-config-resource-path";
 
+    /**
+     * The size, in bytes, above which a response entity is streamed (with chunked transfer encoding) rather than
+     * buffered in full (with an exact <code>Content-Length</code>). This is also the size of the pooled response buffers.
+     */
+    public static final String WRML_STREAMING_THRESHOLD_INIT_PARAM_NAME = "wrml-streaming-threshold";
+
+    public static final int DEFAULT_STREAMING_THRESHOLD = 65536;
+
+    /**
+     * The maximum number of idle response buffers that are kept for reuse.
+     */
+    public static final String WRML_RESPONSE_BUFFER_POOL_SIZE_INIT_PARAM_NAME = "wrml-response-buffer-pool-size";
+
+    public static final int DEFAULT_RESPONSE_BUFFER_POOL_SIZE = 64;
+
+    /**
+     * The number of threads that process requests asynchronously (using the Servlet 3.0 async API), freeing the
+     * container's threads while WRML works. Zero (the default) processes each request on its container thread.
+     */
+    public static final String WRML_ASYNC_THREADS_INIT_PARAM_NAME = "wrml-async-threads";
+
+    public static final int DEFAULT_ASYNC_THREADS = 0;
+
+    /**
+     * The maximum number of asynchronous requests that may wait for a thread. Requests that arrive when the queue is
+     * full are rejected with a <code>503 Service Unavailable</code> error report.
+     */
+    public static final String WRML_ASYNC_QUEUE_SIZE_INIT_PARAM_NAME = "wrml-async-queue-size";
+
+    public static final int DEFAULT_ASYNC_QUEUE_SIZE = 100;
+
+    /**
+     * The time, in milliseconds, that an asynchronous request has to respond before it is answered with a
+     * <code>504 Gateway Timeout</code> error report. Zero disables the timeout.
+     */
+    public static final String WRML_ASYNC_TIMEOUT_INIT_PARAM_NAME = "wrml-async-timeout";
+
+    public static final int DEFAULT_ASYNC_TIMEOUT = 30000;
+
+    /**
+     * The maximum total size, in bytes, of the encoded GET responses that are cached (and reused until one of their
+     * models is saved or deleted). Zero (the default) disables the response cache, which should only be enabled if the
+     * responses do not depend on the request headers (other than the <code>Accept</code> header and its like, which
+     * determine the response's content type); requests with any of the
+     * {@link #WRML_RESPONSE_CACHE_BYPASS_HEADERS_INIT_PARAM_NAME bypass headers} always bypass it.
+     */
+    public static final String WRML_RESPONSE_CACHE_SIZE_INIT_PARAM_NAME = "wrml-response-cache-size";
+
+    public static final int DEFAULT_RESPONSE_CACHE_SIZE = 0;
+
+    /**
+     * The comma separated names of the request headers that make a request bypass the response cache, because the
+     * response may depend on them (e.g. a response that is personalized with the user's credentials or session).
+     */
+    public static final String WRML_RESPONSE_CACHE_BYPASS_HEADERS_INIT_PARAM_NAME = "wrml-response-cache-bypass-headers";
+
+    public static final String DEFAULT_RESPONSE_CACHE_BYPASS_HEADERS = HttpHeaders.AUTHORIZATION + ",Cookie";
+
+    /**
+     * The size, in bytes, of the largest response that is cached.
+     */
+    public static final String WRML_RESPONSE_CACHE_MAX_ENTRY_SIZE_INIT_PARAM_NAME = "wrml-response-cache-max-entry-size";
+
+    public static final int DEFAULT_RESPONSE_CACHE_MAX_ENTRY_SIZE = 262144;
+
+    /**
+     * Whether the cached responses also keep their compressed forms, so that a hot response is compressed only once
+     * (for each content coding). The compressed forms count towards the response cache's size.
+     */
+    public static final String WRML_RESPONSE_CACHE_PRECOMPRESS_INIT_PARAM_NAME = "wrml-response-cache-precompress";
+
+    public static final boolean DEFAULT_RESPONSE_CACHE_PRECOMPRESS = true;
+
+    /**
+     * The deflate compression level (1-9) of the response entities that are compressed (with the content coding that the
+     * client prefers, per its <code>Accept-Encoding</code> header). Zero disables response compression.
+     */
+    public static final String WRML_COMPRESSION_LEVEL_INIT_PARAM_NAME = "wrml-compression-level";
+
+    public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+    /**
+     * The size, in bytes, of the smallest response entity that is compressed. Entities that are streamed (see
+     * {@link #WRML_STREAMING_THRESHOLD_INIT_PARAM_NAME}) are always compressed.
+     */
+    public static final String WRML_COMPRESSION_MIN_SIZE_INIT_PARAM_NAME = "wrml-compression-min-size";
+
+    public static final int DEFAULT_COMPRESSION_MIN_SIZE = 1024;
+
     /**
      * TODO: Manage these routes in a separate class?
      */
@@ -120,6 +213,22 @@ public class WrmlServlet extends HttpServlet {
 
     private StatusReport _PingStatusReport;
 
+    private BufferPool _ResponseBufferPool = new BufferPool(DEFAULT_STREAMING_THRESHOLD, DEFAULT_RESPONSE_BUFFER_POOL_SIZE);
+
+    private volatile ThreadPoolExecutor _AsyncExecutor;
+
+    private long _AsyncTimeout = DEFAULT_ASYNC_TIMEOUT;
+
+    private ResponseCache _ResponseCache;
+
+    private String[] _ResponseCacheBypassHeaders = StringUtils.split(DEFAULT_RESPONSE_CACHE_BYPASS_HEADERS, ',');
+
+    private boolean _PrecompressCachedResponses = DEFAULT_RESPONSE_CACHE_PRECOMPRESS;
+
+    private int _CompressionLevel = DEFAULT_COMPRESSION_LEVEL;
+
+    private int _CompressionMinimumSize = DEFAULT_COMPRESSION_MIN_SIZE;
+
     /**
      * Creates a new instance of the {@link WrmlServlet}.
      *
@@ -148,6 +257,37 @@ public class WrmlServlet extends HttpServlet {
 
         super.init(servletConfig);
 
+        final int streamingThreshold = getIntInitParameter(servletConfig, WRML_STREAMING_THRESHOLD_INIT_PARAM_NAME, DEFAULT_STREAMING_THRESHOLD);
+        final int responseBufferPoolSize = getIntInitParameter(servletConfig, WRML_RESPONSE_BUFFER_POOL_SIZE_INIT_PARAM_NAME, DEFAULT_RESPONSE_BUFFER_POOL_SIZE);
+        if (streamingThreshold <= 0) {
+            throw new ServletException("The " + WRML_STREAMING_THRESHOLD_INIT_PARAM_NAME + " must be positive, not: " + streamingThreshold);
+        }
+
+        _ResponseBufferPool = new BufferPool(streamingThreshold, responseBufferPoolSize);
+
+        final int asyncThreads = getIntInitParameter(servletConfig, WRML_ASYNC_THREADS_INIT_PARAM_NAME, DEFAULT_ASYNC_THREADS);
+        final int asyncQueueSize = getIntInitParameter(servletConfig, WRML_ASYNC_QUEUE_SIZE_INIT_PARAM_NAME, DEFAULT_ASYNC_QUEUE_SIZE);
+        final int asyncTimeout = getIntInitParameter(servletConfig, WRML_ASYNC_TIMEOUT_INIT_PARAM_NAME, DEFAULT_ASYNC_TIMEOUT);
+        if (asyncTimeout < 0) {
+            throw new ServletException("The " + WRML_ASYNC_TIMEOUT_INIT_PARAM_NAME + " must not be negative, not: " + asyncTimeout);
+        }
+
+        _AsyncTimeout = asyncTimeout;
+
+        _CompressionLevel = getIntInitParameter(servletConfig, WRML_COMPRESSION_LEVEL_INIT_PARAM_NAME, DEFAULT_COMPRESSION_LEVEL);
+        if (_CompressionLevel < 0 || _CompressionLevel > 9) {
+            throw new ServletException("The " + WRML_COMPRESSION_LEVEL_INIT_PARAM_NAME + " must be between 0 and 9, not: " + _CompressionLevel);
+        }
+
+        _CompressionMinimumSize = getIntInitParameter(servletConfig, WRML_COMPRESSION_MIN_SIZE_INIT_PARAM_NAME, DEFAULT_COMPRESSION_MIN_SIZE);
+
+        final String precompressParamValue = servletConfig.getInitParameter(WRML_RESPONSE_CACHE_PRECOMPRESS_INIT_PARAM_NAME);
+        _PrecompressCachedResponses = StringUtils.isBlank(precompressParamValue) ? DEFAULT_RESPONSE_CACHE_PRECOMPRESS : Boolean.parseBoolean(precompressParamValue.trim());
+        if (asyncThreads > 0) {
+            _AsyncExecutor = createAsyncExecutor(asyncThreads, asyncQueueSize);
+            LOGGER.info("Processing requests asynchronously with {} threads (queue size: {}, timeout: {} ms)", new Object[]{asyncThreads, asyncQueueSize, asyncTimeout});
+        }
+
         final String configFileLocation = PropertyUtil.getSystemProperty(
                 EngineConfiguration.WRML_CONFIGURATION_FILE_PATH_PROPERTY_NAME,
                 servletConfig.getInitParameter(WRML_CONFIGURATION_FILE_PATH_INIT_PARAM_NAME));
@@ -184,6 +324,20 @@ public class WrmlServlet extends HttpServlet {
             _PingStatusReport.setTitle("Ping Success");
             _PingStatusReport.setStatus(Status.OK);
 
+            final int responseCacheSize = getIntInitParameter(servletConfig, WRML_RESPONSE_CACHE_SIZE_INIT_PARAM_NAME, DEFAULT_RESPONSE_CACHE_SIZE);
+            if (responseCacheSize > 0) {
+                final int responseCacheMaxEntrySize = getIntInitParameter(servletConfig, WRML_RESPONSE_CACHE_MAX_ENTRY_SIZE_INIT_PARAM_NAME, DEFAULT_RESPONSE_CACHE_MAX_ENTRY_SIZE);
+                _ResponseCache = new ResponseCache(responseCacheSize, responseCacheMaxEntrySize, context.getSchemaLoader().getDocumentSchemaUri());
+                context.addModelChangeListener(_ResponseCache);
+
+                final String bypassHeadersParamValue = servletConfig.getInitParameter(WRML_RESPONSE_CACHE_BYPASS_HEADERS_INIT_PARAM_NAME);
+                if (bypassHeadersParamValue != null) {
+                    _ResponseCacheBypassHeaders = StringUtils.stripAll(StringUtils.split(bypassHeadersParamValue, ','));
+                }
+
+                LOGGER.info("Caching up to {} bytes of responses (bypassed by: {})", responseCacheSize, Arrays.toString(_ResponseCacheBypassHeaders));
+            }
+
         }
         catch (IOException ex) {
             throw new ServletException("Unable to initialize servlet.", ex);
@@ -192,6 +346,58 @@ public class WrmlServlet extends HttpServlet {
         LOGGER.info("WRML SERVLET INITIALIZED --------------------------------------------------");
     }
 
+    @Override
+    public void destroy() {
+
+        if (_AsyncExecutor != null) {
+            _AsyncExecutor.shutdownNow();
+            _AsyncExecutor = null;
+        }
+
+        if (_ResponseCache != null) {
+            getContext().removeModelChangeListener(_ResponseCache);
+            _ResponseCache = null;
+        }
+
+        super.destroy();
+    }
+
+    private static ThreadPoolExecutor createAsyncExecutor(final int threads, final int queueSize) {
+
+        final ThreadFactory threadFactory = new ThreadFactory() {
+
+            private final AtomicInteger _ThreadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+
+                final Thread thread = new Thread(runnable, "wrml-request-" + _ThreadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(Math.max(queueSize, 1)), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static int getIntInitParameter(final ServletConfig servletConfig, final String paramName, final int defaultValue) throws ServletException {
+
+        final String paramValue = servletConfig.getInitParameter(paramName);
+        if (StringUtils.isBlank(paramValue)) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(paramValue.trim());
+        }
+        catch (final NumberFormatException e) {
+            throw new ServletException("The " + paramName + " must be a whole number, not: " + paramValue, e);
+        }
+    }
+
     /**
      * The WRML {@link Engine} that is wrapped by this {@link WrmlServlet}.
      *
@@ -227,6 +433,37 @@ public class WrmlServlet extends HttpServlet {
     @Override
     protected void service(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
 
+        final ThreadPoolExecutor asyncExecutor = _AsyncExecutor;
+        if (asyncExecutor == null || !request.isAsyncSupported()) {
+            serviceRequest(request, response);
+            return;
+        }
+
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(_AsyncTimeout);
+
+        final AsyncRequest asyncRequest = new AsyncRequest(this, asyncContext);
+        asyncContext.addListener(asyncRequest);
+
+        try {
+            asyncExecutor.execute(asyncRequest);
+        }
+        catch (final RejectedExecutionException e) {
+            LOGGER.warn("Rejected request for {}; the request queue is full.", request.getRequestURI());
+            asyncRequest.reject();
+        }
+    }
+
+    /**
+     * Processes the request, on either the container's thread or (when asynchronous processing is enabled) one of the
+     * servlet's request threads.
+     *
+     * @param request  The HTTP request.
+     * @param response The HTTP response.
+     * @throws IOException If the response could not be written.
+     */
+    void serviceRequest(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+
         final Context context = getContext();
         final ApiLoader apiLoader = context.getApiLoader();
         final SchemaLoader schemaLoader = context.getSchemaLoader();
@@ -310,7 +547,7 @@ public class WrmlServlet extends HttpServlet {
                 if (responseModel != null) {
 
                     try {
-                        writeModelAsResponseEntity(method, response, responseModel, responseEntityMediaType, responseEntityFormatUri);
+                        writeModelAsResponseEntity(request, method, response, responseModel, responseEntityMediaType, responseEntityFormatUri);
                     } catch (final ModelWriterException | MediaTypeException e) {
                         throw new ServletException("Failed to write model to HTTP response output stream (URI = " + requestUri + ", Model = [" + api + "]).", e);
                     }
@@ -371,7 +608,7 @@ public class WrmlServlet extends HttpServlet {
                         final MediaType responseEntityMediaType = getMostAcceptableMediaType(apiSchemaUri, acceptableMediaTypes);
                         try {
                             LOGGER.debug("Responding with API: " + responseModel);
-                            writeModelAsResponseEntity(method, response, responseModel, responseEntityMediaType, null);
+                            writeModelAsResponseEntity(request, method, response, responseModel, responseEntityMediaType, null);
                         } catch (final ModelWriterException | MediaTypeException e) {
                             throw new ServletException("Failed to write model to HTTP response output stream (URI = " + requestUri + ", Model = [" + api + "]).", e);
                         }
@@ -420,6 +657,52 @@ public class WrmlServlet extends HttpServlet {
                 LOGGER.debug("Request method [" + method.getProtocolGivenName() + "] passed parameter Model\n: " + parameterModel);
             }
 
+            // A cached response is written without any model work at all.
+            final ResponseCache responseCache = (method == Method.Get && !isResponseCacheBypassed(request)) ? _ResponseCache : null;
+            final ResponseCache.Key responseCacheKey;
+            final long responseCacheGeneration;
+            if (responseCache != null) {
+                final MediaType cachedMediaType = getMostAcceptableMediaType(dimensions.getSchemaUri(), acceptableMediaTypes);
+                responseCacheKey = ResponseCache.newKey(requestUri, request.getQueryString(), dimensions, getResponseFormatUri(cachedMediaType, null), toContentType(cachedMediaType));
+                responseCacheGeneration = responseCache.getGeneration();
+
+                final ResponseCache.Entry cachedResponse = isNoCacheRequest(request) ? null : responseCache.get(responseCacheKey);
+                if (cachedResponse != null) {
+                    final EntityTag notModifiedEntityTag = getNotModifiedEntityTag(request, cachedResponse.getEntityTag(), cachedResponse.getLastModified());
+                    if (notModifiedEntityTag != null) {
+                        writeNotModified(response, notModifiedEntityTag, cachedResponse.getLastModified());
+                    }
+                    else {
+                        writeCachedResponseEntity(request, response, responseCache, cachedResponse);
+                    }
+
+                    return;
+                }
+            }
+            else {
+                responseCacheKey = null;
+                responseCacheGeneration = 0;
+            }
+
+            // A service that reports the model's version lets a conditional GET skip loading an unchanged model; but only
+            // when the version covers the whole response, which it doesn't if the runtime will embed other documents.
+            final boolean isVersionable = (method == Method.Get) && isVersionedByDocument(schemaLoader.getPrototype(dimensions.getSchemaUri()));
+            final ModelVersion modelVersion = isVersionable ? context.getModelVersion(keys, dimensions) : null;
+            final EntityTag versionEntityTag;
+            if (modelVersion != null) {
+                final MediaType versionMediaType = getMostAcceptableMediaType(dimensions.getSchemaUri(), acceptableMediaTypes);
+                versionEntityTag = EntityTag.fromVersion(modelVersion, getEntityTagRepresentation(request, versionMediaType));
+                final EntityTag notModifiedEntityTag = getNotModifiedEntityTag(request, versionEntityTag, modelVersion.getLastModified());
+                if (notModifiedEntityTag != null) {
+                    LOGGER.debug("Not modified (version = {}): {}", modelVersion, requestUri);
+                    writeNotModified(response, notModifiedEntityTag, modelVersion.getLastModified());
+                    return;
+                }
+            }
+            else {
+                versionEntityTag = null;
+            }
+
             // Delegate to the WRML runtime to service the request from here.
             final Model responseModel = context.request(method, keys, dimensions, parameterModel);
 
@@ -444,7 +727,7 @@ public class WrmlServlet extends HttpServlet {
                             final MediaType responseEntityMediaType = getMostAcceptableMediaType(newModel.getSchemaUri(), acceptableMediaTypes);
 
                             try {
-                                writeModelAsResponseEntity(method, response, newModel, responseEntityMediaType, null);
+                                writeModelAsResponseEntity(request, method, response, newModel, responseEntityMediaType, null);
                             } catch (final ModelWriterException | MediaTypeException e) {
                                 throw new ServletException("Failed to write model to HTTP response output stream (URI = " + requestUri + ", Model = [" + api + "]).", e);
                             }
@@ -498,7 +781,44 @@ public class WrmlServlet extends HttpServlet {
 
                 try {
                     final MediaType responseEntityMediaType = getMostAcceptableMediaType(responseModel.getSchemaUri(), acceptableMediaTypes);
-                    writeModelAsResponseEntity(method, response, responseModel, responseEntityMediaType, null);
+                    if (method == Method.Get) {
+                        // Validate the response before it is serialized.
+                        final EntityTag entityTag;
+                        final long lastModified;
+                        if (versionEntityTag != null && isVersionedByDocument(responseModel.getPrototype())) {
+                            entityTag = versionEntityTag;
+                            lastModified = modelVersion.getLastModified();
+                        }
+                        else {
+                            entityTag = EntityTag.fromModel(responseModel, getEntityTagRepresentation(request, responseEntityMediaType));
+                            lastModified = ModelVersion.UNKNOWN_LAST_MODIFIED;
+                        }
+
+                        final EntityTag notModifiedEntityTag = getNotModifiedEntityTag(request, entityTag, lastModified);
+                        if (notModifiedEntityTag != null) {
+                            LOGGER.debug("Not modified (ETag = {}): {}", notModifiedEntityTag, requestUri);
+                            writeNotModified(response, notModifiedEntityTag, lastModified);
+                            return;
+                        }
+
+                        setValidatorHeaders(response, entityTag, lastModified);
+
+                        if (responseCacheKey != null) {
+                            final ResponseCapture responseCapture = new ResponseCapture(responseCache.getMaximumEntrySize());
+                            writeModelAsResponseEntity(request, method, response, responseModel, responseEntityMediaType, null, HttpServletResponse.SC_OK, responseCapture);
+                            // The key's media type was negotiated for the requested schema; a response model of another schema may
+                            // have been written in another media type, in which case the cache turns the entry away.
+                            if (responseCapture.isComplete()) {
+                                final Locale responseLocale = responseModel.getDimensions().getLocale();
+                                responseCache.put(responseCacheKey, ResponseCache.newEntry(responseCapture.toByteArray(), toContentType(responseEntityMediaType),
+                                        responseLocale, entityTag, lastModified, responseModel), responseCacheGeneration);
+                            }
+
+                            return;
+                        }
+                    }
+
+                    writeModelAsResponseEntity(request, method, response, responseModel, responseEntityMediaType, null);
                 }
                 catch (final ModelWriterException | MediaTypeException e) {
                     throw new ServletException("Failed to write model to HTTP response output stream (URI = " + requestUri + ", Model = [" + responseModel + "]).", e);
@@ -511,7 +831,7 @@ public class WrmlServlet extends HttpServlet {
             try {
                 ErrorReport errorReport = wse.getErrorReport();
                 MediaType responseEntityMediaType = getMostAcceptableMediaType(errorReport.getSchemaUri(), acceptableMediaTypes);
-                writeModelAsResponseEntity(method, response, wse.getErrorReport(), responseEntityMediaType, null);
+                writeModelAsResponseEntity(request, method, response, wse.getErrorReport(), responseEntityMediaType, null);
             }
             catch (Exception e) {
                 throw new IOException("Failed to write error report to HTTP response output stream.", e);
@@ -571,6 +891,202 @@ public class WrmlServlet extends HttpServlet {
         return (T) notFoundErrorReport;
     }
 
+    /**
+     * Describes the representation that an entity tag identifies; its content type, and the query (which may
+     * shape the response model).
+     */
+    private String getEntityTagRepresentation(final HttpServletRequest request, final MediaType responseEntityMediaType) {
+
+        final String queryString = request.getQueryString();
+        final String contentType = toContentType(responseEntityMediaType);
+        return (queryString != null) ? contentType + '?' + queryString : contentType;
+    }
+
+    /**
+     * The response's <code>Content-Type</code> header value; the default media type's if the response's is unknown.
+     */
+    private String toContentType(final MediaType responseEntityMediaType) {
+
+        return ((responseEntityMediaType != null) ? responseEntityMediaType : getDefaultMediaType()).toContentType();
+    }
+
+    /**
+     * Whether the version of a document (see {@link Context#getModelVersion(Keys, Dimensions)}) is the version of its
+     * whole representation; which is not the case if the runtime embeds linked documents or collection elements in it.
+     */
+    private static boolean isVersionedByDocument(final Prototype prototype) {
+
+        return prototype != null && !prototype.containsEmbeddedLink() && prototype.getCollectionPropertyProtoSlots().isEmpty();
+    }
+
+    /**
+     * Whether the request has any of the headers that make it bypass the response cache.
+     */
+    private boolean isResponseCacheBypassed(final HttpServletRequest request) {
+
+        for (final String bypassHeader : _ResponseCacheBypassHeaders) {
+            if (request.getHeader(bypassHeader) != null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Whether the client asked (with <code>Cache-Control: no-cache</code> or <code>Pragma: no-cache</code>) for a
+     * response that is not served from a cache.
+     */
+    private static boolean isNoCacheRequest(final HttpServletRequest request) {
+
+        final String cacheControl = request.getHeader(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl != null && cacheControl.toLowerCase(Locale.ENGLISH).contains("no-cache")) {
+            return true;
+        }
+
+        final String pragma = request.getHeader(HttpHeaders.PRAGMA);
+        return pragma != null && pragma.toLowerCase(Locale.ENGLISH).contains("no-cache");
+    }
+
+    private void writeCachedResponseEntity(final HttpServletRequest request, final HttpServletResponse response, final ResponseCache responseCache,
+                                           final ResponseCache.Entry cachedResponse) throws IOException {
+
+        response.setContentType(cachedResponse.getContentType());
+        if (cachedResponse.getLocale() != null) {
+            response.setLocale(cachedResponse.getLocale());
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        setValidatorHeaders(response, cachedResponse.getEntityTag(), cachedResponse.getLastModified());
+
+        byte[] entity = cachedResponse.getEntity();
+        final ContentCoding contentCoding = negotiateContentCoding(request, response);
+        if (contentCoding != null && entity.length >= _CompressionMinimumSize) {
+            final byte[] encodedEntity = (_PrecompressCachedResponses)
+                    ? responseCache.getEncodedEntity(cachedResponse, contentCoding, _CompressionLevel)
+                    : contentCoding.encode(entity, 0, entity.length, _CompressionLevel);
+
+            if (encodedEntity.length < entity.length) {
+                ResponseEntityOutputStream.setContentEncoding(response, contentCoding);
+                entity = encodedEntity;
+            }
+        }
+
+        response.setContentLength(entity.length);
+        final OutputStream responseOut = response.getOutputStream();
+        responseOut.write(entity);
+        responseOut.flush();
+        responseOut.close();
+    }
+
+    /**
+     * Evaluates the request's <code>If-None-Match</code> or (only in its absence) <code>If-Modified-Since</code>
+     * precondition. The client's copy may be of either the identity representation or an encoded (compressed) one.
+     *
+     * @param request      The HTTP request.
+     * @param entityTag    The current (identity) representation's entity tag.
+     * @param lastModified The time at which the model was last modified or {@link ModelVersion#UNKNOWN_LAST_MODIFIED}.
+     * @return The entity tag of the client's copy if it is current (i.e. the request may be answered with a
+     * <code>304 Not Modified</code>), otherwise <code>null</code>.
+     */
+    private EntityTag getNotModifiedEntityTag(final HttpServletRequest request, final EntityTag entityTag, final long lastModified) {
+
+        final String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            if (_CompressionLevel > 0) {
+                final ContentCoding contentCoding = ContentCoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+                if (contentCoding != null) {
+                    final EntityTag encodedEntityTag = entityTag.withContentCoding(contentCoding.getName());
+                    if (encodedEntityTag.isMatchedBy(ifNoneMatch)) {
+                        return encodedEntityTag;
+                    }
+                }
+            }
+
+            return entityTag.isMatchedBy(ifNoneMatch) ? entityTag : null;
+        }
+
+        if (lastModified == ModelVersion.UNKNOWN_LAST_MODIFIED) {
+            return null;
+        }
+
+        final long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        }
+        catch (final IllegalArgumentException e) {
+            // An invalid date is ignored.
+            return null;
+        }
+
+        // HTTP dates have a resolution of one second.
+        return (ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000) ? entityTag : null;
+    }
+
+    /**
+     * Chooses the content coding of the response entity, per the request's <code>Accept-Encoding</code> header; and
+     * notes (with <code>Vary</code>) that the response depends on the header.
+     *
+     * @return The negotiated content coding or <code>null</code> if the entity is not to be compressed.
+     */
+    private ContentCoding negotiateContentCoding(final HttpServletRequest request, final HttpServletResponse response) {
+
+        if (_CompressionLevel == 0) {
+            return null;
+        }
+
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        return ContentCoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    private static void setValidatorHeaders(final HttpServletResponse response, final EntityTag entityTag, final long lastModified) {
+
+        response.setHeader(HttpHeaders.ETAG, entityTag.toString());
+        if (lastModified != ModelVersion.UNKNOWN_LAST_MODIFIED) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+    }
+
+    private static void writeNotModified(final HttpServletResponse response, final EntityTag entityTag, final long lastModified) throws IOException {
+
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        setValidatorHeaders(response, entityTag, lastModified);
+        response.flushBuffer();
+    }
+
+    /**
+     * Responds with an {@link ErrorReport}, logging (rather than throwing) any failure to write it.
+     *
+     * @param request     The HTTP request.
+     * @param response    The HTTP response.
+     * @param status      The error's status, which is also the HTTP response status.
+     * @param title       The error report's title.
+     * @param description The error report's description.
+     */
+    void writeErrorReport(final HttpServletRequest request, final HttpServletResponse response, final Status status, final String title, final String description) {
+
+        final Context context = getContext();
+        final ErrorReport errorReport = context.newModel(ErrorReport.class);
+        errorReport.setStatus(status);
+        errorReport.setTitle(title);
+        errorReport.setDescription(description);
+
+        try {
+            errorReport.setRequestUri(getRequestUri(request));
+        }
+        catch (final URISyntaxException e) {
+            LOGGER.debug("Unable to determine the request URI for the error report.", e);
+        }
+
+        try {
+            final Method method = Method.fromProtocolGivenName(request.getMethod().toUpperCase());
+            writeModelAsResponseEntity(request, method, response, errorReport, null, null, status.getCode(), null);
+        }
+        catch (final Exception e) {
+            LOGGER.error("Failed to write the " + status.getCode() + " error report to the HTTP response.", e);
+        }
+    }
+
     /**
      * Get the requested resource's id from the the {@link HttpServletRequest}.
      *
@@ -650,8 +1166,7 @@ public class WrmlServlet extends HttpServlet {
 
         if (acceptableSchemaUriList.isEmpty()) {
             final ApiLoader loader = getContext().getApiLoader();
-            final ApiNavigator apiNavigator = loader.getParentApiNavigator(requestUri);
-            final Resource endpointResource = apiNavigator.getResource(requestUri);
+            final Resource endpointResource = loader.getRoute(requestUri).getResource();
             final Set<URI> responseSchemaUris = endpointResource.getResponseSchemaUris(method);
             if (responseSchemaUris != null) {
                 acceptableSchemaUriList.addAll(responseSchemaUris);
@@ -934,6 +1449,7 @@ public class WrmlServlet extends HttpServlet {
 
     /**
      *
+     * @param request
      * @param requestMethod
      * @param response
      * @param responseModel
@@ -943,7 +1459,17 @@ public class WrmlServlet extends HttpServlet {
      * @throws ServletException
      * @throws IOException
      */
-    void writeModelAsResponseEntity(final Method requestMethod, final HttpServletResponse response, final Model responseModel, MediaType responseEntityMediaType, URI responseFormatUri) throws MediaTypeException, ServletException, IOException {
+    void writeModelAsResponseEntity(final HttpServletRequest request, final Method requestMethod, final HttpServletResponse response, final Model responseModel, MediaType responseEntityMediaType, URI responseFormatUri) throws MediaTypeException, ServletException, IOException {
+
+        writeModelAsResponseEntity(request, requestMethod, response, responseModel, responseEntityMediaType, responseFormatUri, HttpServletResponse.SC_OK, null);
+    }
+
+    /**
+     * Writes the response model with the specified HTTP status, copying its encoded entity to the (optional) capture as it
+     * is written.
+     */
+    private void writeModelAsResponseEntity(final HttpServletRequest request, final Method requestMethod, final HttpServletResponse response, final Model responseModel, MediaType responseEntityMediaType,
+                                            final URI responseFormatUri, final int status, final ResponseCapture responseCapture) throws MediaTypeException, ServletException, IOException {
 
         // Set the content type
         //MediaType responseEntityMediaType = getMostAcceptableMediaType(responseModel.getSchemaUri(), acceptableMediaTypes);
@@ -963,7 +1489,7 @@ public class WrmlServlet extends HttpServlet {
         }
 
         // Set the status
-        response.setStatus(HttpServletResponse.SC_OK);
+        response.setStatus(status);
 
         final boolean noBody = !requestMethod.isEntityAllowedInResponseMessage();
         if (noBody) {
@@ -972,39 +1498,52 @@ public class WrmlServlet extends HttpServlet {
         else {
             final Context context = getContext();
 
-            final ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-
             // Set the format for output
-            URI formatUri = responseFormatUri;
-            if (formatUri == null) {
-                if (responseEntityMediaType.getFullType().equals(SystemMediaType.MEDIA_TYPE_STRING_WRML)) {
-                    final String format = responseEntityMediaType.getParameter(SystemMediaType.PARAMETER_NAME_FORMAT);
-                    if (format != null) {
-                        formatUri = URI.create(format);
-                    }
-                } else {
-                    formatUri = getLoadedFormatUri(responseEntityMediaType);
-                }
-            }
-
-            context.writeModel(byteOut, responseModel, formatUri);
+            final URI formatUri = getResponseFormatUri(responseEntityMediaType, responseFormatUri);
 
-            final byte[] modelBytes = byteOut.toByteArray();
-            final int contentLength = modelBytes.length;
-            response.setContentLength(contentLength);
+            // Small entities are buffered (and sent with a Content-Length); larger ones are streamed as they are written.
+            // The captured copy (if any) is of the identity entity; the compression happens downstream of it.
+            final ContentCoding contentCoding = negotiateContentCoding(request, response);
+            final ResponseEntityOutputStream entityOut = new ResponseEntityOutputStream(response, _ResponseBufferPool, contentCoding, _CompressionLevel, _CompressionMinimumSize);
+            try {
+                context.writeModel((responseCapture != null) ? new TeeOutputStream(entityOut, responseCapture) : entityOut, responseModel, formatUri);
+                if (entityOut.isStreaming()) {
+                    LOGGER.debug("Streamed response entity larger than {} bytes", _ResponseBufferPool.getBufferSize());
+                }
 
-            final OutputStream responseOut = response.getOutputStream();
-            IOUtils.write(modelBytes, responseOut);
-            // Make sure it's on the wire
-            responseOut.flush();
-            // Close our stream
-            responseOut.close();
+                // Close our stream
+                entityOut.close();
+            }
+            finally {
+                entityOut.discard();
+            }
         }
 
         response.flushBuffer();
         // TODO: response.setBufferSize(?); - Is this needed?
         // TODO: response.setCharacterEncoding(?); - Is this needed?
-        // TODO: Set other headers as needed.
+        // TODO: Set other headers as needed (the ETag and Last-Modified validators are set by the caller).
+    }
+
+    /**
+     * The URI of the format that the response entity is written in; the specified one if it is not <code>null</code>.
+     */
+    private URI getResponseFormatUri(MediaType responseEntityMediaType, final URI responseFormatUri) throws MediaTypeException {
+
+        if (responseFormatUri != null) {
+            return responseFormatUri;
+        }
+
+        if (responseEntityMediaType == null) {
+            responseEntityMediaType = getDefaultMediaType();
+        }
+
+        if (responseEntityMediaType.getFullType().equals(SystemMediaType.MEDIA_TYPE_STRING_WRML)) {
+            final String format = responseEntityMediaType.getParameter(SystemMediaType.PARAMETER_NAME_FORMAT);
+            return (format != null) ? URI.create(format) : null;
+        }
+
+        return getLoadedFormatUri(responseEntityMediaType);
     }
 
     /**
@@ -0,0 +1,232 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import org.apache.http.HttpHeaders;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wrml.model.rest.status.Status;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class AsyncRequestTest {
+
+    private WrmlServlet _Servlet;
+
+    private AsyncContext _AsyncContext;
+
+    private HttpServletRequest _Request;
+
+    private HttpServletResponse _Response;
+
+    @Before
+    public void setUp() {
+
+        _Servlet = mock(WrmlServlet.class);
+        _Request = mock(HttpServletRequest.class);
+        _Response = mock(HttpServletResponse.class);
+        _AsyncContext = mock(AsyncContext.class);
+        when(_AsyncContext.getRequest()).thenReturn(_Request);
+        when(_AsyncContext.getResponse()).thenReturn(_Response);
+        when(_AsyncContext.getTimeout()).thenReturn(1000L);
+    }
+
+    @Test
+    public void runServicesTheRequest() throws Exception {
+
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+
+                ((HttpServletResponse) invocation.getArguments()[1]).setStatus(200);
+                return null;
+            }
+        }).when(_Servlet).serviceRequest(eq(_Request), any(HttpServletResponse.class));
+
+        final AsyncRequest asyncRequest = new AsyncRequest(_Servlet, _AsyncContext);
+        asyncRequest.run();
+
+        verify(_Response).setStatus(200);
+        verify(_AsyncContext).complete();
+
+        // A timeout after the request is done does nothing.
+        asyncRequest.onTimeout(null);
+        verify(_AsyncContext).complete();
+        verifyNoErrorReport();
+    }
+
+    @Test
+    public void rejectedRequestIsAnsweredWithServiceUnavailable() throws Exception {
+
+        final AsyncRequest asyncRequest = new AsyncRequest(_Servlet, _AsyncContext);
+        asyncRequest.reject();
+
+        verify(_Response).setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(AsyncRequest.REJECTED_RETRY_AFTER_SECONDS));
+        verify(_Servlet).writeErrorReport(eq(_Request), eq(_Response), eq(Status.SERVICE_UNAVAILABLE), anyString(), anyString());
+        verify(_AsyncContext).complete();
+
+        // A rejected request neither runs nor times out.
+        asyncRequest.run();
+        asyncRequest.onTimeout(null);
+        verify(_Servlet, never()).serviceRequest(any(HttpServletRequest.class), any(HttpServletResponse.class));
+        verify(_Servlet, never()).writeErrorReport(any(HttpServletRequest.class), any(HttpServletResponse.class), eq(Status.GATEWAY_TIMEOUT), anyString(), anyString());
+        verify(_AsyncContext).complete();
+    }
+
+    @Test
+    public void requestThatTimesOutWhileQueuedNeverRuns() throws Exception {
+
+        final AsyncRequest asyncRequest = new AsyncRequest(_Servlet, _AsyncContext);
+        asyncRequest.onTimeout(null);
+
+        verify(_Servlet).writeErrorReport(eq(_Request), eq(_Response), eq(Status.GATEWAY_TIMEOUT), anyString(), anyString());
+        verify(_AsyncContext).complete();
+
+        asyncRequest.run();
+        asyncRequest.reject();
+        verify(_Servlet, never()).serviceRequest(any(HttpServletRequest.class), any(HttpServletResponse.class));
+        verify(_AsyncContext).complete();
+    }
+
+    @Test
+    public void requestThatTimesOutWhileRunningIsLeftToFinish() throws Exception {
+
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final AtomicReference<RuntimeException> lateResponseFailure = new AtomicReference<>();
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws InterruptedException {
+
+                running.countDown();
+                timedOut.await();
+                interrupted.set(Thread.currentThread().isInterrupted());
+                try {
+                    ((HttpServletResponse) invocation.getArguments()[1]).setStatus(200);
+                }
+                catch (final IllegalStateException e) {
+                    lateResponseFailure.set(e);
+                    throw e;
+                }
+
+                return null;
+            }
+        }).when(_Servlet).serviceRequest(eq(_Request), any(HttpServletResponse.class));
+
+        final AsyncRequest asyncRequest = new AsyncRequest(_Servlet, _AsyncContext);
+        final Thread worker = new Thread(asyncRequest);
+        worker.start();
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        asyncRequest.onTimeout(null);
+        verify(_Servlet).writeErrorReport(eq(_Request), eq(_Response), eq(Status.GATEWAY_TIMEOUT), anyString(), anyString());
+        verify(_AsyncContext).complete();
+
+        timedOut.countDown();
+        worker.join(10000);
+        assertFalse(worker.isAlive());
+
+        // The worker was not interrupted and its (late) response was discarded.
+        assertFalse(interrupted.get());
+        assertNotNull(lateResponseFailure.get());
+        verify(_Response, never()).setStatus(anyInt());
+        verify(_AsyncContext).complete();
+    }
+
+    @Test
+    public void requestThatTimesOutWhileWritingIsAwaited() throws Exception {
+
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch written = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws InterruptedException {
+
+                ((HttpServletResponse) invocation.getArguments()[1]).setStatus(200);
+                writing.countDown();
+                written.await();
+                return null;
+            }
+        }).when(_Servlet).serviceRequest(eq(_Request), any(HttpServletResponse.class));
+
+        final AsyncRequest asyncRequest = new AsyncRequest(_Servlet, _AsyncContext);
+        final Thread worker = new Thread(asyncRequest);
+        worker.start();
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        final Thread timeout = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                try {
+                    asyncRequest.onTimeout(null);
+                }
+                catch (final Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        timeout.start();
+
+        // The timeout waits for the response that is being written.
+        timeout.join(100);
+        assertTrue(timeout.isAlive());
+
+        written.countDown();
+        timeout.join(10000);
+        worker.join(10000);
+        assertFalse(timeout.isAlive());
+        assertFalse(worker.isAlive());
+
+        verify(_Response).setStatus(200);
+        verify(_AsyncContext).complete();
+        verifyNoErrorReport();
+    }
+
+    private void verifyNoErrorReport() {
+
+        verify(_Servlet, never()).writeErrorReport(any(HttpServletRequest.class), any(HttpServletResponse.class), any(Status.class), anyString(), anyString());
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.*;
+
+public class ContentCodingTest {
+
+    @Test
+    public void negotiatesNothingWithoutAnAcceptEncoding() {
+
+        assertNull(ContentCoding.negotiate(null));
+        assertNull(ContentCoding.negotiate(""));
+        assertNull(ContentCoding.negotiate("identity"));
+        assertNull(ContentCoding.negotiate("br, compress"));
+    }
+
+    @Test
+    public void prefersGzipWhenTheClientDoesNotMind() {
+
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("gzip"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("deflate, gzip"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("*"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("x-gzip"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("deflate"));
+    }
+
+    @Test
+    public void negotiatesByQuality() {
+
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0.5, deflate;q=0.8"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip; Q=0.5, DEFLATE"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("gzip;q=0.8, deflate;q=0.5"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0.1, *;q=0.5"));
+    }
+
+    @Test
+    public void rejectsCodingsWithAZeroQuality() {
+
+        assertNull(ContentCoding.negotiate("gzip;q=0"));
+        assertNull(ContentCoding.negotiate("*;q=0"));
+        assertNull(ContentCoding.negotiate("gzip;q=0, deflate;q=0.0"));
+        assertNull(ContentCoding.negotiate("gzip;q=oops"));
+
+        // An explicit refusal is not overridden by the wildcard.
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0, *"));
+        assertNull(ContentCoding.negotiate("gzip;q=0, deflate;q=0, *"));
+    }
+
+    @Test
+    public void encodedEntitiesDecode() throws IOException {
+
+        final byte[] entity = "{\"name\" : \"Merlin\", \"name\" : \"Merlin\", \"name\" : \"Merlin\"}".getBytes("UTF-8");
+
+        final byte[] gzipped = ContentCoding.GZIP.encode(entity, 0, entity.length, 6);
+        assertArrayEquals(entity, decode(new GZIPInputStream(new ByteArrayInputStream(gzipped))));
+
+        final byte[] deflated = ContentCoding.DEFLATE.encode(entity, 0, entity.length, 6);
+        assertArrayEquals(entity, decode(new InflaterInputStream(new ByteArrayInputStream(deflated))));
+
+        assertEquals("gzip", ContentCoding.GZIP.getName());
+        assertEquals("deflate", ContentCoding.DEFLATE.getName());
+    }
+
+    private static byte[] decode(final InputStream in) throws IOException {
+
+        try {
+            return IOUtils.toByteArray(in);
+        }
+        finally {
+            in.close();
+        }
+    }
+}
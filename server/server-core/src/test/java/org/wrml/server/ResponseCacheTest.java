@@ -0,0 +1,256 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import org.junit.Test;
+import org.wrml.model.Model;
+import org.wrml.model.rest.Document;
+import org.wrml.runtime.Dimensions;
+import org.wrml.runtime.DimensionsBuilder;
+import org.wrml.runtime.KeysBuilder;
+import org.wrml.runtime.rest.EntityTag;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResponseCacheTest {
+
+    private static final URI DOCUMENT_SCHEMA_URI = URI.create("http://schema.api.wrml.org/org/wrml/model/rest/Document");
+
+    private static final URI SCHEMA_URI = URI.create("http://schema.api.wrml.org/org/wrml/example/Wizard");
+
+    private static final URI FORMAT_URI = URI.create("http://format.api.wrml.org/application/json");
+
+    @Test
+    public void getReturnsPutEntry() {
+
+        final ResponseCache cache = new ResponseCache(100, 100, DOCUMENT_SCHEMA_URI);
+        final ResponseCache.Key key = newKey("http://a/1");
+        assertNull(cache.get(key));
+
+        final ResponseCache.Entry entry = newEntry(10, newDocument("http://a/1"));
+        assertTrue(cache.put(key, entry, cache.getGeneration()));
+
+        assertSame(entry, cache.get(newKey("http://a/1")));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(10, cache.getSize());
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    public void keysIgnoreTheRequestMetadata() {
+
+        final DimensionsBuilder dimensionsBuilder = new DimensionsBuilder(SCHEMA_URI);
+        dimensionsBuilder.getMetadata().put("X-Request-Id", "42");
+        final ResponseCache.Key key = ResponseCache.newKey(URI.create("http://a/1"), "q=1", dimensionsBuilder.toDimensions(), FORMAT_URI, "application/json");
+
+        assertEquals(newKey("http://a/1?q=1"), key);
+        assertEquals(newKey("http://a/1?q=1").hashCode(), key.hashCode());
+        assertFalse(newKey("http://a/1").equals(key));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedWhenFull() {
+
+        final ResponseCache cache = new ResponseCache(30, 30, DOCUMENT_SCHEMA_URI);
+        for (int i = 0; i < 3; i++) {
+            cache.put(newKey("http://a/" + i), newEntry(10, newDocument("http://a/" + i)), cache.getGeneration());
+        }
+
+        // Reading the eldest makes the second the least recently used.
+        assertNotNull(cache.get(newKey("http://a/0")));
+        cache.put(newKey("http://a/3"), newEntry(10, newDocument("http://a/3")), cache.getGeneration());
+
+        assertEquals(30, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(newKey("http://a/1")));
+        assertNotNull(cache.get(newKey("http://a/0")));
+        assertNotNull(cache.get(newKey("http://a/3")));
+
+        // A larger entry evicts as many entries as it needs to.
+        cache.put(newKey("http://a/4"), newEntry(25, newDocument("http://a/4")), cache.getGeneration());
+        assertEquals(25, cache.getSize());
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    public void rejectsEntriesOfAnotherContentType() {
+
+        final ResponseCache cache = new ResponseCache(100, 100, DOCUMENT_SCHEMA_URI);
+        final ResponseCache.Entry entry = ResponseCache.newEntry(new byte[10], "application/xml", Locale.ENGLISH, new EntityTag("1", false), 0L,
+                newDocument("http://a/1"));
+        assertFalse(cache.put(newKey("http://a/1"), entry, cache.getGeneration()));
+        assertNull(cache.get(newKey("http://a/1")));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void rejectsEntriesLargerThanTheMaximumEntrySize() {
+
+        final ResponseCache cache = new ResponseCache(100, 10, DOCUMENT_SCHEMA_URI);
+        assertFalse(cache.put(newKey("http://a/1"), newEntry(11, newDocument("http://a/1")), cache.getGeneration()));
+        assertTrue(cache.put(newKey("http://a/2"), newEntry(10, newDocument("http://a/2")), cache.getGeneration()));
+        assertEquals(10, cache.getSize());
+    }
+
+    @Test
+    public void replacingAnEntryReleasesItsSize() {
+
+        final ResponseCache cache = new ResponseCache(100, 100, DOCUMENT_SCHEMA_URI);
+        cache.put(newKey("http://a/1"), newEntry(10, newDocument("http://a/1")), cache.getGeneration());
+        cache.put(newKey("http://a/1"), newEntry(20, newDocument("http://a/1")), cache.getGeneration());
+
+        assertEquals(20, cache.getSize());
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    public void putIsIgnoredAfterAnInvalidation() {
+
+        final ResponseCache cache = new ResponseCache(100, 100, DOCUMENT_SCHEMA_URI);
+
+        // The response was produced before a (concurrent) save of an unrelated document.
+        final long generation = cache.getGeneration();
+        cache.invalidate(URI.create("http://a/2"));
+
+        assertFalse(cache.put(newKey("http://a/1"), newEntry(10, newDocument("http://a/1")), generation));
+        assertNull(cache.get(newKey("http://a/1")));
+        assertEquals(0, cache.getSize());
+
+        assertTrue(cache.put(newKey("http://a/1"), newEntry(10, newDocument("http://a/1")), cache.getGeneration()));
+    }
+
+    @Test
+    public void changesInvalidateTheResponsesThatIncludeTheDocument() {
+
+        final ResponseCache cache = new ResponseCache(100, 100, DOCUMENT_SCHEMA_URI);
+
+        final Document spell = newDocument("http://a/spells/1");
+        final Document wizard = newDocument("http://a/wizards/1");
+        when(wizard.getSlotMap()).thenReturn(slotMap("favoriteSpell", spell));
+
+        cache.put(newKey("http://a/wizards/1"), newEntry(10, wizard), cache.getGeneration());
+        cache.put(newKey("http://a/spells/1"), newEntry(10, spell), cache.getGeneration());
+        cache.put(newKey("http://a/spells/2"), newEntry(10, newDocument("http://a/spells/2")), cache.getGeneration());
+
+        // Saving the spell removes the wizard that embeds it too.
+        final Model savedSpell = mock(Model.class);
+        when(savedSpell.getKeys()).thenReturn(new KeysBuilder(DOCUMENT_SCHEMA_URI, URI.create("http://a/spells/1")).toKeys());
+        cache.modelSaved(savedSpell);
+
+        assertNull(cache.get(newKey("http://a/wizards/1")));
+        assertNull(cache.get(newKey("http://a/spells/1")));
+        assertNotNull(cache.get(newKey("http://a/spells/2")));
+        assertEquals(10, cache.getSize());
+
+        cache.modelDeleted(new KeysBuilder(DOCUMENT_SCHEMA_URI, URI.create("http://a/spells/2")).toKeys(), newDimensions());
+        assertNull(cache.get(newKey("http://a/spells/2")));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void anyChangeInvalidatesTheResponsesThatIncludeCollections() {
+
+        final ResponseCache cache = new ResponseCache(100, 100, DOCUMENT_SCHEMA_URI);
+
+        final Document spell = newDocument("http://a/spells/1");
+        final Document wizard = newDocument("http://a/wizards/1");
+        when(wizard.getSlotMap()).thenReturn(slotMap("spells", Arrays.asList(spell)));
+
+        final ResponseCache.Entry entry = newEntry(10, wizard);
+        assertTrue(entry.isAggregate());
+        cache.put(newKey("http://a/wizards/1"), entry, cache.getGeneration());
+        cache.put(newKey("http://a/spells/2"), newEntry(10, newDocument("http://a/spells/2")), cache.getGeneration());
+
+        cache.invalidate(URI.create("http://a/spells/3"));
+        assertNull(cache.get(newKey("http://a/wizards/1")));
+        assertNotNull(cache.get(newKey("http://a/spells/2")));
+
+        // A change to a model without a document URI clears everything.
+        cache.invalidate(null);
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void encodedEntitiesCountTowardsTheSize() throws Exception {
+
+        final ResponseCache cache = new ResponseCache(1000, 1000, DOCUMENT_SCHEMA_URI);
+        final ResponseCache.Entry entry = newEntry(100, newDocument("http://a/1"));
+        cache.put(newKey("http://a/1"), entry, cache.getGeneration());
+
+        final byte[] encodedEntity = cache.getEncodedEntity(entry, ContentCoding.GZIP, 6);
+        assertSame(encodedEntity, cache.getEncodedEntity(entry, ContentCoding.GZIP, 6));
+        assertEquals(100 + encodedEntity.length, cache.getSize());
+
+        // An evicted entry's encoded forms are not kept.
+        cache.clear();
+        final byte[] deflatedEntity = cache.getEncodedEntity(entry, ContentCoding.DEFLATE, 6);
+        assertNotSame(deflatedEntity, cache.getEncodedEntity(entry, ContentCoding.DEFLATE, 6));
+        assertEquals(0, cache.getSize());
+    }
+
+    private static ResponseCache.Key newKey(final String uri) {
+
+        final int queryStart = uri.indexOf('?');
+        final URI requestUri = URI.create((queryStart < 0) ? uri : uri.substring(0, queryStart));
+        final String queryString = (queryStart < 0) ? null : uri.substring(queryStart + 1);
+        return ResponseCache.newKey(requestUri, queryString, newDimensions(), FORMAT_URI, "application/json");
+    }
+
+    private static Dimensions newDimensions() {
+
+        return new DimensionsBuilder(SCHEMA_URI).toDimensions();
+    }
+
+    private static ResponseCache.Entry newEntry(final int size, final Model responseModel) {
+
+        return ResponseCache.newEntry(new byte[size], "application/json", Locale.ENGLISH, new EntityTag("1", false), 0L, responseModel);
+    }
+
+    private static Document newDocument(final String uri) {
+
+        final Document document = mock(Document.class);
+        when(document.getUri()).thenReturn(URI.create(uri));
+        when(document.getSlotMap()).thenReturn(Collections.<String, Object>emptyMap());
+        return document;
+    }
+
+    private static Map<String, Object> slotMap(final String slotName, final Object slotValue) {
+
+        final Map<String, Object> slotMap = new HashMap<>();
+        slotMap.put(slotName, slotValue);
+        return slotMap;
+    }
+}
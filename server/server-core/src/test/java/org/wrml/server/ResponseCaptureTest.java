@@ -0,0 +1,58 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResponseCaptureTest {
+
+    @Test
+    public void capturesAnEntityWithinTheLimit() {
+
+        final ResponseCapture capture = new ResponseCapture(4);
+        capture.write('a');
+        capture.write(new byte[]{'x', 'b', 'c', 'd', 'y'}, 1, 3);
+
+        assertTrue(capture.isComplete());
+        assertArrayEquals(new byte[]{'a', 'b', 'c', 'd'}, capture.toByteArray());
+    }
+
+    @Test
+    public void dropsAnEntityThatOutgrowsTheLimit() {
+
+        final ResponseCapture capture = new ResponseCapture(4);
+        capture.write(new byte[3], 0, 3);
+        capture.write(new byte[2], 0, 2);
+
+        assertFalse(capture.isComplete());
+        assertNull(capture.toByteArray());
+
+        // Later (smaller) writes do not resume the capture.
+        capture.write('a');
+        assertFalse(capture.isComplete());
+    }
+}
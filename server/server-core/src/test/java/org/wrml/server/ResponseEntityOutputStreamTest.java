@@ -0,0 +1,202 @@
+/**
+ * WRML - Web Resource Modeling Language
+ *  __     __   ______   __    __   __
+ * /\ \  _ \ \ /\  == \ /\ "-./  \ /\ \
+ * \ \ \/ ".\ \\ \  __< \ \ \-./\ \\ \ \____
+ *  \ \__/".~\_\\ \_\ \_\\ \_\ \ \_\\ \_____\
+ *   \/_/   \/_/ \/_/ /_/ \/_/  \/_/ \/_____/
+ *
+ * http://www.wrml.org
+ *
+ * Copyright (C) 2011 - 2013 Mark Masse <mark@wrml.org> (OSS project WRML.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wrml.server;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHeaders;
+import org.junit.Before;
+import org.junit.Test;
+import org.wrml.runtime.rest.EntityTag;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class ResponseEntityOutputStreamTest {
+
+    private static final int BUFFER_SIZE = 64;
+
+    private BufferPool _BufferPool;
+
+    private HttpServletResponse _Response;
+
+    private ByteArrayOutputStream _ResponseEntity;
+
+    @Before
+    public void setUp() throws IOException {
+
+        _BufferPool = new BufferPool(BUFFER_SIZE, 1);
+        _ResponseEntity = new ByteArrayOutputStream();
+        _Response = mock(HttpServletResponse.class);
+        when(_Response.getOutputStream()).thenReturn(new ServletOutputStream() {
+
+            @Override
+            public void write(final int b) {
+
+                _ResponseEntity.write(b);
+            }
+        });
+    }
+
+    @Test
+    public void bufferedEntityIsSentWithItsContentLength() throws IOException {
+
+        final ResponseEntityOutputStream out = new ResponseEntityOutputStream(_Response, _BufferPool);
+        final byte[] entity = newEntity(BUFFER_SIZE - 1);
+        out.write(entity[0]);
+        out.write(entity, 1, entity.length - 1);
+        out.flush();
+
+        // Nothing is sent until the stream is closed.
+        assertFalse(out.isStreaming());
+        assertEquals(0, _ResponseEntity.size());
+
+        out.close();
+        verify(_Response).setContentLength(entity.length);
+        assertArrayEquals(entity, _ResponseEntity.toByteArray());
+    }
+
+    @Test
+    public void entityThatOutgrowsTheBufferIsStreamed() throws IOException {
+
+        final ResponseEntityOutputStream out = new ResponseEntityOutputStream(_Response, _BufferPool);
+        final byte[] entity = newEntity(BUFFER_SIZE * 3 + 1);
+        out.write(entity, 0, 10);
+        out.write(entity, 10, BUFFER_SIZE);
+        assertTrue(out.isStreaming());
+
+        out.write(entity, BUFFER_SIZE + 10, entity.length - BUFFER_SIZE - 10);
+        out.close();
+
+        verify(_Response, never()).setContentLength(anyInt());
+        assertArrayEquals(entity, _ResponseEntity.toByteArray());
+    }
+
+    @Test
+    public void bufferedEntityIsCompressed() throws IOException {
+
+        when(_Response.getHeader(HttpHeaders.ETAG)).thenReturn("\"1\"");
+
+        final ResponseEntityOutputStream out = new ResponseEntityOutputStream(_Response, _BufferPool, ContentCoding.GZIP, 6, 16);
+        final byte[] entity = new byte[BUFFER_SIZE - 1];
+        out.write(entity);
+        out.close();
+
+        final byte[] compressedEntity = _ResponseEntity.toByteArray();
+        verify(_Response).setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        verify(_Response).setHeader(HttpHeaders.ETAG, new EntityTag("1", false).withContentCoding("gzip").toString());
+        verify(_Response).setContentLength(compressedEntity.length);
+        assertArrayEquals(entity, IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressedEntity))));
+    }
+
+    @Test
+    public void smallOrIncompressibleEntityIsNotCompressed() throws IOException {
+
+        final ResponseEntityOutputStream smallOut = new ResponseEntityOutputStream(_Response, _BufferPool, ContentCoding.GZIP, 6, 16);
+        smallOut.write(new byte[15]);
+        smallOut.close();
+
+        // Five bytes do not shrink when gzipped (its header alone is ten bytes).
+        final ResponseEntityOutputStream incompressibleOut = new ResponseEntityOutputStream(_Response, _BufferPool, ContentCoding.GZIP, 6, 0);
+        incompressibleOut.write(new byte[5]);
+        incompressibleOut.close();
+
+        verify(_Response, never()).setHeader(eq(HttpHeaders.CONTENT_ENCODING), anyString());
+        verify(_Response).setContentLength(15);
+        verify(_Response).setContentLength(5);
+        assertEquals(20, _ResponseEntity.size());
+    }
+
+    @Test
+    public void streamedEntityIsCompressed() throws IOException {
+
+        final ResponseEntityOutputStream out = new ResponseEntityOutputStream(_Response, _BufferPool, ContentCoding.GZIP, 6, Integer.MAX_VALUE);
+        final byte[] entity = newEntity(BUFFER_SIZE * 4);
+        out.write(entity);
+        out.close();
+
+        verify(_Response).setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        verify(_Response, never()).setContentLength(anyInt());
+        assertArrayEquals(entity, IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(_ResponseEntity.toByteArray()))));
+    }
+
+    @Test
+    public void closedStreamReturnsItsBufferToThePool() throws IOException {
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        _BufferPool.release(buffer);
+
+        final ResponseEntityOutputStream out = new ResponseEntityOutputStream(_Response, _BufferPool);
+        out.write(1);
+        out.close();
+        assertSame(buffer, _BufferPool.acquire());
+
+        // Closing (or discarding) again does not release the buffer twice.
+        out.close();
+        out.discard();
+        assertNotSame(buffer, _BufferPool.acquire());
+
+        try {
+            out.write(2);
+            fail("A closed stream accepted a write.");
+        }
+        catch (final IOException e) {
+            // Expected
+        }
+
+        assertEquals(1, _ResponseEntity.size());
+    }
+
+    @Test
+    public void discardedStreamSendsNothing() throws IOException {
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        _BufferPool.release(buffer);
+
+        final ResponseEntityOutputStream out = new ResponseEntityOutputStream(_Response, _BufferPool);
+        out.write(newEntity(10));
+        out.discard();
+
+        assertSame(buffer, _BufferPool.acquire());
+        verify(_Response, never()).getOutputStream();
+    }
+
+    private static byte[] newEntity(final int size) {
+
+        final byte[] entity = new byte[size];
+        for (int i = 0; i < size; i++) {
+            entity[i] = (byte) i;
+        }
+
+        return entity;
+    }
+}